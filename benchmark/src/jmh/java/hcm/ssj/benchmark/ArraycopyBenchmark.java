@@ -0,0 +1,95 @@
+/*
+ * ArraycopyBenchmark.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Util;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Util.arraycopy for all supported type pairs: from and to byte arrays (conversion)
+ * and between arrays of the same type (System.arraycopy)
+ */
+@State(Scope.Thread)
+public class ArraycopyBenchmark
+{
+    @Param({"BYTE", "CHAR", "SHORT", "INT", "LONG", "FLOAT", "DOUBLE", "BOOL"})
+    public Cons.Type type;
+
+    @Param({"100", "16000"})
+    public double sr;
+
+    @Param({"1", "8"})
+    public int dim;
+
+    @Param({"0.1", "1.0"})
+    public double window;
+
+    private Object typed;
+    private Object typedDst;
+    private byte[] bytes;
+    private int numBytes;
+
+    @Setup
+    public void setup()
+    {
+        int num = (int)(sr * window + 0.5);
+
+        typed = Stream.create(num, dim, sr, type).ptr();
+        typedDst = Stream.create(num, dim, sr, type).ptr();
+
+        numBytes = num * dim * Util.sizeOf(type);
+        bytes = new byte[numBytes];
+    }
+
+    @Benchmark
+    public Object toBytes()
+    {
+        Util.arraycopy(typed, 0, bytes, 0, numBytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public Object fromBytes()
+    {
+        Util.arraycopy(bytes, 0, typed, 0, numBytes);
+        return typed;
+    }
+
+    @Benchmark
+    public Object sameType()
+    {
+        Util.arraycopy(typed, 0, typedDst, 0, numBytes);
+        return typedDst;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * BufferBenchmark.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.LockFreeTimeBuffer;
+import hcm.ssj.core.TimeBuffer;
+
+/**
+ * Pushing windows into a TimeBuffer and reading them back, either by the writing thread itself
+ * or by several concurrent readers.
+ */
+public class BufferBenchmark
+{
+    /** capacity of the buffer in seconds, see Pipeline.Options.bufferSize */
+    private static final double CAPACITY = 2.0;
+
+    @State(Scope.Thread)
+    public abstract static class BufferState
+    {
+        @Param({"100", "16000"})
+        public double sr;
+
+        @Param({"1", "8"})
+        public int dim;
+
+        @Param({"0.1", "1.0"})
+        public double window;
+
+        @Param({"false", "true"})
+        public boolean lockFree;
+
+        @Param({"false", "true"})
+        public boolean typed;
+
+        TimeBuffer buffer;
+        float[] data;
+        int num;
+        int numBytes;
+
+        void create()
+        {
+            num = (int)(sr * window + 0.5);
+            numBytes = num * dim * 4;
+            data = new float[num * dim];
+
+            buffer = lockFree
+                     ? new LockFreeTimeBuffer(CAPACITY, sr, dim, 4, Cons.Type.FLOAT, null, typed)
+                     : new TimeBuffer(CAPACITY, sr, dim, 4, Cons.Type.FLOAT, null, typed);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Single extends BufferState
+    {
+        float[] dst;
+        int written;
+
+        @Setup(Level.Iteration)
+        public void setup()
+        {
+            create();
+            dst = new float[num * dim];
+            written = 0;
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Shared extends BufferState
+    {
+        @Setup(Level.Iteration)
+        public void setup()
+        {
+            create();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown()
+        {
+            //release readers waiting for data
+            buffer.close();
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Filled extends BufferState
+    {
+        @Setup(Level.Iteration)
+        public void setup()
+        {
+            create();
+
+            //fill the whole buffer once, the readers then never wait for the writer
+            for (double t = 0; t < CAPACITY; t += window)
+                buffer.push(data, numBytes);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader
+    {
+        float[] dst = new float[0];
+    }
+
+    @Benchmark
+    public int pushGet(Single s)
+    {
+        s.buffer.push(s.data, s.numBytes);
+        s.written += s.num;
+
+        return s.buffer.get(s.dst, s.written - s.num, s.num);
+    }
+
+    @Benchmark
+    @Group("multiReader")
+    @GroupThreads(1)
+    public void writer(Shared s)
+    {
+        s.buffer.push(s.data, s.numBytes);
+    }
+
+    @Benchmark
+    @Group("multiReader")
+    @GroupThreads(3)
+    public int reader(Shared s, Reader r)
+    {
+        //the shared state might not be set up yet when the reader's state is, so allocate here
+        if (r.dst.length != s.data.length)
+            r.dst = new float[s.data.length];
+
+        //latest complete window
+        int start = Math.max(0, s.buffer.getAvailableSamples(0) - s.num);
+        return s.buffer.get(r.dst, start, s.num);
+    }
+
+    /**
+     * Readers only, measures what the readers cost each other (e.g. by writing to shared cache lines)
+     */
+    @Benchmark
+    @Group("readers")
+    @GroupThreads(4)
+    public int readOnly(Filled s, Reader r)
+    {
+        if (r.dst.length != s.data.length)
+            r.dst = new float[s.data.length];
+
+        int start = Math.max(0, s.buffer.getAvailableSamples(0) - s.num);
+        return s.buffer.get(r.dst, start, s.num);
+    }
+}
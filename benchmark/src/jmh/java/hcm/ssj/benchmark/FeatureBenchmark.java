@@ -0,0 +1,85 @@
+/*
+ * FeatureBenchmark.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hcm.ssj.body.AccelerationFeatures;
+import hcm.ssj.core.SSJException;
+import hcm.ssj.core.stream.Stream;
+import hcm.ssj.signal.Functionals;
+
+/**
+ * Feature extractors which reduce each window to a single sample
+ */
+public class FeatureBenchmark
+{
+    @State(Scope.Thread)
+    public static class FunctionalsState extends SignalState
+    {
+        @Setup
+        public void setup() throws SSJException
+        {
+            fixture = new TransformerFixture(new Functionals(), sr, dim, window);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AccelerationFeaturesState
+    {
+        @Param({"50", "100"})
+        public double sr;
+
+        @Param({"1.0", "5.0"})
+        public double window;
+
+        TransformerFixture fixture;
+
+        @Setup
+        public void setup() throws SSJException
+        {
+            //expects the three axes of an accelerometer
+            fixture = new TransformerFixture(new AccelerationFeatures(), sr, 3, window);
+        }
+    }
+
+    @Benchmark
+    public Stream functionals(FunctionalsState s)
+    {
+        return s.fixture.transform();
+    }
+
+    @Benchmark
+    public Stream accelerationFeatures(AccelerationFeaturesState s)
+    {
+        return s.fixture.transform();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * FilterBenchmark.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hcm.ssj.core.SSJException;
+import hcm.ssj.core.stream.Stream;
+import hcm.ssj.signal.Butfilt;
+import hcm.ssj.signal.FilterTools;
+import hcm.ssj.signal.IIR;
+import hcm.ssj.signal.MvgAvgVar;
+import hcm.ssj.signal.MvgMinMax;
+
+/**
+ * Filters which keep state across windows, each invocation transforms one window
+ */
+public class FilterBenchmark
+{
+    private static final int ORDER = 4;
+    private static final double LOW = 0.01;
+    private static final double HIGH = 0.3;
+
+    @State(Scope.Thread)
+    public static class MvgAvgVarState extends SignalState
+    {
+        @Param({"MOVING", "SLIDING"})
+        public MvgAvgVar.Method method;
+
+        @Setup
+        public void setup() throws SSJException
+        {
+            MvgAvgVar mvg = new MvgAvgVar();
+            mvg.options.method.set(method);
+            mvg.options.format.set(MvgAvgVar.Format.AVG_AND_VAR);
+            mvg.options.window.set(10.);
+            fixture = new TransformerFixture(mvg, sr, dim, window);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MvgMinMaxState extends SignalState
+    {
+        @Param({"MOVING", "SLIDING"})
+        public MvgMinMax.Method method;
+
+        @Setup
+        public void setup() throws SSJException
+        {
+            MvgMinMax mvg = new MvgMinMax();
+            mvg.options.method.set(method);
+            mvg.options.format.set(MvgMinMax.Format.ALL);
+            mvg.options.windowSize.set(10.f);
+            fixture = new TransformerFixture(mvg, sr, dim, window);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ButfiltState extends SignalState
+    {
+        @Setup
+        public void setup() throws SSJException
+        {
+            Butfilt filt = new Butfilt();
+            filt.options.type.set(Butfilt.Type.BAND);
+            filt.options.order.set(ORDER);
+            filt.options.low.set(LOW);
+            filt.options.high.set(HIGH);
+            fixture = new TransformerFixture(filt, sr, dim, window);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class IIRState extends SignalState
+    {
+        @Setup
+        public void setup() throws SSJException
+        {
+            IIR iir = new IIR();
+            iir.setCoefficients(FilterTools.getInstance().getBPButter(ORDER, LOW, HIGH));
+            fixture = new TransformerFixture(iir, sr, dim, window);
+        }
+    }
+
+    @Benchmark
+    public Stream mvgAvgVar(MvgAvgVarState s)
+    {
+        return s.fixture.transform();
+    }
+
+    @Benchmark
+    public Stream mvgMinMax(MvgMinMaxState s)
+    {
+        return s.fixture.transform();
+    }
+
+    @Benchmark
+    public Stream butfilt(ButfiltState s)
+    {
+        return s.fixture.transform();
+    }
+
+    @Benchmark
+    public Stream iir(IIRState s)
+    {
+        return s.fixture.transform();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * SpectralBenchmark.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hcm.ssj.core.SSJException;
+import hcm.ssj.core.stream.Stream;
+import hcm.ssj.signal.FFTfeat;
+import hcm.ssj.signal.Spectrogram;
+
+/**
+ * FFT based transformers
+ */
+public class SpectralBenchmark
+{
+    @State(Scope.Thread)
+    public static class SpectrogramState
+    {
+        @Param({"100", "16000"})
+        public double sr;
+
+        @Param({"0.1", "1.0"})
+        public double window;
+
+        TransformerFixture fixture;
+
+        @Setup
+        public void setup() throws SSJException
+        {
+            //smallest fft which covers the whole window
+            int num = (int)(sr * window + 0.5);
+            int nfft = Integer.highestOneBit(num);
+            if (nfft < num)
+                nfft <<= 1;
+
+            Spectrogram spectrogram = new Spectrogram();
+            spectrogram.options.nfft.set(nfft);
+            fixture = new TransformerFixture(spectrogram, sr, 1, window);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FFTfeatState extends SignalState
+    {
+        @Setup
+        public void setup() throws SSJException
+        {
+            fixture = new TransformerFixture(new FFTfeat(), sr, dim, window);
+        }
+    }
+
+    @Benchmark
+    public Stream spectrogram(SpectrogramState s)
+    {
+        return s.fixture.transform();
+    }
+
+    @Benchmark
+    public Stream fftfeat(FFTfeatState s)
+    {
+        return s.fixture.transform();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * TransformerFixture.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.benchmark;
+
+import java.util.Random;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Provider;
+import hcm.ssj.core.SSJException;
+import hcm.ssj.core.Transformer;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Sets up a transformer the same way the pipeline does, but with a synthetic source,
+ * so that transform() can be called in a loop without running a pipeline.
+ */
+public class TransformerFixture
+{
+    private final Transformer transformer;
+
+    public final Stream[] in;
+    public final Stream out;
+
+    /**
+     * @param sr sample rate of the input in Hz
+     * @param dim dimension of the input
+     * @param window window size in seconds
+     */
+    public TransformerFixture(Transformer transformer, double sr, int dim, double window) throws SSJException
+    {
+        this.transformer = transformer;
+
+        int num = (int)(sr * window + 0.5);
+        Stream stream = Stream.create(num, dim, sr, Cons.Type.FLOAT);
+        stream.dataclass = new String[dim];
+        for (int j = 0; j < dim; j++)
+            stream.dataclass[j] = "dim" + j;
+        fill(stream, new Random(num * dim));
+
+        transformer.setup(new Provider[]{new Source(stream)}, window, 0);
+
+        in = new Stream[]{stream};
+        out = transformer.getOutputStream();
+        transformer.enter(in, out);
+    }
+
+    public Stream transform()
+    {
+        transformer.transform(in, out);
+        return out;
+    }
+
+    /**
+     * Fills the stream with a noisy sine per dimension
+     */
+    public static void fill(Stream stream, Random random)
+    {
+        float[] ptr = stream.ptrF();
+        for (int i = 0; i < stream.num; i++)
+        {
+            for (int j = 0; j < stream.dim; j++)
+            {
+                double phase = 2 * Math.PI * (j + 1) * i / stream.sr;
+                ptr[i * stream.dim + j] = (float)(Math.sin(phase) + 0.1 * random.nextGaussian());
+            }
+        }
+    }
+
+    /**
+     * Provider which only describes the input stream, it is never started
+     */
+    private static class Source extends Provider
+    {
+        Source(Stream stream)
+        {
+            _name = "Source";
+            _stream_out = stream;
+        }
+
+        @Override
+        public void run() {}
+
+        @Override
+        public String[] getOutputClasses()
+        {
+            return _stream_out.dataclass;
+        }
+    }
+}
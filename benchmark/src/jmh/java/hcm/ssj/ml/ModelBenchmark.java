@@ -0,0 +1,204 @@
+/*
+ * ModelBenchmark.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.ml;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.stream.Stream;
+import libsvm.svm;
+import libsvm.svm_model;
+import libsvm.svm_node;
+import libsvm.svm_parameter;
+import libsvm.svm_print_interface;
+import libsvm.svm_problem;
+
+/**
+ * Classification of a single feature vector with models which are generated from synthetic data on setup.
+ * Lives in the ml package as forward() and load() are not part of the public API.
+ */
+@State(Scope.Thread)
+public class ModelBenchmark
+{
+    private static final int SAMPLES_PER_CLASS = 50;
+
+    @Param({"8", "64"})
+    public int dim;
+
+    @Param({"2", "8"})
+    public int classes;
+
+    private NaiveBayes naiveBayesModel;
+    private SVM svmModel;
+    private Stream[] input;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        Random random = new Random(dim * classes);
+
+        //class c is centered around c in every dimension
+        double[][] samples = new double[classes * SAMPLES_PER_CLASS][dim];
+        double[] labels = new double[samples.length];
+        for (int i = 0; i < samples.length; i++)
+        {
+            labels[i] = i / SAMPLES_PER_CLASS;
+            for (int j = 0; j < dim; j++)
+                samples[i][j] = labels[i] + random.nextGaussian();
+        }
+
+        File dir = Files.createTempDirectory("ssj-benchmark").toFile();
+        dir.deleteOnExit();
+
+        naiveBayesModel = new NaiveBayes();
+        naiveBayesModel.load(writeNaiveBayes(new File(dir, "model.NaiveBayes.model")));
+
+        svmModel = new SVM();
+        svmModel.load(writeSVM(new File(dir, "model.SVM.model"), samples, labels));
+
+        input = new Stream[]{Stream.create(1, dim, 1, Cons.Type.FLOAT)};
+        float[] ptr = input[0].ptrF();
+        for (int j = 0; j < dim; j++)
+            ptr[j] = (float)(classes / 2 + random.nextGaussian());
+    }
+
+    @Benchmark
+    public float[] naiveBayes()
+    {
+        return naiveBayesModel.forward(input);
+    }
+
+    @Benchmark
+    public float[] svm()
+    {
+        return svmModel.forward(input);
+    }
+
+    private File writeNaiveBayes(File file) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(file);
+        writer.println("# Classifier type:\tnaive_bayes");
+        writer.println(classes + "\t" + dim);
+        for (int c = 0; c < classes; c++)
+        {
+            writer.println();
+            writer.println("class" + c + "\t" + (1.0 / classes));
+            for (int j = 0; j < dim; j++)
+                writer.println(c + "\t1.0");
+        }
+        writer.close();
+        file.deleteOnExit();
+
+        return file;
+    }
+
+    private File writeSVM(File file, double[][] samples, double[] labels) throws IOException
+    {
+        double[] max = new double[dim];
+        double[] min = new double[dim];
+        for (int j = 0; j < dim; j++)
+        {
+            max[j] = -Double.MAX_VALUE;
+            min[j] = Double.MAX_VALUE;
+            for (double[] sample : samples)
+            {
+                max[j] = Math.max(max[j], sample[j]);
+                min[j] = Math.min(min[j], sample[j]);
+            }
+        }
+
+        //train on data scaled to [-1, 1] like SVM.scale_instance() does for the input
+        svm_problem problem = new svm_problem();
+        problem.l = samples.length;
+        problem.y = labels;
+        problem.x = new svm_node[samples.length][dim];
+        for (int i = 0; i < samples.length; i++)
+        {
+            for (int j = 0; j < dim; j++)
+            {
+                problem.x[i][j] = new svm_node();
+                problem.x[i][j].index = j + 1;
+                problem.x[i][j].value = -1 + 2 * (samples[i][j] - min[j]) / (max[j] - min[j]);
+            }
+        }
+
+        svm_parameter param = new svm_parameter();
+        param.svm_type = svm_parameter.C_SVC;
+        param.kernel_type = svm_parameter.RBF;
+        param.gamma = 1.0 / dim;
+        param.C = 1;
+        param.cache_size = 100;
+        param.eps = 1e-3;
+        param.shrinking = 1;
+        param.probability = 1;
+        param.weight_label = new int[0];
+        param.weight = new double[0];
+
+        svm.svm_set_print_string_function(new svm_print_interface()
+        {
+            @Override
+            public void print(String s) {}
+        });
+        svm_model model = svm.svm_train(problem, param);
+
+        File libsvmFile = new File(file.getPath() + ".libsvm");
+        svm.svm_save_model(libsvmFile.getPath(), model);
+
+        //model file in the format of SSI's svm trainer, see SVM.load()
+        PrintWriter writer = new PrintWriter(file);
+        writer.println("# Classifier type:\tsvm");
+        writer.println("# number of classes\tfeature space dimension");
+        writer.println(classes + "\t" + dim);
+        writer.println("# class names");
+        for (int c = 0; c < classes; c++)
+            writer.print((c > 0 ? " " : "") + "class" + c);
+        writer.println();
+        writer.println("# Scaling: max\tmin");
+        for (int j = 0; j < dim; j++)
+            writer.println(max[j] + "\t" + min[j]);
+        writer.println();
+        for (String line : Files.readAllLines(libsvmFile.toPath(), StandardCharsets.US_ASCII))
+            writer.println(line);
+        writer.close();
+
+        libsvmFile.delete();
+        file.deleteOnExit();
+
+        return file;
+    }
+}
@@ -35,15 +35,21 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import hcm.ssj.audio.AudioChannel;
 import hcm.ssj.audio.AudioWriter;
 import hcm.ssj.audio.Microphone;
 import hcm.ssj.audio.Pitch;
+import hcm.ssj.audio.WavWriter;
 import hcm.ssj.core.EventChannel;
 import hcm.ssj.core.Pipeline;
 import hcm.ssj.core.Provider;
 import hcm.ssj.event.ThresholdEventSender;
+import hcm.ssj.file.FileReader;
+import hcm.ssj.file.FileReaderChannel;
 import hcm.ssj.praat.Intensity;
 import hcm.ssj.signal.Avg;
 import hcm.ssj.test.EventLogger;
@@ -112,6 +118,81 @@ public class AudioTest
 
     }
 
+    @Test
+    public void testWavWriter() throws Exception
+    {
+        //resources
+        File dir = getContext().getFilesDir();
+        String fileName = "audio.stream";
+        File header = new File(dir, fileName);
+        TestHelper.copyAssetToFile(fileName, header);
+        File data = new File(dir, fileName + "~");
+        TestHelper.copyAssetToFile(fileName + "data", data); //android does not support "~" in asset files
+        File file = new File(dir, getClass().getSimpleName() + ".wav");
+
+        //setup
+        Pipeline frame = Pipeline.getInstance();
+        frame.options.bufferSize.set(2.0f);
+        frame.options.countdown.set(0);
+        frame.options.replay.set(true);
+
+        //sensor
+        FileReader reader = new FileReader();
+        reader.options.filePath.set(dir.getAbsolutePath());
+        reader.options.fileName.set(fileName);
+        reader.options.loop.set(false);
+
+        FileReaderChannel channel = new FileReaderChannel();
+        channel.options.chunk.set(0.032);
+        frame.addSensor(reader, channel);
+
+        //consumer
+        WavWriter wavWriter = new WavWriter();
+        wavWriter.options.filePath.set(dir.getPath());
+        wavWriter.options.fileName.set(file.getName());
+        wavWriter.options.headerInterval.set(0.5);
+        frame.addConsumer(wavWriter, channel, 0.1, 0);
+
+        //start framework
+        frame.start();
+
+        Assert.assertTrue(frame.waitForReplay(TestHelper.DUR_TEST_NORMAL / 1000.0));
+
+        frame.stop();
+        frame.options.replay.set(false);
+        frame.clear();
+
+        //verify test, 16 bit mono pcm at 16 kHz behind an 80 byte header
+        Assert.assertTrue(file.exists());
+
+        byte[] bytes = new byte[80];
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        raf.readFully(bytes);
+        raf.close();
+        ByteBuffer wav = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        long dataSize = file.length() - bytes.length;
+        Assert.assertEquals(wavWriter.getWindowStats().getProcessed() * 1600 * 2, dataSize);
+        Assert.assertEquals("RIFF", new String(bytes, 0, 4));
+        Assert.assertEquals(file.length() - 8, wav.getInt(4));
+        Assert.assertEquals("JUNK", new String(bytes, 12, 4));
+        Assert.assertEquals("fmt ", new String(bytes, 48, 4));
+        Assert.assertEquals(1, wav.getShort(58));
+        Assert.assertEquals(16000, wav.getInt(60));
+        Assert.assertEquals(16, wav.getShort(70));
+        Assert.assertEquals("data", new String(bytes, 72, 4));
+        Assert.assertEquals(dataSize, wav.getInt(76));
+
+        //cleanup
+        if (file.exists())
+        {
+            if (!file.delete())
+            {
+                throw new RuntimeException("File could not be deleted");
+            }
+        }
+    }
+
     @Test
     public void testSpeechrate() throws Exception
     {
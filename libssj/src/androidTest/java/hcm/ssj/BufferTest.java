@@ -0,0 +1,337 @@
+/*
+ * BufferTest.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.LockFreeTimeBuffer;
+import hcm.ssj.core.TimeBuffer;
+import hcm.ssj.core.Util;
+import hcm.ssj.core.stream.Stream;
+import hcm.ssj.core.stream.StreamView;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Multi-reader stress tests for the inter-component buffers.
+ * Buffers are driven directly by plain threads, no pipeline or device features are required.
+ */
+public class BufferTest
+{
+	private static final int DIM = 3;
+	private static final int NUM_READERS = 6;
+	private static final int NUM_SAMPLES = 200000;
+	private static final int PUSH_SAMPLES = 5;
+	private static final int READ_SAMPLES = 20;
+
+	@Test
+	public void testLockedBuffer() throws Exception
+	{
+		stress(new TimeBuffer(1.0, 1000, DIM, 4, Cons.Type.FLOAT, null));
+	}
+
+	@Test
+	public void testLockFreeBuffer() throws Exception
+	{
+		stress(new LockFreeTimeBuffer(1.0, 1000, DIM, 4, Cons.Type.FLOAT, null));
+	}
+
+	@Test
+	public void testTypedBuffer() throws Exception
+	{
+		stress(new TimeBuffer(1.0, 1000, DIM, 4, Cons.Type.FLOAT, null, true));
+	}
+
+	@Test
+	public void testTypedLockFreeBuffer() throws Exception
+	{
+		stress(new LockFreeTimeBuffer(1.0, 1000, DIM, 4, Cons.Type.FLOAT, null, true));
+	}
+
+	@Test
+	public void testTypedByteAccess() throws Exception
+	{
+		TimeBuffer buffer = new TimeBuffer(1.0, 10, DIM, 4, Cons.Type.FLOAT, null, true);
+		assertTrue(buffer.isTyped());
+
+		//push more than the capacity to force a wrap
+		float[] sample = new float[DIM];
+		for (int i = 0; i < 15; i++)
+		{
+			for (int j = 0; j < DIM; j++)
+			{
+				sample[j] = i * DIM + j;
+			}
+			buffer.push(sample, DIM * 4);
+		}
+
+		//mixed-type readers still get the little-endian byte representation
+		byte[] bytes = new byte[8 * DIM * 4];
+		assertEquals(TimeBuffer.STATUS_SUCCESS, buffer.get(bytes, 7, 8));
+
+		float[] values = new float[8 * DIM];
+		Util.arraycopy(bytes, 0, values, 0, bytes.length);
+		for (int i = 0; i < values.length; i++)
+		{
+			assertEquals(7 * DIM + i, values[i], 0);
+		}
+	}
+
+	@Test
+	public void testViews() throws Exception
+	{
+		TimeBuffer typed = new TimeBuffer(1.0, 10, DIM, 4, Cons.Type.FLOAT, null, true);
+		TimeBuffer untyped = new TimeBuffer(1.0, 10, DIM, 4, Cons.Type.FLOAT, null);
+
+		float[] sample = new float[DIM];
+		for (int i = 0; i < 13; i++)
+		{
+			for (int j = 0; j < DIM; j++)
+			{
+				sample[j] = i * DIM + j;
+			}
+			typed.push(sample, DIM * 4);
+			untyped.push(sample, DIM * 4);
+		}
+
+		//window 8..12 wraps around the end of the ring and is accessed in place
+		StreamView view = new StreamView(Stream.create(4, DIM, 10, Cons.Type.FLOAT));
+		assertEquals(TimeBuffer.STATUS_SUCCESS, typed.getView(view, 8, 4));
+		assertFalse(view.copied);
+		assertFalse(view.isContiguous());
+		assertEquals(4 * DIM, view.size());
+		for (int i = 0; i < view.size(); i++)
+		{
+			assertEquals(8 * DIM + i, view.getF(i), 0);
+		}
+		assertTrue(typed.isValid(view));
+
+		//writer overwrites the window
+		for (int i = 0; i < 6; i++)
+		{
+			typed.push(sample, DIM * 4);
+		}
+		assertFalse(typed.isValid(view));
+
+		//byte storage always requires a copy
+		StreamView copy = new StreamView(Stream.create(4, DIM, 10, Cons.Type.FLOAT));
+		assertEquals(TimeBuffer.STATUS_SUCCESS, untyped.getView(copy, 8, 4));
+		assertTrue(copy.copied);
+		assertTrue(copy.isContiguous());
+		for (int i = 0; i < copy.size(); i++)
+		{
+			assertEquals(8 * DIM + i, copy.getF(i), 0);
+		}
+	}
+
+	@Test
+	public void testAvailableSamples() throws Exception
+	{
+		TimeBuffer buffer = new TimeBuffer(1.0, 10, DIM, 4, Cons.Type.FLOAT, null);
+		assertEquals(0, buffer.getAvailableSamples(0));
+
+		float[] sample = new float[DIM];
+		for (int i = 0; i < 7; i++)
+		{
+			buffer.push(sample, DIM * 4);
+		}
+
+		assertEquals(7, buffer.getAvailableSamples(0));
+		assertEquals(2, buffer.getAvailableSamples(5));
+		assertEquals(-1, buffer.getAvailableSamples(8));
+	}
+
+	@Test
+	public void testReaderBackpressure() throws Exception
+	{
+		backpressure(new TimeBuffer(1.0, 100, DIM, 4, Cons.Type.FLOAT, null));
+		backpressure(new LockFreeTimeBuffer(1.0, 100, DIM, 4, Cons.Type.FLOAT, null));
+	}
+
+	/**
+	 * A fast writer waiting for space must never overwrite data a slow registered reader still needs
+	 */
+	private void backpressure(final TimeBuffer buffer) throws Exception
+	{
+		final int samples = 5000;
+		final int reader = buffer.addReader();
+		final AtomicInteger corrupt = new AtomicInteger(0);
+
+		Thread writer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				float[] chunk = new float[PUSH_SAMPLES * DIM];
+				for (int pos = 0; pos < samples; pos += PUSH_SAMPLES)
+				{
+					if (!buffer.awaitSpace(chunk.length * 4))
+					{
+						return;
+					}
+
+					for (int i = 0; i < chunk.length; i++)
+					{
+						chunk[i] = (float) (pos * DIM + i);
+					}
+					buffer.push(chunk, chunk.length * 4);
+				}
+			}
+		});
+		writer.start();
+
+		float[] window = new float[READ_SAMPLES * DIM];
+		for (int pos = 0; pos + READ_SAMPLES <= samples; pos += READ_SAMPLES)
+		{
+			assertEquals(TimeBuffer.STATUS_SUCCESS, buffer.get(window, pos, READ_SAMPLES));
+
+			for (int i = 0; i < window.length; i++)
+			{
+				if (window[i] != (float) (pos * DIM + i))
+				{
+					corrupt.incrementAndGet();
+				}
+			}
+
+			if (pos % 500 == 0)
+			{
+				Thread.sleep(1);
+			}
+
+			buffer.advanceReader(reader, pos + READ_SAMPLES);
+		}
+
+		writer.join(10000);
+		assertFalse(writer.isAlive());
+		assertEquals("corrupted values", 0, corrupt.get());
+	}
+
+	private void stress(final TimeBuffer buffer) throws Exception
+	{
+		final AtomicInteger corrupt = new AtomicInteger(0);
+		final AtomicInteger windows = new AtomicInteger(0);
+
+		Thread[] readers = new Thread[NUM_READERS];
+		for (int r = 0; r < NUM_READERS; r++)
+		{
+			final int reader = r;
+			readers[r] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					//every second reader accesses the buffer through views
+					boolean views = (reader % 2 == 1);
+					StreamView view = new StreamView(Stream.create(READ_SAMPLES, DIM, 1000, Cons.Type.FLOAT));
+					float[] window = new float[READ_SAMPLES * DIM];
+					int pos = 0;
+
+					while (pos + READ_SAMPLES <= NUM_SAMPLES)
+					{
+						int status = views ? buffer.getView(view, pos, READ_SAMPLES) : buffer.get(window, pos, READ_SAMPLES);
+
+						if (status == TimeBuffer.STATUS_SUCCESS && views)
+						{
+							for (int i = 0; i < window.length; i++)
+							{
+								window[i] = view.getF(i);
+							}
+
+							if (!buffer.isValid(view))
+							{
+								status = TimeBuffer.STATUS_DATA_NOT_IN_BUFFER_ANYMORE;
+							}
+						}
+
+						if (status == TimeBuffer.STATUS_DATA_NOT_IN_BUFFER_ANYMORE)
+						{
+							//reader fell behind, continue with the most recent data
+							pos = (int) (buffer.getPositionAbs() / buffer.getBytesPerSample());
+							continue;
+						}
+						else if (status != TimeBuffer.STATUS_SUCCESS)
+						{
+							break;
+						}
+
+						//every window reported as valid has to contain exactly what has been written
+						for (int i = 0; i < READ_SAMPLES; i++)
+						{
+							for (int j = 0; j < DIM; j++)
+							{
+								if (window[i * DIM + j] != (float) ((pos + i) * DIM + j))
+								{
+									corrupt.incrementAndGet();
+								}
+							}
+						}
+
+						windows.incrementAndGet();
+						pos += READ_SAMPLES;
+					}
+				}
+			});
+			readers[r].start();
+		}
+
+		float[] chunk = new float[PUSH_SAMPLES * DIM];
+		for (int pos = 0; pos < NUM_SAMPLES; pos += PUSH_SAMPLES)
+		{
+			for (int i = 0; i < chunk.length; i++)
+			{
+				chunk[i] = (float) (pos * DIM + i);
+			}
+
+			buffer.push(chunk, chunk.length * 4);
+
+			if (pos % 1000 == 0)
+			{
+				Thread.yield();
+			}
+		}
+
+		for (Thread reader : readers)
+		{
+			reader.join(10000);
+		}
+
+		buffer.close();
+
+		for (Thread reader : readers)
+		{
+			reader.join();
+		}
+
+		assertEquals("corrupted values", 0, corrupt.get());
+		assertTrue("no windows read", windows.get() > 0);
+	}
+}
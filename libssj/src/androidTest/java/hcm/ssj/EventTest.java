@@ -29,17 +29,29 @@ package hcm.ssj;
 import android.support.test.filters.SmallTest;
 import android.support.test.runner.AndroidJUnit4;
 
+import junit.framework.Assert;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.util.ArrayList;
 
 import hcm.ssj.androidSensor.AndroidSensor;
 import hcm.ssj.androidSensor.AndroidSensorChannel;
 import hcm.ssj.androidSensor.SensorType;
+import hcm.ssj.core.Cons;
 import hcm.ssj.core.EventChannel;
+import hcm.ssj.core.EventQueue;
 import hcm.ssj.core.Pipeline;
 import hcm.ssj.core.Provider;
+import hcm.ssj.core.event.BinaryEventDecoder;
+import hcm.ssj.core.event.BinaryEventEncoder;
+import hcm.ssj.core.event.ByteEvent;
+import hcm.ssj.core.event.Event;
+import hcm.ssj.core.event.EventPool;
+import hcm.ssj.core.event.StringEvent;
+import hcm.ssj.core.event.XmlEventEncoder;
 import hcm.ssj.event.FloatSegmentEventSender;
 import hcm.ssj.event.FloatsEventSender;
 import hcm.ssj.event.ThresholdEventSender;
@@ -162,4 +174,270 @@ public class EventTest
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEventPool() throws Exception
+    {
+        EventPool pool = new EventPool(4);
+
+        Event ev = pool.obtain(Cons.Type.FLOAT);
+        ev.adjust(3);
+        float[] payload = ev.ptrF();
+        ev.name = "test";
+
+        //a second reference keeps the event out of the pool
+        ev.retain();
+        ev.release();
+        Assert.assertEquals(0, pool.getSize());
+
+        ev.release();
+        Assert.assertEquals(1, pool.getSize());
+
+        //recycled event comes back with a clean header and the same payload
+        Event ev2 = pool.obtain(Cons.Type.FLOAT);
+        Assert.assertSame(ev, ev2);
+        Assert.assertEquals("", ev2.name);
+        ev2.adjust(3);
+        Assert.assertSame(payload, ev2.ptrF());
+
+        Assert.assertEquals(1, pool.getHits());
+        Assert.assertEquals(1, pool.getMisses());
+
+        //events of other types are not mixed up
+        Event ev3 = pool.obtain(Cons.Type.STRING);
+        Assert.assertTrue(ev3 instanceof StringEvent);
+        Assert.assertEquals(2, pool.getMisses());
+    }
+
+    @Test
+    public void testEventReader() throws Exception
+    {
+        EventChannel channel = new EventChannel();
+
+        Event ev = channel.obtainEvent(Cons.Type.EMPTY);
+        ev.time = 42;
+        channel.pushEvent(ev);
+
+        //the reader's reference keeps the event alive while it is overwritten in the ring
+        Event read = channel.getEvent(0, false);
+        Assert.assertSame(ev, read);
+
+        for (int i = 0; i < Cons.MAX_NUM_EVENTS_PER_CHANNEL; i++)
+        {
+            Event next = channel.obtainEvent(Cons.Type.EMPTY);
+            Assert.assertNotSame(read, next);
+            next.time = 1000 + i;
+            channel.pushEvent(next);
+        }
+        Assert.assertEquals(42, read.time);
+
+        //once released, the event goes back to the pool
+        int size = channel.getEventPool().getSize();
+        read.release();
+        Assert.assertEquals(size + 1, channel.getEventPool().getSize());
+
+        //a lagging reader gets the oldest event, with its own reference
+        Event oldest = channel.getEvent(0, false);
+        Assert.assertEquals(1, oldest.id);
+        oldest.release();
+    }
+
+    @Test
+    public void testEventQueue() throws Exception
+    {
+        EventQueue queue = new EventQueue();
+        for (int i = 0; i < 3; i++)
+        {
+            Event ev = Event.create(Cons.Type.STRING);
+            ev.name = "ev" + i;
+            ev.setData("ä");
+            queue.add(ev);
+        }
+
+        //all events fit into one batch
+        XmlEventEncoder encoder = new XmlEventEncoder();
+        encoder.begin("test");
+        Assert.assertEquals(3, queue.drainTo(encoder, 0, 0, 4096));
+        encoder.end();
+
+        int size = encoder.encode();
+        String xml = new String(encoder.bytes(), 0, size, "UTF-8");
+        Assert.assertTrue(xml.startsWith("<events"));
+        Assert.assertTrue(xml.endsWith("</events>"));
+        Assert.assertTrue(xml.contains("event=\"ev2\""));
+        Assert.assertTrue(xml.contains("ä"));
+
+        //size limit splits the batch, the remaining event stays queued
+        for (int i = 0; i < 2; i++)
+        {
+            queue.add(Event.create(Cons.Type.EMPTY));
+        }
+        encoder.clear();
+        Assert.assertEquals(1, queue.drainTo(encoder, 0, 0, 1));
+        Assert.assertEquals(1, queue.size());
+        Assert.assertNotNull(queue.poll(0));
+        Assert.assertNull(queue.poll(1));
+
+        //the limit is in bytes, non-ASCII text takes more bytes than characters
+        StringBuilder umlauts = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+        {
+            umlauts.append("\u00e4");
+        }
+        int chars = 0;
+        for (int batch = 0; batch < 2; batch++)
+        {
+            for (int i = 0; i < 2; i++)
+            {
+                Event ev = Event.create(Cons.Type.STRING);
+                ev.name = "umlauts";
+                ev.setData(umlauts.toString());
+                queue.add(ev);
+            }
+            if (batch == 0)
+            {
+                encoder.clear();
+                encoder.begin("test");
+                Assert.assertEquals(2, queue.drainTo(encoder, 0, 0, 4096));
+                encoder.end();
+                size = encoder.encode();
+                chars = new String(encoder.bytes(), 0, size, "UTF-8").length();
+                Assert.assertTrue(chars < size);
+            }
+        }
+
+        encoder.clear();
+        encoder.begin("test");
+        Assert.assertEquals(1, queue.drainTo(encoder, 0, 0, chars));
+        encoder.end();
+        Assert.assertTrue(encoder.encode() <= chars);
+        Assert.assertEquals(1, queue.size());
+        Assert.assertNotNull(queue.poll(0));
+
+        //a full queue drops and releases the oldest events
+        final int[] released = {0};
+        EventQueue bounded = new EventQueue(2);
+        for (int i = 0; i < 5; i++)
+        {
+            ByteEvent ev = new ByteEvent()
+            {
+                @Override
+                public void release()
+                {
+                    released[0]++;
+                }
+            };
+            ev.id = i;
+            bounded.add(ev);
+        }
+        Assert.assertEquals(2, bounded.size());
+        Assert.assertEquals(3, bounded.getDropped());
+        Assert.assertEquals(3, released[0]);
+        Assert.assertEquals(3, bounded.poll(0).id);
+        Assert.assertEquals(4, bounded.poll(0).id);
+    }
+
+    @Test
+    public void testBinaryFormat() throws Exception
+    {
+        BinaryEventEncoder encoder = new BinaryEventEncoder(true);
+        encoder.begin("test");
+
+        Event ev = Event.create(Cons.Type.FLOAT);
+        ev.sender = "classifier";
+        ev.name = "probs";
+        ev.time = 100000;
+        ev.dur = 40;
+        ev.setData(new float[]{0.25f, -1.5f, Float.MAX_VALUE});
+        encoder.add(ev);
+
+        ev = Event.create(Cons.Type.STRING);
+        ev.sender = "speech";
+        ev.name = "läuft";
+        ev.time = 99000; //negative delta
+        ev.state = Event.State.CONTINUED;
+        ev.setData("hello");
+        encoder.add(ev);
+
+        encoder.add(Event.create(Cons.Type.EMPTY));
+        encoder.end();
+
+        int size = encoder.encode();
+        Assert.assertEquals(size, BinaryEventDecoder.getMessageSize(encoder.bytes(), 0));
+
+        //decode into a plain list instead of a channel
+        final ArrayList<Event> events = new ArrayList<>();
+        BinaryEventDecoder decoder = new BinaryEventDecoder();
+        Assert.assertEquals(3, decoder.decode(encoder.bytes(), 0, size, new BinaryEventDecoder.Sink()
+        {
+            @Override
+            public Event obtain(Cons.Type type)
+            {
+                return Event.create(type);
+            }
+
+            @Override
+            public void push(Event ev)
+            {
+                events.add(ev);
+            }
+        }));
+
+        Assert.assertEquals("classifier", events.get(0).sender);
+        Assert.assertEquals(100000, events.get(0).time);
+        Assert.assertEquals(40, events.get(0).dur);
+        Assert.assertEquals(-1.5f, events.get(0).ptrF()[1], 0);
+        Assert.assertEquals(Float.MAX_VALUE, events.get(0).ptrF()[2], 0);
+
+        Assert.assertEquals("läuft", events.get(1).name);
+        Assert.assertEquals(99000, events.get(1).time);
+        Assert.assertEquals(Event.State.CONTINUED, events.get(1).state);
+        Assert.assertEquals("hello", events.get(1).ptrStr());
+
+        Assert.assertEquals(Cons.Type.EMPTY, events.get(2).type);
+
+        //truncated messages are rejected
+        Assert.assertEquals(-1, decoder.decode(encoder.bytes(), 0, size - 1, (BinaryEventDecoder.Sink) null));
+
+        //array lengths exceeding the event are rejected, the incomplete event is released
+        encoder.clear();
+        encoder.begin("test");
+        ev = Event.create(Cons.Type.BYTE);
+        ev.setData(new byte[]{1, 2, 3});
+        encoder.add(ev);
+        encoder.end();
+        size = encoder.encode();
+        Assert.assertEquals(3, encoder.bytes()[size - 4]);
+
+        final int[] obtained = new int[2];
+        BinaryEventDecoder.Sink counter = new BinaryEventDecoder.Sink()
+        {
+            @Override
+            public Event obtain(Cons.Type type)
+            {
+                obtained[0]++;
+                return new ByteEvent()
+                {
+                    @Override
+                    public void release()
+                    {
+                        obtained[1]++;
+                    }
+                };
+            }
+
+            @Override
+            public void push(Event ev)
+            {
+                Assert.fail();
+            }
+        };
+
+        encoder.bytes()[size - 4] = 4;
+        Assert.assertEquals(-1, decoder.decode(encoder.bytes(), 0, size, counter));
+        encoder.bytes()[size - 4] = 0x7F;
+        Assert.assertEquals(-1, decoder.decode(encoder.bytes(), 0, size, counter));
+        Assert.assertEquals(2, obtained[0]);
+        Assert.assertEquals(2, obtained[1]);
+    }
+}
@@ -37,11 +37,14 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Random;
 
 import hcm.ssj.androidSensor.AndroidSensor;
 import hcm.ssj.androidSensor.AndroidSensorChannel;
 import hcm.ssj.androidSensor.SensorType;
+import hcm.ssj.core.Cons;
 import hcm.ssj.core.Pipeline;
+import hcm.ssj.file.AsciiEncoder;
 import hcm.ssj.file.FileReader;
 import hcm.ssj.file.FileReaderChannel;
 import hcm.ssj.file.FileWriter;
@@ -50,6 +53,8 @@ import hcm.ssj.file.SimpleXmlParser;
 import hcm.ssj.test.Logger;
 
 import static android.support.test.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests all classes in the logging package.<br>
@@ -77,6 +82,69 @@ public class FileTest
         testWriteRead(false);
     }
 
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testMemoryMapped() throws Exception
+    {
+        File dir = getInstrumentation().getContext().getFilesDir();
+        File fileHeader = new File(dir, getClass().getSimpleName() + "Mapped." + LoggingConstants.FILE_EXTENSION_STREAM);
+        File fileReal = new File(fileHeader.getPath() + LoggingConstants.TAG_DATA_FILE);
+        //write
+        buildPipeline(fileHeader, true, true);
+        //mapped data file is truncated to the written samples
+        if (fileReal.length() % (3 * 4) != 0)
+        {
+            throw new RuntimeException("incomplete samples in data file");
+        }
+        //read
+        buildPipeline(fileHeader, false, true);
+        //cleanup
+        if (!fileHeader.delete() || !fileReal.delete())
+        {
+            throw new RuntimeException("files could not be deleted");
+        }
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Test
+    public void testAsciiEncoder() throws Exception
+    {
+        AsciiEncoder encoder = new AsciiEncoder(LoggingConstants.DELIMITER_ATTRIBUTE, LoggingConstants.DELIMITER_LINE);
+        byte[] buffer = new byte[AsciiEncoder.MAX_VALUE_BYTES];
+
+        float[] floats = {0f, -0f, 1f, -1.5f, 0.1f, 123.456f, 1e7f, 1e-4f, 0.001f, 9999999f, 3.4028235e38f, 1.4e-45f, Float.NaN};
+        String[] expected = {"0.0", "-0.0", "1.0", "-1.5", "0.1", "123.456", "1.0E7", "1.0E-4", "0.001", "9999999.0", "3.4028235E38", "1.4E-45", "NaN"};
+        for (int i = 0; i < floats.length; i++)
+        {
+            assertEquals(expected[i], new String(buffer, 0, encoder.putFloat(buffer, 0, floats[i]), "UTF-8"));
+        }
+
+        assertEquals("-9223372036854775808", new String(buffer, 0, encoder.putLong(buffer, 0, Long.MIN_VALUE), "UTF-8"));
+        assertEquals("0.30000000000000004", new String(buffer, 0, encoder.putDouble(buffer, 0, 0.1 + 0.2), "UTF-8"));
+
+        //every value has to parse back to itself
+        Random random = new Random(0);
+        for (int i = 0; i < 100000; i++)
+        {
+            float f = Float.intBitsToFloat(random.nextInt());
+            if (!Float.isNaN(f))
+            {
+                assertEquals(f, Float.parseFloat(new String(buffer, 0, encoder.putFloat(buffer, 0, f), "UTF-8")), 0);
+            }
+
+            float g = (random.nextFloat() - 0.5f) * 1000;
+            assertTrue(Float.toString(g).length() >= encoder.putFloat(buffer, 0, g));
+            assertEquals(g, Float.parseFloat(new String(buffer, 0, encoder.putFloat(buffer, 0, g), "UTF-8")), 0);
+
+            double d = random.nextGaussian() * 100;
+            assertEquals(d, Double.parseDouble(new String(buffer, 0, encoder.putDouble(buffer, 0, d), "UTF-8")), 0);
+        }
+    }
+
     /**
      * @throws Exception
      */
@@ -147,9 +215,9 @@ public class FileTest
         String fileName = getClass().getSimpleName() + "." + getClass().getSimpleName();
         File fileHeader = new File(dir, fileName);
         //write
-        buildPipeline(fileHeader, true);
+        buildPipeline(fileHeader, true, false);
         //read
-        buildPipeline(fileHeader, false);
+        buildPipeline(fileHeader, false, false);
         //cleanup
         if (fileHeader.exists())
         {
@@ -171,19 +239,20 @@ public class FileTest
     /**
      * @param file  File
      * @param write boolean
+     * @param mapped boolean
      * @throws Exception
      */
-    private void buildPipeline(File file, boolean write) throws Exception
+    private void buildPipeline(File file, boolean write, boolean mapped) throws Exception
     {
         //setup
         Pipeline framework = Pipeline.getInstance();
         framework.options.bufferSize.set(10.0f);
         if (write)
         {
-            write(framework, file);
+            write(framework, file, mapped);
         } else
         {
-            read(framework, file);
+            read(framework, file, mapped);
         }
         //start framework
         framework.start();
@@ -206,9 +275,10 @@ public class FileTest
     /**
      * @param frame TheFramework
      * @param file  File
+     * @param mapped boolean
      * @throws Exception
      */
-    private void write(Pipeline frame, File file) throws Exception
+    private void write(Pipeline frame, File file, boolean mapped) throws Exception
     {
         //sensor
         AndroidSensor sensorConnection = new AndroidSensor();
@@ -221,21 +291,28 @@ public class FileTest
         FileWriter fileWriter = new FileWriter();
         fileWriter.options.filePath.set(file.getParent());
         fileWriter.options.fileName.set(file.getName());
+        if (mapped)
+        {
+            fileWriter.options.type.set(Cons.FileType.BINARY);
+            fileWriter.options.memoryMapped.set(true);
+        }
         frame.addConsumer(fileWriter, sensorConnectionChannel, 0.25, 0);
     }
 
     /**
      * @param frame TheFramework
      * @param file  File
+     * @param mapped boolean
      * @throws Exception
      */
-    private void read(Pipeline frame, File file) throws Exception
+    private void read(Pipeline frame, File file, boolean mapped) throws Exception
     {
         //sensor
         FileReader fileReader = new FileReader();
         fileReader.options.filePath.set(file.getParent());
         fileReader.options.fileName.set(file.getName());
         fileReader.options.loop.set(true);
+        fileReader.options.memoryMapped.set(mapped);
 
         //channel
         FileReaderChannel fileReaderChannel = new FileReaderChannel();
@@ -29,24 +29,47 @@ package hcm.ssj;
 import android.support.test.filters.SmallTest;
 import android.support.test.runner.AndroidJUnit4;
 
+import junit.framework.Assert;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
 
 import hcm.ssj.androidSensor.AndroidSensor;
 import hcm.ssj.androidSensor.AndroidSensorChannel;
 import hcm.ssj.androidSensor.SensorType;
 import hcm.ssj.biosig.HRVSpectral;
+import hcm.ssj.body.AccelerationFeatures;
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Consumer;
+import hcm.ssj.core.Metrics;
 import hcm.ssj.core.Pipeline;
+import hcm.ssj.core.Provider;
+import hcm.ssj.core.SensorChannel;
+import hcm.ssj.core.Transformer;
+import hcm.ssj.core.stream.Stream;
 import hcm.ssj.file.FileReader;
 import hcm.ssj.file.FileReaderChannel;
+import hcm.ssj.signal.BiquadCascade;
+import hcm.ssj.signal.Butfilt;
 import hcm.ssj.signal.Derivative;
 import hcm.ssj.signal.FFTfeat;
+import hcm.ssj.signal.FloatMatrix;
+import hcm.ssj.signal.FilterTools;
 import hcm.ssj.signal.Functionals;
+import hcm.ssj.signal.MatrixOps;
+import hcm.ssj.signal.MvgAvgVar;
 import hcm.ssj.signal.PSD;
 import hcm.ssj.signal.Spectrogram;
+import hcm.ssj.signal.Spectrum;
 import hcm.ssj.test.Logger;
+import hcm.ssj.test.Profiler;
 
 import static android.support.test.InstrumentationRegistry.getContext;
 import static android.support.test.InstrumentationRegistry.getInstrumentation;
@@ -114,6 +137,58 @@ public class SignalTest
 		data.delete();
 	}
 
+	@Test
+	public void testWorkers() throws Exception
+	{
+		// Setup
+		Pipeline frame = Pipeline.getInstance();
+		frame.options.bufferSize.set(10.0f);
+		frame.options.countdown.set(0);
+		frame.options.workers.set(2);
+
+		// Sensor
+		AndroidSensor sensor = new AndroidSensor();
+		sensor.options.sensorType.set(SensorType.ACCELEROMETER);
+		AndroidSensorChannel channel = new AndroidSensorChannel();
+		channel.options.sampleRate.set(40);
+		frame.addSensor(sensor, channel);
+
+		// Transformers and consumers are executed by the shared workers
+		Derivative deriv = new Derivative();
+		frame.addTransformer(deriv, channel, 1, 0);
+
+		Functionals func = new Functionals();
+		frame.addTransformer(func, deriv, 1, 0);
+
+		Logger log = new Logger();
+		frame.addConsumer(log, func, 1, 0);
+
+		// start framework
+		frame.start();
+
+		// Run test
+		long end = System.currentTimeMillis() + TestHelper.DUR_TEST_NORMAL;
+		try
+		{
+			while (System.currentTimeMillis() < end)
+			{
+				Thread.sleep(1);
+			}
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+		}
+
+		// stop framework
+		frame.stop();
+		frame.options.workers.set(0);
+		frame.clear();
+
+		Assert.assertTrue(deriv.getWindowStats().getProcessed() > 0);
+		Assert.assertTrue(log.getWindowStats().getProcessed() > 0);
+	}
+
 	@Test
 	public void testDerivative() throws Exception
 	{
@@ -257,6 +332,133 @@ public class SignalTest
 		frame.clear();
 	}
 
+	@Test
+	public void testReplay() throws Exception
+	{
+		File dir = getContext().getFilesDir();
+		String fileName = "audio.stream";
+		File header = new File(dir, fileName);
+		TestHelper.copyAssetToFile(fileName, header);
+		File data = new File(dir, fileName + "~");
+		TestHelper.copyAssetToFile(fileName + "data", data); //android does not support "~" in asset files
+
+		// Setup
+		Pipeline frame = Pipeline.getInstance();
+		frame.options.bufferSize.set(2.0f);
+		frame.options.countdown.set(0);
+		frame.options.replay.set(true);
+
+		// Sensor
+		FileReader file = new FileReader();
+		file.options.filePath.set(dir.getAbsolutePath());
+		file.options.fileName.set(fileName);
+		file.options.loop.set(false);
+
+		FileReaderChannel channel = new FileReaderChannel();
+		channel.options.chunk.set(0.032);
+		frame.addSensor(file, channel);
+
+		// Transformer
+		Spectrogram spectrogram = new Spectrogram();
+		spectrogram.options.banks.set("0.003 0.040, 0.040 0.150, 0.150 0.400");
+		spectrogram.options.nbanks.set(3);
+		spectrogram.options.nfft.set(1024);
+		frame.addTransformer(spectrogram, channel, 0.1, 0);
+
+		Logger log = new Logger();
+		frame.addConsumer(log, spectrogram, 0.1, 0);
+
+		// start framework
+		frame.start();
+
+		//the whole file is processed without waiting for the system clock
+		Assert.assertTrue(frame.waitForReplay(TestHelper.DUR_TEST_NORMAL / 1000.0));
+
+		// stop framework
+		frame.stop();
+		frame.options.replay.set(false);
+		frame.clear();
+
+		Assert.assertTrue(spectrogram.getWindowStats().getProcessed() > 0);
+		Assert.assertEquals(0, spectrogram.getWindowStats().getDropped());
+		Assert.assertEquals(spectrogram.getWindowStats().getProcessed(), log.getWindowStats().getProcessed());
+	}
+
+	@Test
+	public void testSpectrum() throws Exception
+	{
+		// Setup
+		Pipeline frame = Pipeline.getInstance();
+		frame.options.bufferSize.set(10.0f);
+		frame.options.countdown.set(0);
+		frame.options.replay.set(true);
+
+		// Sensors, 60s at 100 Hz
+		SensorChannel signal = wave(6000, 1);
+		frame.addSensor(new Profiler(), signal);
+		SensorChannel acc = wave(6000, 3);
+		frame.addSensor(new Profiler(), acc);
+
+		// Shared ffts, computed once per frame
+		Spectrum hamming = new Spectrum();
+		hamming.options.nfft.set(2 * (129 - 1));
+		hamming.options.wintype.set(FilterTools.WINDOW_TYPE.HAMMING);
+		frame.addTransformer(hamming, signal, 2.56, 0);
+
+		Spectrum rectangle = new Spectrum();
+		frame.addTransformer(rectangle, signal, 2.56, 0);
+
+		Spectrum accSpectrum = new Spectrum();
+		frame.addTransformer(accSpectrum, acc, 1.28, 0);
+
+		// Every spectral transformer once with its own fft and once on the shared spectrum
+		Recorder[] spectrograms = new Recorder[2];
+		Recorder[] psds = new Recorder[2];
+		Recorder[] features = new Recorder[2];
+		for (int i = 0; i < 2; i++)
+		{
+			boolean shared = (i == 1);
+
+			Spectrogram spectrogram = new Spectrogram();
+			spectrogram.options.banks.set("1 5, 5 20, 20 45");
+			spectrogram.options.nbanks.set(3);
+			spectrogram.options.nfft.set(129);
+			spectrogram.options.spectrum.set(shared);
+			frame.addTransformer(spectrogram, shared ? hamming : signal, 2.56, 0);
+
+			PSD psd = new PSD();
+			psd.options.spectrum.set(shared);
+			frame.addTransformer(psd, shared ? rectangle : signal, 2.56, 0);
+
+			AccelerationFeatures feat = new AccelerationFeatures();
+			feat.options.spectrum.set(shared);
+			frame.addTransformer(feat, shared ? new Provider[] {acc, accSpectrum} : new Provider[] {acc}, 1.28, 0);
+
+			spectrograms[i] = new Recorder();
+			frame.addConsumer(spectrograms[i], spectrogram, 2.56, 0);
+			psds[i] = new Recorder();
+			frame.addConsumer(psds[i], psd, 2.56, 0);
+			features[i] = new Recorder();
+			frame.addConsumer(features[i], feat, 1.28, 0);
+		}
+
+		// start framework
+		frame.start();
+
+		Assert.assertTrue(frame.waitForReplay(TestHelper.DUR_TEST_NORMAL / 1000.0));
+
+		// stop framework
+		frame.stop();
+		frame.options.replay.set(false);
+		frame.options.bufferSize.set(2.0f);
+		frame.clear();
+
+		// the shared spectrum must not change a single value
+		assertSameWindows(spectrograms[0], spectrograms[1]);
+		assertSameWindows(psds[0], psds[1]);
+		assertSameWindows(features[0], features[1]);
+	}
+
 	@Test
 	public void testPSD() throws Exception
 	{
@@ -295,4 +497,566 @@ public class SignalTest
 		frame.stop();
 		frame.release();
 	}
+
+	@Test
+	public void testFloatMatrix() throws Exception
+	{
+		FloatMatrix a = new FloatMatrix(2, 3);
+		for (int i = 0; i < a.getSize(); i++)
+			a.setData(i, i + 1);
+
+		// matrix-vector
+		FloatMatrix vec = new FloatMatrix(3, 1);
+		vec.fillValue(2);
+		FloatMatrix res = new FloatMatrix(2, 1);
+		MatrixOps.getInstance().multV(a, vec, res);
+		Assert.assertEquals(12f, res.getData(0));
+		Assert.assertEquals(30f, res.getData(1));
+
+		// row vector times transposed matrix gives the same result
+		FloatMatrix t = a.clone();
+		t.transpose();
+		Assert.assertEquals(3, t.getRows());
+		Assert.assertEquals(a.getData(1, 2), t.getData(2, 1));
+
+		vec.transpose();
+		FloatMatrix res2 = new FloatMatrix(1, 2);
+		MatrixOps.getInstance().multM(vec, t, res2);
+		Assert.assertEquals(res.getData(0), res2.getData(0));
+		Assert.assertEquals(res.getData(1), res2.getData(1));
+
+		// elementwise
+		FloatMatrix b = a.clone();
+		MatrixOps.getInstance().mult(b, a);
+		Assert.assertEquals(36f, b.getData(1, 2));
+
+		// submatrix
+		FloatMatrix c = new FloatMatrix(3, 4);
+		c.fillValue(0);
+		c.setSubMatrix(1, 1, a);
+		Assert.assertEquals(0f, c.getData(0, 1));
+		Assert.assertEquals(1f, c.getData(1, 1));
+		Assert.assertEquals(6f, c.getData(2, 3));
+	}
+
+	@Test
+	public void testBiquadCascade() throws Exception
+	{
+		FloatMatrix sos = FilterTools.getInstance().getBPButter(4, 0.1, 0.4);
+		int sections = sos.getRows();
+		int num = 100;
+
+		for (int dim : new int[]{1, 5, 64})
+		{
+			for (int groups : new int[]{1, 3})
+			{
+				BiquadCascade cascade = new BiquadCascade(sos, dim);
+				cascade.setGroups(groups);
+
+				float[] history = new float[sections * dim * 2];
+				Random random = new Random(dim);
+
+				for (int frame = 0; frame < 3; frame++)
+				{
+					float[] src = new float[num * dim];
+					for (int i = 0; i < src.length; i++)
+						src[i] = (float) random.nextGaussian();
+
+					// direct form, sample by sample and channel by channel
+					float[] expected = new float[num * dim];
+					for (int i = 0; i < num; i++)
+					{
+						for (int j = 0; j < dim; j++)
+						{
+							float value = src[i * dim + j];
+							for (int k = 0; k < sections; k++)
+							{
+								int h = (j * sections + k) * 2;
+								float hist1 = history[h];
+								float hist2 = history[h + 1];
+
+								value -= hist1 * sos.getData(k, 4);
+								float newHist = value - hist2 * sos.getData(k, 5);
+								value = newHist * sos.getData(k, 0);
+								value += hist1 * sos.getData(k, 1);
+								value += hist2 * sos.getData(k, 2);
+
+								history[h + 1] = hist1;
+								history[h] = newHist;
+							}
+							expected[i * dim + j] = value;
+						}
+					}
+
+					// in place
+					cascade.process(src, src, num);
+
+					for (int i = 0; i < expected.length; i++)
+						Assert.assertEquals(expected[i], src[i], 0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testChain() throws Exception
+	{
+		File dir = getContext().getFilesDir();
+		String fileName = "audio.stream";
+		File header = new File(dir, fileName);
+		TestHelper.copyAssetToFile(fileName, header);
+		File data = new File(dir, fileName + "~");
+		TestHelper.copyAssetToFile(fileName + "data", data); //android does not support "~" in asset files
+
+		// Setup
+		Pipeline frame = Pipeline.getInstance();
+		frame.options.bufferSize.set(2.0f);
+		frame.options.countdown.set(0);
+		frame.options.replay.set(true);
+
+		// Sensor
+		FileReader file = new FileReader();
+		file.options.filePath.set(dir.getAbsolutePath());
+		file.options.fileName.set(fileName);
+		file.options.loop.set(false);
+
+		FileReaderChannel channel = new FileReaderChannel();
+		channel.options.chunk.set(0.032);
+		frame.addSensor(file, channel);
+
+		// Filter and smooth on a single thread
+		Butfilt filt = new Butfilt();
+		filt.options.type.set(Butfilt.Type.LOW);
+		filt.options.high.set(0.2);
+		filt.options.order.set(4);
+
+		MvgAvgVar avg = new MvgAvgVar();
+		avg.options.window.set(0.05);
+		avg.options.method.set(MvgAvgVar.Method.SLIDING);
+
+		frame.addChain(new Transformer[]{filt, avg}, channel, 0.1, 0);
+
+		Logger log = new Logger();
+		frame.addConsumer(log, avg, 0.1, 0);
+
+		// Intermediate output is still available to other readers
+		Logger log2 = new Logger();
+		frame.addConsumer(log2, filt, 0.2, 0);
+
+		// start framework
+		frame.start();
+
+		Assert.assertTrue(frame.waitForReplay(TestHelper.DUR_TEST_NORMAL / 1000.0));
+
+		// stop framework
+		frame.stop();
+		frame.options.replay.set(false);
+		frame.clear();
+
+		Assert.assertTrue(avg.isFused());
+		Assert.assertFalse(filt.isFused());
+		Assert.assertTrue(filt.getWindowStats().getProcessed() > 0);
+		Assert.assertEquals(filt.getWindowStats().getProcessed(), avg.getWindowStats().getProcessed());
+		Assert.assertEquals(avg.getWindowStats().getProcessed(), log.getWindowStats().getProcessed());
+		Assert.assertEquals(filt.getWindowStats().getProcessed() / 2, log2.getWindowStats().getProcessed());
+	}
+
+	@Test
+	public void testMetrics() throws Exception
+	{
+		File dir = getContext().getFilesDir();
+		String fileName = "audio.stream";
+		File header = new File(dir, fileName);
+		TestHelper.copyAssetToFile(fileName, header);
+		File data = new File(dir, fileName + "~");
+		TestHelper.copyAssetToFile(fileName + "data", data); //android does not support "~" in asset files
+
+		// Setup
+		Pipeline frame = Pipeline.getInstance();
+		frame.options.bufferSize.set(2.0f);
+		frame.options.countdown.set(0);
+		frame.options.replay.set(true);
+		frame.options.metrics.set(true);
+
+		// Sensor
+		FileReader file = new FileReader();
+		file.options.filePath.set(dir.getAbsolutePath());
+		file.options.fileName.set(fileName);
+		file.options.loop.set(false);
+
+		FileReaderChannel channel = new FileReaderChannel();
+		channel.options.chunk.set(0.032);
+		frame.addSensor(file, channel);
+
+		Butfilt filt = new Butfilt();
+		filt.options.type.set(Butfilt.Type.LOW);
+		filt.options.high.set(0.2);
+		frame.addTransformer(filt, channel, 0.1, 0);
+
+		Logger log = new Logger();
+		frame.addConsumer(log, filt, 0.1, 0);
+
+		// start framework
+		frame.start();
+
+		Assert.assertTrue(frame.waitForReplay(TestHelper.DUR_TEST_NORMAL / 1000.0));
+
+		// stop framework
+		frame.stop();
+		frame.options.replay.set(false);
+		frame.options.metrics.set(false);
+
+		// metrics are kept until the next start
+		Metrics.Snapshot snapshot = frame.getMetrics().snapshot();
+		frame.clear();
+
+		Assert.assertEquals((double) filt.getWindowStats().getProcessed(), snapshot.get(filt.getComponentName(), "processed"));
+		Assert.assertEquals((double) channel.getWindowStats().getProcessed(), snapshot.get(channel.getComponentName(), "processed"));
+		Assert.assertTrue(snapshot.get(filt.getComponentName(), "process.p50") > 0);
+		Assert.assertTrue(snapshot.get(filt.getComponentName(), "process.p99") >= snapshot.get(filt.getComponentName(), "process.p50"));
+		Assert.assertEquals(filt.getWindowStats().getProcessed(), filt.getWindowStats().getProcessTime().getCount());
+		Assert.assertTrue(snapshot.get(channel.getComponentName(), "buffer.fill") > 0);
+		Assert.assertEquals(0.0, snapshot.get(channel.getComponentName(), "buffer.overruns"));
+	}
+
+	@Test
+	public void testReplayBackpressure() throws Exception
+	{
+		//one thread per component and a single shared worker
+		replayBackpressure(0, 0, false);
+		replayBackpressure(1, 0, false);
+	}
+
+	@Test
+	public void testReplayFinish() throws Exception
+	{
+		//the replay must not finish while the last window is still being transformed
+		replayBackpressure(0, 500, false);
+		replayBackpressure(1, 500, false);
+	}
+
+	@Test
+	public void testReleaseThreads() throws Exception
+	{
+		Set<Thread> before = new HashSet<>(Thread.getAllStackTraces().keySet());
+
+		replayBackpressure(1, 0, false);
+		Pipeline.getInstance().release();
+
+		//a released pipeline must not leave any threads behind which keep the process alive
+		for (Thread thread : Thread.getAllStackTraces().keySet())
+		{
+			if (!before.contains(thread) && thread.isAlive() && !thread.isDaemon())
+				Assert.fail("thread still running: " + thread.getName());
+		}
+	}
+
+	@Test
+	public void testReplayClock() throws Exception
+	{
+		Pipeline frame = Pipeline.getInstance();
+		frame.options.countdown.set(0);
+		frame.options.replay.set(true);
+
+		//the short recording ends after 1s, the long one after 5s
+		SensorChannel shortChannel = counter(1000);
+		frame.addSensor(new Profiler(), shortChannel);
+		SensorChannel longChannel = counter(5000);
+		frame.addSensor(new Profiler(), longChannel);
+
+		final double[] clock = {0};
+		Consumer probe = new Consumer()
+		{
+			@Override
+			protected void consume(Stream[] stream_in)
+			{
+				clock[0] = _frame.getTime();
+			}
+		};
+		frame.addConsumer(probe, longChannel, 0.1, 0);
+
+		frame.start();
+		Assert.assertTrue(frame.waitForReplay(TestHelper.DUR_TEST_SHORT / 1000.0));
+		frame.stop();
+		frame.options.replay.set(false);
+		frame.clear();
+
+		//the clock has to keep following the long recording
+		Assert.assertTrue("clock stopped at " + clock[0], clock[0] >= 4.9);
+	}
+
+	@Test
+	public void testDefaultViews() throws Exception
+	{
+		//components which enable views but only implement the stream methods get copies of the views
+		replayBackpressure(0, 0, true);
+		replayBackpressure(1, 0, true);
+	}
+
+	/**
+	 * A fast transformer must not overrun a slow consumer in replay mode, every sample has to arrive in order
+	 *
+	 * @param lastDelay time the transformer spends on the last window (in ms)
+	 * @param views whether transformer and consumer read their input through views
+	 */
+	private void replayBackpressure(int workers, final long lastDelay, final boolean views) throws Exception
+	{
+		final int samples = 5000;
+
+		Pipeline frame = Pipeline.getInstance();
+		frame.options.bufferSize.set(0.5f);
+		frame.options.countdown.set(0);
+		frame.options.replay.set(true);
+		frame.options.workers.set(workers);
+
+		SensorChannel channel = counter(samples);
+		frame.addSensor(new Profiler(), channel);
+
+		Transformer copy = new Transformer()
+		{
+			{
+				_useViews = views;
+			}
+
+			@Override
+			public void transform(Stream[] stream_in, Stream stream_out)
+			{
+				System.arraycopy(stream_in[0].ptrF(), 0, stream_out.ptrF(), 0, stream_out.num);
+
+				if (stream_out.ptrF()[stream_out.num - 1] == samples - 1)
+				{
+					try
+					{
+						Thread.sleep(lastDelay);
+					}
+					catch (InterruptedException e)
+					{
+						//checked by the consumer
+					}
+				}
+			}
+
+			@Override
+			public int getSampleDimension(Stream[] stream_in)
+			{
+				return 1;
+			}
+
+			@Override
+			public int getSampleBytes(Stream[] stream_in)
+			{
+				return 4;
+			}
+
+			@Override
+			public Cons.Type getSampleType(Stream[] stream_in)
+			{
+				return Cons.Type.FLOAT;
+			}
+
+			@Override
+			public int getSampleNumber(int sampleNumber_in)
+			{
+				return sampleNumber_in;
+			}
+
+			@Override
+			protected void defineOutputClasses(Stream[] stream_in, Stream stream_out)
+			{
+				stream_out.dataclass = new String[] {"counter"};
+			}
+		};
+		frame.addTransformer(copy, channel, 0.01, 0);
+
+		final int[] next = new int[2]; //expected value, errors
+		Consumer slow = new Consumer()
+		{
+			{
+				_useViews = views;
+			}
+
+			@Override
+			protected void consume(Stream[] stream_in)
+			{
+				float[] in = stream_in[0].ptrF();
+				for (int i = 0; i < stream_in[0].num; i++)
+				{
+					if (in[i] != next[0]++)
+						next[1]++;
+				}
+
+				try
+				{
+					Thread.sleep(2);
+				}
+				catch (InterruptedException e)
+				{
+					next[1]++;
+				}
+			}
+		};
+		frame.addConsumer(slow, copy, 0.1, 0);
+
+		frame.start();
+		Assert.assertTrue(frame.waitForReplay(TestHelper.DUR_TEST_SHORT / 1000.0));
+		int received = next[0];
+		frame.stop();
+		frame.options.replay.set(false);
+		frame.options.workers.set(0);
+		frame.options.bufferSize.set(2.0f);
+		frame.clear();
+
+		Assert.assertEquals(0, next[1]);
+		Assert.assertEquals(samples, received);
+		Assert.assertEquals(0, copy.getWindowStats().getDropped());
+		Assert.assertEquals(0, slow.getWindowStats().getDropped());
+	}
+
+	/**
+	 * @return sensor channel which provides a counter at 1 kHz and reaches the end of its data after the given number of samples
+	 */
+	private SensorChannel counter(final int samples)
+	{
+		return new SensorChannel()
+		{
+			private int pos = 0;
+
+			@Override
+			protected boolean process(Stream stream_out)
+			{
+				if (pos >= samples)
+				{
+					endOfData();
+					return false;
+				}
+
+				float[] out = stream_out.ptrF();
+				for (int i = 0; i < stream_out.num; i++)
+					out[i] = pos++;
+				return true;
+			}
+
+			@Override
+			protected double getSampleRate()
+			{
+				return 1000;
+			}
+
+			@Override
+			protected int getSampleDimension()
+			{
+				return 1;
+			}
+
+			@Override
+			protected int getSampleNumber()
+			{
+				return 10;
+			}
+
+			@Override
+			protected Cons.Type getSampleType()
+			{
+				return Cons.Type.FLOAT;
+			}
+
+			@Override
+			protected void defineOutputClasses(Stream stream_out)
+			{
+				stream_out.dataclass = new String[] {"counter"};
+			}
+		};
+	}
+
+	/**
+	 * @return sensor channel which provides a mixture of sines and noise at 100 Hz for the given number of samples
+	 */
+	private SensorChannel wave(final int samples, final int dim)
+	{
+		return new SensorChannel()
+		{
+			private Random random = new Random(dim);
+			private int pos = 0;
+
+			@Override
+			protected boolean process(Stream stream_out)
+			{
+				if (pos >= samples)
+				{
+					endOfData();
+					return false;
+				}
+
+				float[] out = stream_out.ptrF();
+				for (int i = 0; i < stream_out.num; i++, pos++)
+				{
+					double t = pos / 100.0;
+					for (int d = 0; d < dim; d++)
+						out[i * dim + d] = (float) (Math.sin(2 * Math.PI * (3 + d) * t) + 0.5 * Math.sin(2 * Math.PI * (17 + 2 * d) * t) + 0.1 * random.nextGaussian());
+				}
+				return true;
+			}
+
+			@Override
+			protected double getSampleRate()
+			{
+				return 100;
+			}
+
+			@Override
+			protected int getSampleDimension()
+			{
+				return dim;
+			}
+
+			@Override
+			protected int getSampleNumber()
+			{
+				return 10;
+			}
+
+			@Override
+			protected Cons.Type getSampleType()
+			{
+				return Cons.Type.FLOAT;
+			}
+
+			@Override
+			protected void defineOutputClasses(Stream stream_out)
+			{
+				stream_out.dataclass = new String[dim];
+				for (int d = 0; d < dim; d++)
+					stream_out.dataclass[d] = "wave" + d;
+			}
+		};
+	}
+
+	/**
+	 * Keeps a copy of every window it receives
+	 */
+	private static class Recorder extends Consumer
+	{
+		final ArrayList<float[]> windows = new ArrayList<>();
+
+		@Override
+		protected void consume(Stream[] stream_in)
+		{
+			windows.add(Arrays.copyOf(stream_in[0].ptrF(), stream_in[0].num * stream_in[0].dim));
+		}
+	}
+
+	private static void assertSameWindows(Recorder expected, Recorder actual)
+	{
+		Assert.assertTrue("no windows received", expected.windows.size() > 0);
+		Assert.assertEquals(expected.windows.size(), actual.windows.size());
+
+		for (int w = 0; w < expected.windows.size(); w++)
+		{
+			float[] a = expected.windows.get(w);
+			float[] b = actual.windows.get(w);
+			Assert.assertEquals(a.length, b.length);
+			for (int i = 0; i < a.length; i++)
+				Assert.assertEquals("window " + w + ", value " + i, a[i], b[i], 0);
+		}
+	}
 }
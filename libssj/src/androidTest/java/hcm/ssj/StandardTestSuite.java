@@ -38,6 +38,7 @@ import org.junit.runners.Suite;
 		AndroidSensorTest.class,
 		AudioTest.class,
 		BodyTest.class,
+		BufferTest.class,
 		EventTest.class,
 		FileTest.class,
 		SignalTest.class,
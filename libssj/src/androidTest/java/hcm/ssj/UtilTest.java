@@ -34,11 +34,27 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.xmlpull.v1.XmlPullParser;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Consumer;
+import hcm.ssj.core.LatencyHistogram;
 import hcm.ssj.core.Log;
+import hcm.ssj.core.Pipeline;
+import hcm.ssj.core.SensorChannel;
+import hcm.ssj.core.Timer;
 import hcm.ssj.core.Util;
+import hcm.ssj.core.platform.JvmPlatform;
+import hcm.ssj.core.platform.Platform;
+import hcm.ssj.core.stream.Stream;
+import hcm.ssj.test.Profiler;
+import hcm.ssj.test.TelemetryChannel;
 
 
 @RunWith(AndroidJUnit4.class)
@@ -176,6 +192,20 @@ public class UtilTest
                 throw new RuntimeException();
     }
 
+    @Test
+    public void test8() throws Exception
+    {
+        float[] x = new float[]{0.5f, 2, 9, -20.25f};
+        float[] z = new float[8];
+
+        //same-type copies with byte offsets on both sides
+        Util.arraycopy(x, 4, z, 8, 3 * Util.sizeOf(x[0]));
+
+        for(int i = 0; i < 3; i++)
+            if(x[i + 1] != z[i + 2])
+                throw new RuntimeException();
+    }
+
     @Test
     public void testXmlToStr() throws Exception
     {
@@ -188,4 +218,274 @@ public class UtilTest
 
         Log.i("output: " + Util.xmlToString(xml));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testJoin() throws Exception
+    {
+        if(!Util.join("_", new String[]{"a", "b", "c"}).equals("a_b_c") || !Util.join("_", new String[0]).isEmpty())
+            throw new RuntimeException();
+    }
+
+    @Test
+    public void testJvmPlatform() throws Exception
+    {
+        Platform platform = new JvmPlatform(new File("ssj"));
+
+        long start = platform.elapsedRealtime();
+        Thread.sleep(50);
+        if(platform.elapsedRealtime() - start < 50)
+            throw new RuntimeException();
+
+        Platform.WakeLock lock = platform.newWakeLock("test");
+        lock.acquire();
+        lock.release();
+
+        //nice values map to java priorities, high nice value = low priority
+        int priority = Thread.currentThread().getPriority();
+        platform.setThreadPriority(Cons.THREAD_PRIORIIY_HIGH);
+        int high = Thread.currentThread().getPriority();
+        platform.setThreadPriority(Cons.THREAD_PRIORIIY_LOW);
+        int low = Thread.currentThread().getPriority();
+        Thread.currentThread().setPriority(priority);
+
+        if(high <= Thread.NORM_PRIORITY || low >= Thread.NORM_PRIORITY)
+            throw new RuntimeException();
+
+        if(!platform.getStorageDirectory().getPath().equals("ssj"))
+            throw new RuntimeException();
+    }
+
+    @Test
+    public void testLog() throws Exception
+    {
+        Pipeline.getInstance();
+        final List<String> received = new ArrayList<>();
+        Log.LogListener listener = new Log.LogListener()
+        {
+            @Override
+            public void msg(int type, String msg)
+            {
+                synchronized (received)
+                {
+                    received.add(msg);
+                }
+            }
+        };
+
+        File dir = new File(System.getProperty("java.io.tmpdir"), "ssj_log_test");
+        File file = new File(dir, "ssj.log");
+        if (file.exists() && !file.delete())
+            throw new RuntimeException();
+
+        Log.addLogListener(listener);
+        Log.getInstance().openFile(dir.getPath());
+
+        for (int i = 0; i < 100; i++)
+            Log.i("entry " + i);
+
+        Log.getInstance().closeFile();
+        Log.removeLogListener(listener);
+
+        //listeners are notified in order, callers outside of components are resolved from the calling class
+        int last = -1;
+        synchronized (received)
+        {
+            for (String msg : received)
+            {
+                if (!msg.startsWith("[UtilTest] entry "))
+                    continue;
+
+                int i = Integer.parseInt(msg.substring(msg.lastIndexOf(' ') + 1));
+                if (i != last + 1)
+                    throw new RuntimeException();
+                last = i;
+            }
+        }
+        if (last != 99)
+            throw new RuntimeException();
+
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        int lines = 0;
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+            if (line.contains("[UtilTest] entry "))
+                lines++;
+        }
+        reader.close();
+
+        if (!file.delete() || lines != 100)
+            throw new RuntimeException();
+    }
+
+    @Test
+    public void testLatencyHistogram() throws Exception
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        //1us .. 10ms
+        for (int i = 1; i <= 10000; i++)
+            histogram.record(i * 1000L);
+
+        if (histogram.getCount() != 10000 || histogram.getMax() != 10000000L)
+            throw new RuntimeException();
+
+        //percentiles are accurate to ~3%
+        if (Math.abs(histogram.getPercentile(50) - 5000000L) > 5000000L * 0.035
+            || Math.abs(histogram.getPercentile(99) - 9900000L) > 9900000L * 0.035
+            || histogram.getPercentile(100) != histogram.getMax())
+            throw new RuntimeException();
+
+        if (Math.abs(histogram.getMean() - 5000500.0) > 1)
+            throw new RuntimeException();
+
+        //small values are exact
+        histogram.reset();
+        histogram.record(3);
+        histogram.record(7);
+        if (histogram.getPercentile(50) != 3 || histogram.getPercentile(100) != 7)
+            throw new RuntimeException();
+    }
+
+    @Test
+    public void testTimer() throws Exception
+    {
+        //300 Hz cannot be represented in whole milliseconds
+        Timer timer = new Timer(1.0 / 300);
+        timer.reset();
+        timer.tick();
+        for (int i = 0; i < 300; i++)
+        {
+            timer.sync();
+            timer.tick();
+        }
+
+        //no drift, the last tick is on time
+        if (Math.abs(timer.getElapsed() - 1.0) > 0.005)
+            throw new RuntimeException();
+
+        if (Math.abs(timer.getAvgDur() - 1.0 / 300) > 0.0005 || timer.getMin() > timer.getAvgDur() || timer.getMax() < timer.getAvgDur())
+            throw new RuntimeException();
+    }
+
+    @Test
+    public void testTelemetry() throws Exception
+    {
+        Pipeline frame = Pipeline.getInstance();
+        frame.options.countdown.set(0);
+
+        final float[] max = new float[2];
+        final String[] owner = new String[1];
+        Consumer consumer = new Consumer()
+        {
+            @Override
+            protected void consume(Stream[] stream_in)
+            {
+                owner[0] = _frame.getThreadOwner(Platform.get().myTid());
+
+                float[] in = stream_in[0].ptrF();
+                for (int i = 0; i < stream_in[0].num; i++)
+                {
+                    max[0] = Math.max(max[0], in[i * stream_in[0].dim]); //process.cpu
+                    max[1] = Math.max(max[1], in[i * stream_in[0].dim + 1]); //process.rss
+                }
+            }
+        };
+
+        TelemetryChannel channel = new TelemetryChannel();
+        frame.addSensor(new Profiler(), channel);
+        frame.addConsumer(consumer, channel, 0.5, 0);
+
+        //the consumer has been added after the channel, so only the channel itself and the remaining threads are monitored
+        String[] classes = channel.getOutputClasses();
+        if (classes.length != 6 || !classes[3].equals(channel.getComponentName() + ".cpu") || !classes[5].equals("other.cpu"))
+            throw new RuntimeException();
+
+        frame.start();
+        Thread.sleep(2000);
+        frame.stop();
+        frame.clear();
+
+        //the proc file system is available on android and linux
+        if (max[0] <= 0 || max[1] <= 0)
+            throw new RuntimeException();
+
+        if (Platform.get().myTid() >= 0 && !consumer.getComponentName().equals(owner[0]))
+            throw new RuntimeException();
+    }
+
+    @Test
+    public void testWatchDog() throws Exception
+    {
+        Pipeline frame = Pipeline.getInstance();
+        frame.options.countdown.set(0);
+
+        //provides data during the first half second only
+        SensorChannel channel = new SensorChannel()
+        {
+            private int samples = 0;
+
+            @Override
+            protected boolean process(Stream stream_out)
+            {
+                stream_out.ptrF()[0] = 1;
+                return samples++ < 25;
+            }
+
+            @Override
+            protected double getSampleRate()
+            {
+                return 50;
+            }
+
+            @Override
+            protected int getSampleDimension()
+            {
+                return 1;
+            }
+
+            @Override
+            protected Cons.Type getSampleType()
+            {
+                return Cons.Type.FLOAT;
+            }
+
+            @Override
+            protected void defineOutputClasses(Stream stream_out)
+            {
+                stream_out.dataclass = new String[] {"value"};
+            }
+        };
+        channel.setWatchInterval(0.2f);
+
+        final float[] sum = new float[2];
+        Consumer consumer = new Consumer()
+        {
+            @Override
+            protected void consume(Stream[] stream_in)
+            {
+                float[] in = stream_in[0].ptrF();
+                for (int i = 0; i < stream_in[0].num; i++)
+                {
+                    sum[0] += in[i];
+                    sum[1]++;
+                }
+            }
+        };
+
+        frame.addSensor(new Profiler(), channel);
+        frame.addConsumer(consumer, channel, 0.1, 0);
+
+        frame.start();
+        Thread.sleep(2000);
+        frame.stop();
+        frame.clear();
+
+        //the gap has been filled with zeroes, so the consumer kept receiving windows
+        if (sum[0] < 20 || sum[0] > 26 || sum[1] < 80)
+            throw new RuntimeException();
+
+        if (channel.getWindowStats().getStalls() != 1 || channel.getWindowStats().getZeroes() < 50)
+            throw new RuntimeException();
+    }
+}
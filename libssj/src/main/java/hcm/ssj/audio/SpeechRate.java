@@ -143,7 +143,7 @@ public class SpeechRate extends Consumer
 
         Log.ds("peaks = " + peaks.size() + ", sr = " + peaks.size() / duration);
 
-        Event ev = Event.create(Cons.Type.STRING);
+        Event ev = _evchannel_out.obtainEvent(Cons.Type.STRING);
         ev.sender = options.sender.get();
         ev.name = options.event.get();
         ev.time = (int)(1000 * stream_in[0].time + 0.5);
@@ -29,17 +29,12 @@ package hcm.ssj.audio;
 import android.media.AudioFormat;
 import android.text.TextUtils;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Consumer;
@@ -52,10 +47,18 @@ import hcm.ssj.file.Mp4Writer;
 
 /**
  * Writes wav files.<br>
+ * The samples are streamed to the file behind a placeholder header whose sizes are patched in place,
+ * files which exceed the 4 GB limit of RIFF are turned into RF64 files (EBU Tech 3306).<br>
  * Created by Frank Gaibler and Ionut Damian on 12.12.2016.
  */
 public class WavWriter extends Consumer implements IFileWriter
 {
+    //RIFF header (12) + JUNK/ds64 chunk (8 + 28) + fmt chunk (8 + 16) + data chunk header (8)
+    private static final int HEADER_SIZE = 80;
+    private static final int DS64_SIZE = 28;
+    private static final long RIFF_MAX_SIZE = 0xFFFFFFFFL;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
     private enum DataFormat
     {
         BYTE(Microphone.audioFormatSampleBytes(AudioFormat.ENCODING_PCM_8BIT)),
@@ -81,7 +84,13 @@ public class WavWriter extends Consumer implements IFileWriter
     protected long lFrameIndex;
     //
     protected File file = null;
-    private BufferedOutputStream outputStream;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel fileChannel;
+    private ByteBuffer outputBuffer;
+    private ByteBuffer headerBuffer;
+    private long lDataBytes;
+    private long lHeaderBytes;
+    private long lRefreshBytes;
 
     public final WavWriter.Options options = new WavWriter.Options();
     //
@@ -98,6 +107,7 @@ public class WavWriter extends Consumer implements IFileWriter
     public class Options extends Mp4Writer.Options
     {
         public final Option<Cons.AudioFormat> audioFormat = new Option<>("audioFormat", Cons.AudioFormat.ENCODING_DEFAULT, Cons.AudioFormat.class, "");
+        public final Option<Double> headerInterval = new Option<>("headerInterval", 5.0, Double.class, "interval in seconds of recorded audio after which the header is updated, keeps the file playable if the recording is interrupted (0 = only on close)");
 
         /**
          *
@@ -169,10 +179,26 @@ public class WavWriter extends Consumer implements IFileWriter
         dFrameRate = stream_in[0].sr / stream_in[0].num;
         aByShuffle = new byte[(int) (iSampleNumber / dFrameRate + 0.5)];
         lFrameIndex = 0;
+        lDataBytes = 0;
+        lHeaderBytes = 0;
+        lRefreshBytes = (long) (options.headerInterval.get() * iSampleNumber);
+
+        if (outputBuffer == null)
+        {
+            outputBuffer = ByteBuffer.allocate(Math.max(OUTPUT_BUFFER_SIZE, aByShuffle.length));
+            headerBuffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        outputBuffer.clear();
 
         try
         {
-            outputStream = new BufferedOutputStream(new FileOutputStream(file));
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            randomAccessFile.setLength(0);
+            fileChannel = randomAccessFile.getChannel();
+
+            //placeholder, sizes are patched once data has been written
+            writeWavHeader();
+            fileChannel.position(HEADER_SIZE);
         } catch (IOException ex)
         {
             Log.e("RawEncoder creation failed: " + ex.getMessage());
@@ -212,7 +238,7 @@ public class WavWriter extends Consumer implements IFileWriter
                 float[] in = stream_in[0].ptrF();
                 for (int i = 0; i < in.length; )
                 {
-                    for (int j = 0; j < aByShuffle.length; j++, i += aByShuffle.length)
+                    for (int j = 0; j < aByShuffle.length; j++, i++)
                     {
                         aByShuffle[j] = (byte) (in[i] * 128);
                     }
@@ -240,6 +266,19 @@ public class WavWriter extends Consumer implements IFileWriter
                 break;
             }
         }
+
+        if (lRefreshBytes > 0 && lDataBytes - lHeaderBytes >= lRefreshBytes)
+        {
+            try
+            {
+                drain();
+                writeWavHeader();
+                fileChannel.force(false);
+            } catch (IOException ex)
+            {
+                Log.e("RawEncoder header update: " + ex.getMessage());
+            }
+        }
     }
 
     /**
@@ -248,19 +287,27 @@ public class WavWriter extends Consumer implements IFileWriter
     @Override
     public final void flush(Stream stream_in[])
     {
-        if (outputStream != null)
+        if (fileChannel != null)
         {
             try
             {
-                outputStream.flush();
-                outputStream.close();
+                //chunks are word aligned, the pad byte is not part of the data size
+                if ((lDataBytes & 1) != 0)
+                {
+                    outputBuffer.put((byte) 0);
+                }
+                drain();
+                writeWavHeader();
+                fileChannel.close();
+                randomAccessFile.close();
             } catch (IOException ex)
             {
                 Log.e("RawEncoder closing: " + ex.getMessage());
             }
+            fileChannel = null;
+            randomAccessFile = null;
         }
 
-        writeWavHeader(file);
         dataFormat = null;
     }
 
@@ -301,7 +348,12 @@ public class WavWriter extends Consumer implements IFileWriter
     {
         try
         {
-            outputStream.write(frameData, 0, frameData.length);
+            if (outputBuffer.remaining() < frameData.length)
+            {
+                drain();
+            }
+            outputBuffer.put(frameData, 0, frameData.length);
+            lDataBytes += frameData.length;
         } catch (IOException ex)
         {
             Log.e("RawEncoder: " + ex.getMessage());
@@ -309,92 +361,83 @@ public class WavWriter extends Consumer implements IFileWriter
     }
 
     /**
-     * Writes a PCM Wav header at the start of the provided file
-     * code taken from : http://stackoverflow.com/questions/9179536/writing-pcm-recorded-data-into-a-wav-file-java-android
-     * by: Oliver Mahoney, Oak Bytes
-     * @param fileToConvert File
+     * Writes the buffered samples to the file
+     *
+     * @throws IOException IOException
      */
-    private void writeWavHeader(File fileToConvert)
+    private void drain() throws IOException
     {
-        try
-        {
-            long mySubChunk1Size = 16;
-            int myBitsPerSample = 16;
-            int myFormat = 1;
-            long myChannels = iSampleDimension;
-            long mySampleRate = iSampleRate;
-            long myByteRate = mySampleRate * myChannels * myBitsPerSample / 8;
-            int myBlockAlign = (int) (myChannels * myBitsPerSample / 8);
-
-            int size = (int) fileToConvert.length();
-            byte[] bytes = new byte[size];
-            try
-            {
-                BufferedInputStream buf = new BufferedInputStream(new FileInputStream(fileToConvert));
-                buf.read(bytes, 0, bytes.length);
-                buf.close();
-            } catch (FileNotFoundException e)
-            {
-                e.printStackTrace();
-            }
-            long myDataSize = bytes.length;
-            long myChunk2Size = myDataSize * myChannels * myBitsPerSample / 8;
-            long myChunkSize = 36 + myChunk2Size;
-
-            OutputStream os;
-            os = new FileOutputStream(new File(fileToConvert.getPath()));
-            BufferedOutputStream bos = new BufferedOutputStream(os);
-            DataOutputStream outFile = new DataOutputStream(bos);
-
-            outFile.writeBytes("RIFF");                                 // 00 - RIFF
-            outFile.write(intToByteArray((int) myChunkSize), 0, 4);      // 04 - how big is the rest of this file?
-            outFile.writeBytes("WAVE");                                 // 08 - WAVE
-            outFile.writeBytes("fmt ");                                 // 12 - fmt
-            outFile.write(intToByteArray((int) mySubChunk1Size), 0, 4);  // 16 - size of this chunk
-            outFile.write(shortToByteArray((short) myFormat), 0, 2);     // 20 - what is the audio format? 1 for PCM = Pulse Code Modulation
-            outFile.write(shortToByteArray((short) myChannels), 0, 2);   // 22 - mono or stereo? 1 or 2?  (or 5 or ???)
-            outFile.write(intToByteArray((int) mySampleRate), 0, 4);     // 24 - samples per second (numbers per second)
-            outFile.write(intToByteArray((int) myByteRate), 0, 4);       // 28 - bytes per second
-            outFile.write(shortToByteArray((short) myBlockAlign), 0, 2); // 32 - # of bytes in one sample, for all channels
-            outFile.write(shortToByteArray((short) myBitsPerSample), 0, 2);  // 34 - how many bits in a sample(number)?  usually 16 or 24
-            outFile.writeBytes("data");                                 // 36 - data
-            outFile.write(intToByteArray((int) myDataSize), 0, 4);       // 40 - how big is this data chunk
-            outFile.write(bytes);                                    // 44 - the actual data itself - just a long string of numbers
-
-            outFile.flush();
-            outFile.close();
-            if (!fileToConvert.delete())
-            {
-                Log.e("File could not be deleted");
-            }
-        } catch (IOException e)
+        outputBuffer.flip();
+        while (outputBuffer.hasRemaining())
         {
-            e.printStackTrace();
+            fileChannel.write(outputBuffer);
         }
-
+        outputBuffer.clear();
     }
 
     /**
-     * Code taken from : http://stackoverflow.com/questions/9179536/writing-pcm-recorded-data-into-a-wav-file-java-android
-     * by: Oliver Mahoney, Oak Bytes
+     * Writes the PCM wav header for the samples written so far at the start of the file.
+     * The header always reserves room for a ds64 chunk, which is a JUNK chunk as long as the file fits into RIFF.
+     *
+     * @throws IOException IOException
      */
-    private static byte[] intToByteArray(int i)
+    private void writeWavHeader() throws IOException
     {
-        byte[] b = new byte[4];
-        b[0] = (byte) (i & 0x00FF);
-        b[1] = (byte) ((i >> 8) & 0x000000FF);
-        b[2] = (byte) ((i >> 16) & 0x000000FF);
-        b[3] = (byte) ((i >> 24) & 0x000000FF);
-        return b;
+        int bitsPerSample = dataFormat.size * 8;
+        int blockAlign = iSampleDimension * dataFormat.size;
+        long riffSize = Math.max(fileChannel.size(), HEADER_SIZE + lDataBytes) - 8;
+        boolean rf64 = riffSize > RIFF_MAX_SIZE;
+
+        ByteBuffer header = headerBuffer;
+        header.clear();
+        putTag(header, rf64 ? "RF64" : "RIFF");                         // 00 - RIFF
+        header.putInt(rf64 ? -1 : (int) riffSize);                      // 04 - how big is the rest of this file?
+        putTag(header, "WAVE");                                         // 08 - WAVE
+        putTag(header, rf64 ? "ds64" : "JUNK");                         // 12 - ds64 or placeholder
+        header.putInt(DS64_SIZE);                                       // 16 - size of this chunk
+        if (rf64)
+        {
+            header.putLong(riffSize);                                   // 20 - 64 bit riff size
+            header.putLong(lDataBytes);                                 // 28 - 64 bit data size
+            header.putLong(lDataBytes / blockAlign);                    // 36 - number of samples
+            header.putInt(0);                                           // 44 - no further 64 bit chunk sizes
+        }
+        else
+        {
+            for (int i = 0; i < DS64_SIZE; i++)
+            {
+                header.put((byte) 0);
+            }
+        }
+        putTag(header, "fmt ");                                         // 48 - fmt
+        header.putInt(16);                                              // 52 - size of this chunk
+        header.putShort((short) 1);                                     // 56 - what is the audio format? 1 for PCM = Pulse Code Modulation
+        header.putShort((short) iSampleDimension);                      // 58 - mono or stereo? 1 or 2?  (or 5 or ???)
+        header.putInt(iSampleRate);                                     // 60 - samples per second (numbers per second)
+        header.putInt(iSampleRate * blockAlign);                        // 64 - bytes per second
+        header.putShort((short) blockAlign);                            // 68 - # of bytes in one sample, for all channels
+        header.putShort((short) bitsPerSample);                         // 70 - how many bits in a sample(number)?  usually 16 or 24
+        putTag(header, "data");                                         // 72 - data
+        header.putInt(rf64 ? -1 : (int) lDataBytes);                    // 76 - how big is this data chunk
+        header.flip();
+
+        long position = 0;
+        while (header.hasRemaining())
+        {
+            position += fileChannel.write(header, position);
+        }
+        lHeaderBytes = lDataBytes;
     }
 
     /**
-     * Convert a short to a byte array
-     * code taken from : http://stackoverflow.com/questions/9179536/writing-pcm-recorded-data-into-a-wav-file-java-android
-     * by: Oliver Mahoney, Oak Bytes
+     * @param buffer ByteBuffer
+     * @param tag    four character chunk id
      */
-    private static byte[] shortToByteArray(short data)
+    private static void putTag(ByteBuffer buffer, String tag)
     {
-        return new byte[]{(byte) (data & 0xff), (byte) ((data >>> 8) & 0xff)};
+        for (int i = 0; i < 4; i++)
+        {
+            buffer.put((byte) tag.charAt(i));
+        }
     }
 }
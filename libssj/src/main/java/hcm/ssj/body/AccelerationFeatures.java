@@ -35,7 +35,9 @@ import hcm.ssj.core.Util;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
 import hcm.ssj.core.stream.Stream;
+import hcm.ssj.signal.FFTCache;
 import hcm.ssj.signal.MathTools;
+import hcm.ssj.signal.Spectrum;
 
 /**
  * Created by Michael Dietz on 18.10.2016.
@@ -100,6 +102,7 @@ public class AccelerationFeatures extends Transformer
 		public final Option<Boolean> spectralRolloffX = new Option<>("spectralRolloffX", true, Boolean.class, "Spectral rolloff for x-axis");
 		public final Option<Boolean> spectralRolloffY = new Option<>("spectralRolloffY", true, Boolean.class, "Spectral rolloff for y-axis");
 		public final Option<Boolean> spectralRolloffZ = new Option<>("spectralRolloffZ", true, Boolean.class, "Spectral rolloff for z-axis");
+		public final Option<Boolean> spectrum = new Option<>("spectrum", false, Boolean.class, "Take the FFT from a second input, a Spectrum transformer on the same acceleration stream, instead of computing it");
 
 		private Options()
 		{
@@ -126,7 +129,27 @@ public class AccelerationFeatures extends Transformer
 	{
 		int values = stream_in[0].num;
 
-		fft = new FloatFFT_1D(values);
+		if (options.spectrum.get())
+		{
+			Spectrum spectrum = null;
+			if (stream_in.length != 2)
+			{
+				Log.e("spectrum input missing");
+			}
+			else
+			{
+				spectrum = Spectrum.check(stream_in[1], (values >> 1) + 1, 3);
+			}
+
+			if (spectrum != null && spectrum.options.power.get())
+			{
+				Log.e("spectrum provides power, magnitudes required");
+			}
+		}
+		else
+		{
+			fft = FFTCache.getInstance().get(values);
+		}
 		inputCopy = new float[values];
 
 		xValues = new float[values];
@@ -149,9 +172,18 @@ public class AccelerationFeatures extends Transformer
 		getValues(stream_in[0], 1, yValues);
 		getValues(stream_in[0], 2, zValues);
 
-		calculateFFT(xValues, xValuesFFT);
-		calculateFFT(yValues, yValuesFFT);
-		calculateFFT(zValues, zValuesFFT);
+		if (options.spectrum.get())
+		{
+			getSpectrum(stream_in[1], 0, xValuesFFT);
+			getSpectrum(stream_in[1], 1, yValuesFFT);
+			getSpectrum(stream_in[1], 2, zValuesFFT);
+		}
+		else
+		{
+			calculateFFT(xValues, xValuesFFT);
+			calculateFFT(yValues, yValuesFFT);
+			calculateFFT(zValues, zValuesFFT);
+		}
 
 		float[] out = stream_out.ptrF();
 
@@ -747,6 +779,17 @@ public class AccelerationFeatures extends Transformer
 		}
 	}
 
+	private void getSpectrum(Stream spectrum, int dimension, float[] out)
+	{
+		float[] in = spectrum.ptrF();
+
+		// bins of all three axes are interleaved
+		for (int i = 0; i < out.length; i++)
+		{
+			out[i] = in[i * 3 + dimension];
+		}
+	}
+
 	private void calculateFFT(float[] values, float[] out)
 	{
 		System.arraycopy(values, 0, inputCopy, 0, values.length);
@@ -28,6 +28,8 @@ package hcm.ssj.core;
 
 import java.util.ArrayList;
 
+import hcm.ssj.core.platform.Platform;
+
 /**
  * Created by Johnny on 05.03.2015.
  */
@@ -39,6 +41,9 @@ public abstract class Component implements Runnable
     protected boolean _safeToKill = false;
     protected boolean _isSetup = false;
 
+    //number of started plus finished windows, odd while a window is processed
+    private volatile int _steps = 0;
+
     protected ArrayList<EventChannel> _evchannel_in = null;
     protected EventChannel _evchannel_out = null;
 
@@ -57,7 +62,8 @@ public abstract class Component implements Runnable
 
         if(_evchannel_out != null) _evchannel_out.close();
 
-        double time = frame.getTime();
+        //the pipeline clock might not advance anymore (replay), so use the system clock
+        long end = Platform.get().elapsedRealtime() + (long)(frame.options.waitThreadKill.get() * 1000);
         while(!_safeToKill)
         {
             try {
@@ -66,7 +72,7 @@ public abstract class Component implements Runnable
                 Log.w("thread interrupt");
             }
 
-            if(frame.getTime() > time + frame.options.waitThreadKill.get())
+            if(Platform.get().elapsedRealtime() > end)
             {
                 Log.w(_name + " force-killed thread");
                 forcekill();
@@ -122,6 +128,76 @@ public abstract class Component implements Runnable
         if(_evchannel_out != null) _evchannel_out.reset();
     }
 
+    /**
+     * @return true if the component can be executed as a task by the pipeline's shared workers
+     * (see Pipeline.Options.workers) instead of on its own thread
+     */
+    boolean isTask()
+    {
+        return false;
+    }
+
+    /**
+     * @return ids of the buffers a task reads from
+     */
+    int[] getTaskInputs()
+    {
+        return null;
+    }
+
+    /**
+     * Task lifecycle, called by the executing thread: taskEnter() once before the pipeline starts,
+     * taskStep() for each window once taskReady() returns true and taskFlush() once after termination
+     */
+    void taskEnter() {}
+
+    boolean taskReady()
+    {
+        return false;
+    }
+
+    boolean taskStep()
+    {
+        return false;
+    }
+
+    void taskFlush() {}
+
+    /**
+     * Called by taskStep() around the processing of a window, so the pipeline can tell whether the component is still busy
+     */
+    final void beginStep()
+    {
+        _steps++;
+    }
+
+    final void endStep()
+    {
+        _steps++;
+    }
+
+    /**
+     * @return number of started plus finished windows, odd while a window is processed
+     */
+    int getSteps()
+    {
+        return _steps;
+    }
+
+    /**
+     * Registers the task as a reader of its input buffers which must not miss any data (replay mode),
+     * called by the pipeline on start-up before data is pushed
+     */
+    void setupReaders(boolean register) {}
+
+    /**
+     * @return statistics about the windows processed during the last run, null if the component does not process windows
+     */
+    public WindowStats getWindowStats()
+    {
+        return null;
+    }
+
     /**
      * Clears component, may alter references with framework or other components
      * Called on framework clear()
@@ -127,4 +127,10 @@ public class Cons
         UDP,
         TCP
     }
+
+    public enum EventFormat
+    {
+        XML,    //SSI compatible xml
+        BINARY  //compact SSJ binary format (see BinaryEventEncoder)
+    }
 }
@@ -26,13 +26,12 @@
 
 package hcm.ssj.core;
 
-import android.content.Context;
-import android.os.PowerManager;
-
 import java.util.Arrays;
 
 import hcm.ssj.core.event.Event;
+import hcm.ssj.core.platform.Platform;
 import hcm.ssj.core.stream.Stream;
+import hcm.ssj.core.stream.StreamView;
 
 /**
  * Created by Johnny on 05.03.2015.
@@ -45,12 +44,29 @@ public abstract class Consumer extends Component {
 
     private int[] _num_frame;
     private int[] _num_delta;
+    private int[] _readerID = null;
 
     private Timer _timer;
+    private WindowStats _stats = new WindowStats();
 
     protected Pipeline _frame;
     protected boolean _doWakeLock = true;
 
+    /**
+     * If true (and the consumer is not event triggered), consume(StreamView[]) is called with read-only views
+     * into the input buffers instead of copying every window into the input streams.
+     */
+    protected boolean _useViews = false;
+    private StreamView[] _view_in = null;
+    private boolean _useViewsNow = false;
+    private boolean _viewsChecked = false; //set if the consumer has validated the views itself
+    private boolean _viewsValid = true;
+    private boolean _dataDriven = false;
+
+    private boolean _eventTrigger = false;
+    private Event _ev = null;
+    private int _eventID = 0;
+
     public Consumer()
     {
         _frame = Pipeline.getInstance();
@@ -64,28 +80,10 @@ public abstract class Consumer extends Component {
             return;
         }
 
-        android.os.Process.setThreadPriority(threadPriority);
-        PowerManager mgr = (PowerManager)SSJApplication.getAppContext().getSystemService(Context.POWER_SERVICE);
-        PowerManager.WakeLock wakeLock = mgr.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, _name);
+        Platform.get().setThreadPriority(threadPriority);
+        Platform.WakeLock wakeLock = Platform.get().newWakeLock(_name);
 
-        boolean eventTrigger = false;
-        Event ev = null;
-        int eventID = 0;
-
-        if(_evchannel_in != null && _evchannel_in.size() == 1)
-            eventTrigger = true;
-
-        //clear data
-        if(_readPos != null)
-            Arrays.fill(_readPos, 0);
-        for(int i = 0; i < _stream_in.length; i++)
-            _stream_in[i].reset();
-
-        try {
-            enter(_stream_in);
-        } catch(Exception e) {
-            _frame.crash(this.getClass().getSimpleName(), "exception in enter", e);
-        }
+        taskEnter();
 
         //wait for framework
         while (!_frame.isRunning()) {
@@ -97,60 +95,225 @@ public abstract class Consumer extends Component {
         }
 
         //maintain update rate starting from now
-        if(!eventTrigger)
+        if(!_eventTrigger && !_dataDriven)
             _timer.reset();
 
         while(!_terminate && _frame.isRunning())
         {
             try {
-                if(eventTrigger) {
-                    ev = _evchannel_in.get(0).getEvent(eventID++, true);
-                    if (ev == null || ev.dur == 0)
+                if(_eventTrigger) {
+                    _ev = _evchannel_in.get(0).getEvent(_eventID, true);
+                    if (_ev == null) {
+                        //event has been taken from the channel
+                        _eventID++;
                         continue;
+                    }
+
+                    //continue after the event we got, it may be a later one if we fell behind
+                    _eventID = _ev.id + 1;
+                    if (_ev.dur == 0) {
+                        releaseEvent();
+                        continue;
+                    }
                 }
 
                 if(_doWakeLock) wakeLock.acquire();
+                boolean ok = taskStep();
+                if(_doWakeLock) wakeLock.release();
+                releaseEvent();
 
-                //grab data
-                boolean ok = true;
-                int pos, numSamples;
-                for(int i = 0; i < _bufferID_in.length; i++)
+                //maintain update rate
+                if(ok && !_eventTrigger && !_dataDriven)
+                    _timer.sync();
+
+            } catch(Exception e) {
+                releaseEvent();
+                _frame.crash(this.getClass().getSimpleName(), "exception in loop", e);
+            }
+        }
+
+        taskFlush();
+    }
+
+    private void releaseEvent()
+    {
+        if(_ev != null) {
+            _ev.release();
+            _ev = null;
+        }
+    }
+
+    @Override
+    boolean isTask()
+    {
+        //event triggered consumers block on their event channel and keep their own thread
+        return _isSetup && (_evchannel_in == null || _evchannel_in.size() != 1);
+    }
+
+    @Override
+    int[] getTaskInputs()
+    {
+        return _bufferID_in;
+    }
+
+    @Override
+    void taskEnter()
+    {
+        _eventTrigger = (_evchannel_in != null && _evchannel_in.size() == 1);
+        _ev = null;
+        _eventID = 0;
+
+        //clear data
+        if(_readPos != null)
+            Arrays.fill(_readPos, 0);
+        for(int i = 0; i < _stream_in.length; i++)
+            _stream_in[i].reset();
+        _stats.reset();
+        _dataDriven = _frame.options.dataDriven.get() || _frame.isReplay();
+
+        try {
+            enter(_stream_in);
+        } catch(Exception e) {
+            _frame.crash(this.getClass().getSimpleName(), "exception in enter", e);
+        }
+
+        _useViewsNow = _useViews && !_eventTrigger;
+        if(_useViewsNow && _view_in == null)
+        {
+            _view_in = new StreamView[_stream_in.length];
+            for(int i = 0; i < _stream_in.length; i++)
+                _view_in[i] = new StreamView(_stream_in[i]);
+        }
+    }
+
+    @Override
+    boolean taskReady()
+    {
+        return getBacklog() > 0;
+    }
+
+    /**
+     * @return number of complete windows which are available in all inputs
+     */
+    private int getBacklog()
+    {
+        int backlog = Integer.MAX_VALUE;
+        for(int i = 0; i < _bufferID_in.length; i++)
+            backlog = Math.min(backlog, _frame.getAvailableWindows(_bufferID_in[i], _readPos[i], _stream_in[i].num, _num_frame[i]));
+
+        return backlog;
+    }
+
+    @Override
+    boolean taskStep()
+    {
+        boolean ok = true;
+
+        try {
+            long start = System.nanoTime();
+
+            //number of windows which are already waiting, processed back-to-back in data driven mode
+            int backlog = _eventTrigger ? 1 : getBacklog();
+
+            //grab data
+            int pos, numSamples;
+            for(int i = 0; i < _bufferID_in.length; i++)
+            {
+                if(_eventTrigger)
                 {
-                    if(eventTrigger)
-                    {
-                        pos = (int) ((ev.time / 1000.0) * _stream_in[i].sr + 0.5);
-                        numSamples = ((int) (((ev.time + ev.dur) / 1000.0) * _stream_in[i].sr + 0.5)) - pos;
+                    pos = (int) ((_ev.time / 1000.0) * _stream_in[i].sr + 0.5);
+                    numSamples = ((int) (((_ev.time + _ev.dur) / 1000.0) * _stream_in[i].sr + 0.5)) - pos;
 
-                        // check if local buffer is large enough and make it larger if necessary
-                        _stream_in[i].adjust(numSamples);
-                    }
-                    else
-                    {
-                        pos = _readPos[i];
-                        _readPos[i] += _num_frame[i];
-                    }
+                    // check if local buffer is large enough and make it larger if necessary
+                    _stream_in[i].adjust(numSamples);
+                }
+                else
+                {
+                    pos = _readPos[i];
+                    _readPos[i] += _num_frame[i];
+                }
 
+                if(_useViewsNow)
+                {
+                    ok &= _frame.getView(_bufferID_in[i], _view_in[i], pos, _stream_in[i].num);
+                    if (ok)
+                        _view_in[i].time = _stream_in[i].time = (double) pos / _stream_in[i].sr;
+                }
+                else
+                {
                     ok &= _frame.getData(_bufferID_in[i], _stream_in[i].ptr(), pos, _stream_in[i].num);
                     if (ok)
                         _stream_in[i].time = (double) pos / _stream_in[i].sr;
                 }
+            }
 
-                //if we received data from all sources, process it
-                if(ok) {
-                    consume(_stream_in);
-                }
+            //if we received data from all sources, process it
+            if(ok) {
+                beginStep();
+                try {
+                    long ready = System.nanoTime();
 
-                if(_doWakeLock) wakeLock.release();
+                    boolean valid = true;
+                    if(_useViewsNow)
+                    {
+                        _viewsChecked = false;
+                        consume(_view_in);
 
-                //maintain update rate
-                if(ok && !eventTrigger)
-                    _timer.sync();
+                        valid = _viewsChecked ? _viewsValid : isValid(_view_in);
+                    }
+                    else
+                    {
+                        consume(_stream_in);
+                    }
 
-            } catch(Exception e) {
-                _frame.crash(this.getClass().getSimpleName(), "exception in loop", e);
+                    if(valid)
+                    {
+                        _stats.processed(backlog, ready - start, System.nanoTime() - ready);
+                    }
+                    else
+                    {
+                        Log.w(_name, "input data was overwritten while being consumed, consider a larger buffer");
+                        _stats.dropped();
+                    }
+                } finally {
+                    endStep();
+                }
+            }
+            else if(_frame.isRunning())
+            {
+                _stats.dropped();
             }
+
+            //window has been processed, writers may now overwrite it
+            if(_readerID != null && !_eventTrigger)
+                for(int i = 0; i < _bufferID_in.length; i++)
+                    _frame.advanceReader(_bufferID_in[i], _readerID[i], _readPos[i]);
+        } catch(Exception e) {
+            _frame.crash(this.getClass().getSimpleName(), "exception in loop", e);
+        }
+
+        return ok;
+    }
+
+    @Override
+    void setupReaders(boolean register)
+    {
+        if(!register)
+        {
+            _readerID = null;
+            return;
         }
 
+        _readerID = new int[_bufferID_in.length];
+        for(int i = 0; i < _bufferID_in.length; i++)
+            _readerID[i] = _frame.addReader(_bufferID_in[i]);
+    }
+
+    @Override
+    void taskFlush()
+    {
+        Log.i(_name, "windows: " + _stats);
+
         try {
             flush(_stream_in);
         } catch(Exception e) {
@@ -159,6 +322,15 @@ public abstract class Consumer extends Component {
         _safeToKill = true;
     }
 
+    /**
+     * @return statistics about the windows processed during the last run
+     */
+    @Override
+    public WindowStats getWindowStats()
+    {
+        return _stats;
+    }
+
     /**
      * initialization specific to sensor implementation (called by framework on instantiation)
      */
@@ -174,6 +346,36 @@ public abstract class Consumer extends Component {
      */
     protected abstract void consume(Stream stream_in[]);
 
+    /**
+     * main processing method if views are used (see _useViews), the views are only valid during the call.
+     * The writer may overwrite the data while it is read, implementations with side effects have to
+     * copy the data they need and check isValid() before committing it.
+     * Per default the views are copied into the input streams and passed to consume(Stream[]).
+     */
+    protected void consume(StreamView view_in[])
+    {
+        for(int i = 0; i < view_in.length; i++)
+            view_in[i].copyTo(_stream_in[i].ptr());
+
+        if(isValid(view_in))
+            consume(_stream_in);
+    }
+
+    /**
+     * @return false if the writer has started overwriting one of the views,
+     * the window is then counted as dropped (the result of the last call is used)
+     */
+    protected final boolean isValid(StreamView view_in[])
+    {
+        boolean valid = true;
+        for(int i = 0; i < view_in.length; i++)
+            valid &= _frame.isViewValid(_bufferID_in[i], view_in[i]);
+
+        _viewsChecked = true;
+        _viewsValid = valid;
+        return valid;
+    }
+
     /**
      * called once prior to termination
      */
@@ -186,6 +388,7 @@ public abstract class Consumer extends Component {
     {
         try
         {
+            _view_in = null;
             _bufferID_in = new int[sources.length];
             _readPos = new int[sources.length];
             _stream_in = new Stream[sources.length];
@@ -212,6 +415,7 @@ public abstract class Consumer extends Component {
             // configure update rate
             _timer = new Timer(frame);
             _timer.setStartOffset(delta);
+            _timer.setStats(_stats);
         }
         catch(Exception e)
         {
@@ -226,6 +430,7 @@ public abstract class Consumer extends Component {
      */
     public void setup(Provider[] sources) throws SSJException {
         try {
+            _view_in = null;
             _bufferID_in = new int[sources.length];
             _stream_in = new Stream[sources.length];
 
@@ -26,40 +26,70 @@
 
 package hcm.ssj.core;
 
-import android.content.Context;
-import android.os.PowerManager;
-
 import java.util.ArrayList;
-import java.util.LinkedList;
 
 import hcm.ssj.core.event.Event;
+import hcm.ssj.core.event.EventPool;
+import hcm.ssj.core.platform.Platform;
 
 /**
  * Created by Johnny on 05.03.2015.
+ *
+ * Events are kept in a fixed ring of Cons.MAX_NUM_EVENTS_PER_CHANNEL slots indexed by event id.
+ * Listeners are notified in batches by a single dispatcher thread per channel, in the order the events were pushed.
+ *
+ * Events obtained through obtainEvent() are recycled once they have left the ring and all listeners were notified.
+ * Pushing an event hands the caller's reference over to the channel. Events returned by getEvent() and
+ * getLastEvent() come with a reference of the reader, which has to release() them once done.
  */
 public class EventChannel {
 
     protected String _name = "SSJ_EventChannel";
 
     private ArrayList<EventListener> _listeners = new ArrayList<>();
-    private LinkedList<Event> _events = new LinkedList<>();
+    private Event[] _events = new Event[Cons.MAX_NUM_EVENTS_PER_CHANNEL];
     private int _event_id = 0;
+    private int _first = 0; //id of oldest event in ring
+    private int _last = -1; //id of newest event in ring
+
+    //events waiting to be delivered to the listeners, swapped with the batch by the dispatcher
+    private ArrayList<Event> _pending = new ArrayList<>();
+    private ArrayList<Event> _batch = new ArrayList<>();
+    private boolean _dispatching = false;
+    private volatile int _maxPending = 0;
+
+    private EventPool _pool = new EventPool(Cons.MAX_NUM_EVENTS_PER_CHANNEL);
 
     final private Object _lock = new Object();
     protected boolean _terminate = false;
 
     protected Pipeline _frame;
-    PowerManager powerManager;
+    private Platform.WakeLock _wakeLock;
 
     public EventChannel() {
         _frame = Pipeline.getInstance();
-        powerManager = (PowerManager)SSJApplication.getAppContext().getSystemService(Context.POWER_SERVICE);
+        _wakeLock = Platform.get().newWakeLock(_name);
     }
 
     public void reset() {
-        _terminate = false;
-        _event_id = 0;
-        _events.clear();
+        synchronized (_lock) {
+            _terminate = false;
+            _event_id = 0;
+            _first = 0;
+            _last = -1;
+            _maxPending = 0;
+
+            for (int i = 0; i < _events.length; i++) {
+                if (_events[i] != null) {
+                    _events[i].release();
+                    _events[i] = null;
+                }
+            }
+
+            for (Event ev : _pending)
+                ev.release();
+            _pending.clear();
+        }
     }
 
     public void addEventListener(EventListener listener) {
@@ -75,7 +105,7 @@ public class EventChannel {
         Event ev = null;
 
         synchronized (_lock) {
-            while (!_terminate && _events.size() == 0) {
+            while (!_terminate && _last < _first) {
                 if (blocking) {
                     try {
                         _lock.wait();
@@ -90,10 +120,18 @@ public class EventChannel {
                 return null;
             }
 
-            ev = _events.getLast();
+            ev = _events[_last % _events.length];
+
+            if (peek) {
+                ev.retain();
+            } else {
+                //the ring's reference is handed over to the caller
+                _events[_last % _events.length] = null;
 
-            if (!peek) {
-                _events.removeLast();
+                //find the new newest event
+                do {
+                    _last--;
+                } while (_last >= _first && lookup(_last) == null);
             }
         }
 
@@ -103,7 +141,7 @@ public class EventChannel {
     public Event getEvent(int eventID, boolean blocking) {
 
         synchronized (_lock) {
-            while (!_terminate && (_events.size() == 0 || eventID > _events.getLast().id)) {
+            while (!_terminate && (_last < _first || eventID > _last)) {
                 if (blocking) {
                     try {
                         _lock.wait();
@@ -118,23 +156,27 @@ public class EventChannel {
                 return null;
             }
 
-            if (eventID == _events.getFirst().id) {
-                return _events.getFirst();
-            }
-
-            if (eventID < _events.getFirst().id) {
+            Event ev;
+            if (eventID < _first) {
                 Log.w("event " + eventID + " no longer in queue");
-                return _events.getFirst(); //if event is no longer in queue, return oldest event
+                ev = lookup(_first); //if event is no longer in queue, return oldest event
+            } else {
+                ev = lookup(eventID);
             }
 
-            //search for event
-            for (Event ev : _events) {
-                if (ev.id == eventID) {
-                    return ev;
-                }
-            }
+            //the slot may be recycled by the next push, the reader holds its own reference
+            if (ev != null)
+                ev.retain();
+            return ev;
         }
-        return null;
+    }
+
+    /**
+     * @return event with the given id if it is still in the ring, null otherwise
+     */
+    private Event lookup(int eventID) {
+        Event ev = _events[eventID % _events.length];
+        return (ev != null && ev.id == eventID) ? ev : null;
     }
 
     public void pushEvent(final Event ev) {
@@ -142,28 +184,103 @@ public class EventChannel {
             //give event a local-unique ID
             ev.id = _event_id++;
 
-            _events.addLast(ev);
-            if (_events.size() > Cons.MAX_NUM_EVENTS_PER_CHANNEL) {
-                _events.removeFirst();
+            Event old = _events[ev.id % _events.length];
+            if (old != null)
+                old.release();
+
+            _events[ev.id % _events.length] = ev;
+            _last = ev.id;
+            if (_last - _first >= _events.length) {
+                _first = _last - _events.length + 1;
             }
 
             // Notify event listeners
-            for (final EventListener listener : _listeners) {
-                _frame.threadPool.execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        PowerManager.WakeLock wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "ev" + ev.id + listener.toString());
-                        wakeLock.acquire();
-                        listener.notify(ev);
-                        wakeLock.release();
-                    }
-                });
+            if (!_listeners.isEmpty()) {
+                ev.retain();
+                _pending.add(ev);
+
+                if (_pending.size() > _maxPending)
+                    _maxPending = _pending.size();
+
+                if (!_dispatching) {
+                    _dispatching = true;
+                    _frame.threadPool.execute(_dispatcher);
+                }
             }
 
             _lock.notifyAll();
         }
     }
 
+    private Runnable _dispatcher = new Runnable() {
+        @Override
+        public void run() {
+            while (true) {
+                synchronized (_lock) {
+                    while (!_terminate && _pending.isEmpty()) {
+                        try {
+                            _lock.wait();
+                        } catch (InterruptedException e) {
+                        }
+                    }
+
+                    //deliver remaining events before shutting down
+                    if (_pending.isEmpty()) {
+                        _dispatching = false;
+                        return;
+                    }
+
+                    ArrayList<Event> tmp = _batch;
+                    _batch = _pending;
+                    _pending = tmp;
+                }
+
+                _wakeLock.acquire();
+                for (int i = 0; i < _batch.size(); i++) {
+                    for (int j = 0; j < _listeners.size(); j++) {
+                        try {
+                            _listeners.get(j).notify(_batch.get(i));
+                        } catch (Exception e) {
+                            _frame.crash(_listeners.get(j).getClass().getSimpleName(), "exception in event listener", e);
+                        }
+                    }
+                }
+                _wakeLock.release();
+
+                for (int i = 0; i < _batch.size(); i++)
+                    _batch.get(i).release();
+                _batch.clear();
+            }
+        }
+    };
+
+    /**
+     * @return an event of the given type from this channel's pool, payload arrays are reused via Event.adjust()
+     */
+    public Event obtainEvent(Cons.Type type) {
+        return _pool.obtain(type);
+    }
+
+    public EventPool getEventPool() {
+        return _pool;
+    }
+
+    /**
+     * @return number of events which are waiting to be delivered to the listeners
+     */
+    public int getQueueDepth() {
+        synchronized (_lock) {
+            return _pending.size();
+        }
+    }
+
+    /**
+     * @return highest number of events which were waiting to be delivered at once since the last reset
+     */
+    public int getMaxQueueDepth() {
+        return _maxPending;
+    }
+
     public void close() {
         Log.i("shutting down");
 
@@ -26,10 +26,8 @@
 
 package hcm.ssj.core;
 
-import android.content.Context;
-import android.os.PowerManager;
-
 import hcm.ssj.core.event.Event;
+import hcm.ssj.core.platform.Platform;
 
 import static hcm.ssj.core.Cons.SLEEP_ON_COMPONENT_IDLE;
 
@@ -58,8 +56,7 @@ public abstract class EventHandler extends Component implements EventListener {
             return;
         }
 
-        PowerManager mgr = (PowerManager)SSJApplication.getAppContext().getSystemService(Context.POWER_SERVICE);
-        PowerManager.WakeLock wakeLock = mgr.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, _name);
+        Platform.WakeLock wakeLock = Platform.get().newWakeLock(_name);
 
         //register listener
         if(_evchannel_in != null && _evchannel_in.size() != 0)
@@ -0,0 +1,169 @@
+/*
+ * EventQueue.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core;
+
+import java.util.ArrayDeque;
+
+import hcm.ssj.core.event.Event;
+import hcm.ssj.core.event.EventEncoder;
+
+/**
+ * Hands events from the channel dispatchers over to the thread of an event handler.
+ * Added events are retained until the handler has taken and released them.
+ * The queue is bounded, if the handler falls behind the oldest events are dropped.
+ */
+public class EventQueue
+{
+    private final ArrayDeque<Event> _events = new ArrayDeque<>();
+    private final int _capacity;
+    private int _dropped = 0;
+
+    public EventQueue()
+    {
+        this(Cons.MAX_NUM_EVENTS_PER_CHANNEL);
+    }
+
+    /**
+     * @param capacity max number of queued events
+     */
+    public EventQueue(int capacity)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("invalid queue capacity: " + capacity);
+
+        _capacity = capacity;
+    }
+
+    public synchronized void add(Event ev)
+    {
+        ev.retain();
+        _events.add(ev);
+        trim();
+        notifyAll();
+    }
+
+    private void trim()
+    {
+        while (_events.size() > _capacity)
+        {
+            if (_dropped++ == 0)
+                Log.w("event queue full, dropping oldest events");
+
+            _events.poll().release();
+        }
+    }
+
+    /**
+     * @param timeout max time to wait for an event in ms, 0 returns immediately
+     * @return oldest event in the queue or null if none arrived in time, the caller has to release() it
+     */
+    public synchronized Event poll(long timeout)
+    {
+        if (_events.isEmpty() && timeout > 0)
+        {
+            long end = System.currentTimeMillis() + timeout;
+            long remaining = timeout;
+
+            while (_events.isEmpty() && remaining > 0)
+            {
+                try
+                {
+                    wait(remaining);
+                }
+                catch (InterruptedException e)
+                {
+                    Log.w("thread interrupt");
+                    break;
+                }
+
+                remaining = end - System.currentTimeMillis();
+            }
+        }
+
+        return _events.poll();
+    }
+
+    /**
+     * Waits for the next event and adds it and all further events to the encoder,
+     * until linger ms have passed without the queue running empty or the payload would exceed limit bytes.
+     * An event which does not fit anymore stays in the queue.
+     *
+     * @param timeout max time to wait for the first event in ms
+     * @return number of events added to the encoder
+     */
+    public int drainTo(EventEncoder encoder, long timeout, long linger, int limit)
+    {
+        Event ev = poll(timeout);
+        if (ev == null)
+            return 0;
+
+        long end = System.currentTimeMillis() + linger;
+        int count = 0;
+
+        while (ev != null)
+        {
+            if (!encoder.add(ev, limit, count == 0))
+            {
+                //keep reference for the next batch
+                synchronized (this)
+                {
+                    _events.addFirst(ev);
+                    trim();
+                }
+                break;
+            }
+
+            ev.release();
+            count++;
+
+            ev = poll(Math.max(0, end - System.currentTimeMillis()));
+        }
+
+        return count;
+    }
+
+    public synchronized int size()
+    {
+        return _events.size();
+    }
+
+    /**
+     * @return number of events dropped because the queue was full
+     */
+    public synchronized int getDropped()
+    {
+        return _dropped;
+    }
+
+    public synchronized void clear()
+    {
+        for (Event ev : _events)
+            ev.release();
+
+        _events.clear();
+    }
+}
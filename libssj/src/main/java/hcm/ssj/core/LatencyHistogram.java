@@ -0,0 +1,152 @@
+/*
+ * LatencyHistogram.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of durations in nanoseconds (similar to HdrHistogram).
+ * Values below 2^SUB_BITS are counted exactly, larger values in buckets with a relative width of at most 2^-(SUB_BITS-1),
+ * which bounds the error of the reported percentiles to about 3%.
+ * Recording neither allocates nor locks. Written by a single thread, may be read from any thread,
+ * in which case concurrent recordings might be partially visible.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final int MAX_BITS = 40; //values are clamped to ~18 minutes
+
+    private final long[] _counts = new long[(MAX_BITS - SUB_BITS + 2) * HALF_COUNT];
+    private volatile long _count = 0;
+    private long _sum = 0;
+    private long _max = 0;
+
+    public void reset()
+    {
+        Arrays.fill(_counts, 0);
+        _count = 0;
+        _sum = 0;
+        _max = 0;
+    }
+
+    /**
+     * @param value duration in nanoseconds
+     */
+    public void record(long value)
+    {
+        if(value < 0)
+            value = 0;
+
+        _counts[index(value)]++;
+        _sum += value;
+        if(value > _max)
+            _max = value;
+        _count++;
+    }
+
+    private static int index(long value)
+    {
+        if(value < SUB_COUNT)
+            return (int)value;
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if(magnitude >= MAX_BITS)
+            return (MAX_BITS - SUB_BITS + 2) * HALF_COUNT - 1;
+
+        int shift = magnitude - SUB_BITS + 1;
+        return (shift + 1) * HALF_COUNT + (int)(value >>> shift) - HALF_COUNT;
+    }
+
+    /**
+     * @return highest value which is counted in the given bucket
+     */
+    private static long highestValue(int index)
+    {
+        if(index < SUB_COUNT)
+            return index;
+
+        int shift = index / HALF_COUNT - 1;
+        long top = index % HALF_COUNT + HALF_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount()
+    {
+        return _count;
+    }
+
+    /**
+     * @return largest recorded value in nanoseconds
+     */
+    public long getMax()
+    {
+        return _max;
+    }
+
+    /**
+     * @return mean of the recorded values in nanoseconds
+     */
+    public double getMean()
+    {
+        long count = _count;
+        return (count == 0) ? 0 : (double)_sum / count;
+    }
+
+    /**
+     * @param percentile in the interval [0..100]
+     * @return value in nanoseconds which is not exceeded by the given percentage of recorded values
+     */
+    public long getPercentile(double percentile)
+    {
+        long count = _count;
+        if(count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100.0 * count));
+        long sum = 0;
+        for(int i = 0; i < _counts.length; i++)
+        {
+            sum += _counts[i];
+            if(sum >= rank)
+                return Math.min(highestValue(i), _max);
+        }
+
+        return _max;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(java.util.Locale.ENGLISH, "p50=%.3fms, p99=%.3fms, max=%.3fms",
+                             getPercentile(50) / 1e6, getPercentile(99) / 1e6, getMax() / 1e6);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * LockFreeTimeBuffer.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import hcm.ssj.core.stream.StreamView;
+
+/**
+ * Single-writer/multi-reader variant of the TimeBuffer which does not use a monitor on the read path.
+ *
+ * The writer first announces the range it is about to overwrite (_claimed), copies the data and then
+ * publishes the new write position (_position). Readers wait for the position without locking,
+ * copy optimistically and afterwards re-check the claimed position to detect whether the writer has
+ * overwritten the data while it was being copied. Both sides issue a fence (see claim/loadFence)
+ * between the claim and the plain buffer accesses, otherwise these may be reordered.
+ * Waiting readers are parked and get unparked by the writer after each push.
+ */
+public class LockFreeTimeBuffer extends TimeBuffer
+{
+    private final static int SPIN_TRIES = 64;
+
+    //pushZeroes may be called by the watchdog, so writers are serialized (readers never take this lock)
+    private final Object _writeLock = new Object();
+    private final ConcurrentLinkedQueue<Thread> _waiting = new ConcurrentLinkedQueue<>();
+
+    public LockFreeTimeBuffer(double capacity, double sr, int dim, int bytesPerValue, Cons.Type type, Provider owner)
+    {
+        super(capacity, sr, dim, bytesPerValue, type, owner);
+    }
+
+    public LockFreeTimeBuffer(double capacity, double sr, int dim, int bytesPerValue, Cons.Type type, Provider owner, boolean typed)
+    {
+        super(capacity, sr, dim, bytesPerValue, type, owner, typed);
+    }
+
+    @Override
+    public void close()
+    {
+        _terminate = true;
+        wakeReaders();
+        wakeWriter();
+    }
+
+    @Override
+    public void push(Object data, int numBytes)
+    {
+        synchronized (_writeLock) {
+            long position = _position;
+            int pos_mod = (int)(position % _capacityBytes);
+
+            claim(position + numBytes);
+            copy(data, 0, _buffer, pos_mod, numBytes);
+            _position = position + numBytes;
+        }
+
+        wakeReaders();
+    }
+
+    @Override
+    public void pushZeroes(int numBytes)
+    {
+        Log.w(_owner.getComponentName(), "pushing " + numBytes + " bytes of zeroes");
+
+        synchronized (_writeLock) {
+            long position = _position;
+            int pos_mod = (int)(position % _capacityBytes);
+
+            claim(position + numBytes);
+            fillZero(_buffer, pos_mod, numBytes);
+            _position = position + numBytes;
+        }
+
+        wakeReaders();
+    }
+
+    @Override
+    protected int get_(Object dst, long pos, int len)
+    {
+        if(!await(pos + len))
+            return STATUS_ERROR;
+
+        copyOut(dst, pos, len);
+        loadFence();
+
+        //the writer must not have started writing into the range we just copied
+        if(_claimed - pos > _capacityBytes)
+            return STATUS_DATA_NOT_IN_BUFFER_ANYMORE;
+
+        return STATUS_SUCCESS;
+    }
+
+    @Override
+    protected int getView_(StreamView view, long pos, int len)
+    {
+        if(!await(pos + len))
+            return STATUS_ERROR;
+
+        fillView(view, pos, len);
+        loadFence();
+
+        if(_claimed - pos > _capacityBytes)
+            return STATUS_DATA_NOT_IN_BUFFER_ANYMORE;
+
+        return STATUS_SUCCESS;
+    }
+
+    private boolean await(long end)
+    {
+        int tries = 0;
+        while (_position < end && !_terminate)
+        {
+            if(tries++ < SPIN_TRIES)
+            {
+                Thread.yield();
+                continue;
+            }
+
+            Thread self = Thread.currentThread();
+            _waiting.add(self);
+
+            //re-check after registering, the writer might have published in the meantime
+            if (_position < end && !_terminate)
+                LockSupport.park(this);
+
+            _waiting.remove(self);
+
+            if(Thread.interrupted())
+                Log.w("thread interrupt");
+        }
+
+        return !_terminate;
+    }
+
+    private void wakeReaders()
+    {
+        if(_waiting.isEmpty())
+            return;
+
+        for(Thread t : _waiting)
+            LockSupport.unpark(t);
+    }
+}
@@ -26,18 +26,26 @@
 
 package hcm.ssj.core;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.NumberFormat;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import hcm.ssj.BuildConfig;
+import hcm.ssj.core.platform.Platform;
 
 /**
+ * Logs to the platform log and hands every entry to a background thread through a bounded lock-free ring.
+ * The background thread notifies the listeners and writes the entries to rolling log files (see Pipeline.Options.log).
+ * If the ring is full, entries are dropped instead of blocking the logging thread.
  * Created by Johnny on 17.03.2016.
  */
 public class Log
@@ -57,25 +65,69 @@ public class Log
         void msg(int type, String msg);
     }
 
-    public class Entry
+    private static final int RING_SIZE = 4096; //must be a power of two
+    private static final int HISTORY_SIZE = 1024; //entries kept until the log file is opened
+    private static final long MAX_FILE_SIZE = 8 * 1024 * 1024; //in bytes
+    private static final int MAX_FILES = 10;
+    private static final long WRITER_IDLE_TIMEOUT = 1000; //in ms
+
+    static class Entry
     {
+        volatile long seq;
         double t;
+        int type;
         String msg;
-
-        public Entry(double t, String msg)
-        {
-            this.t = t;
-            this.msg = msg;
-        }
     }
 
-    private LinkedList<Entry> buffer = new LinkedList<>();
+    private final Entry[] ring = new Entry[RING_SIZE];
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private volatile long head = 0; //only advanced by the writer
+
+    private volatile String lastMsg = null;
+    private volatile double lastTime = 0;
+
+    private final Thread writer;
+    private volatile boolean writerIdle = false;
+    private volatile boolean terminate = false;
+
+    //log file state, guarded by fileLock
+    private final Object fileLock = new Object();
+    private File fileDirectory = null;
+    private OutputStream file = null;
+    private long fileSize = 0;
+    private ArrayDeque<File> files = new ArrayDeque<>();
+    private double[] historyTime = new double[HISTORY_SIZE];
+    private String[] historyMsg = new String[HISTORY_SIZE];
+    private int historyPos = 0;
+    private int historyNum = 0;
+    private NumberFormat nf = null;
+    private StringBuilder line = new StringBuilder();
+
     private Pipeline frame = null;
-    private static Log instance = null;
+    private static volatile Log instance = null;
     //
-    private static HashSet<LogListener> hsLogListener = new HashSet<>();
+    private static CopyOnWriteArraySet<LogListener> hsLogListener = new CopyOnWriteArraySet<>();
+    private static ThreadLocal<String> threadCaller = new ThreadLocal<>();
+
+    Log()
+    {
+        for (int i = 0; i < RING_SIZE; i++)
+        {
+            ring[i] = new Entry();
+            ring[i].seq = i;
+        }
 
-    Log() {}
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run()
+            {
+                write();
+            }
+        }, "SSJ_Log");
+        writer.setDaemon(true);
+        writer.start();
+    }
 
     public void setFramework(Pipeline frame)
     {
@@ -85,77 +137,154 @@ public class Log
     public static Log getInstance()
     {
         if(instance == null)
-            instance = new Log();
+        {
+            synchronized (Log.class)
+            {
+                if(instance == null)
+                    instance = new Log();
+            }
+        }
 
         return instance;
     }
 
     public void clear()
     {
-        synchronized (this)
+        lastMsg = null;
+
+        synchronized (fileLock)
         {
-            buffer.clear();
+            historyPos = 0;
+            historyNum = 0;
+            Arrays.fill(historyMsg, null);
         }
     }
 
     public void invalidate()
     {
+        closeFile();
         clear();
+
+        terminate = true;
+        LockSupport.unpark(writer);
         instance = null;
     }
 
-    public void saveToFile(String path)
+    /**
+     * Starts writing the log to ssj.log in the given directory, entries which were logged before are written first.
+     * Once a file exceeds its maximum size, logging continues in a new file (ssj2.log, ssj3.log, ...)
+     * and the oldest file is deleted if there are too many.
+     */
+    public void openFile(String path)
     {
-        try
+        File dir = Util.createDirectory(path);
+        if(dir == null)
+            return;
+
+        synchronized (fileLock)
         {
-            File fileDirectory = Util.createDirectory(path);
-            if(fileDirectory == null)
-                return;
+            closeStream();
+            fileDirectory = dir;
+            files.clear();
+            rollFile();
 
-            File file = new File(fileDirectory, "ssj.log");
-            int i = 2;
-            while(file.exists())
+            for (int i = 0; i < historyNum; i++)
             {
-                file = new File(fileDirectory, "ssj" + (i++) + ".log");
+                int pos = (historyPos - historyNum + i + HISTORY_SIZE) % HISTORY_SIZE;
+                writeLine(historyTime[pos], historyMsg[pos]);
             }
+            historyPos = 0;
+            historyNum = 0;
+            Arrays.fill(historyMsg, null);
+        }
+    }
 
-            FileOutputStream fos = new FileOutputStream(file);
-
-            NumberFormat nf = NumberFormat.getNumberInstance(Locale.ENGLISH);
-            nf.setMaximumFractionDigits(3);
-            nf.setMinimumFractionDigits(3);
+    /**
+     * Writes all pending entries and closes the log file
+     */
+    public void closeFile()
+    {
+        flush();
 
-            StringBuilder builder = new StringBuilder();
+        synchronized (fileLock)
+        {
+            closeStream();
+            fileDirectory = null;
+        }
+    }
 
-            synchronized (this)
+    /**
+     * Waits until all entries logged so far have been written (at most one second)
+     */
+    public void flush()
+    {
+        long target = tail.get();
+        long end = System.currentTimeMillis() + WRITER_IDLE_TIMEOUT;
+        while(head < target && writer.isAlive() && System.currentTimeMillis() < end)
+        {
+            LockSupport.unpark(writer);
+            try
             {
-                Iterator<Entry> iter = buffer.iterator();
-                while (iter.hasNext())
-                {
-                    Entry e = iter.next();
-
-                    builder.setLength(0);
-                    builder.append(nf.format(e.t));
-                    builder.append("\t");
-                    builder.append(e.msg);
-                    builder.append("\r\n");
-
-                    fos.write(builder.toString().getBytes());
-                }
+                Thread.sleep(1);
+            }
+            catch (InterruptedException e)
+            {
+                break;
             }
-
-            fos.close();
         }
-        catch (IOException e)
+
+        synchronized (fileLock)
         {
-            Log.e("Exception in creating logfile", e);
+            try
+            {
+                if(file != null)
+                    file.flush();
+            }
+            catch (IOException e)
+            {
+                Platform.get().log(Level.ERROR.val, Cons.LOGTAG, "[core.Log] could not write log file: " + e.getMessage());
+            }
         }
     }
 
+    /**
+     * @return true if entries of the given level are currently logged, use to avoid building expensive messages
+     */
+    public static boolean isLoggable(Level level)
+    {
+        return getInstance().isLoggable(level.val);
+    }
+
+    private boolean isLoggable(int type)
+    {
+        return type >= ((frame == null) ? Level.VERBOSE.val : frame.options.loglevel.get().val);
+    }
+
+    /**
+     * Sets the caller which is used for entries logged by the current thread without tag (null to resolve the calling class),
+     * set by the pipeline for the threads executing components
+     */
+    static void setCaller(String caller)
+    {
+        threadCaller.set(caller);
+    }
+
     private String getCaller()
     {
-        StackTraceElement element = Thread.currentThread().getStackTrace()[5];
-        return element.getClassName().replace("hcm.ssj.", "");
+        String caller = threadCaller.get();
+        if(caller != null)
+            return caller;
+
+        //not executed on behalf of a component, fall back to the calling class
+        StackTraceElement[] trace = Thread.currentThread().getStackTrace();
+        String name = Log.class.getName();
+        int i = 0;
+        while(i < trace.length && !trace[i].getClassName().equals(name))
+            i++;
+        while(i < trace.length && trace[i].getClassName().equals(name))
+            i++;
+
+        return (i < trace.length) ? trace[i].getClassName().replace("hcm.ssj.", "") : "unknown";
     }
 
     private String buildEntry(String caller, String msg, Throwable tr)
@@ -164,42 +293,244 @@ public class Log
         builder.append('[').append(caller).append("] ").append(msg);
 
         if(tr != null)
-            builder.append(":\n").append(android.util.Log.getStackTraceString(tr));
+            builder.append(":\n").append(Platform.get().getStackTraceString(tr));
 
         return builder.toString();
     }
 
     private void log(int type, String caller, String msg, Throwable tr)
     {
-        if(type < ((frame == null) ? Level.VERBOSE.val : frame.options.loglevel.get().val))
+        if(!isLoggable(type))
             return;
 
-        String str;
+        if(caller == null)
+            caller = getCaller();
+
         double time = (frame == null) ? 0 : frame.getTime();
-        str = buildEntry(caller, msg, tr);
+        String str = buildEntry(caller, msg, tr);
 
-        if(buffer.size() != 0
-                && time - buffer.getLast().t < ((frame == null) ? 1.0 : frame.options.logtimeout.get())
-                && str.equals(buffer.getLast().msg))
+        if(time - lastTime < ((frame == null) ? 1.0 : frame.options.logtimeout.get())
+                && str.equals(lastMsg))
             return;
+        lastMsg = str;
+        lastTime = time;
+
+        Platform.get().log(type, Cons.LOGTAG, str);
+
+        publish(type, time, str);
+    }
+
+    private void log(int type, String msg, Throwable tr)
+    {
+        log(type, null, msg, tr);
+    }
+
+    /**
+     * Claims the next slot of the ring and hands the entry to the writer, drops the entry if the ring is full
+     */
+    private void publish(int type, double time, String msg)
+    {
+        Entry entry;
+        long pos;
+        while(true)
+        {
+            pos = tail.get();
+            entry = ring[(int) (pos & (RING_SIZE - 1))];
+            long seq = entry.seq;
+
+            if(seq == pos)
+            {
+                if(tail.compareAndSet(pos, pos + 1))
+                    break;
+            }
+            else if(seq < pos)
+            {
+                //slot has not been written yet, ring is full
+                dropped.incrementAndGet();
+                return;
+            }
+        }
+
+        entry.t = time;
+        entry.type = type;
+        entry.msg = msg;
+        entry.seq = pos + 1;
 
-        android.util.Log.println(type, Cons.LOGTAG, str);
+        if(writerIdle)
+            LockSupport.unpark(writer);
+    }
+
+    /**
+     * Writer loop, notifies the listeners and writes the entries to the log file
+     */
+    private void write()
+    {
+        while(!terminate)
+        {
+            if(drain() > 0)
+                continue;
 
-        //send message to listeners
-        if (hsLogListener.size() > 0) {
-            for (LogListener logListener : hsLogListener) {
-                logListener.msg(type, str);
+            synchronized (fileLock)
+            {
+                try
+                {
+                    if(file != null)
+                        file.flush();
+                }
+                catch (IOException e)
+                {
+                    Platform.get().log(Level.ERROR.val, Cons.LOGTAG, "[core.Log] could not write log file: " + e.getMessage());
+                }
             }
+
+            //announce that we are going to sleep before the final check, so no entry can get lost
+            writerIdle = true;
+            if(ring[(int) (head & (RING_SIZE - 1))].seq != head + 1)
+                LockSupport.parkNanos(this, WRITER_IDLE_TIMEOUT * 1000000L);
+            writerIdle = false;
         }
 
-        synchronized (this) {
-            buffer.add(new Entry(time, str));
+        drain();
+    }
+
+    private int drain()
+    {
+        int num = 0;
+        long pos = head;
+
+        while(true)
+        {
+            Entry entry = ring[(int) (pos & (RING_SIZE - 1))];
+            if(entry.seq != pos + 1)
+                break;
+
+            double time = entry.t;
+            int type = entry.type;
+            String msg = entry.msg;
+
+            //release the slot for the next round
+            entry.msg = null;
+            entry.seq = pos + RING_SIZE;
+            head = ++pos;
+            num++;
+
+            long lost = dropped.getAndSet(0);
+            if(lost > 0)
+                dispatch(Level.WARNING.val, time, "[core.Log] log buffer full, " + lost + " entries dropped");
+
+            dispatch(type, time, msg);
         }
+
+        return num;
     }
 
-    private void log(int type, String msg, Throwable tr)
+    private void dispatch(int type, double time, String msg)
+    {
+        for (LogListener logListener : hsLogListener)
+        {
+            try
+            {
+                logListener.msg(type, msg);
+            }
+            catch (RuntimeException e)
+            {
+                Platform.get().log(Level.ERROR.val, Cons.LOGTAG, "[core.Log] exception in log listener: " + e.getMessage());
+            }
+        }
+
+        synchronized (fileLock)
+        {
+            if(file == null)
+            {
+                historyTime[historyPos] = time;
+                historyMsg[historyPos] = msg;
+                historyPos = (historyPos + 1) % HISTORY_SIZE;
+                historyNum = Math.min(historyNum + 1, HISTORY_SIZE);
+            }
+            else
+            {
+                writeLine(time, msg);
+            }
+        }
+    }
+
+    private void writeLine(double time, String msg)
+    {
+        if(nf == null)
+        {
+            nf = NumberFormat.getNumberInstance(Locale.ENGLISH);
+            nf.setMaximumFractionDigits(3);
+            nf.setMinimumFractionDigits(3);
+        }
+
+        line.setLength(0);
+        line.append(nf.format(time));
+        line.append("\t");
+        line.append(msg);
+        line.append("\r\n");
+        byte[] bytes = line.toString().getBytes();
+
+        try
+        {
+            if(fileSize + bytes.length > MAX_FILE_SIZE && fileSize > 0)
+                rollFile();
+
+            if(file != null)
+            {
+                file.write(bytes);
+                fileSize += bytes.length;
+            }
+        }
+        catch (IOException e)
+        {
+            Platform.get().log(Level.ERROR.val, Cons.LOGTAG, "[core.Log] could not write log file: " + e.getMessage());
+        }
+    }
+
+    private void rollFile()
     {
-        log(type, getCaller(), msg, tr);
+        closeStream();
+
+        File next = new File(fileDirectory, "ssj.log");
+        int i = 2;
+        while(next.exists())
+        {
+            next = new File(fileDirectory, "ssj" + (i++) + ".log");
+        }
+
+        try
+        {
+            file = new BufferedOutputStream(new FileOutputStream(next));
+            fileSize = 0;
+            files.add(next);
+        }
+        catch (IOException e)
+        {
+            Platform.get().log(Level.ERROR.val, Cons.LOGTAG, "[core.Log] could not create log file: " + e.getMessage());
+        }
+
+        while(files.size() > MAX_FILES)
+        {
+            File oldest = files.poll();
+            if(!oldest.delete())
+                Platform.get().log(Level.WARNING.val, Cons.LOGTAG, "[core.Log] could not delete log file " + oldest.getName());
+        }
+    }
+
+    private void closeStream()
+    {
+        if(file == null)
+            return;
+
+        try
+        {
+            file.close();
+        }
+        catch (IOException e)
+        {
+            Platform.get().log(Level.ERROR.val, Cons.LOGTAG, "[core.Log] could not close log file: " + e.getMessage());
+        }
+        file = null;
     }
 
     /**
@@ -218,110 +549,110 @@ public class Log
 
     public static void d(String msg)
     {
-        getInstance().log(android.util.Log.DEBUG, msg, null);
+        getInstance().log(Level.DEBUG.val, msg, null);
     }
     public static void d(String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.DEBUG, msg, e);
+        getInstance().log(Level.DEBUG.val, msg, e);
     }
     public static void d(String tag, String msg)
     {
-        getInstance().log(android.util.Log.DEBUG, tag, msg, null);
+        getInstance().log(Level.DEBUG.val, tag, msg, null);
     }
     public static void d(String tag, String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.DEBUG, tag, msg, e);
+        getInstance().log(Level.DEBUG.val, tag, msg, e);
     }
 
     //selective log variant
     public static void ds(String msg)
     {
         if (BuildConfig.DEBUG)
-            getInstance().log(android.util.Log.DEBUG, msg, null);
+            getInstance().log(Level.DEBUG.val, msg, null);
     }
     public static void ds(String msg, Throwable e)
     {
         if (BuildConfig.DEBUG)
-            getInstance().log(android.util.Log.DEBUG, msg, e);
+            getInstance().log(Level.DEBUG.val, msg, e);
     }
     public static void ds(String tag, String msg)
     {
         if (BuildConfig.DEBUG)
-            getInstance().log(android.util.Log.DEBUG, tag, msg, null);
+            getInstance().log(Level.DEBUG.val, tag, msg, null);
     }
     public static void ds(String tag, String msg, Throwable e)
     {
         if (BuildConfig.DEBUG)
-            getInstance().log(android.util.Log.DEBUG, tag, msg, e);
+            getInstance().log(Level.DEBUG.val, tag, msg, e);
     }
 
     public static void i(String msg)
     {
-        getInstance().log(android.util.Log.INFO, msg, null);
+        getInstance().log(Level.INFO.val, msg, null);
     }
 
     public static void i(String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.INFO, msg, e);
+        getInstance().log(Level.INFO.val, msg, e);
     }
     public static void i(String tag, String msg)
     {
-        getInstance().log(android.util.Log.INFO, tag, msg, null);
+        getInstance().log(Level.INFO.val, tag, msg, null);
     }
     public static void i(String tag, String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.INFO, tag, msg, e);
+        getInstance().log(Level.INFO.val, tag, msg, e);
     }
 
     public static void e(String msg)
     {
-        getInstance().log(android.util.Log.ERROR, msg, null);
+        getInstance().log(Level.ERROR.val, msg, null);
     }
 
     public static void e(String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.ERROR, msg, e);
+        getInstance().log(Level.ERROR.val, msg, e);
     }
     public static void e(String tag, String msg)
     {
-        getInstance().log(android.util.Log.ERROR, tag, msg, null);
+        getInstance().log(Level.ERROR.val, tag, msg, null);
     }
     public static void e(String tag, String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.ERROR, tag, msg, e);
+        getInstance().log(Level.ERROR.val, tag, msg, e);
     }
 
     public static void w(String msg)
     {
-        getInstance().log(android.util.Log.WARN, msg, null);
+        getInstance().log(Level.WARNING.val, msg, null);
     }
     public static void w(String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.WARN, msg, e);
+        getInstance().log(Level.WARNING.val, msg, e);
     }
     public static void w(String tag, String msg)
     {
-        getInstance().log(android.util.Log.WARN, tag, msg, null);
+        getInstance().log(Level.WARNING.val, tag, msg, null);
     }
     public static void w(String tag, String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.WARN, tag, msg, e);
+        getInstance().log(Level.WARNING.val, tag, msg, e);
     }
 
     public static void v(String msg)
     {
-        getInstance().log(android.util.Log.VERBOSE, msg, null);
+        getInstance().log(Level.VERBOSE.val, msg, null);
     }
     public static void v(String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.VERBOSE, msg, e);
+        getInstance().log(Level.VERBOSE.val, msg, e);
     }
     public static void v(String tag, String msg)
     {
-        getInstance().log(android.util.Log.VERBOSE, tag, msg, null);
+        getInstance().log(Level.VERBOSE.val, tag, msg, null);
     }
     public static void v(String tag, String msg, Throwable e)
     {
-        getInstance().log(android.util.Log.VERBOSE, tag, msg, e);
+        getInstance().log(Level.VERBOSE.val, tag, msg, e);
     }
 }
@@ -0,0 +1,223 @@
+/*
+ * Metrics.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Pipeline-wide view of the statistics of all components, their output buffers and event channels.
+ * Obtained through Pipeline.getMetrics(), the values are kept after the pipeline stops until it is started again.
+ * See hcm.ssj.test.MetricsChannel to record them as a stream.
+ */
+public class Metrics
+{
+    /**
+     * Values provided for each component, durations are given in milliseconds
+     */
+    public static final String[] FIELDS = {
+            "processed",       //number of processed windows
+            "dropped",         //number of windows which could not be read
+            "backlog",         //average number of windows waiting to be processed
+            "process.p50",     //median duration of transform/consume/process
+            "process.p99",
+            "process.max",
+            "wait.avg",        //average time spent waiting for input
+            "missed",          //number of missed clock ticks
+            "buffer.fill",     //highest fill level of the output buffer as seen by its readers [0..1]
+            "buffer.overruns", //number of reads from the output buffer which came too late
+            "events.queue",    //highest number of events waiting for the listeners of the output event channel
+            "sync.avg",        //average delay of the update cycles compared to the component's clock
+            "sync.p99",
+            "stalls",          //number of times a sensor channel stopped providing data for at least one watch interval
+            "stall.max",       //longest time a sensor channel did not provide data
+            "zeroes"           //number of samples the watch dog filled with zeroes
+    };
+
+    public static class Snapshot
+    {
+        /** pipeline time at which the snapshot was taken (in seconds) */
+        public final double time;
+        public final String[] components;
+        /** values[component][field], see FIELDS */
+        public final double[][] values;
+
+        Snapshot(double time, String[] components, double[][] values)
+        {
+            this.time = time;
+            this.components = components;
+            this.values = values;
+        }
+
+        /**
+         * @return value of the given field for the first component with the given name, NaN if there is none
+         */
+        public double get(String component, String field)
+        {
+            int f = Arrays.asList(FIELDS).indexOf(field);
+            for (int i = 0; i < components.length && f >= 0; i++)
+            {
+                if (components[i].equals(component))
+                    return values[i][f];
+            }
+
+            return Double.NaN;
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format(Locale.ENGLISH, "metrics at %.3fs", time));
+
+            for (int i = 0; i < components.length; i++)
+            {
+                builder.append("\n\t").append(components[i]).append(':');
+                for (int j = 0; j < FIELDS.length; j++)
+                    builder.append(' ').append(FIELDS[j]).append('=').append(String.format(Locale.ENGLISH, "%.3f", values[i][j]));
+            }
+
+            return builder.toString();
+        }
+    }
+
+    private final Collection<Component> _components;
+    private final List<TimeBuffer> _buffers;
+    private final Pipeline _frame;
+
+    Metrics(Pipeline frame, Collection<Component> components, List<TimeBuffer> buffers)
+    {
+        _frame = frame;
+        _components = components;
+        _buffers = buffers;
+    }
+
+    /**
+     * @return all components of the pipeline which provide metrics, sorted by name
+     */
+    public Component[] getComponents()
+    {
+        ArrayList<Component> list = new ArrayList<>();
+        for (Component c : _components)
+        {
+            if (c.getWindowStats() != null || c._evchannel_out != null)
+                list.add(c);
+        }
+
+        Component[] components = list.toArray(new Component[list.size()]);
+        Arrays.sort(components, new Comparator<Component>()
+        {
+            @Override
+            public int compare(Component a, Component b)
+            {
+                return a.getComponentName().compareTo(b.getComponentName());
+            }
+        });
+
+        return components;
+    }
+
+    /**
+     * @return first component with the given name, null if there is none
+     */
+    public Component getComponent(String name)
+    {
+        for (Component c : getComponents())
+        {
+            if (c.getComponentName().equals(name))
+                return c;
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes the current values of all FIELDS of the component to dst, does not allocate
+     */
+    public void sample(Component c, double[] dst, int offset)
+    {
+        WindowStats stats = c.getWindowStats();
+        if (stats != null)
+        {
+            LatencyHistogram process = stats.getProcessTime();
+            dst[offset] = stats.getProcessed();
+            dst[offset + 1] = stats.getDropped();
+            dst[offset + 2] = stats.getAvgBacklog();
+            dst[offset + 3] = process.getPercentile(50) / 1e6;
+            dst[offset + 4] = process.getPercentile(99) / 1e6;
+            dst[offset + 5] = process.getMax() / 1e6;
+            dst[offset + 6] = stats.getWaitTime().getMean() / 1e6;
+            dst[offset + 7] = stats.getMissedDeadlines();
+        }
+        else
+        {
+            Arrays.fill(dst, offset, offset + 8, 0);
+        }
+
+        TimeBuffer buffer = null;
+        if (c instanceof Provider)
+        {
+            int id = ((Provider) c).getBufferID();
+            if (id >= 0 && id < _buffers.size())
+                buffer = _buffers.get(id);
+        }
+        dst[offset + 8] = (buffer != null) ? buffer.getMaxFill() : 0;
+        dst[offset + 9] = (buffer != null) ? buffer.getOverruns() : 0;
+
+        EventChannel channel = c._evchannel_out;
+        dst[offset + 10] = (channel != null) ? channel.getMaxQueueDepth() : 0;
+
+        LatencyHistogram sync = (stats != null) ? stats.getSyncLateness() : null;
+        dst[offset + 11] = (sync != null) ? sync.getMean() / 1e6 : 0;
+        dst[offset + 12] = (sync != null) ? sync.getPercentile(99) / 1e6 : 0;
+        dst[offset + 13] = (stats != null) ? stats.getStalls() : 0;
+        dst[offset + 14] = (stats != null) ? stats.getMaxStall() / 1e6 : 0;
+        dst[offset + 15] = (stats != null) ? stats.getZeroes() : 0;
+    }
+
+    /**
+     * @return values of all components which provide metrics
+     */
+    public Snapshot snapshot()
+    {
+        Component[] components = getComponents();
+        String[] names = new String[components.length];
+        double[][] values = new double[components.length][FIELDS.length];
+
+        for (int i = 0; i < components.length; i++)
+        {
+            names[i] = components[i].getComponentName();
+            sample(components[i], values[i], 0);
+        }
+
+        return new Snapshot(_frame.getTime(), names, values);
+    }
+}
@@ -26,19 +26,22 @@
 
 package hcm.ssj.core;
 
-import android.os.SystemClock;
-
 import java.io.File;
 import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 
 import hcm.ssj.BuildConfig;
-import hcm.ssj.R;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.platform.Platform;
+import hcm.ssj.core.stream.Stream;
+import hcm.ssj.core.stream.StreamView;
 import hcm.ssj.file.LoggingConstants;
 
 /**
@@ -54,6 +57,18 @@ public class Pipeline
         public final Option<Integer> countdown = new Option<>("countdown", 3, Integer.class, "duration of pipeline start-up phase");
         /** size of all inter-component buffers (in seconds). Default: 2.0 */
         public final Option<Float> bufferSize = new Option<>("bufferSize", 2.f, Float.class, "size of all inter-component buffers (in seconds)");
+        /** run transformers and consumers as soon as their input windows are available instead of following a fixed clock. Default: false */
+        public final Option<Boolean> dataDriven = new Option<>("dataDriven", false, Boolean.class, "run transformers and consumers as soon as their input windows are available instead of following a fixed clock");
+        /** process recorded data as fast as possible: the pipeline clock follows the data of the sensors, which are only held back by the slowest reader, and components do not wait for their clocks (implies dataDriven). Default: false */
+        public final Option<Boolean> replay = new Option<>("replay", false, Boolean.class, "process recorded data as fast as possible: the pipeline clock follows the data of the sensors, which are only held back by the slowest reader, and components do not wait for their clocks (implies dataDriven)");
+        /** number of shared worker threads which execute transformers and continuous consumers (0 = one thread per component). Default: 0 */
+        public final Option<Integer> workers = new Option<>("workers", 0, Integer.class, "number of shared worker threads which execute transformers and continuous consumers (0 = one thread per component)");
+        /** use lock-free single-writer/multi-reader buffers between components. Default: false */
+        public final Option<Boolean> lockFreeBuffers = new Option<>("lockFreeBuffers", false, Boolean.class, "use lock-free single-writer/multi-reader buffers between components");
+        /** store buffer data in arrays of the stream type instead of byte arrays (avoids conversions). Default: false */
+        public final Option<Boolean> typedBuffers = new Option<>("typedBuffers", false, Boolean.class, "store buffer data in arrays of the stream type instead of byte arrays (avoids conversions)");
+        /** execute a transformer in the thread of the transformer it reads from if it is its only reader and takes its complete output windows (no intermediate buffer copy). Default: false */
+        public final Option<Boolean> fuse = new Option<>("fuse", false, Boolean.class, "execute a transformer in the thread of the transformer it reads from if it is its only reader and takes its complete output windows (no intermediate buffer copy)");
         /** How long to wait for threads to finish on pipeline shutdown. Default: 30.0 */
         public final Option<Float> waitThreadKill = new Option<>("waitThreadKill", 30f, Float.class, "How long to wait for threads to finish on pipeline shutdown");
         /** How long to wait for a sensor to connect. Default: 5.0 */
@@ -74,6 +89,8 @@ public class Pipeline
         public final Option<Log.Level> loglevel = new Option<>("loglevel", Log.Level.VERBOSE, Log.Level.class, "show all logs >= level");
         /** ignore repeated entries smaller than timeout. Default: 5.0 */
         public final Option<Double> logtimeout = new Option<>("logtimeout", 5.0, Double.class, "ignore repeated entries < timeout");
+        /** log the metrics of all components when the pipeline stops (see getMetrics()). Default: false */
+        public final Option<Boolean> metrics = new Option<>("metrics", false, Boolean.class, "log the metrics of all components when the pipeline stops");
 
         private Options()
         {
@@ -102,10 +119,22 @@ public class Pipeline
     private ClockSync clockSync;
 
     ThreadPool threadPool;
+    private volatile WorkerPool workerPool = null;
+    private volatile WatchService watchService = null;
     ExceptionHandler exceptionHandler = null;
 
     private HashSet<Component> components = new HashSet<>();
     private ArrayList<TimeBuffer> buffers = new ArrayList<>();
+    private ArrayList<TimeBuffer> sensorBuffers = new ArrayList<>();
+    private HashSet<Transformer> chained = new HashSet<>();
+    private Metrics metrics = new Metrics(this, components, buffers);
+    private ConcurrentHashMap<Integer, String> threads = new ConcurrentHashMap<>(); //kernel thread id -> owner
+
+    private volatile boolean replay = false;
+    private int activeSensors = 0;
+    private Set<TimeBuffer> finishedBuffers = Collections.newSetFromMap(new ConcurrentHashMap<TimeBuffer, Boolean>()); //sensors at end of data
+    private boolean replayFinished = false;
+    private final Object replayLock = new Object();
 
     protected static Pipeline instance = null;
 
@@ -119,8 +148,10 @@ public class Pipeline
 
         int coreThreads = Runtime.getRuntime().availableProcessors();
         threadPool = new ThreadPool(coreThreads, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+        //idle threads must not keep a headless JVM alive
+        threadPool.allowCoreThreadTimeOut(true);
 
-        Log.i(SSJApplication.getAppContext().getString(R.string.name_long) + " v" + getVersion());
+        Log.i(Platform.get().getName() + " v" + getVersion());
     }
 
     /**
@@ -146,6 +177,11 @@ public class Pipeline
         state = State.STARTING;
         try
         {
+            if (options.log.get())
+            {
+                Log.getInstance().openFile(options.logpath.parseWildcards());
+            }
+
             Log.i("starting pipeline" + '\n' +
                   "\tSSJ v" + getVersion() + '\n' +
                   "\tlocal time: " + Util.getTimestamp(System.currentTimeMillis()));
@@ -154,11 +190,58 @@ public class Pipeline
             for (TimeBuffer b : buffers)
                 b.reset();
 
+            replay = options.replay.get();
+            if (replay)
+            {
+                Log.i("preparing replay");
+                synchronized (replayLock)
+                {
+                    activeSensors = 0;
+                    replayFinished = false;
+                    finishedBuffers.clear();
+                    for (Component c : components)
+                        if (c instanceof SensorChannel)
+                            activeSensors++;
+                }
+            }
+
+            setupFusion();
+
+            //sensor channels register their watch dogs when they start
+            WatchService watch = new WatchService(this);
+            watchService = watch;
+            threadPool.execute(watch);
+
+            WorkerPool pool = null;
+            if (options.workers.get() > 0)
+            {
+                ArrayList<Component> tasks = new ArrayList<>();
+                for (Component c : components)
+                    if (c.isTask())
+                        tasks.add(c);
+
+                pool = new WorkerPool(this, options.workers.get(), tasks, buffers);
+            }
+
             for (Component c : components)
             {
                 Log.i("starting " + c.getComponentName());
                 c.reset();
-                threadPool.execute(c);
+
+                //readers have to be known before the first sample is pushed
+                if (c.isTask())
+                    c.setupReaders(replay);
+
+                //fused transformers run in the thread of their predecessor
+                if ((pool == null || !c.isTask()) && !(c instanceof Transformer && ((Transformer) c).isFused()))
+                    threadPool.execute(c);
+            }
+
+            if (pool != null)
+            {
+                Log.i("starting " + pool.getNumWorkers() + " workers");
+                pool.start(threadPool);
+                workerPool = pool;
             }
 
             for (int i = 0; i < options.countdown.get(); i++)
@@ -176,7 +259,7 @@ public class Pipeline
             }
 
             startTimeSystem = System.currentTimeMillis();
-            startTime = SystemClock.elapsedRealtime();
+            startTime = Platform.get().nanoTime() / 1000000;
             state = State.RUNNING;
             Log.i("pipeline started");
 
@@ -226,8 +309,9 @@ public class Pipeline
         Cons.Type type = c.getSampleType();
 
         //add output buffer
-        TimeBuffer buf = new TimeBuffer(options.bufferSize.get(), sr, dim, bytesPerValue, type, c);
+        TimeBuffer buf = createBuffer(sr, dim, bytesPerValue, type, c);
         buffers.add(buf);
+        sensorBuffers.add(buf);
         int buffer_id = buffers.size() - 1;
         c.setBufferID(buffer_id);
 
@@ -282,7 +366,7 @@ public class Pipeline
         Cons.Type type = t.getOutputStream().type;
 
         //add output buffer
-        TimeBuffer buf = new TimeBuffer(options.bufferSize.get(), sr, dim, bytesPerValue, type, t);
+        TimeBuffer buf = createBuffer(sr, dim, bytesPerValue, type, t);
         buffers.add(buf);
         int buffer_id = buffers.size() - 1;
         t.setBufferID(buffer_id);
@@ -291,6 +375,80 @@ public class Pipeline
         return t;
     }
 
+    /**
+     * Adds a chain of transformers to the pipeline which are executed back-to-back by a single thread.
+     * The first transformer reads from the source, every other transformer reads the complete output windows
+     * of its predecessor, which are handed over directly instead of through a buffer.
+     * The output of every transformer can still be used as a source by other components,
+     * intermediate outputs are only written to their buffers if this is the case.
+     *
+     * @param chain the Transformers to be added, in processing order
+     * @param source the component which will provide data to the first transformer
+     * @param frame the size of the data window which is provided every iteration to the first transformer (in seconds)
+     * @param delta the amount of input data which overlaps with the previous window (in seconds). Provided in addition to the primary window ("frame").
+     * @return the last Transformer of the chain
+     * @throws SSJException thrown is an error occurred when setting up a component
+     */
+    public Provider addChain(Transformer[] chain, Provider source, double frame, double delta) throws SSJException
+    {
+        Provider last = addTransformer(chain[0], source, frame, delta);
+
+        for (int i = 1; i < chain.length; i++)
+        {
+            Stream out = last.getOutputStream();
+            last = addTransformer(chain[i], last, out.num / out.sr, 0);
+            chained.add(chain[i]);
+        }
+
+        return last;
+    }
+
+    /**
+     * Decides which transformers are executed by the transformer they read from (see addChain and Options.fuse)
+     */
+    private void setupFusion()
+    {
+        for (Component c : components)
+            if (c instanceof Transformer)
+                ((Transformer) c).unfuse();
+
+        //number of components reading from each buffer
+        int[] readers = new int[buffers.size()];
+        for (Component c : components)
+        {
+            int[] in = c.getTaskInputs();
+            if (in != null)
+                for (int id : in)
+                    readers[id]++;
+        }
+
+        for (Component c : components)
+        {
+            if (!(c instanceof Transformer))
+                continue;
+
+            Transformer t = (Transformer) c;
+            int[] in = t.getTaskInputs();
+            if (in == null || in.length != 1 || !(buffers.get(in[0]).getOwner() instanceof Transformer))
+                continue;
+
+            boolean explicit = chained.contains(t);
+            if (!explicit && !(options.fuse.get() && readers[in[0]] == 1))
+                continue;
+
+            Transformer src = (Transformer) buffers.get(in[0]).getOwner();
+            if (!src.canFuse(t))
+            {
+                if (explicit)
+                    Log.w(t.getComponentName() + " cannot be executed by " + src.getComponentName() + ", running it separately");
+                continue;
+            }
+
+            src.fuse(t, readers[in[0]] > 1);
+            Log.i(t.getComponentName() + " is executed by " + src.getComponentName() + (readers[in[0]] > 1 ? " (output tapped)" : ""));
+        }
+    }
+
     /**
      * Adds a consumer to the pipeline.
      * init method of consumer is called after setting up internal input buffer.
@@ -422,6 +580,14 @@ public class Pipeline
         return c.getEventChannelOut();
     }
 
+    private TimeBuffer createBuffer(double sr, int dim, int bytesPerValue, Cons.Type type, Provider owner)
+    {
+        if (options.lockFreeBuffers.get())
+            return new LockFreeTimeBuffer(options.bufferSize.get(), sr, dim, bytesPerValue, type, owner, options.typedBuffers.get());
+
+        return new TimeBuffer(options.bufferSize.get(), sr, dim, bytesPerValue, type, owner, options.typedBuffers.get());
+    }
+
     void pushData(int buffer_id, Object data, int numBytes)
     {
         if (!isRunning())
@@ -433,13 +599,26 @@ public class Pipeline
             Log.w("cannot push to buffer " + buffer_id + ". Buffer does not exist.");
 
         buffers.get(buffer_id).push(data, numBytes);
+        signalWorkers();
     }
 
-    void pushZeroes(int buffer_id)
+    private void signalWorkers()
+    {
+        WorkerPool pool = workerPool;
+        if (pool != null)
+            pool.signal();
+    }
+
+    /**
+     * Fills the buffer with zeroes up to the current pipeline time
+     *
+     * @return number of samples which were pushed
+     */
+    int pushZeroes(int buffer_id)
     {
         if (!isRunning())
         {
-            return;
+            return 0;
         }
 
         if (buffer_id < 0 || buffer_id >= buffers.size())
@@ -455,8 +634,25 @@ public class Pipeline
             int bytes = (int) ((frame_time - buffer_time) * buf.getSampleRate()) * buf.getBytesPerSample();
 
             if (bytes > 0)
+            {
                 buf.pushZeroes(bytes);
+                signalWorkers();
+                return bytes / buf.getBytesPerSample();
+            }
         }
+        return 0;
+    }
+
+    /**
+     * Schedules the checks of a sensor channel's watch dog on the watch service of the current run
+     */
+    void addWatchDog(WatchDog dog)
+    {
+        WatchService watch = watchService;
+        if (watch != null)
+            watch.add(dog);
+        else
+            Log.w("pipeline not started, watch dog is inactive");
     }
 
     void pushZeroes(int buffer_id, int num)
@@ -470,6 +666,7 @@ public class Pipeline
             Log.w("cannot push to buffer " + buffer_id + ". Buffer does not exist.");
 
         buffers.get(buffer_id).pushZeroes(num);
+        signalWorkers();
     }
 
     boolean getData(int buffer_id, Object data, double start_time, double duration)
@@ -527,6 +724,178 @@ public class Pipeline
         TimeBuffer buf = buffers.get(buffer_id);
         int res = buf.get(data, startSample, numSamples);
 
+        return checkBufferStatus(buf, res, startSample, numSamples);
+    }
+
+    boolean getView(int buffer_id, StreamView view, int startSample, int numSamples)
+    {
+        if (!isRunning())
+        {
+            return false;
+        }
+
+        if (buffer_id < 0 || buffer_id >= buffers.size())
+            Log.w("Invalid buffer");
+
+        TimeBuffer buf = buffers.get(buffer_id);
+        int res = buf.getView(view, startSample, numSamples);
+
+        return checkBufferStatus(buf, res, startSample, numSamples);
+    }
+
+    /**
+     * @return number of complete windows (of size num, shifted by frame) which are available in the buffer starting from startSample
+     */
+    int getAvailableWindows(int buffer_id, int startSample, int num, int frame)
+    {
+        int available = buffers.get(buffer_id).getAvailableSamples(startSample);
+
+        if (available < num)
+            return 0;
+
+        return 1 + (available - num) / frame;
+    }
+
+    /**
+     * Registers a reader which must not miss any sample of the buffer (replay mode)
+     *
+     * @return id of the reader
+     */
+    int addReader(int buffer_id)
+    {
+        return buffers.get(buffer_id).addReader();
+    }
+
+    void advanceReader(int buffer_id, int reader, int nextSample)
+    {
+        buffers.get(buffer_id).advanceReader(reader, nextSample);
+    }
+
+    /**
+     * Blocks until numBytes can be pushed to the buffer without overwriting data a registered reader still needs
+     *
+     * @return false if the buffer has been closed
+     */
+    boolean awaitSpace(int buffer_id, int numBytes)
+    {
+        return buffers.get(buffer_id).awaitSpace(numBytes);
+    }
+
+    boolean hasSpace(int buffer_id, int numBytes)
+    {
+        return buffers.get(buffer_id).hasSpace(numBytes);
+    }
+
+    /**
+     * @return true if the pipeline runs in replay mode (see Options.replay)
+     */
+    public boolean isReplay()
+    {
+        return replay;
+    }
+
+    /**
+     * Called by sensor channels which have no more data to provide in replay mode.
+     * Once all sensors have finished, the pipeline waits for all components to process the remaining data.
+     */
+    void sensorFinished(SensorChannel c)
+    {
+        Log.i(c.getComponentName() + " reached end of data");
+        finishedBuffers.add(buffers.get(c.getBufferID()));
+
+        synchronized (replayLock)
+        {
+            if (--activeSensors > 0)
+                return;
+        }
+
+        threadPool.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                //components are idle once none of them has a complete window left or is executing a step
+                //and no step has been executed since the last check, twice in a row to cover chains
+                int idle = 0;
+                long lastSteps = -1;
+                while (isRunning() && idle < 2)
+                {
+                    boolean busy = false;
+                    long steps = 0;
+                    for (Component c : components)
+                    {
+                        int n = c.getSteps();
+                        busy |= (n & 1) != 0 || (c.isTask() && c.taskReady());
+                        steps += n;
+                    }
+
+                    idle = (busy || steps != lastSteps) ? 0 : idle + 1;
+                    lastSteps = steps;
+
+                    try
+                    {
+                        Thread.sleep(Cons.SLEEP_IN_LOOP);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        break;
+                    }
+                }
+
+                Log.i("replay finished at " + getTime() + "s");
+
+                synchronized (replayLock)
+                {
+                    replayFinished = true;
+                    replayLock.notifyAll();
+                }
+
+                //notify listeners
+                Monitor.notifyMonitor();
+            }
+        });
+    }
+
+    /**
+     * Waits until all sensors reached the end of their data and all components processed it (replay mode)
+     *
+     * @param timeout maximum time to wait (in seconds)
+     * @return true if the replay has finished
+     */
+    public boolean waitForReplay(double timeout)
+    {
+        long end = Platform.get().elapsedRealtime() + (long) (timeout * 1000);
+
+        synchronized (replayLock)
+        {
+            while (!replayFinished && isRunning())
+            {
+                long remaining = end - Platform.get().elapsedRealtime();
+                if (remaining <= 0)
+                    break;
+
+                try
+                {
+                    replayLock.wait(remaining);
+                }
+                catch (InterruptedException e)
+                {
+                    Log.w("thread interrupt");
+                    break;
+                }
+            }
+
+            return replayFinished;
+        }
+    }
+
+    boolean isViewValid(int buffer_id, StreamView view)
+    {
+        return buffers.get(buffer_id).isValid(view);
+    }
+
+    private boolean checkBufferStatus(TimeBuffer buf, int res, int startSample, int numSamples)
+    {
         switch (res)
         {
             case TimeBuffer.STATUS_INPUT_ARRAY_TOO_SMALL:
@@ -593,9 +962,21 @@ public class Pipeline
                 }
             }
 
+            WatchService watch = watchService;
+            if (watch != null)
+            {
+                Log.i("closing watch dogs");
+                watch.close();
+            }
+
             Log.i("waiting for components to terminate");
             threadPool.awaitTermination(Cons.WAIT_THREAD_TERMINATION, TimeUnit.MICROSECONDS);
 
+            if (options.metrics.get())
+            {
+                Log.i(metrics.snapshot().toString());
+            }
+
             Log.i("shut down completed");
         }
         catch (Exception e)
@@ -613,7 +994,9 @@ public class Pipeline
             }
         } finally
         {
-            writeLogFile();
+            workerPool = null;
+            watchService = null;
+            Log.getInstance().closeFile();
             state = State.INACTIVE;
         }
     }
@@ -630,6 +1013,19 @@ public class Pipeline
         }
 
         clear();
+
+        //terminate the threads before invalidating the instance, they still access it when finishing a task
+        threadPool.shutdown();
+        try
+        {
+            if (!threadPool.awaitTermination(Cons.WAIT_THREAD_TERMINATION, TimeUnit.MILLISECONDS))
+                Log.w("threads still running after release");
+        }
+        catch (InterruptedException e)
+        {
+            Log.w("thread interrupt");
+        }
+
         instance = null;
     }
 
@@ -650,11 +1046,48 @@ public class Pipeline
             c.clear();
 
         components.clear();
+        chained.clear();
         buffers.clear();
+        sensorBuffers.clear();
+        finishedBuffers.clear();
         Log.getInstance().clear();
         startTime = 0;
     }
 
+    /**
+     * @return statistics of all components, their output buffers and event channels
+     */
+    public Metrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Attributes the calling thread to a component or pipeline service until unregisterThread() is called
+     */
+    void registerThread(String owner)
+    {
+        int tid = Platform.get().myTid();
+        if (tid >= 0 && owner != null)
+            threads.put(tid, owner);
+    }
+
+    void unregisterThread()
+    {
+        int tid = Platform.get().myTid();
+        if (tid >= 0)
+            threads.remove(tid);
+    }
+
+    /**
+     * @param tid kernel thread id (as used in /proc/self/task)
+     * @return name of the component or pipeline service currently executed by the thread, null if the thread does not belong to the pipeline
+     */
+    public String getThreadOwner(int tid)
+    {
+        return threads.get(tid);
+    }
+
     /**
      * Executes a runnable using the pipeline's thread pool
      */
@@ -671,20 +1104,12 @@ public class Pipeline
         createTime = System.currentTimeMillis();
     }
 
-    private void writeLogFile()
-    {
-        if (options.log.get())
-        {
-            Log.getInstance().saveToFile(options.logpath.parseWildcards());
-        }
-    }
-
     void crash(String location, String message, Throwable e)
     {
         state = State.CRASH;
 
         Log.e(location, message, e);
-        writeLogFile();
+        Log.getInstance().flush();
 
         if (exceptionHandler != null)
         {
@@ -713,14 +1138,35 @@ public class Pipeline
     }
 
     /**
-     * @return elapsed time since start of the pipeline (in milliseconds)
+     * @return elapsed time since start of the pipeline (in milliseconds).
+     * In replay mode, this is the time of the data the slowest sensor which has not yet reached the end
+     * of its data has provided so far (the latest data once all sensors have finished).
      */
     public long getTimeMs()
     {
         if (startTime == 0)
             return 0;
 
-        return SystemClock.elapsedRealtime() - startTime + timeOffset;
+        if (replay && !sensorBuffers.isEmpty())
+        {
+            double time = Double.MAX_VALUE;
+            double end = 0;
+            for (TimeBuffer b : sensorBuffers)
+            {
+                if (finishedBuffers.contains(b))
+                    end = Math.max(end, b.getLastWrittenSampleTime());
+                else
+                    time = Math.min(time, b.getLastWrittenSampleTime());
+            }
+
+            //a finished recording must not hold back the clock of the others
+            if (time == Double.MAX_VALUE)
+                time = end;
+
+            return (long) (time * 1000) + timeOffset;
+        }
+
+        return Platform.get().nanoTime() / 1000000 - startTime + timeOffset;
     }
 
     void adjustTime(long offset)
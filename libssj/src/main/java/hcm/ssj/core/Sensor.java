@@ -28,6 +28,8 @@ package hcm.ssj.core;
 
 import java.util.ArrayList;
 
+import hcm.ssj.core.platform.Platform;
+
 /**
  * Handles connection to sensor device
  */
@@ -55,7 +57,7 @@ public abstract class Sensor extends Component {
     public void run()
     {
         //if user did not specify a custom priority, use low priority
-        android.os.Process.setThreadPriority( (threadPriority == Cons.THREAD_PRIORITY_NORMAL) ? Cons.THREAD_PRIORIIY_LOW : threadPriority );
+        Platform.get().setThreadPriority( (threadPriority == Cons.THREAD_PRIORITY_NORMAL) ? Cons.THREAD_PRIORIIY_LOW : threadPriority );
         _isConnected = false;
 
         while(!_terminate)
@@ -25,9 +25,7 @@
  */
 package hcm.ssj.core;
 
-import android.content.Context;
-import android.os.PowerManager;
-
+import hcm.ssj.core.platform.Platform;
 import hcm.ssj.core.stream.Stream;
 
 /**
@@ -44,6 +42,10 @@ public abstract class SensorChannel extends Provider {
 
     protected Sensor _sensor;
 
+    private WindowStats _stats = new WindowStats();
+
+    private volatile boolean _endOfData = false;
+
     public SensorChannel()
     {
         _frame = Pipeline.getInstance();
@@ -63,11 +65,14 @@ public abstract class SensorChannel extends Provider {
         }
 
         //if user did not specify a custom priority, use high priority
-        android.os.Process.setThreadPriority( (threadPriority == Cons.THREAD_PRIORITY_NORMAL) ? Cons.THREAD_PRIORIIY_HIGH : threadPriority );
-        PowerManager mgr = (PowerManager)SSJApplication.getAppContext().getSystemService(Context.POWER_SERVICE);
-        PowerManager.WakeLock wakeLock = mgr.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, _name);
+        Platform.get().setThreadPriority( (threadPriority == Cons.THREAD_PRIORITY_NORMAL) ? Cons.THREAD_PRIORIIY_HIGH : threadPriority );
+        Platform.WakeLock wakeLock = Platform.get().newWakeLock(_name);
 
-        WatchDog dog = new WatchDog(_bufferID, _watchInterval, _syncInterval);
+        //recorded data must neither be padded with zeroes nor shifted to the system clock
+        boolean replay = _frame.isReplay();
+        _endOfData = false;
+        _stats.reset();
+        WatchDog dog = replay ? new WatchDog(_bufferID, 0, 0) : new WatchDog(_bufferID, _watchInterval, _syncInterval, _stats);
 
         if(_sensor == null)
         {
@@ -92,20 +97,46 @@ public abstract class SensorChannel extends Provider {
             _frame.crash(this.getClass().getSimpleName(), "exception in enter", e);
         }
 
+        //data pushed before the pipeline is running gets discarded, which must not happen in replay mode
+        while (replay && !_frame.isRunning() && !_terminate)
+        {
+            try {
+                Thread.sleep(Cons.SLEEP_IN_LOOP);
+            } catch (InterruptedException e) {
+                Log.w("thread interrupt");
+            }
+        }
+
         _timer.reset();
 
         while(!_terminate)
         {
             try {
+                long start = System.nanoTime();
+
+                if(replay)
+                {
+                    //the pipeline clock follows the data, the next chunk is read as soon as all readers made room for it
+                    if(_endOfData || !_frame.awaitSpace(_bufferID, _stream_out.tot))
+                    {
+                        Thread.sleep(Cons.SLEEP_IN_LOOP);
+                        continue;
+                    }
+                }
+
                 wakeLock.acquire();
+                long ready = System.nanoTime();
                 if(process(_stream_out))
                 {
+                    //in replay mode, the channel waits for the slowest reader
+                    _stats.processed(1, ready - start, System.nanoTime() - ready);
                     _frame.pushData(_bufferID, _stream_out.ptr(), _stream_out.tot);
                     dog.checkIn();
                 }
                 wakeLock.release();
 
-                _timer.sync();
+                if(!replay)
+                    _timer.sync();
             } catch(Exception e) {
                 _frame.crash(this.getClass().getSimpleName(), "exception in loop", e);
             }
@@ -118,6 +149,8 @@ public abstract class SensorChannel extends Provider {
             _frame.crash(this.getClass().getSimpleName(), "exception closing watch dog", e);
         }
 
+        Log.i(_name, "windows: " + _stats);
+
         try {
             flush(_stream_out);
         } catch(Exception e) {
@@ -127,6 +160,30 @@ public abstract class SensorChannel extends Provider {
         _safeToKill = true;
     }
 
+    /**
+     * @return statistics about the samples provided during the last run
+     */
+    @Override
+    public WindowStats getWindowStats()
+    {
+        return _stats;
+    }
+
+    /**
+     * Signals that the sensor has no more data to provide. In replay mode, the channel stops
+     * calling process() and the pipeline finishes once all sensors reached the end of their data.
+     */
+    protected void endOfData()
+    {
+        if(_endOfData)
+            return;
+
+        _endOfData = true;
+
+        if(_frame.isReplay())
+            _frame.sensorFinished(this);
+    }
+
     /**
      * early initialization specific to implementation (called by framework on instantiation)
      */
@@ -166,6 +223,7 @@ public abstract class SensorChannel extends Provider {
 
             // configure update rate
             _timer = new Timer((double)num_out / sr_out);
+            _timer.setStats(_stats);
         }
         catch(Exception e)
         {
@@ -40,8 +40,19 @@ public class ThreadPool extends java.util.concurrent.ThreadPoolExecutor {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue);
     }
 
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+
+        //entries logged and cpu time used by this thread are attributed to the component
+        String owner = (r instanceof Component) ? ((Component) r).getComponentName() : r.getClass().getSimpleName();
+        Log.setCaller((r instanceof Component) ? owner : null);
+        Pipeline.getInstance().registerThread(owner);
+    }
+
     protected void afterExecute(Runnable r, Throwable t) {
         super.afterExecute(r, t);
+        Log.setCaller(null);
+        Pipeline.getInstance().unregisterThread();
 
         if(t != null)
             Pipeline.getInstance().crash(r.getClass().getSimpleName(), "uncaught exception", t);
@@ -27,6 +27,10 @@
 package hcm.ssj.core;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import hcm.ssj.core.stream.StreamView;
 
 /**
  * Created by Johnny on 16.03.2015.
@@ -43,27 +47,55 @@ public class TimeBuffer {
     public final static int STATUS_UNKNOWN_DATA = -7;
     public final static int STATUS_ERROR = -9; //unknown error, buffer is probably closed
 
-    private byte[] _buffer;
-    private long _position;
+    protected Object _buffer;
+    protected int _capacityBytes;
+    protected boolean _typed;
+    protected int _bytesPerElement;
+    protected volatile long _position;
+    protected volatile long _claimed; //end of the range the writer is currently writing to
+    //readers order their plain buffer accesses against _claimed by writing to one of these slots (see loadFence)
+    private static final int FENCE_SLOTS = 16; //power of two
+    private static final int FENCE_STRIDE = 16; //ints per slot, every slot gets its own cache line
+    private final AtomicIntegerArray _fences = new AtomicIntegerArray((FENCE_SLOTS + 1) * FENCE_STRIDE);
 
     private final Object _lock = new Object();
-    private boolean _terminate = false;
+    protected volatile boolean _terminate = false;
 
-    private double _sr;
-    private int _dim;
-    private int _bytesPerValue;
-    private Cons.Type _type;
+    protected double _sr;
+    protected int _dim;
+    protected int _bytesPerValue;
+    protected Cons.Type _type;
 
-    private int _capacitySamples;
-    private int _bytesPerSample;
-    private double _sampleDuration;
+    protected int _capacitySamples;
+    protected int _bytesPerSample;
+    protected double _sampleDuration;
 
     private int _offsetSamples;
     private int _lastAccessedSample;
 
-    private Provider _owner;
+    protected Provider _owner;
+
+    //read positions (in bytes) of readers which must not miss any data, see addReader()
+    private long[] _readers = new long[0];
+
+    //read statistics, see getFill() and getOverruns()
+    private volatile long _fill = 0;
+    private volatile long _fillMax = 0;
+    private final AtomicLong _overruns = new AtomicLong(0);
+    private final Object _spaceLock = new Object();
+    private boolean _spaceWaiting = false;
 
     public TimeBuffer(double capacity, double sr, int dim, int bytesPerValue, Cons.Type type, Provider owner)
+    {
+        this(capacity, sr, dim, bytesPerValue, type, owner, false);
+    }
+
+    /**
+     * @param typed if true, the data is stored in a primitive array matching the stream type instead of a byte array.
+     *              Reading into or writing from arrays of the same type then only requires a System.arraycopy,
+     *              byte arrays are still accepted and get converted.
+     */
+    public TimeBuffer(double capacity, double sr, int dim, int bytesPerValue, Cons.Type type, Provider owner, boolean typed)
     {
         _owner = owner;
 
@@ -77,17 +109,52 @@ public class TimeBuffer {
 
         _sampleDuration = 1.0 / _sr;
 
-        _buffer = new byte[_capacitySamples * _bytesPerSample];
+        _capacityBytes = _capacitySamples * _bytesPerSample;
+        _typed = typed && Util.sizeOf(type) == bytesPerValue;
+        _bytesPerElement = _typed ? bytesPerValue : 1;
+        _buffer = allocate(_typed ? type : Cons.Type.BYTE, _capacityBytes / _bytesPerElement);
 
         reset();
     }
 
+    private static Object allocate(Cons.Type type, int len)
+    {
+        switch(type)
+        {
+            case CHAR:
+                return new char[len];
+            case SHORT:
+                return new short[len];
+            case INT:
+                return new int[len];
+            case LONG:
+                return new long[len];
+            case FLOAT:
+                return new float[len];
+            case DOUBLE:
+                return new double[len];
+            case BOOL:
+                return new boolean[len];
+            default:
+                return new byte[len];
+        }
+    }
+
     public void reset()
     {
         _position = 0;
+        _claimed = 0;
         _offsetSamples = 0;
         _lastAccessedSample = 0;
 
+        _fill = 0;
+        _fillMax = 0;
+        _overruns.set(0);
+
+        synchronized (_spaceLock) {
+            _readers = new long[0];
+        }
+
         _terminate = false;
     }
 
@@ -98,14 +165,101 @@ public class TimeBuffer {
         synchronized (_lock) {
             _lock.notifyAll();
         }
+
+        wakeWriter();
+    }
+
+    /**
+     * Registers a reader which has to see every sample. Writers calling awaitSpace() are held back
+     * until all registered readers have moved past the data which would be overwritten.
+     * Registrations are cleared by reset().
+     *
+     * @return id of the reader
+     */
+    public int addReader()
+    {
+        synchronized (_spaceLock) {
+            _readers = Arrays.copyOf(_readers, _readers.length + 1);
+            return _readers.length - 1;
+        }
+    }
+
+    /**
+     * @param reader     id returned by addReader()
+     * @param nextSample first sample the reader still needs
+     */
+    public void advanceReader(int reader, int nextSample)
+    {
+        synchronized (_spaceLock) {
+            _readers[reader] = (long)(nextSample - _offsetSamples) * _bytesPerSample;
+
+            if (_spaceWaiting)
+                _spaceLock.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until numBytes can be pushed without overwriting data a registered reader still needs
+     *
+     * @return false if the buffer has been closed
+     */
+    public boolean awaitSpace(int numBytes)
+    {
+        if (numBytes > _capacityBytes)
+            return !_terminate;
+
+        synchronized (_spaceLock) {
+            while (!_terminate && _position + numBytes - minReader() > _capacityBytes)
+            {
+                _spaceWaiting = true;
+                try {
+                    _spaceLock.wait(Cons.SLEEP_IN_LOOP);
+                } catch (InterruptedException e) {
+                    Log.w("thread interrupt");
+                }
+            }
+            _spaceWaiting = false;
+        }
+
+        return !_terminate;
+    }
+
+    /**
+     * @return true if numBytes can be pushed without overwriting data a registered reader still needs
+     */
+    public boolean hasSpace(int numBytes)
+    {
+        if (numBytes > _capacityBytes)
+            return true;
+
+        synchronized (_spaceLock) {
+            return _terminate || _position + numBytes - minReader() <= _capacityBytes;
+        }
+    }
+
+    private long minReader()
+    {
+        long min = Long.MAX_VALUE;
+        for (long pos : _readers)
+            min = Math.min(min, pos);
+
+        return (min == Long.MAX_VALUE) ? _position : min;
+    }
+
+    protected void wakeWriter()
+    {
+        synchronized (_spaceLock) {
+            _spaceLock.notifyAll();
+        }
     }
 
     public void push(Object data, int numBytes)
     {
         synchronized (_lock) {
             //compute actual position of data within buffer
-            int pos_mod = (int)(_position % _buffer.length);
+            int pos_mod = (int)(_position % _capacityBytes);
 
+            claim(_position + numBytes);
             copy(data, 0, _buffer, pos_mod, numBytes);
 
             _position += numBytes;
@@ -113,9 +267,9 @@ public class TimeBuffer {
         }
     }
 
-    private void copy(Object src, int srcpos, byte[] dst, int dstpos, int numBytes)
+    protected void copy(Object src, int srcpos, Object dst, int dstpos, int numBytes)
     {
-        if (dstpos + numBytes <= dst.length) {
+        if (dstpos + numBytes <= _capacityBytes) {
             // end of buffer not reached
             // copy data in one step
             Util.arraycopy(src, srcpos, dst, dstpos, numBytes);
@@ -124,7 +278,7 @@ public class TimeBuffer {
             // copy data in two steps:
             // 1. copy everything until the end of the buffer is reached
             // 2. copy remaining part from the beginning
-            int size_until_end = dst.length - dstpos;
+            int size_until_end = _capacityBytes - dstpos;
             int size_remaining = numBytes - size_until_end;
             Util.arraycopy(src, srcpos, dst, dstpos, size_until_end);
             copy(src, size_until_end, dst, 0, size_remaining);
@@ -137,8 +291,9 @@ public class TimeBuffer {
 
         synchronized (_lock) {
             //compute actual position of data within buffer
-            int pos_mod = (int)(_position % _buffer.length);
+            int pos_mod = (int)(_position % _capacityBytes);
 
+            claim(_position + numBytes);
             fillZero(_buffer, pos_mod, numBytes);
 
             _position += numBytes;
@@ -146,58 +301,116 @@ public class TimeBuffer {
         }
     }
 
-    private void fillZero(byte[] buffer, int pos, int num)
+    protected void fillZero(Object buffer, int pos, int num)
     {
-        if (pos + num <= buffer.length)
-            Arrays.fill(buffer, pos, pos + num, (byte)0);
+        if (pos + num <= _capacityBytes)
+            Util.fillZeroes(buffer, pos / _bytesPerElement, num / _bytesPerElement);
         else
         {
             // end of buffer reached
             // copy data in two steps:
             // 1. copy everything until the end of the buffer is reached
             // 2. copy remaining part from the beginning
-            int size_until_end = buffer.length - pos;
+            int size_until_end = _capacityBytes - pos;
             int size_remaining = num - size_until_end;
-            Arrays.fill(buffer, pos, pos + size_until_end, (byte)0);
+            Util.fillZeroes(buffer, pos / _bytesPerElement, size_until_end / _bytesPerElement);
             fillZero(buffer, 0, size_remaining);
         }
     }
 
-    private boolean get_(Object dst, long pos, int len)
+    protected int get_(Object dst, long pos, int len)
     {
         synchronized (_lock) {
-            //wait for requested data to become available
-            while (pos + len > _position && !_terminate) {
-                try {
-                    _lock.wait();
-                } catch (InterruptedException e) {
-                    Log.w("thread interrupt");
-                }
+            int status = waitForData(pos, len);
+            if(status != STATUS_SUCCESS)
+                return status;
+
+            copyOut(dst, pos, len);
+        }
+
+        return STATUS_SUCCESS;
+    }
+
+    protected int getView_(StreamView view, long pos, int len)
+    {
+        synchronized (_lock) {
+            int status = waitForData(pos, len);
+            if(status != STATUS_SUCCESS)
+                return status;
+
+            fillView(view, pos, len);
+        }
+
+        return STATUS_SUCCESS;
+    }
+
+    //must be called while holding _lock
+    private int waitForData(long pos, int len)
+    {
+        //wait for requested data to become available
+        while (pos + len > _position && !_terminate) {
+            try {
+                _lock.wait();
+            } catch (InterruptedException e) {
+                Log.w("thread interrupt");
             }
+        }
 
-            if(_terminate)
-                return false;
+        if(_terminate)
+            return STATUS_ERROR;
 
-            //compute actual position of data within buffer
-            int pos_mod = (int)(pos % _buffer.length);
+        //the writer might have overwritten the data while we were waiting for the lock
+        if(_position - pos > _capacityBytes)
+            return STATUS_DATA_NOT_IN_BUFFER_ANYMORE;
+
+        return STATUS_SUCCESS;
+    }
 
-            if (pos_mod + len <= _buffer.length) {
-                // end of buffer not reached
-                // copy data in one step
-                Util.arraycopy(_buffer, pos_mod, dst, 0, len);
+    /**
+     * Points the view directly to the buffer memory if possible, otherwise copies the window into the view.
+     * In-place access requires typed storage and enough headroom before the writer reaches the window,
+     * as the writer is never blocked by readers.
+     */
+    protected void fillView(StreamView view, long pos, int len)
+    {
+        if(_typed && view.type == _type && _position - pos <= _capacityBytes / 2)
+        {
+            int pos_mod = (int)(pos % _capacityBytes);
+
+            if (pos_mod + len <= _capacityBytes) {
+                view.set(_buffer, pos_mod / _bytesPerElement, len / _bytesPerElement, null, 0, false);
             } else {
-                // end of buffer reached
-                // copy data in two steps:
-                // 1. copy everything until the end of the buffer is reached
-                // 2. copy remaining part from the beginning
-                int size_until_end = _buffer.length - pos_mod;
-                int size_remaining = len - size_until_end;
-                Util.arraycopy(_buffer, pos_mod, dst, 0, size_until_end);
-                Util.arraycopy(_buffer, 0, dst, size_until_end, size_remaining);
+                int size_until_end = _capacityBytes - pos_mod;
+                view.set(_buffer, pos_mod / _bytesPerElement, size_until_end / _bytesPerElement,
+                         _buffer, (len - size_until_end) / _bytesPerElement, false);
             }
         }
+        else
+        {
+            copyOut(view.copyPtr(), pos, len);
+            view.set(view.copyPtr(), 0, len / _bytesPerValue, null, 0, true);
+        }
+    }
+
+    protected void copyOut(Object dst, long pos, int len)
+    {
+        //compute actual position of data within buffer
+        int pos_mod = (int)(pos % _capacityBytes);
 
-        return true;
+        if (pos_mod + len <= _capacityBytes) {
+            // end of buffer not reached
+            // copy data in one step
+            Util.arraycopy(_buffer, pos_mod, dst, 0, len);
+        } else {
+            // end of buffer reached
+            // copy data in two steps:
+            // 1. copy everything until the end of the buffer is reached
+            // 2. copy remaining part from the beginning
+            int size_until_end = _capacityBytes - pos_mod;
+            int size_remaining = len - size_until_end;
+            Util.arraycopy(_buffer, pos_mod, dst, 0, size_until_end);
+            Util.arraycopy(_buffer, 0, dst, size_until_end, size_remaining);
+        }
     }
 
     public int get(Object dst, int startSample, int numSamples)
@@ -205,6 +418,121 @@ public class TimeBuffer {
         //correct position for sync
         startSample -= _offsetSamples;
 
+        int status = checkRange(startSample, numSamples);
+        if(status == STATUS_SUCCESS)
+            status = get_(dst, (long)startSample * _bytesPerSample, numSamples * _bytesPerSample);
+
+        recordAccess(status, (long)startSample * _bytesPerSample);
+        if(status != STATUS_SUCCESS)
+            return status;
+
+        _lastAccessedSample = startSample + numSamples - 1;
+
+        return status;
+    }
+
+    /**
+     * Provides read-only access to a window of the buffer without copying it (if possible).
+     * The view stays valid until the writer overwrites the window, see isValid(StreamView).
+     */
+    public int getView(StreamView view, int startSample, int numSamples)
+    {
+        //correct position for sync
+        startSample -= _offsetSamples;
+
+        long pos = (long)startSample * _bytesPerSample;
+        int status = checkRange(startSample, numSamples);
+        if(status == STATUS_SUCCESS)
+            status = getView_(view, pos, numSamples * _bytesPerSample);
+
+        recordAccess(status, pos);
+        if(status != STATUS_SUCCESS)
+            return status;
+
+        view.num = numSamples;
+        view.pinned = pos;
+        _lastAccessedSample = startSample + numSamples - 1;
+
+        return status;
+    }
+
+    /**
+     * @return false if the writer has started overwriting the window since the view was created
+     */
+    public boolean isValid(StreamView view)
+    {
+        if(view.copied)
+            return true;
+
+        loadFence();
+        return _claimed - view.pinned <= _capacityBytes;
+    }
+
+    /**
+     * Announces the range the writer is about to overwrite, must be called before writing into it.
+     * The claim is read back: a volatile store is never reordered with a subsequent volatile load and
+     * no access following a volatile load may be moved before it, so the claim becomes visible first.
+     */
+    protected final void claim(long end)
+    {
+        _claimed = end;
+        if (_claimed != end)
+            throw new IllegalStateException("concurrent writers");
+    }
+
+    /**
+     * Called by readers after accessing the buffer and before re-checking the claim.
+     * No access preceding a volatile store may be moved after it and the store is never
+     * reordered with the subsequent volatile load of the claim.
+     * Readers write to a slot of their own (by thread id), so they do not contend for a cache line.
+     */
+    protected final void loadFence()
+    {
+        int slot = ((int) Thread.currentThread().getId() & (FENCE_SLOTS - 1)) + 1;
+        _fences.set(slot * FENCE_STRIDE, 0);
+    }
+
+    private void recordAccess(int status, long pos)
+    {
+        if(status == STATUS_SUCCESS)
+        {
+            long fill = _position - pos;
+            _fill = fill;
+            if(fill > _fillMax)
+                _fillMax = fill;
+        }
+        else if(status == STATUS_DATA_NOT_IN_BUFFER_ANYMORE)
+        {
+            _overruns.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return fraction of the buffer between the last window which was read and the newest sample
+     */
+    public double getFill()
+    {
+        return (double)_fill / _capacityBytes;
+    }
+
+    /**
+     * @return highest fill level since the last reset, a value close to 1 means that a reader is about to be overrun
+     */
+    public double getMaxFill()
+    {
+        return (double)_fillMax / _capacityBytes;
+    }
+
+    /**
+     * @return number of reads which failed because the data had already been overwritten
+     */
+    public long getOverruns()
+    {
+        return _overruns.get();
+    }
+
+    private int checkRange(int startSample, int numSamples)
+    {
         // check if requested duration is too small
         if (numSamples == 0) {
             return STATUS_DURATION_TOO_SMALL;
@@ -224,12 +552,7 @@ public class TimeBuffer {
             return STATUS_DATA_NOT_IN_BUFFER_ANYMORE;
         }
 
-        boolean ok = get_(dst, (long)startSample * _bytesPerSample, numSamples * _bytesPerSample);
-
-        _lastAccessedSample = startSample + numSamples - 1;
-
-        if(ok) return STATUS_SUCCESS;
-        else return STATUS_ERROR;
+        return STATUS_SUCCESS;
     }
 
     public int get(Object dst, double start_time, double duration)
@@ -258,6 +581,14 @@ public class TimeBuffer {
         _offsetSamples -= (int)(delta * _sr + 0.5);
     }
 
+    /**
+     * @return number of samples which have been written to the buffer starting from startSample
+     */
+    public int getAvailableSamples(int startSample)
+    {
+        return (int)(_position / _bytesPerSample) - (startSample - _offsetSamples);
+    }
+
     public long getPositionAbs()
     {
         return _position;
@@ -265,7 +596,7 @@ public class TimeBuffer {
 
     public int getCapacity()
     {
-        return _buffer.length;
+        return _capacityBytes;
     }
 
     public double getLastAccessedSampleTime ()
@@ -291,6 +622,11 @@ public class TimeBuffer {
         return _bytesPerValue;
     }
 
+    public boolean isTyped()
+    {
+        return _typed;
+    }
+
     public Provider getOwner()
     {
         return _owner;
@@ -26,27 +26,41 @@
 
 package hcm.ssj.core;
 
-import android.os.SystemClock;
-
-import java.util.ArrayList;
+import hcm.ssj.core.platform.Platform;
 
 /**
+ * Maintains the update rate of a thread. Ticks are scheduled in nanoseconds relative to reset(),
+ * the n-th tick happens at offset + n * interval, hence rounding errors do not accumulate.
+ * sync() sleeps until shortly before the next tick and spins for the remaining time, the spin
+ * threshold adapts to how much the system oversleeps.
  * Created by Johnny on 05.03.2015.
  */
 public class Timer {
 
+    private static final long MIN_SPIN = 20000; //ns
+    private static final long MAX_SPIN = 2000000; //ns
+    private static final long SYNC_ACCURACY = Cons.TIMER_SYNC_ACCURACY * 1000000; //ns
+    private static final long BACK_IN_SYNC = 1000000; //ns
+
     private long _now;
     private long _init;
     private long _next;
-    private long _delta;
-    private long _offset;
+    private long _ticks;
+    private double _delta; //ns
+    private long _offset; //ns
+
+    private long _spin = 500000; //ns
+    private long _oversleep = 250000; //ns
 
     private long _tick_start = 0;
 
     private final int HISTORY_SIZE = 10;
-    private ArrayList<Long> _history = new ArrayList<Long>();
+    private final long[] _history = new long[HISTORY_SIZE]; //ns
+    private int _historyPos = 0;
+    private int _historySize = 0;
 
     private boolean _syncFailFlag;
+    private WindowStats _stats = null;
 
     public Timer()
     {
@@ -67,12 +81,12 @@ public class Timer {
 
     public void setClockS(double seconds)
     {
-        _delta = (long)(seconds * 1000 + 0.5);
+        _delta = seconds * 1e9;
     }
 
     public void setClockMs(long milliseconds)
     {
-        _delta = milliseconds;
+        _delta = milliseconds * 1e6;
     }
 
     public void setClockHz(double hz)
@@ -83,110 +97,198 @@ public class Timer {
     public void reset ()
     {
         _syncFailFlag = false;
-        _init = SystemClock.elapsedRealtime();
-        _next = _delta + _offset;
+        _init = nanoTime();
+        _ticks = 1;
+        _next = _offset + Math.round(_delta);
     }
 
     //offsets the first tick, requires a "reset"
     public void setStartOffset(double seconds)
     {
-        _offset = (long)(seconds * 1000 + 0.5);
+        _offset = Math.round(seconds * 1e9);
     }
 
     //offsets the next tick, requires a "reset"
     public void setStartOffset(long milliseconds)
     {
-        _offset = milliseconds;
+        _offset = milliseconds * 1000000;
+    }
+
+    //counts the ticks which are missed by more than the sync accuracy and records how late the thread wakes up
+    void setStats(WindowStats stats)
+    {
+        _stats = stats;
     }
 
     //equivalent to SSI's wait()
     public void sync ()
     {
-        _now = SystemClock.elapsedRealtime() - _init;
-        while (_now < _next)
+        _now = nanoTime() - _init;
+        if (_now < _next)
+            _now = waitUntil(_next);
+
+        long late = _now - _next;
+        if(_stats != null)
+            _stats.synced(late);
+
+        if(late > _delta + SYNC_ACCURACY) {
+            if(_stats != null)
+                _stats.missedDeadline();
+
+            if(!_syncFailFlag) {
+                _syncFailFlag = true;
+                Log.i("thread too slow, missing sync points");
+            }
+        } else if(late <= BACK_IN_SYNC) {
+            if(_syncFailFlag) {
+                _syncFailFlag = false;
+                Log.i("thread back in sync");
+            }
+        }
+
+        _ticks++;
+        _next = _offset + Math.round(_ticks * _delta);
+    }
+
+    /**
+     * Sleeps until the spin threshold is reached, then yields until the target time
+     *
+     * @return time after waiting, relative to reset()
+     */
+    private long waitUntil(long target)
+    {
+        long now = nanoTime() - _init;
+
+        while (target - now > _spin)
         {
+            long sleep = target - now - _spin;
             try
             {
-                Thread.sleep (_next - _now);
+                Thread.sleep(sleep / 1000000, (int)(sleep % 1000000));
+
+                //adapt spin threshold to twice the average oversleep
+                long woke = nanoTime() - _init;
+                _oversleep += (woke - now - sleep - _oversleep) / 8;
+                _spin = Math.max(MIN_SPIN, Math.min(MAX_SPIN, 2 * _oversleep));
+                now = woke;
             }
             catch (InterruptedException e){
                 Log.w("thread interrupt");
+                now = nanoTime() - _init;
             }
-
-            _now = SystemClock.elapsedRealtime() - _init;
         }
 
-        if(_now - _next > _delta + Cons.TIMER_SYNC_ACCURACY) {
-            if(!_syncFailFlag) {
-                _syncFailFlag = true;
-                Log.i(Thread.currentThread().getStackTrace()[3].getClassName().replace("hcm.ssj.", ""),
-                      "thread too slow, missing sync points");
-            }
-        } else if(_now - _next <= 1) {
-            if(_syncFailFlag) {
-                _syncFailFlag = false;
-                Log.i(Thread.currentThread().getStackTrace()[3].getClassName().replace("hcm.ssj.", ""),
-                      "thread back in sync");
-            }
+        while (now < target)
+        {
+            Thread.yield();
+            now = nanoTime() - _init;
         }
 
-        _next += _delta;
+        return now;
     }
 
     public void tick_start()
     {
-        _tick_start = SystemClock.elapsedRealtime();
+        _tick_start = nanoTime();
     }
 
     public void tick_end()
     {
-        _history.add(SystemClock.elapsedRealtime() - _tick_start);
-        if(_history.size() > HISTORY_SIZE)
-            _history.remove(0);
+        addHistory(nanoTime() - _tick_start);
     }
 
     public void tick()
     {
+        long now = nanoTime();
         if(_tick_start != 0)
-            _history.add(SystemClock.elapsedRealtime() - _tick_start);
+            addHistory(now - _tick_start);
 
-        _tick_start = SystemClock.elapsedRealtime();
+        _tick_start = now;
+    }
 
-        if(_history.size() > HISTORY_SIZE)
-            _history.remove(0);
+    private void addHistory(long duration)
+    {
+        _history[_historyPos] = duration;
+        _historyPos = (_historyPos + 1) % HISTORY_SIZE;
+        if(_historySize < HISTORY_SIZE)
+            _historySize++;
     }
 
+    /**
+     * @return longest of the last tick durations in seconds
+     */
     public double getMax()
     {
         long max = 0;
-        for(Long delta : _history) {
-            if(delta > max)
-                max = delta;
+        for(int i = 0; i < _historySize; i++) {
+            if(_history[i] > max)
+                max = _history[i];
+        }
+        return max / 1e9;
+    }
+
+    /**
+     * @return shortest of the last tick durations in seconds
+     */
+    public double getMin()
+    {
+        if(_historySize == 0)
+            return 0;
+
+        long min = Long.MAX_VALUE;
+        for(int i = 0; i < _historySize; i++) {
+            if(_history[i] < min)
+                min = _history[i];
         }
-        return max / 1000.0;
+        return min / 1e9;
     }
 
+    /**
+     * @return average of the last tick durations in seconds
+     */
     public double getAvgDur()
     {
-        if(_history.size() == 0)
+        if(_historySize == 0)
             return 0;
 
         long sum = 0;
-        for(Long delta : _history) {
-            sum += delta;
+        for(int i = 0; i < _historySize; i++) {
+            sum += _history[i];
+        }
+
+        return (double)sum / _historySize / 1e9;
+    }
+
+    /**
+     * @return standard deviation of the last tick durations in seconds
+     */
+    public double getJitter()
+    {
+        if(_historySize == 0)
+            return 0;
+
+        double avg = getAvgDur() * 1e9;
+        double sum = 0;
+        for(int i = 0; i < _historySize; i++) {
+            sum += (_history[i] - avg) * (_history[i] - avg);
         }
 
-        double avg = (double)sum / (double)_history.size();
-        return avg / 1000.0;
+        return Math.sqrt(sum / _historySize) / 1e9;
     }
 
     public long getElapsedMs()
     {
-        return SystemClock.elapsedRealtime() - _init;
+        return (nanoTime() - _init) / 1000000;
     }
 
     public double getElapsed()
     {
-        return getElapsedMs() / 1000.0;
+        return (nanoTime() - _init) / 1e9;
+    }
+
+    //same clock as the pipeline (keeps counting while an android device is suspended)
+    private static long nanoTime()
+    {
+        return Platform.get().nanoTime();
     }
 }
@@ -26,12 +26,11 @@
 
 package hcm.ssj.core;
 
-import android.content.Context;
-import android.os.PowerManager;
-
 import java.util.Arrays;
 
+import hcm.ssj.core.platform.Platform;
 import hcm.ssj.core.stream.Stream;
+import hcm.ssj.core.stream.StreamView;
 
 /**
  * Created by Johnny on 05.03.2015.
@@ -44,11 +43,28 @@ public abstract class Transformer extends Provider {
     private int[] _readPos;
     private int[] _num_frame;
     private int[] _num_delta;
+    private int[] _readerID = null;
 
     private Timer _timer;
+    private WindowStats _stats = new WindowStats();
 
     protected Pipeline _frame;
 
+    /**
+     * If true, transform(StreamView[], Stream) is called with read-only views into the input buffers
+     * instead of copying every window into the input streams.
+     */
+    protected boolean _useViews = false;
+    private StreamView[] _view_in = null;
+    private boolean _useViewsNow = false;
+    private boolean _dataDriven = false;
+
+    //fusion (see Pipeline.addChain): the next transformer is executed right after this one by the same thread
+    private Transformer _next = null;
+    private Transformer _prev = null;
+    private boolean _pushOutput = true;
+    private Stream _stream_out_own = null;
+
     public Transformer()
     {
         _frame = Pipeline.getInstance();
@@ -62,15 +78,112 @@ public abstract class Transformer extends Provider {
             return;
         }
 
-        android.os.Process.setThreadPriority(threadPriority);
-        PowerManager mgr = (PowerManager)SSJApplication.getAppContext().getSystemService(Context.POWER_SERVICE);
-        PowerManager.WakeLock wakeLock = mgr.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, _name);
+        Platform.get().setThreadPriority(threadPriority);
+        Platform.WakeLock wakeLock = Platform.get().newWakeLock(_name);
+
+        taskEnter();
+
+        //wait for framework
+        while (!_frame.isRunning()) {
+            try {
+                Thread.sleep(Cons.SLEEP_IN_LOOP);
+            } catch (InterruptedException e) {
+                Log.w("thread interrupt");
+            }
+        }
+
+        //maintain update rate starting from now
+        if(!_dataDriven)
+            _timer.reset();
+
+        while(!_terminate && _frame.isRunning())
+        {
+            wakeLock.acquire();
+            boolean ok = taskStep();
+            wakeLock.release();
+
+            if(ok && !_dataDriven) {
+                //maintain update rate
+                _timer.sync();
+            }
+        }
+
+        taskFlush();
+    }
+
+    @Override
+    boolean isTask()
+    {
+        //fused transformers are executed by their predecessor
+        return _isSetup && _prev == null;
+    }
 
+    /**
+     * @return true if the transformer is executed by the transformer it reads from
+     */
+    public boolean isFused()
+    {
+        return _prev != null;
+    }
+
+    /**
+     * @return true if next reads nothing but the complete output windows of this transformer
+     */
+    boolean canFuse(Transformer next)
+    {
+        return _isSetup && next._isSetup
+               && _next == null && next._prev == null && next != this
+               && next._bufferID_in.length == 1 && next._bufferID_in[0] == _bufferID
+               && next._num_frame[0] == _stream_out.num && next._num_delta[0] == 0;
+    }
 
+    /**
+     * Lets this transformer execute next right after itself. The output is handed over directly,
+     * it is only pushed to the output buffer if other components read it (pushOutput).
+     */
+    void fuse(Transformer next, boolean pushOutput)
+    {
+        _next = next;
+        _pushOutput = pushOutput;
+        next._prev = this;
+
+        //write directly into the input of the next transformer
+        _stream_out_own = _stream_out;
+        _stream_out = next._stream_in[0];
+    }
+
+    void unfuse()
+    {
+        if (_next != null)
+        {
+            _next._prev = null;
+            _next = null;
+        }
+
+        if (_stream_out_own != null)
+        {
+            _stream_out = _stream_out_own;
+            _stream_out_own = null;
+        }
+
+        _pushOutput = true;
+    }
+
+    @Override
+    int[] getTaskInputs()
+    {
+        return _bufferID_in;
+    }
+
+    @Override
+    void taskEnter()
+    {
         //clear data
         Arrays.fill(_readPos, 0);
         for(int i = 0; i < _stream_in.length; i++)
             _stream_in[i].reset();
+        _stats.reset();
+        _dataDriven = _frame.options.dataDriven.get() || _frame.isReplay();
 
         try {
             enter(_stream_in, _stream_out);
@@ -78,58 +191,208 @@ public abstract class Transformer extends Provider {
             _frame.crash(this.getClass().getSimpleName(), "exception in enter", e);
         }
 
-        //wait for framework
-        while (!_frame.isRunning()) {
-            try {
-                Thread.sleep(Cons.SLEEP_IN_LOOP);
-            } catch (InterruptedException e) {
-                Log.w("thread interrupt");
-            }
+        _useViewsNow = _useViews && _prev == null;
+        if(_useViewsNow && _view_in == null)
+        {
+            _view_in = new StreamView[_stream_in.length];
+            for(int i = 0; i < _stream_in.length; i++)
+                _view_in[i] = new StreamView(_stream_in[i]);
         }
 
-        //maintain update rate starting from now
-        _timer.reset();
+        if(_next != null)
+            _next.taskEnter();
+    }
 
-        while(!_terminate && _frame.isRunning())
-        {
-            try {
-                wakeLock.acquire();
+    @Override
+    boolean taskReady()
+    {
+        return getBacklog() > 0 && (!_frame.isReplay() || hasOutputSpace());
+    }
 
-                //grab data
-                boolean ok = true;
-                for(int i = 0; i < _bufferID_in.length; i++)
+    /**
+     * @return true if this transformer and the fused transformers it executes can push their next window
+     * without having to wait for their readers (replay mode), so shared workers never block on a reader they execute themselves
+     */
+    private boolean hasOutputSpace()
+    {
+        for(Transformer t = this; t != null; t = t._next)
+            if(t._pushOutput && !_frame.hasSpace(t._bufferID, t._stream_out.tot))
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Pushes the output window, in replay mode after all readers consumed the data which would be overwritten
+     */
+    private void pushOutput()
+    {
+        if(_frame.isReplay() && !_frame.awaitSpace(_bufferID, _stream_out.tot))
+            return;
+
+        _frame.pushData(_bufferID, _stream_out.ptr(), _stream_out.tot);
+    }
+
+    /**
+     * @return number of complete windows which are available in all inputs
+     */
+    private int getBacklog()
+    {
+        int backlog = Integer.MAX_VALUE;
+        for(int i = 0; i < _bufferID_in.length; i++)
+            backlog = Math.min(backlog, _frame.getAvailableWindows(_bufferID_in[i], _readPos[i], _stream_in[i].num, _num_frame[i]));
+
+        return backlog;
+    }
+
+    @Override
+    boolean taskStep()
+    {
+        boolean ok = true;
+
+        try {
+            long start = System.nanoTime();
+
+            //number of windows which are already waiting, processed back-to-back in data driven mode
+            int backlog = getBacklog();
+
+            //grab data
+            for(int i = 0; i < _bufferID_in.length; i++)
+            {
+                if(_useViewsNow)
+                {
+                    ok &= _frame.getView(_bufferID_in[i], _view_in[i], _readPos[i], _stream_in[i].num);
+                    if(ok)
+                        _view_in[i].time = _stream_in[i].time = (double)_readPos[i] / _stream_in[i].sr;
+                }
+                else
                 {
                     ok &= _frame.getData(_bufferID_in[i], _stream_in[i].ptr(), _readPos[i],
                                          _stream_in[i].num);
                     if(ok)
                         _stream_in[i].time = (double)_readPos[i] / _stream_in[i].sr;
-
-                    _readPos[i] += _num_frame[i];
-                }
-
-                //if we received data from all sources, process it
-                if(ok) {
-                    transform(_stream_in, _stream_out);
-                    _frame.pushData(_bufferID, _stream_out.ptr(), _stream_out.tot);
                 }
 
-                wakeLock.release();
+                _readPos[i] += _num_frame[i];
+            }
 
-                if(ok) {
-                    //maintain update rate
-                    _timer.sync();
+            //if we received data from all sources, process it
+            if(ok) {
+                beginStep();
+                try {
+                    long ready = System.nanoTime();
+
+                    boolean valid = true;
+                    if(_useViewsNow)
+                    {
+                        transform(_view_in, _stream_out);
+
+                        for(int i = 0; i < _view_in.length; i++)
+                            valid &= _frame.isViewValid(_bufferID_in[i], _view_in[i]);
+                    }
+                    else
+                    {
+                        transform(_stream_in, _stream_out);
+                    }
+
+                    if(valid)
+                    {
+                        _stats.processed(backlog, ready - start, System.nanoTime() - ready);
+                    }
+                    else
+                    {
+                        //drop the corrupted output, zeroes keep the output stream in sync (like the watchdog does)
+                        Log.w(_name, "input data was overwritten while being transformed, consider a larger buffer");
+                        Util.fillZeroes(_stream_out.ptr(), 0, _stream_out.num * _stream_out.dim);
+                        _stats.dropped();
+                    }
+
+                    if(_pushOutput)
+                        pushOutput();
+
+                    if(_next != null)
+                        _next.fusedStep();
+                } finally {
+                    endStep();
                 }
-            } catch(Exception e) {
-                _frame.crash(this.getClass().getSimpleName(), "exception in loop", e);
             }
+            else if(_frame.isRunning())
+            {
+                _stats.dropped();
+            }
+
+            //window has been processed, writers may now overwrite it
+            if(_readerID != null)
+                for(int i = 0; i < _bufferID_in.length; i++)
+                    _frame.advanceReader(_bufferID_in[i], _readerID[i], _readPos[i]);
+        } catch(Exception e) {
+            _frame.crash(this.getClass().getSimpleName(), "exception in loop", e);
         }
 
+        return ok;
+    }
+
+    /**
+     * Processes the window the previous transformer has just written into the input stream
+     */
+    private void fusedStep()
+    {
+        try {
+            _stream_in[0].time = (double)_readPos[0] / _stream_in[0].sr;
+            _readPos[0] += _num_frame[0];
+
+            long start = System.nanoTime();
+            transform(_stream_in, _stream_out);
+            _stats.processed(1, 0, System.nanoTime() - start);
+
+            if(_pushOutput)
+                pushOutput();
+        } catch(Exception e) {
+            _frame.crash(this.getClass().getSimpleName(), "exception in loop", e);
+            return;
+        }
+
+        if(_next != null)
+            _next.fusedStep();
+    }
+
+    @Override
+    void setupReaders(boolean register)
+    {
+        if(!register)
+        {
+            _readerID = null;
+            return;
+        }
+
+        _readerID = new int[_bufferID_in.length];
+        for(int i = 0; i < _bufferID_in.length; i++)
+            _readerID[i] = _frame.addReader(_bufferID_in[i]);
+    }
+
+    @Override
+    void taskFlush()
+    {
+        Log.i(_name, "windows: " + _stats);
+
         try {
             flush(_stream_in, _stream_out);
         } catch(Exception e) {
             _frame.crash(this.getClass().getSimpleName(), "exception in flush", e);
         }
         _safeToKill = true;
+
+        if(_next != null)
+            _next.taskFlush();
+    }
+
+    /**
+     * @return statistics about the windows processed during the last run
+     */
+    @Override
+    public WindowStats getWindowStats()
+    {
+        return _stats;
     }
 
     /**
@@ -147,6 +410,19 @@ public abstract class Transformer extends Provider {
      */
     public abstract void transform(Stream[] stream_in, Stream stream_out);
 
+    /**
+     * main processing method if views are used (see _useViews), the views are only valid during the call.
+     * If the data was overwritten during the call, the window is counted as dropped and zeroes are output instead.
+     * Per default the views are copied into the input streams and passed to transform(Stream[], Stream).
+     */
+    public void transform(StreamView[] view_in, Stream stream_out)
+    {
+        for(int i = 0; i < view_in.length; i++)
+            view_in[i].copyTo(_stream_in[i].ptr());
+
+        transform(_stream_in, stream_out);
+    }
+
     /**
      * called once prior to termination
      */
@@ -158,6 +434,7 @@ public abstract class Transformer extends Provider {
     public final void setup(Provider[] sources, double frame, double delta) throws SSJException
     {
         try {
+            _view_in = null;
             _bufferID_in = new int[sources.length];
             _stream_in = new Stream[sources.length];
             _readPos = new int[sources.length];
@@ -202,6 +479,7 @@ public abstract class Transformer extends Provider {
             // configure update rate
             _timer = new Timer(frame);
             _timer.setStartOffset(delta);
+            _timer.setStats(_stats);
         }
         catch(Exception e)
         {
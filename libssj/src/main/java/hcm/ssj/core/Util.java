@@ -230,43 +230,43 @@ public class Util
         else if(src instanceof char[])
         {
             if(dst instanceof byte[]) arraycopy((char[]) src, srcPosBytes, (byte[]) dst, dstPosBytes, numBytes);
-            else if(dst instanceof char[]) System.arraycopy((char[]) src, srcPosBytes / 2, (char[]) dst, dstPosBytes, numBytes / 2);
+            else if(dst instanceof char[]) System.arraycopy((char[]) src, srcPosBytes / 2, (char[]) dst, dstPosBytes / 2, numBytes / 2);
             else throw new UnsupportedOperationException();
         }
         else if(src instanceof short[])
         {
             if(dst instanceof byte[]) arraycopy((short[]) src, srcPosBytes, (byte[]) dst, dstPosBytes, numBytes);
-            else if(dst instanceof short[]) System.arraycopy((short[]) src, srcPosBytes / 2, (short[]) dst, dstPosBytes, numBytes / 2);
+            else if(dst instanceof short[]) System.arraycopy((short[]) src, srcPosBytes / 2, (short[]) dst, dstPosBytes / 2, numBytes / 2);
             else throw new UnsupportedOperationException();
         }
         else if(src instanceof int[])
         {
             if(dst instanceof byte[]) arraycopy((int[]) src, srcPosBytes, (byte[]) dst, dstPosBytes, numBytes);
-            else if(dst instanceof int[]) System.arraycopy((int[]) src, srcPosBytes / 4, (int[]) dst, dstPosBytes, numBytes / 4);
+            else if(dst instanceof int[]) System.arraycopy((int[]) src, srcPosBytes / 4, (int[]) dst, dstPosBytes / 4, numBytes / 4);
             else throw new UnsupportedOperationException();
         }
         else if(src instanceof long[])
         {
             if(dst instanceof byte[]) arraycopy((long[]) src, srcPosBytes, (byte[]) dst, dstPosBytes, numBytes);
-            else if(dst instanceof long[]) System.arraycopy((long[]) src, srcPosBytes / 8, (long[]) dst, dstPosBytes, numBytes / 8);
+            else if(dst instanceof long[]) System.arraycopy((long[]) src, srcPosBytes / 8, (long[]) dst, dstPosBytes / 8, numBytes / 8);
             else throw new UnsupportedOperationException();
         }
         else if(src instanceof float[])
         {
             if(dst instanceof byte[]) arraycopy((float[]) src, srcPosBytes, (byte[]) dst, dstPosBytes, numBytes);
-            else if(dst instanceof float[]) System.arraycopy((float[]) src, srcPosBytes / 4, (float[]) dst, dstPosBytes, numBytes / 4);
+            else if(dst instanceof float[]) System.arraycopy((float[]) src, srcPosBytes / 4, (float[]) dst, dstPosBytes / 4, numBytes / 4);
             else throw new UnsupportedOperationException();
         }
         else if(src instanceof double[])
         {
             if(dst instanceof byte[]) arraycopy((double[]) src, srcPosBytes, (byte[]) dst, dstPosBytes, numBytes);
-            else if(dst instanceof double[]) System.arraycopy((double[]) src, srcPosBytes / 8, (double[]) dst, dstPosBytes, numBytes / 8);
+            else if(dst instanceof double[]) System.arraycopy((double[]) src, srcPosBytes / 8, (double[]) dst, dstPosBytes / 8, numBytes / 8);
             else throw new UnsupportedOperationException();
         }
         else if(src instanceof boolean[])
         {
             if(dst instanceof byte[]) arraycopy((boolean[]) src, srcPosBytes, (byte[]) dst, dstPosBytes, numBytes);
-            else if(dst instanceof boolean[]) System.arraycopy((boolean[]) src, srcPosBytes, (boolean[]) dst, dstPosBytes, numBytes / sizeOf(Cons.Type.BOOL));
+            else if(dst instanceof boolean[]) System.arraycopy((boolean[]) src, srcPosBytes / sizeOf(Cons.Type.BOOL), (boolean[]) dst, dstPosBytes / sizeOf(Cons.Type.BOOL), numBytes / sizeOf(Cons.Type.BOOL));
             else throw new UnsupportedOperationException();
         }
         else throw new UnsupportedOperationException();
@@ -510,35 +510,35 @@ public class Util
 
         if(arr instanceof byte[])
         {
-            for (int i = 0; i < numSamples; ++i) ((byte[])arr)[posSamples + i] = 0;
+            Arrays.fill((byte[])arr, posSamples, posSamples + numSamples, (byte)0);
         }
         else if(arr instanceof char[])
         {
-            for (int i = 0; i < numSamples; ++i) ((char[])arr)[posSamples + i] = 0;
+            Arrays.fill((char[])arr, posSamples, posSamples + numSamples, (char)0);
         }
         else if(arr instanceof short[])
         {
-            for (int i = 0; i < numSamples; ++i) ((short[])arr)[posSamples + i] = 0;
+            Arrays.fill((short[])arr, posSamples, posSamples + numSamples, (short)0);
         }
         else if(arr instanceof int[])
         {
-            for (int i = 0; i < numSamples; ++i) ((int[])arr)[posSamples + i] = 0;
+            Arrays.fill((int[])arr, posSamples, posSamples + numSamples, 0);
         }
         else if(arr instanceof long[])
         {
-            for (int i = 0; i < numSamples; ++i) ((long[])arr)[posSamples + i] = 0;
+            Arrays.fill((long[])arr, posSamples, posSamples + numSamples, 0);
         }
         else if(arr instanceof float[])
         {
-            for (int i = 0; i < numSamples; ++i) ((float[])arr)[posSamples + i] = 0;
+            Arrays.fill((float[])arr, posSamples, posSamples + numSamples, 0);
         }
         else if(arr instanceof double[])
         {
-            for (int i = 0; i < numSamples; ++i) ((double[])arr)[posSamples + i] = 0;
+            Arrays.fill((double[])arr, posSamples, posSamples + numSamples, 0);
         }
         else if(arr instanceof boolean[])
         {
-            for (int i = 0; i < numSamples; ++i) ((boolean[])arr)[posSamples + i] = false;
+            Arrays.fill((boolean[])arr, posSamples, posSamples + numSamples, false);
         }
         else throw new UnsupportedOperationException();
     }
@@ -717,6 +717,22 @@ public class Util
         }
     }
 
+    /**
+     * Joins the tokens with the delimiter (same as android's TextUtils.join, which is not available outside android)
+     */
+    public static String join(String delimiter, Object[] tokens)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < tokens.length; i++)
+        {
+            if (i > 0)
+                builder.append(delimiter);
+            builder.append(tokens[i]);
+        }
+
+        return builder.toString();
+    }
+
     public static String getTimestamp(long time_ms)
     {
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss", Locale.getDefault());
@@ -24,147 +24,120 @@
  * with this library; if not, see <http://www.gnu.org/licenses/>.
  */
 
+
 package hcm.ssj.core;
 
-import android.content.Context;
-import android.os.PowerManager;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
+ * Watches the output buffer of a sensor channel: if the channel does not check in during the watch interval,
+ * the buffer is filled with zeroes up to the pipeline time, and every sync interval the buffer is synced with
+ * the pipeline clock. The checks are executed by the pipeline's watch service, checking in never blocks.
  * Created by Johnny on 05.03.2015.
  */
-public class WatchDog extends Thread {
-
-    protected String _name = "SSJ_WatchDog";
-
-    protected boolean _terminate = false;
-    protected boolean _safeToKill = false;
-
-    protected Timer _timer;
-    protected boolean _targetCheckedIn = false;
+public class WatchDog {
 
-    protected final Object _lock = new Object();
+    private static final AtomicLongFieldUpdater<WatchDog> LAST_CHECK_IN = AtomicLongFieldUpdater.newUpdater(WatchDog.class, "_lastCheckIn");
 
     protected Pipeline _frame;
 
     protected int _bufferID;
     protected double _watchInterval;
     protected double _syncInterval;
-    protected int _syncIter;
-    protected int _watchIter;
+
+    private final WatchService.Timeout[] _timeouts;
+    private volatile boolean _closed = false;
+
+    //written by the sensor channel, read by the watch service
+    private volatile long _lastCheckIn;
+    private long _lastSeen;
+    private boolean _stalled = false;
+    private final WindowStats _stats;
 
     public WatchDog(int bufferID, double watchInterval, double syncInterval)
+    {
+        this(bufferID, watchInterval, syncInterval, null);
+    }
+
+    /**
+     * @param stats counts the stalls of the channel and the samples which were filled with zeroes (may be null)
+     */
+    WatchDog(int bufferID, double watchInterval, double syncInterval, WindowStats stats)
     {
         _frame = Pipeline.getInstance();
+        _stats = stats;
 
         _bufferID = bufferID;
         _watchInterval = watchInterval;
         _syncInterval = syncInterval;
 
-        double sleep = 0;
-        _syncIter = -1;
-        _watchIter = -1;
+        _lastCheckIn = System.nanoTime();
+        _lastSeen = _lastCheckIn;
 
         if (watchInterval > 0 && syncInterval > 0)
-        {
-            sleep = Math.min (watchInterval, syncInterval);
-            _syncIter = (int)(syncInterval / sleep) -1;
-            _watchIter = (int)(watchInterval / sleep) -1;
-        }
+            _timeouts = new WatchService.Timeout[] {new WatchService.Timeout(this, false, watchInterval), new WatchService.Timeout(this, true, syncInterval)};
         else if (syncInterval > 0)
-        {
-            sleep = syncInterval;
-            _syncIter = (int)(syncInterval / sleep) -1;
-        }
+            _timeouts = new WatchService.Timeout[] {new WatchService.Timeout(this, true, syncInterval)};
         else if (watchInterval > 0)
-        {
-            sleep = watchInterval;
-            _watchIter = (int)(watchInterval / sleep) -1;
-        }
+            _timeouts = new WatchService.Timeout[] {new WatchService.Timeout(this, false, watchInterval)};
+        else
+            _timeouts = new WatchService.Timeout[0];
 
-        if(sleep > 0) {
-            _timer = new Timer(sleep);
-            start();
-        }
-        else {
-            _safeToKill = true;
-        }
+        if (_timeouts.length > 0)
+            _frame.addWatchDog(this);
     }
 
+    /**
+     * Signals that the channel provided data, may be called for every sample
+     */
     public void checkIn()
     {
-        synchronized (_lock)
-        {
-            _targetCheckedIn = true;
-        }
+        //ordered store without a full fence, the watch service only needs to see it eventually
+        LAST_CHECK_IN.lazySet(this, System.nanoTime());
     }
 
-    @Override
-    public void run()
+    WatchService.Timeout[] getTimeouts()
     {
-        //wait for framework
-        while (!_frame.isRunning()) {
-            try {
-                sleep(Cons.SLEEP_IN_LOOP);
-            } catch (InterruptedException e) {
-                Log.w("thread interrupt");
-            }
-        }
-
-        PowerManager mgr = (PowerManager)SSJApplication.getAppContext().getSystemService(Context.POWER_SERVICE);
-        PowerManager.WakeLock wakeLock = mgr.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, _name);
-
-        int syncIterCnt = _syncIter;
-        int watchIterCnt = _watchIter;
+        return _timeouts;
+    }
 
-        _timer.reset();
+    boolean isClosed()
+    {
+        return _closed;
+    }
 
-        while(!_terminate && _frame.isRunning())
+    /**
+     * Called by the watch service every watch interval
+     */
+    void watch()
+    {
+        long last = _lastCheckIn;
+        if (last != _lastSeen)
         {
-            try {
-                wakeLock.acquire();
-
-                //check buffer watch
-                if(_watchIter >= 0) {
-                    if (watchIterCnt == 0) {
-                        synchronized (_lock) {
-                            if (!_targetCheckedIn) {
-                                //provider did not check in, provide zeroes
-                                _frame.pushZeroes(_bufferID);
-                            }
-                            _targetCheckedIn = false;
-                        }
-                        watchIterCnt = _watchIter;
-                    } else watchIterCnt--;
-                }
-
-                //check buffer sync
-                if(_syncIter >= 0) {
-                    if (syncIterCnt == 0) {
-                        _frame.sync(_bufferID);
-                        syncIterCnt = _syncIter;
-                    } else syncIterCnt--;
-                }
-
-                wakeLock.release();
-                _timer.sync();
-
-            } catch(Exception e) {
-                _frame.crash(this.getClass().getSimpleName(), "exception in loop", e);
-            }
+            //provider checked in
+            _lastSeen = last;
+            _stalled = false;
+            return;
         }
 
-        _safeToKill = true;
+        //provider did not check in, provide zeroes
+        int samples = _frame.pushZeroes(_bufferID);
+
+        if (_stats != null)
+            _stats.stalled(!_stalled, System.nanoTime() - last, samples);
+        _stalled = true;
     }
 
-    public void close() throws InterruptedException
+    /**
+     * Called by the watch service every sync interval
+     */
+    void sync()
     {
-        Log.i("shutting down");
-
-        _terminate = true;
-
-        while(!_safeToKill)
-            sleep(Cons.SLEEP_IN_LOOP);
+        _frame.sync(_bufferID);
+    }
 
-        Log.i("shut down complete");
+    public void close()
+    {
+        _closed = true;
     }
 }
@@ -0,0 +1,204 @@
+/*
+ * WatchService.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import hcm.ssj.core.platform.Platform;
+
+/**
+ * Executes the watch dogs of all sensor channels on a single thread (see WatchDog).
+ *
+ * Checks are scheduled on a hashed timing wheel: every slot holds the checks which are due in a tick whose number
+ * maps to the slot, checks which are due in a later rotation are skipped until their tick comes.
+ * Adding or removing a watch dog never blocks the sensor channels, new watch dogs are queued and closed ones
+ * are dropped once the wheel reaches them. The service is created on pipeline start and ends when the pipeline stops.
+ */
+class WatchService implements Runnable
+{
+    /** duration of one tick of the wheel, intervals are rounded to multiples of it (in seconds) */
+    static final double TICK = 0.1;
+    private static final int WHEEL_SIZE = 64; //power of two
+
+    /**
+     * Scheduled check of a watch dog, linked into a slot of the wheel
+     */
+    static class Timeout
+    {
+        final WatchDog dog;
+        final boolean sync;
+        final long interval; //in ticks
+        long deadline;
+        Timeout next;
+
+        Timeout(WatchDog dog, boolean sync, double interval)
+        {
+            this.dog = dog;
+            this.sync = sync;
+            this.interval = Math.max(1, Math.round(interval / TICK));
+        }
+    }
+
+    private Pipeline _frame;
+    private final Timeout[] _wheel = new Timeout[WHEEL_SIZE];
+    private final ConcurrentLinkedQueue<WatchDog> _pending = new ConcurrentLinkedQueue<>();
+    private long _tick = 0;
+
+    private volatile boolean _terminate = false;
+    private volatile boolean _safeToKill = false;
+
+    WatchService(Pipeline frame)
+    {
+        _frame = frame;
+    }
+
+    /**
+     * Schedules the checks of the watch dog, may be called from any thread
+     */
+    void add(WatchDog dog)
+    {
+        _pending.add(dog);
+    }
+
+    @Override
+    public void run()
+    {
+        //wait for framework
+        while (!_frame.isRunning() && !_terminate) {
+            try {
+                Thread.sleep(Cons.SLEEP_IN_LOOP);
+            } catch (InterruptedException e) {
+                Log.w("thread interrupt");
+            }
+        }
+
+        Platform.WakeLock wakeLock = Platform.get().newWakeLock("SSJ_WatchDog");
+        Timer timer = new Timer(TICK);
+        timer.reset();
+
+        while (!_terminate && _frame.isRunning())
+        {
+            try {
+                schedulePending();
+
+                int slot = (int) (_tick & (WHEEL_SIZE - 1));
+                if (_wheel[slot] != null)
+                {
+                    wakeLock.acquire();
+                    expire(slot);
+                    wakeLock.release();
+                }
+                _tick++;
+
+                timer.sync();
+            } catch (Exception e) {
+                _frame.crash(this.getClass().getSimpleName(), "exception in loop", e);
+            }
+        }
+
+        for (int i = 0; i < WHEEL_SIZE; i++)
+            _wheel[i] = null;
+        _pending.clear();
+
+        _safeToKill = true;
+    }
+
+    private void schedulePending()
+    {
+        WatchDog dog;
+        while ((dog = _pending.poll()) != null)
+        {
+            for (Timeout t : dog.getTimeouts())
+            {
+                t.deadline = _tick + t.interval;
+                insert(t);
+            }
+        }
+    }
+
+    /**
+     * Executes all checks of the slot which are due in the current tick and reschedules them
+     */
+    private void expire(int slot)
+    {
+        Timeout t = _wheel[slot];
+        _wheel[slot] = null;
+
+        while (t != null)
+        {
+            Timeout next = t.next;
+
+            if (t.dog.isClosed())
+            {
+                //drop
+            }
+            else if (t.deadline > _tick)
+            {
+                //due in a later rotation
+                insert(t);
+            }
+            else
+            {
+                if (t.sync)
+                    t.dog.sync();
+                else
+                    t.dog.watch();
+
+                t.deadline += t.interval;
+                insert(t);
+            }
+
+            t = next;
+        }
+    }
+
+    private void insert(Timeout t)
+    {
+        int slot = (int) (t.deadline & (WHEEL_SIZE - 1));
+        t.next = _wheel[slot];
+        _wheel[slot] = t;
+    }
+
+    /**
+     * Stops the service once all checks in progress are done
+     */
+    void close()
+    {
+        _terminate = true;
+
+        //the pipeline clock might not advance anymore, so use the system clock
+        long end = Platform.get().elapsedRealtime() + (long)(_frame.options.waitThreadKill.get() * 1000);
+        while (!_safeToKill && Platform.get().elapsedRealtime() < end)
+        {
+            try {
+                Thread.sleep(Cons.SLEEP_IN_LOOP);
+            } catch (InterruptedException e) {
+                Log.w("thread interrupt");
+            }
+        }
+    }
+}
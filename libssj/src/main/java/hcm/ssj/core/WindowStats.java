@@ -0,0 +1,210 @@
+/*
+ * WindowStats.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core;
+
+/**
+ * Per component statistics about the processed input windows.
+ * Written by the component thread only, may be read from any thread.
+ */
+public class WindowStats
+{
+    private volatile long _processed = 0;
+    private volatile long _dropped = 0;
+    private volatile long _backlogSum = 0;
+    private volatile int _backlogMax = 0;
+    private volatile long _missed = 0;
+    private volatile long _stalls = 0;
+    private volatile long _stallMax = 0;
+    private volatile long _zeroes = 0;
+
+    private final LatencyHistogram _processTime = new LatencyHistogram();
+    private final LatencyHistogram _waitTime = new LatencyHistogram();
+    private final LatencyHistogram _syncLateness = new LatencyHistogram();
+
+    public void reset()
+    {
+        _processed = 0;
+        _dropped = 0;
+        _backlogSum = 0;
+        _backlogMax = 0;
+        _missed = 0;
+        _stalls = 0;
+        _stallMax = 0;
+        _zeroes = 0;
+        _processTime.reset();
+        _waitTime.reset();
+        _syncLateness.reset();
+    }
+
+    /**
+     * @param backlog number of complete windows which were available in all inputs when processing started
+     * @param waitTime time spent waiting for the input window (in nanoseconds)
+     * @param processTime time spent processing the window (in nanoseconds)
+     */
+    void processed(int backlog, long waitTime, long processTime)
+    {
+        _processed++;
+        _backlogSum += backlog;
+
+        if(backlog > _backlogMax)
+            _backlogMax = backlog;
+
+        _waitTime.record(waitTime);
+        _processTime.record(processTime);
+    }
+
+    /**
+     * @param lateness time between the scheduled and the actual start of an update cycle (in nanoseconds)
+     */
+    void synced(long lateness)
+    {
+        _syncLateness.record(lateness);
+    }
+
+    void missedDeadline()
+    {
+        _missed++;
+    }
+
+    /**
+     * Called by the watch dog if the sensor channel did not provide data during the watch interval
+     *
+     * @param start true if the channel provided data during the previous interval
+     * @param duration time since the channel provided data (in nanoseconds)
+     * @param zeroes number of samples which were filled with zeroes
+     */
+    void stalled(boolean start, long duration, int zeroes)
+    {
+        if(start)
+            _stalls++;
+
+        if(duration > _stallMax)
+            _stallMax = duration;
+
+        _zeroes += zeroes;
+    }
+
+    void dropped()
+    {
+        _dropped++;
+    }
+
+    /**
+     * @return number of windows which were processed
+     */
+    public long getProcessed()
+    {
+        return _processed;
+    }
+
+    /**
+     * @return number of windows which could not be read from the input buffers (e.g. because they were already overwritten)
+     */
+    public long getDropped()
+    {
+        return _dropped;
+    }
+
+    /**
+     * @return highest number of windows which were waiting to be processed at once
+     */
+    public int getMaxBacklog()
+    {
+        return _backlogMax;
+    }
+
+    /**
+     * @return average number of windows which were waiting to be processed
+     */
+    public double getAvgBacklog()
+    {
+        return (_processed == 0) ? 0 : (double)_backlogSum / _processed;
+    }
+
+    /**
+     * @return number of update cycles in which the component fell behind its clock
+     */
+    public long getMissedDeadlines()
+    {
+        return _missed;
+    }
+
+    /**
+     * @return number of times the sensor channel stopped providing data for at least one watch interval
+     */
+    public long getStalls()
+    {
+        return _stalls;
+    }
+
+    /**
+     * @return longest time the sensor channel did not provide data, as observed by its watch dog (in nanoseconds)
+     */
+    public long getMaxStall()
+    {
+        return _stallMax;
+    }
+
+    /**
+     * @return number of samples the watch dog filled with zeroes
+     */
+    public long getZeroes()
+    {
+        return _zeroes;
+    }
+
+    /**
+     * @return durations of transform/consume/process calls
+     */
+    public LatencyHistogram getProcessTime()
+    {
+        return _processTime;
+    }
+
+    /**
+     * @return durations spent waiting for input windows
+     */
+    public LatencyHistogram getWaitTime()
+    {
+        return _waitTime;
+    }
+
+    /**
+     * @return how late the update cycles started compared to the component's clock
+     */
+    public LatencyHistogram getSyncLateness()
+    {
+        return _syncLateness;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "processed=" + _processed + ", dropped=" + _dropped + ", max backlog=" + _backlogMax + String.format(java.util.Locale.ENGLISH, ", avg backlog=%.2f", getAvgBacklog())
+               + ", missed=" + _missed + ((_stalls > 0) ? ", stalls=" + _stalls + ", zeroes=" + _zeroes : "") + ", process " + _processTime + ((_syncLateness.getCount() > 0) ? ", sync " + _syncLateness : "");
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * WorkerPool.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import hcm.ssj.core.platform.Platform;
+
+/**
+ * Cooperative execution engine which runs transformers and consumers as tasks on a fixed number of worker threads
+ * instead of giving each component its own thread (see Pipeline.Options.workers).
+ *
+ * Tasks are assigned to workers once at start-up. Components which read from each other share a worker, so a window
+ * is usually processed by the next component while it is still in cache. A worker executes every task whose input
+ * windows are complete and parks when none is ready, until new data is pushed into a buffer.
+ */
+class WorkerPool
+{
+    /** max windows a task may process in a row before the worker moves on to its next task */
+    private static final int MAX_BATCH = 16;
+
+    private Pipeline _frame;
+    private ArrayList<Worker> _workers = new ArrayList<>();
+
+    WorkerPool(Pipeline frame, int numWorkers, List<Component> tasks, List<TimeBuffer> buffers)
+    {
+        _frame = frame;
+
+        //group tasks by the first component of their processing chain and sort them by depth
+        final HashMap<Component, Integer> depth = new HashMap<>();
+        HashMap<Component, ArrayList<Component>> chains = new HashMap<>();
+        for (Component t : tasks)
+        {
+            Component root = getRoot(t, tasks, buffers);
+            ArrayList<Component> chain = chains.get(root);
+            if (chain == null)
+            {
+                chain = new ArrayList<>();
+                chains.put(root, chain);
+            }
+            chain.add(t);
+            depth.put(t, getDepth(t, tasks, buffers, 0));
+        }
+
+        //largest chains first, each one goes to the least loaded worker
+        ArrayList<ArrayList<Component>> sorted = new ArrayList<>(chains.values());
+        Collections.sort(sorted, new Comparator<ArrayList<Component>>()
+        {
+            @Override
+            public int compare(ArrayList<Component> a, ArrayList<Component> b)
+            {
+                return b.size() - a.size();
+            }
+        });
+
+        ArrayList<ArrayList<Component>> assigned = new ArrayList<>();
+        for (int i = 0; i < Math.min(numWorkers, sorted.size()); i++)
+            assigned.add(new ArrayList<Component>());
+
+        for (ArrayList<Component> chain : sorted)
+        {
+            ArrayList<Component> target = assigned.get(0);
+            for (ArrayList<Component> a : assigned)
+                if (a.size() < target.size())
+                    target = a;
+
+            target.addAll(chain);
+        }
+
+        //producers before their readers, so a window can pass through a chain in a single pass
+        for (int i = 0; i < assigned.size(); i++)
+        {
+            Collections.sort(assigned.get(i), new Comparator<Component>()
+            {
+                @Override
+                public int compare(Component a, Component b)
+                {
+                    return depth.get(a) - depth.get(b);
+                }
+            });
+
+            _workers.add(new Worker(i, assigned.get(i)));
+        }
+    }
+
+    /**
+     * @return the first task of the chain the task belongs to (following its first input)
+     */
+    private Component getRoot(Component t, List<Component> tasks, List<TimeBuffer> buffers)
+    {
+        Component root = t;
+        for (int i = 0; i < tasks.size(); i++) //bounded, in case of cycles
+        {
+            int[] in = root.getTaskInputs();
+            if (in == null || in.length == 0)
+                break;
+
+            Component src = buffers.get(in[0]).getOwner();
+            if (!tasks.contains(src))
+                break;
+
+            root = src;
+        }
+        return root;
+    }
+
+    /**
+     * @return number of tasks between the task and the sensor channels it reads from
+     */
+    private int getDepth(Component t, List<Component> tasks, List<TimeBuffer> buffers, int level)
+    {
+        int[] in = t.getTaskInputs();
+        if (in == null || level > tasks.size())
+            return 0;
+
+        int depth = 0;
+        for (int id : in)
+        {
+            Component src = buffers.get(id).getOwner();
+            if (tasks.contains(src))
+                depth = Math.max(depth, 1 + getDepth(src, tasks, buffers, level + 1));
+        }
+        return depth;
+    }
+
+    /**
+     * Submits the workers to the pipeline's thread pool
+     */
+    void start(ThreadPool pool)
+    {
+        for (Worker w : _workers)
+            pool.execute(w);
+    }
+
+    int getNumWorkers()
+    {
+        return _workers.size();
+    }
+
+    /**
+     * Wakes up idle workers, called whenever new data was pushed into a buffer
+     */
+    void signal()
+    {
+        for (int i = 0; i < _workers.size(); i++)
+        {
+            Worker w = _workers.get(i);
+            if (w._idle)
+            {
+                Thread t = w._thread;
+                if (t != null)
+                    LockSupport.unpark(t);
+            }
+        }
+    }
+
+    private class Worker implements Runnable
+    {
+        private String _name;
+        private Component[] _tasks;
+        private int _priority = Cons.THREAD_PRIORIIY_LOW;
+
+        private volatile Thread _thread = null;
+        private volatile boolean _idle = false;
+
+        Worker(int id, List<Component> tasks)
+        {
+            _name = "Worker" + id;
+            _tasks = tasks.toArray(new Component[tasks.size()]);
+
+            //lower value means higher priority
+            for (Component t : _tasks)
+                _priority = Math.min(_priority, t.threadPriority);
+
+            StringBuilder str = new StringBuilder();
+            for (Component t : _tasks)
+                str.append(' ').append(t.getComponentName());
+            Log.i(_name + ":" + str.toString());
+        }
+
+        @Override
+        public void run()
+        {
+            _thread = Thread.currentThread();
+            _frame.registerThread(_name);
+            Platform.get().setThreadPriority(_priority);
+            Platform.WakeLock wakeLock = Platform.get().newWakeLock(_name);
+            boolean locked = false;
+
+            for (Component t : _tasks)
+            {
+                Log.setCaller(t.getComponentName());
+                t.taskEnter();
+            }
+            Log.setCaller(null);
+
+            //wait for framework
+            while (!_frame.isRunning())
+            {
+                try {
+                    Thread.sleep(Cons.SLEEP_IN_LOOP);
+                } catch (InterruptedException e) {
+                    Log.w("thread interrupt");
+                }
+            }
+
+            boolean[] done = new boolean[_tasks.length];
+            int active = _tasks.length;
+
+            while (active > 0)
+            {
+                boolean worked = false;
+
+                for (int i = 0; i < _tasks.length; i++)
+                {
+                    if (done[i])
+                        continue;
+
+                    Component t = _tasks[i];
+                    Log.setCaller(t.getComponentName());
+
+                    if (t._terminate || !_frame.isRunning())
+                    {
+                        t.taskFlush();
+                        done[i] = true;
+                        active--;
+                        continue;
+                    }
+
+                    for (int n = 0; n < MAX_BATCH && t.taskReady(); n++)
+                    {
+                        if (!locked)
+                        {
+                            wakeLock.acquire();
+                            locked = true;
+                        }
+
+                        t.taskStep();
+                        worked = true;
+                    }
+                }
+
+                if (!worked && active > 0)
+                {
+                    if (locked)
+                    {
+                        wakeLock.release();
+                        locked = false;
+                    }
+
+                    //announce that we are going to sleep before the final check, so no push can get lost
+                    _idle = true;
+                    if (!isAnyReady(done))
+                        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(Cons.SLEEP_IN_LOOP));
+                    _idle = false;
+
+                    //clear interrupt flag, termination is detected through the component state
+                    if (Thread.interrupted())
+                        Log.w(_name, "thread interrupt");
+                }
+            }
+
+            if (locked)
+                wakeLock.release();
+
+            _thread = null;
+        }
+
+        private boolean isAnyReady(boolean[] done)
+        {
+            for (int i = 0; i < _tasks.length; i++)
+                if (!done[i] && (_tasks[i]._terminate || _tasks[i].taskReady()))
+                    return true;
+
+            return !_frame.isRunning();
+        }
+    }
+}
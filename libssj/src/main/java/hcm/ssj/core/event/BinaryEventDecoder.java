@@ -0,0 +1,333 @@
+/*
+ * BinaryEventDecoder.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core.event;
+
+import java.nio.charset.Charset;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.EventChannel;
+import hcm.ssj.core.Log;
+
+/**
+ * Parses messages in SSJ's binary event format (see BinaryEventEncoder)
+ * and pushes the contained events into an event channel.
+ */
+public class BinaryEventDecoder
+{
+    /**
+     * Receiver of decoded events
+     */
+    public interface Sink
+    {
+        Event obtain(Cons.Type type);
+        void push(Event ev);
+    }
+
+    private static class ChannelSink implements Sink
+    {
+        EventChannel channel;
+
+        @Override
+        public Event obtain(Cons.Type type)
+        {
+            return channel.obtainEvent(type);
+        }
+
+        @Override
+        public void push(Event ev)
+        {
+            channel.pushEvent(ev);
+        }
+    }
+
+    /**
+     * Thrown if a field of a message exceeds the event or message it belongs to
+     */
+    private static class MalformedMessageException extends Exception
+    {
+        MalformedMessageException(String msg)
+        {
+            super(msg);
+        }
+    }
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Cons.Type[] TYPES = Cons.Type.values();
+    private static final Event.State[] STATES = Event.State.values();
+
+    private ChannelSink _channelSink = new ChannelSink();
+
+    private byte[] _buf;
+    private int _pos;
+    private int _end;
+    private int _limit; //end of the event which is currently decoded
+
+    /**
+     * @param header buffer holding at least BinaryEventEncoder.HEADER_SIZE bytes of a message
+     * @return size of the whole message including the header, -1 if the header is not valid
+     */
+    public static int getMessageSize(byte[] header, int offset)
+    {
+        if (header[offset] != BinaryEventEncoder.MAGIC_0 || header[offset + 1] != BinaryEventEncoder.MAGIC_1)
+            return -1;
+
+        if (header[offset + 2] > BinaryEventEncoder.VERSION)
+        {
+            Log.w("unsupported binary event version " + header[offset + 2]);
+            return -1;
+        }
+
+        int length = ((header[offset + 4] & 0xFF) << 24) | ((header[offset + 5] & 0xFF) << 16)
+                     | ((header[offset + 6] & 0xFF) << 8) | (header[offset + 7] & 0xFF);
+
+        return (length < 0) ? -1 : BinaryEventEncoder.HEADER_SIZE + length;
+    }
+
+    /**
+     * Decodes all events of a message, events are obtained from and pushed into the channel
+     *
+     * @return number of decoded events, -1 if the message is malformed
+     */
+    public int decode(byte[] data, int offset, int len, EventChannel channel)
+    {
+        _channelSink.channel = channel;
+        try
+        {
+            return decode(data, offset, len, _channelSink);
+        }
+        finally
+        {
+            _channelSink.channel = null;
+        }
+    }
+
+    /**
+     * Decodes all events of a message and hands them to the sink
+     *
+     * @return number of decoded events, -1 if the message is malformed
+     */
+    public int decode(byte[] data, int offset, int len, Sink sink)
+    {
+        if (len < BinaryEventEncoder.HEADER_SIZE)
+            return -1;
+
+        int size = getMessageSize(data, offset);
+        if (size < 0 || size > len)
+            return -1;
+
+        boolean deltaTime = (data[offset + 3] & BinaryEventEncoder.FLAG_DELTA_TIME) != 0;
+        int count = ((data[offset + 8] & 0xFF) << 8) | (data[offset + 9] & 0xFF);
+
+        _buf = data;
+        _pos = offset + BinaryEventEncoder.HEADER_SIZE;
+        _end = offset + size;
+
+        long lastTime = 0;
+        int decoded = 0;
+        Event ev = null;
+
+        try
+        {
+            for (int i = 0; i < count; i++)
+            {
+                _limit = _end;
+                long length = getVarLong();
+                if (length < 2 || length > _end - _pos)
+                    throw new MalformedMessageException("invalid event length " + length);
+
+                int next = _pos + (int) length;
+                _limit = next;
+
+                int type = _buf[_pos++];
+                int state = _buf[_pos++];
+                if (type < 0 || type >= TYPES.length || state < 0 || state >= STATES.length)
+                {
+                    //unknown type of a newer version, skip event
+                    _pos = next;
+                    continue;
+                }
+
+                ev = sink.obtain(TYPES[type]);
+                ev.state = STATES[state];
+
+                long time = unzigzag(getVarLong());
+                ev.time = deltaTime ? lastTime + time : time;
+                lastTime = ev.time;
+                ev.dur = (int) getVarLong();
+                ev.sender = getString();
+                ev.name = getString();
+                getPayload(ev);
+
+                _pos = next;
+                sink.push(ev);
+                ev = null;
+                decoded++;
+            }
+        }
+        catch (MalformedMessageException | ArrayIndexOutOfBoundsException e)
+        {
+            Log.w("malformed binary event message: " + e.getMessage());
+
+            //return the incomplete event to its pool
+            if (ev != null)
+                ev.release();
+            return -1;
+        }
+        finally
+        {
+            _buf = null;
+        }
+
+        return decoded;
+    }
+
+    private void getPayload(Event ev) throws MalformedMessageException
+    {
+        switch (ev.type)
+        {
+            case BYTE: {
+                int num = getCount(1);
+                ev.adjust(num);
+                System.arraycopy(_buf, _pos, ev.ptrB(), 0, num);
+                _pos += num;
+                break;
+            }
+            case SHORT: {
+                ev.adjust(getCount(2));
+                short[] data = ev.ptrShort();
+                for (int i = 0; i < data.length; i++)
+                {
+                    data[i] = (short) (((_buf[_pos] & 0xFF) << 8) | (_buf[_pos + 1] & 0xFF));
+                    _pos += 2;
+                }
+                break;
+            }
+            case INT: {
+                ev.adjust(getCount(4));
+                int[] data = ev.ptrI();
+                for (int i = 0; i < data.length; i++)
+                    data[i] = getInt();
+                break;
+            }
+            case LONG: {
+                ev.adjust(getCount(8));
+                long[] data = ev.ptrL();
+                for (int i = 0; i < data.length; i++)
+                    data[i] = getLong();
+                break;
+            }
+            case FLOAT: {
+                ev.adjust(getCount(4));
+                float[] data = ev.ptrF();
+                for (int i = 0; i < data.length; i++)
+                    data[i] = Float.intBitsToFloat(getInt());
+                break;
+            }
+            case DOUBLE: {
+                ev.adjust(getCount(8));
+                double[] data = ev.ptrD();
+                for (int i = 0; i < data.length; i++)
+                    data[i] = Double.longBitsToDouble(getLong());
+                break;
+            }
+            case BOOL: {
+                ev.adjust(getCount(1));
+                boolean[] data = ev.ptrBool();
+                for (int i = 0; i < data.length; i++)
+                    data[i] = _buf[_pos++] != 0;
+                break;
+            }
+            case CHAR:
+            case STRING:
+                ev.setData(getString());
+                break;
+            case EMPTY:
+            default:
+                break;
+        }
+    }
+
+    private String getString() throws MalformedMessageException
+    {
+        int len = getCount(1);
+        if (len == 0)
+            return "";
+
+        String str = new String(_buf, _pos, len, UTF8);
+        _pos += len;
+        return str;
+    }
+
+    private int getInt()
+    {
+        int v = ((_buf[_pos] & 0xFF) << 24) | ((_buf[_pos + 1] & 0xFF) << 16) | ((_buf[_pos + 2] & 0xFF) << 8) | (_buf[_pos + 3] & 0xFF);
+        _pos += 4;
+        return v;
+    }
+
+    private long getLong()
+    {
+        long hi = getInt() & 0xFFFFFFFFL;
+        long lo = getInt() & 0xFFFFFFFFL;
+        return (hi << 32) | lo;
+    }
+
+    /**
+     * @return number of elements of an array field, checked against the bytes left in the event
+     */
+    private int getCount(int elementSize) throws MalformedMessageException
+    {
+        long num = getVarLong();
+        if (num < 0 || num > (_limit - _pos) / elementSize)
+            throw new MalformedMessageException("invalid array length " + num);
+
+        return (int) num;
+    }
+
+    private long getVarLong() throws MalformedMessageException
+    {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do
+        {
+            if (_pos >= _limit)
+                throw new MalformedMessageException("field exceeds event");
+
+            b = _buf[_pos++];
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 64);
+
+        return v;
+    }
+
+    private static long unzigzag(long v)
+    {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * BinaryEventEncoder.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core.event;
+
+import hcm.ssj.core.Cons;
+
+/**
+ * Serializes batches of events to SSJ's compact binary event format.
+ *
+ * A message starts with a fixed header of HEADER_SIZE bytes:
+ * magic ('S', 'E'), format version, flags, length of the message body (int32), number of events (uint16).
+ * Each event in the body is prefixed with its length (varint) and consists of
+ * type (ordinal of Cons.Type), state (ordinal of Event.State), time (zigzag varint, relative to the previous event
+ * of the message if FLAG_DELTA_TIME is set), duration (varint), sender and name (varint length + UTF-8)
+ * and the payload: number of values (varint) followed by the big-endian values or the UTF-8 text.
+ * Multi-byte numbers in the header are big-endian.
+ */
+public class BinaryEventEncoder extends EventEncoder
+{
+    public static final byte MAGIC_0 = 'S';
+    public static final byte MAGIC_1 = 'E';
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 10;
+
+    public static final int FLAG_DELTA_TIME = 0x01;
+
+    private final boolean _deltaTime;
+
+    private byte[] _bytes = new byte[Cons.MAX_EVENT_SIZE];
+    private int _pos = 0;
+    private int _count = 0;
+    private long _lastTime = 0;
+    private long _undoTime = 0;
+
+    /**
+     * @param deltaTime encode event times relative to the previous event of the message
+     */
+    public BinaryEventEncoder(boolean deltaTime)
+    {
+        _deltaTime = deltaTime;
+    }
+
+    @Override
+    public void clear()
+    {
+        _pos = 0;
+        _count = 0;
+        _lastTime = 0;
+    }
+
+    @Override
+    public void begin(String version)
+    {
+        ensure(HEADER_SIZE);
+        _bytes[_pos++] = MAGIC_0;
+        _bytes[_pos++] = MAGIC_1;
+        _bytes[_pos++] = VERSION;
+        _bytes[_pos++] = (byte) (_deltaTime ? FLAG_DELTA_TIME : 0);
+        _pos += 6; //length and count are filled in by end()
+        _count = 0;
+        _lastTime = 0;
+    }
+
+    @Override
+    public void end()
+    {
+        int length = _pos - HEADER_SIZE;
+        _bytes[4] = (byte) (length >>> 24);
+        _bytes[5] = (byte) (length >>> 16);
+        _bytes[6] = (byte) (length >>> 8);
+        _bytes[7] = (byte) length;
+        _bytes[8] = (byte) (_count >>> 8);
+        _bytes[9] = (byte) _count;
+    }
+
+    @Override
+    public void add(Event ev)
+    {
+        _undoTime = _lastTime;
+
+        //reserve a single byte for the length and move the event if more are needed
+        int start = _pos;
+        _pos++;
+
+        ensure(2 + 10 + 5);
+        _bytes[_pos++] = (byte) ev.type.ordinal();
+        _bytes[_pos++] = (byte) ev.state.ordinal();
+        putVarLong(zigzag(_deltaTime ? ev.time - _lastTime : ev.time));
+        putVarLong(ev.dur & 0xFFFFFFFFL);
+        putString(ev.sender);
+        putString(ev.name);
+        putPayload(ev);
+
+        _lastTime = ev.time;
+        _count++;
+
+        int length = _pos - start - 1;
+        int lengthBytes = varLength(length);
+        if (lengthBytes > 1)
+        {
+            ensure(lengthBytes - 1);
+            System.arraycopy(_bytes, start + 1, _bytes, start + lengthBytes, length);
+            _pos += lengthBytes - 1;
+        }
+
+        int end = _pos;
+        _pos = start;
+        putVarLong(length);
+        _pos = end;
+    }
+
+    @Override
+    public boolean add(Event ev, int limit, boolean first)
+    {
+        //event count is stored as uint16
+        if (!first && _count >= 0xFFFF)
+            return false;
+
+        return super.add(ev, limit, first);
+    }
+
+    private void putPayload(Event ev)
+    {
+        switch (ev.type)
+        {
+            case BYTE: {
+                byte[] data = ev.ptrB();
+                putVarLong(data.length);
+                ensure(data.length);
+                System.arraycopy(data, 0, _bytes, _pos, data.length);
+                _pos += data.length;
+                break;
+            }
+            case SHORT: {
+                short[] data = ev.ptrShort();
+                putVarLong(data.length);
+                ensure(data.length * 2);
+                for (short v : data)
+                {
+                    _bytes[_pos++] = (byte) (v >>> 8);
+                    _bytes[_pos++] = (byte) v;
+                }
+                break;
+            }
+            case INT: {
+                int[] data = ev.ptrI();
+                putVarLong(data.length);
+                ensure(data.length * 4);
+                for (int v : data)
+                    putInt(v);
+                break;
+            }
+            case LONG: {
+                long[] data = ev.ptrL();
+                putVarLong(data.length);
+                ensure(data.length * 8);
+                for (long v : data)
+                    putLong(v);
+                break;
+            }
+            case FLOAT: {
+                float[] data = ev.ptrF();
+                putVarLong(data.length);
+                ensure(data.length * 4);
+                for (float v : data)
+                    putInt(Float.floatToRawIntBits(v));
+                break;
+            }
+            case DOUBLE: {
+                double[] data = ev.ptrD();
+                putVarLong(data.length);
+                ensure(data.length * 8);
+                for (double v : data)
+                    putLong(Double.doubleToRawLongBits(v));
+                break;
+            }
+            case BOOL: {
+                boolean[] data = ev.ptrBool();
+                putVarLong(data.length);
+                ensure(data.length);
+                for (boolean v : data)
+                    _bytes[_pos++] = (byte) (v ? 1 : 0);
+                break;
+            }
+            case CHAR:
+            case STRING:
+                putString(ev.ptrStr());
+                break;
+            case EMPTY:
+            default:
+                break;
+        }
+    }
+
+    private void putString(String str)
+    {
+        if (str == null)
+        {
+            putVarLong(0);
+            return;
+        }
+
+        int len = utf8Length(str);
+        putVarLong(len);
+        ensure(len);
+        _pos = putUtf8(str, _bytes, _pos);
+    }
+
+    private void putInt(int v)
+    {
+        _bytes[_pos++] = (byte) (v >>> 24);
+        _bytes[_pos++] = (byte) (v >>> 16);
+        _bytes[_pos++] = (byte) (v >>> 8);
+        _bytes[_pos++] = (byte) v;
+    }
+
+    private void putLong(long v)
+    {
+        putInt((int) (v >>> 32));
+        putInt((int) v);
+    }
+
+    private void putVarLong(long v)
+    {
+        ensure(10);
+        while ((v & ~0x7FL) != 0)
+        {
+            _bytes[_pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        _bytes[_pos++] = (byte) v;
+    }
+
+    private static int varLength(long v)
+    {
+        int len = 1;
+        while ((v & ~0x7FL) != 0)
+        {
+            v >>>= 7;
+            len++;
+        }
+        return len;
+    }
+
+    static long zigzag(long v)
+    {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private void ensure(int num)
+    {
+        if (_pos + num > _bytes.length)
+        {
+            byte[] tmp = new byte[Math.max(_pos + num, _bytes.length * 2)];
+            System.arraycopy(_bytes, 0, tmp, 0, _pos);
+            _bytes = tmp;
+        }
+    }
+
+    @Override
+    public int length()
+    {
+        return _pos;
+    }
+
+    @Override
+    protected int footerLength()
+    {
+        return 0;
+    }
+
+    @Override
+    protected void undo(int length)
+    {
+        _pos = length;
+        _count--;
+        _lastTime = _undoTime;
+    }
+
+    /**
+     * The message is already binary, no further encoding required
+     */
+    @Override
+    public int encode()
+    {
+        return _pos;
+    }
+
+    @Override
+    public byte[] bytes()
+    {
+        return _bytes;
+    }
+
+    @Override
+    public int size()
+    {
+        return _pos;
+    }
+}
@@ -59,4 +59,9 @@ public class BoolEvent extends Event {
     public void setData(boolean[] data) {
         this.data = data;
     }
+
+    public void adjust(int num) {
+        if (data == null || data.length != num)
+            data = new boolean[num];
+    }
 }
@@ -59,4 +59,9 @@ public class ByteEvent extends Event {
     public void setData(byte[] data) {
         this.data = data;
     }
+
+    public void adjust(int num) {
+        if (data == null || data.length != num)
+            data = new byte[num];
+    }
 }
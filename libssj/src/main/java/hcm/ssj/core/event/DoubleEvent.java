@@ -59,4 +59,9 @@ public class DoubleEvent extends Event {
     public void setData(double[] data) {
         this.data = data;
     }
+
+    public void adjust(int num) {
+        if (data == null || data.length != num)
+            data = new double[num];
+    }
 }
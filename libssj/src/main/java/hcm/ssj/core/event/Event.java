@@ -26,6 +26,8 @@
 
 package hcm.ssj.core.event;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import hcm.ssj.core.Cons;
 
 /**
@@ -48,6 +50,9 @@ public abstract class Event {
 
     public int id;
 
+    EventPool pool = null;
+    private final AtomicInteger refs = new AtomicInteger(1);
+
     public static Event create(Cons.Type type)
     {
         switch(type)
@@ -85,6 +90,44 @@ public abstract class Event {
         this.state = State.COMPLETED;
     }
 
+    /**
+     * Adds a reference to the event, it will not be recycled before release() was called for it.
+     * Only needed for events which are kept beyond the notification or channel read they were received by.
+     */
+    public void retain()
+    {
+        refs.incrementAndGet();
+    }
+
+    /**
+     * Drops a reference, once the last one is gone the event is returned to the pool it was obtained from.
+     * Events which have not been obtained from a pool are left to the garbage collector.
+     */
+    public void release()
+    {
+        if (refs.decrementAndGet() == 0 && pool != null)
+            pool.recycle(this);
+    }
+
+    /**
+     * Restores the initial header state and a single reference, the payload is kept to be reused
+     */
+    void recycle()
+    {
+        name = "";
+        sender = "";
+        time = 0;
+        dur = 0;
+        state = State.COMPLETED;
+        id = 0;
+        refs.set(1);
+    }
+
+    /**
+     * Makes sure the payload array holds exactly num elements, reusing the current array if possible
+     */
+    public void adjust(int num) {}
+
     public abstract void setData(Object data);
     public void setData(byte[] data) { throw new UnsupportedOperationException(); }
     public void setData(char[] data) { throw new UnsupportedOperationException(); }
@@ -0,0 +1,172 @@
+/*
+ * EventEncoder.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core.event;
+
+import hcm.ssj.core.Cons;
+
+/**
+ * Serializes batches of events into a reusable byte buffer.
+ * A batch is opened with begin(), filled with add() and closed with end(), encode() then provides the bytes.
+ */
+public abstract class EventEncoder
+{
+    public static EventEncoder create(Cons.EventFormat format)
+    {
+        switch (format)
+        {
+            case XML:
+                return new XmlEventEncoder();
+            case BINARY:
+                return new BinaryEventEncoder(true);
+            default:
+                throw new UnsupportedOperationException("Event format not supported");
+        }
+    }
+
+    public abstract void clear();
+
+    public abstract void begin(String version);
+
+    public abstract void end();
+
+    public abstract void add(Event ev);
+
+    /**
+     * @return current size of the encoded payload (in bytes)
+     */
+    public abstract int length();
+
+    /**
+     * @return size of the data which end() will append to the payload
+     */
+    protected abstract int footerLength();
+
+    /**
+     * Removes the last added event
+     */
+    protected abstract void undo(int length);
+
+    /**
+     * Adds the event unless this would make the payload (including footer) exceed limit.
+     * The first event of a batch is always added.
+     *
+     * @return false if the event did not fit
+     */
+    public boolean add(Event ev, int limit, boolean first)
+    {
+        int mark = length();
+        add(ev);
+
+        if (!first && length() + footerLength() > limit)
+        {
+            undo(mark);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return number of encoded bytes, see bytes()
+     */
+    public abstract int encode();
+
+    public abstract byte[] bytes();
+
+    public abstract int size();
+
+    /**
+     * @return number of bytes required to encode the text as UTF-8
+     */
+    static int utf8Length(CharSequence str)
+    {
+        return utf8Length(str, 0, str.length());
+    }
+
+    /**
+     * @return number of bytes required to encode the characters from start (inclusive) to end (exclusive) as UTF-8
+     */
+    static int utf8Length(CharSequence str, int start, int end)
+    {
+        int len = 0;
+        for (int i = start; i < end; i++)
+        {
+            char c = str.charAt(i);
+
+            if (c < 0x80)
+                len += 1;
+            else if (c < 0x800)
+                len += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(str.charAt(i + 1)))
+            {
+                len += 4;
+                i++;
+            }
+            else
+                len += 3;
+        }
+        return len;
+    }
+
+    /**
+     * Encodes the text as UTF-8 into dst, which has to provide at least utf8Length(str) bytes starting from pos
+     *
+     * @return position behind the encoded text
+     */
+    static int putUtf8(CharSequence str, byte[] dst, int pos)
+    {
+        int len = str.length();
+        for (int i = 0; i < len; i++)
+        {
+            char c = str.charAt(i);
+
+            if (c < 0x80)
+            {
+                dst[pos++] = (byte) c;
+            }
+            else if (c < 0x800)
+            {
+                dst[pos++] = (byte) (0xC0 | (c >> 6));
+                dst[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1)))
+            {
+                int cp = Character.toCodePoint(c, str.charAt(++i));
+                dst[pos++] = (byte) (0xF0 | (cp >> 18));
+                dst[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                dst[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                dst[pos++] = (byte) (0x80 | (cp & 0x3F));
+            }
+            else
+            {
+                dst[pos++] = (byte) (0xE0 | (c >> 12));
+                dst[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dst[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+}
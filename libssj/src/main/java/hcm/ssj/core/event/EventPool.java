@@ -0,0 +1,125 @@
+/*
+ * EventPool.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core.event;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+
+import hcm.ssj.core.Cons;
+
+/**
+ * Recycles events (including their payload arrays) for a single event channel.
+ * An event obtained from the pool returns to it once all of its references are released (see Event.release()).
+ */
+public class EventPool
+{
+    private final int _capacity;
+    private final EnumMap<Cons.Type, ArrayDeque<Event>> _free = new EnumMap<>(Cons.Type.class);
+
+    private long _hits = 0;
+    private long _misses = 0;
+
+    /**
+     * @param capacity max number of unused events kept per type
+     */
+    public EventPool(int capacity)
+    {
+        _capacity = capacity;
+    }
+
+    /**
+     * @return a recycled event of the requested type if available, a new event otherwise. Caller holds one reference.
+     */
+    public synchronized Event obtain(Cons.Type type)
+    {
+        if (type == Cons.Type.CHAR)
+            type = Cons.Type.STRING; //char events are string events
+
+        ArrayDeque<Event> free = _free.get(type);
+
+        if (free != null && !free.isEmpty())
+        {
+            _hits++;
+            Event ev = free.pop();
+            ev.recycle();
+            return ev;
+        }
+
+        _misses++;
+        Event ev = Event.create(type);
+        ev.pool = this;
+        return ev;
+    }
+
+    synchronized void recycle(Event ev)
+    {
+        ArrayDeque<Event> free = _free.get(ev.type);
+        if (free == null)
+        {
+            free = new ArrayDeque<>();
+            _free.put(ev.type, free);
+        }
+
+        if (free.size() < _capacity)
+            free.push(ev);
+    }
+
+    public synchronized void clear()
+    {
+        _free.clear();
+        _hits = 0;
+        _misses = 0;
+    }
+
+    /**
+     * @return number of requests which were served with a recycled event
+     */
+    public synchronized long getHits()
+    {
+        return _hits;
+    }
+
+    /**
+     * @return number of requests which required a new event
+     */
+    public synchronized long getMisses()
+    {
+        return _misses;
+    }
+
+    /**
+     * @return number of unused events currently held by the pool
+     */
+    public synchronized int getSize()
+    {
+        int size = 0;
+        for (ArrayDeque<Event> free : _free.values())
+            size += free.size();
+
+        return size;
+    }
+}
@@ -59,4 +59,9 @@ public class FloatEvent extends Event {
     public void setData(float[] data) {
         this.data = data;
     }
+
+    public void adjust(int num) {
+        if (data == null || data.length != num)
+            data = new float[num];
+    }
 }
@@ -59,4 +59,9 @@ public class IntEvent extends Event {
     public void setData(int[] data) {
         this.data = data;
     }
+
+    public void adjust(int num) {
+        if (data == null || data.length != num)
+            data = new int[num];
+    }
 }
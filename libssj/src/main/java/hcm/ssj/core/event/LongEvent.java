@@ -59,4 +59,9 @@ public class LongEvent extends Event {
     public void setData(long[] data) {
         this.data = data;
     }
+
+    public void adjust(int num) {
+        if (data == null || data.length != num)
+            data = new long[num];
+    }
 }
@@ -59,4 +59,9 @@ public class ShortEvent extends Event {
     public void setData(short[] data) {
         this.data = data;
     }
+
+    public void adjust(int num) {
+        if (data == null || data.length != num)
+            data = new short[num];
+    }
 }
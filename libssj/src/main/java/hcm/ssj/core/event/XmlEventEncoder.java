@@ -0,0 +1,135 @@
+/*
+ * XmlEventEncoder.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core.event;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Util;
+import hcm.ssj.file.LoggingConstants;
+
+/**
+ * Serializes batches of events to SSI's xml event format.
+ * The text and the encoded bytes are kept in buffers which are reused for every batch.
+ */
+public class XmlEventEncoder extends EventEncoder
+{
+    private static final String FOOTER = "</events>";
+
+    private StringBuilder _builder = new StringBuilder();
+    private int _length = 0; //UTF-8 bytes of the text in the builder
+    private int _mark = 0; //characters in the builder before the last event was added
+    private byte[] _bytes = new byte[Cons.MAX_EVENT_SIZE];
+    private int _size = 0;
+
+    @Override
+    public void clear()
+    {
+        _builder.setLength(0);
+        _length = 0;
+        _size = 0;
+    }
+
+    private void appended(int start)
+    {
+        _length += utf8Length(_builder, start, _builder.length());
+    }
+
+    /**
+     * Opens a new <events> element
+     */
+    @Override
+    public void begin(String version)
+    {
+        int start = _builder.length();
+        _builder.append("<events ssi-v=\"2\" ssj-v=\"").append(version).append("\">");
+        appended(start);
+    }
+
+    @Override
+    public void end()
+    {
+        int start = _builder.length();
+        _builder.append(FOOTER);
+        appended(start);
+    }
+
+    @Override
+    public void add(Event ev)
+    {
+        _mark = _builder.length();
+        Util.eventToXML(_builder, ev);
+        _builder.append(LoggingConstants.DELIMITER_LINE);
+        appended(_mark);
+    }
+
+    /**
+     * @return number of bytes in the UTF-8 encoded payload
+     */
+    @Override
+    public int length()
+    {
+        return _length;
+    }
+
+    @Override
+    protected int footerLength()
+    {
+        return utf8Length(FOOTER);
+    }
+
+    @Override
+    protected void undo(int length)
+    {
+        _builder.setLength(_mark);
+        _length = length;
+    }
+
+    /**
+     * Encodes the payload as UTF-8 into the reusable byte buffer
+     */
+    @Override
+    public int encode()
+    {
+        int len = _length;
+        if (_bytes.length < len)
+            _bytes = new byte[Math.max(len, _bytes.length * 2)];
+
+        _size = putUtf8(_builder, _bytes, 0);
+        return _size;
+    }
+
+    @Override
+    public byte[] bytes()
+    {
+        return _bytes;
+    }
+
+    @Override
+    public int size()
+    {
+        return _size;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * AndroidPlatform.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core.platform;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Environment;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlPullParser;
+
+import java.io.File;
+
+import hcm.ssj.R;
+import hcm.ssj.core.SSJApplication;
+
+/**
+ * Android implementation of the platform, the application context is provided by SSJApplication
+ */
+public class AndroidPlatform extends Platform
+{
+    private static final WakeLock NO_WAKE_LOCK = new WakeLock()
+    {
+        @Override
+        public void acquire() {}
+
+        @Override
+        public void release() {}
+    };
+
+    private static class AndroidWakeLock implements WakeLock
+    {
+        private final PowerManager.WakeLock lock;
+
+        AndroidWakeLock(PowerManager.WakeLock lock)
+        {
+            this.lock = lock;
+        }
+
+        @Override
+        public void acquire()
+        {
+            lock.acquire();
+        }
+
+        @Override
+        public void release()
+        {
+            lock.release();
+        }
+    }
+
+    /**
+     * @return the application context, null if SSJApplication has not been created
+     */
+    public Context getContext()
+    {
+        return SSJApplication.getAppContext();
+    }
+
+    @Override
+    public long elapsedRealtime()
+    {
+        return SystemClock.elapsedRealtime();
+    }
+
+    @Override
+    public long nanoTime()
+    {
+        //unlike System.nanoTime(), this clock keeps counting while the device is suspended
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1)
+            return SystemClock.elapsedRealtimeNanos();
+
+        return SystemClock.elapsedRealtime() * 1000000;
+    }
+
+    @Override
+    public WakeLock newWakeLock(String tag)
+    {
+        Context context = getContext();
+        if (context == null)
+            return NO_WAKE_LOCK;
+
+        PowerManager mgr = (PowerManager)context.getSystemService(Context.POWER_SERVICE);
+        return new AndroidWakeLock(mgr.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, tag));
+    }
+
+    @Override
+    public void setThreadPriority(int priority)
+    {
+        android.os.Process.setThreadPriority(priority);
+    }
+
+    @Override
+    public int myTid()
+    {
+        return android.os.Process.myTid();
+    }
+
+    @Override
+    public long getGcCount()
+    {
+        //runtime stats are only available on art (api 23+)
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M)
+            return -1;
+
+        try
+        {
+            return Long.parseLong(Debug.getRuntimeStat("art.gc.gc-count"));
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        Context context = getContext();
+        return (context != null) ? context.getString(R.string.name_long) : "SSJ";
+    }
+
+    @Override
+    public File getStorageDirectory()
+    {
+        return Environment.getExternalStorageDirectory();
+    }
+
+    @Override
+    public XmlPullParser newPullParser()
+    {
+        return Xml.newPullParser();
+    }
+
+    @Override
+    public void log(int priority, String tag, String msg)
+    {
+        android.util.Log.println(priority, tag, msg);
+    }
+
+    @Override
+    public String getStackTraceString(Throwable tr)
+    {
+        return android.util.Log.getStackTraceString(tr);
+    }
+}
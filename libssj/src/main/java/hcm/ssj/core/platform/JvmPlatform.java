@@ -0,0 +1,175 @@
+/*
+ * JvmPlatform.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core.platform;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import hcm.ssj.core.Log;
+
+/**
+ * Platform for plain JVMs (no android framework available).
+ * There are no wake locks, nice values are mapped to java thread priorities and messages are logged
+ * to stdout/stderr. Parsing xml requires an XmlPullParser implementation (e.g. kxml2) on the classpath.
+ */
+public class JvmPlatform extends Platform
+{
+    private static final WakeLock NO_WAKE_LOCK = new WakeLock()
+    {
+        @Override
+        public void acquire() {}
+
+        @Override
+        public void release() {}
+    };
+
+    private final File storage;
+
+    //java.lang.management is not part of the android sdk we compile against, hence the reflection
+    private Method getGcBeans = null;
+    private Method getGcCount = null;
+    private boolean gcAvailable = true;
+
+    /**
+     * Stores data in the home directory of the user
+     */
+    public JvmPlatform()
+    {
+        this(new File(System.getProperty("user.home")));
+    }
+
+    /**
+     * @param storage directory under which SSJ stores its data by default
+     */
+    public JvmPlatform(File storage)
+    {
+        this.storage = storage;
+    }
+
+    @Override
+    public long elapsedRealtime()
+    {
+        return System.nanoTime() / 1000000;
+    }
+
+    @Override
+    public long nanoTime()
+    {
+        return System.nanoTime();
+    }
+
+    @Override
+    public WakeLock newWakeLock(String tag)
+    {
+        return NO_WAKE_LOCK;
+    }
+
+    @Override
+    public void setThreadPriority(int priority)
+    {
+        //nice values [-20, 19] to java priorities [MAX_PRIORITY, MIN_PRIORITY], 0 is NORM_PRIORITY
+        int javaPriority;
+        if (priority < 0)
+            javaPriority = Thread.NORM_PRIORITY + Math.round(-priority * (Thread.MAX_PRIORITY - Thread.NORM_PRIORITY) / 20.f);
+        else
+            javaPriority = Thread.NORM_PRIORITY - Math.round(priority * (Thread.NORM_PRIORITY - Thread.MIN_PRIORITY) / 19.f);
+
+        Thread.currentThread().setPriority(Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY, javaPriority)));
+    }
+
+    @Override
+    public synchronized long getGcCount()
+    {
+        if (!gcAvailable)
+            return -1;
+
+        try
+        {
+            if (getGcBeans == null)
+            {
+                getGcBeans = Class.forName("java.lang.management.ManagementFactory").getMethod("getGarbageCollectorMXBeans");
+                getGcCount = Class.forName("java.lang.management.GarbageCollectorMXBean").getMethod("getCollectionCount");
+            }
+
+            long count = 0;
+            for (Object bean : (List<?>) getGcBeans.invoke(null))
+                count += Math.max(0, (Long) getGcCount.invoke(bean));
+
+            return count;
+        }
+        catch (Exception e)
+        {
+            gcAvailable = false;
+            return -1;
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return "Social Signal Processing for Java";
+    }
+
+    @Override
+    public File getStorageDirectory()
+    {
+        return storage;
+    }
+
+    @Override
+    public XmlPullParser newPullParser() throws XmlPullParserException
+    {
+        return XmlPullParserFactory.newInstance().newPullParser();
+    }
+
+    @Override
+    public void log(int priority, String tag, String msg)
+    {
+        PrintStream out = (priority >= Log.Level.WARNING.val) ? System.err : System.out;
+        out.println(getLevelChar(priority) + "/" + tag + ": " + msg);
+    }
+
+    private static char getLevelChar(int priority)
+    {
+        if (priority >= Log.Level.ERROR.val)
+            return 'E';
+        if (priority >= Log.Level.WARNING.val)
+            return 'W';
+        if (priority >= Log.Level.INFO.val)
+            return 'I';
+        if (priority >= Log.Level.DEBUG.val)
+            return 'D';
+
+        return 'V';
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Platform.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core.platform;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Services of the runtime SSJ is executed on (clock, wake locks, thread priorities, application context).
+ * The core and the processing components only access the android framework through this class,
+ * which allows them to also run in a plain, headless JVM (e.g. to reprocess recorded sessions on a server).
+ * <p>
+ * The platform is detected on first use, call set() before building a pipeline to override it.
+ */
+public abstract class Platform
+{
+    /**
+     * Keeps the cpu running while held
+     */
+    public interface WakeLock
+    {
+        void acquire();
+        void release();
+    }
+
+    private static volatile Platform instance = null;
+
+    public static Platform get()
+    {
+        Platform platform = instance;
+        if (platform == null)
+        {
+            synchronized (Platform.class)
+            {
+                if (instance == null)
+                    instance = isAndroid() ? new AndroidPlatform() : new JvmPlatform();
+
+                platform = instance;
+            }
+        }
+
+        return platform;
+    }
+
+    public static void set(Platform platform)
+    {
+        instance = platform;
+    }
+
+    /**
+     * @return true if we are running on an android device (dalvik or art)
+     */
+    public static boolean isAndroid()
+    {
+        return "Dalvik".equals(System.getProperty("java.vm.name"));
+    }
+
+    /**
+     * @return monotonic time in milliseconds, only differences are meaningful
+     */
+    public abstract long elapsedRealtime();
+
+    /**
+     * High resolution variant of elapsedRealtime(), both are based on the same clock
+     *
+     * @return monotonic time in nanoseconds, only differences are meaningful
+     */
+    public abstract long nanoTime();
+
+    /**
+     * @param tag name of the component holding the lock (for debugging)
+     */
+    public abstract WakeLock newWakeLock(String tag);
+
+    /**
+     * Sets the priority of the calling thread
+     *
+     * @param priority nice value, -20 is the highest and 19 the lowest priority (see Cons.THREAD_PRIORIIY_HIGH)
+     */
+    public abstract void setThreadPriority(int priority);
+
+    /**
+     * @return name of the framework as presented to the user
+     */
+    public abstract String getName();
+
+    /**
+     * @return directory under which SSJ stores its data by default
+     */
+    public abstract File getStorageDirectory();
+
+    /**
+     * @return a new non-validating xml pull parser
+     */
+    public abstract XmlPullParser newPullParser() throws XmlPullParserException;
+
+    /**
+     * Prints a message to the system log
+     *
+     * @param priority log level, see Log.Level
+     */
+    public abstract void log(int priority, String tag, String msg);
+
+    /**
+     * @return kernel id of the calling thread (as used in /proc/self/task), -1 if unknown
+     */
+    public int myTid()
+    {
+        try
+        {
+            return Integer.parseInt(new File("/proc/thread-self").getCanonicalFile().getName());
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * @return number of garbage collections since the runtime was started, -1 if unknown
+     */
+    public long getGcCount()
+    {
+        return -1;
+    }
+
+    public String getStackTraceString(Throwable tr)
+    {
+        StringWriter writer = new StringWriter();
+        PrintWriter printer = new PrintWriter(writer);
+        tr.printStackTrace(printer);
+        printer.flush();
+
+        return writer.toString();
+    }
+}
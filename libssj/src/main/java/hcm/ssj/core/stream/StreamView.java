@@ -0,0 +1,145 @@
+/*
+ * StreamView.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.core.stream;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Provider;
+
+/**
+ * Read-only window into the data of an input buffer.
+ * The window consists of up to two segments (the second one is used if the window wraps around
+ * the end of the ring buffer). Depending on the buffer, the segments either point directly into the
+ * buffer or into a private copy of the window.
+ * The content is only valid during the consume/transform call it was handed to.
+ */
+public class StreamView
+{
+    public int dim;
+    public int num;
+    public int bytes;
+    public double sr;
+    public double time;
+    public double step;
+    public Cons.Type type;
+    public transient Provider source;
+    public String[] dataclass = null;
+
+    /** first segment: array, offset and length in values */
+    public Object ptr0;
+    public int pos0;
+    public int len0;
+
+    /** second segment (len1 == 0 if the window is contiguous), always starts at index 0 */
+    public Object ptr1;
+    public int len1;
+
+    /** true if the segments point into a private copy instead of the buffer itself */
+    public boolean copied;
+
+    /** absolute buffer position (in bytes) of the window, used by the buffer to validate the view */
+    public long pinned;
+
+    //private storage used if the window cannot be accessed in place
+    private Stream _copy;
+
+    public StreamView(Stream stream)
+    {
+        dim = stream.dim;
+        num = stream.num;
+        bytes = stream.bytes;
+        sr = stream.sr;
+        step = stream.step;
+        type = stream.type;
+        source = stream.source;
+        dataclass = stream.dataclass;
+
+        _copy = stream;
+    }
+
+    public Object copyPtr()
+    {
+        return _copy.ptr();
+    }
+
+    public void set(Object ptr0, int pos0, int len0, Object ptr1, int len1, boolean copied)
+    {
+        this.ptr0 = ptr0;
+        this.pos0 = pos0;
+        this.len0 = len0;
+        this.ptr1 = ptr1;
+        this.len1 = len1;
+        this.copied = copied;
+    }
+
+    public boolean isContiguous()
+    {
+        return len1 == 0;
+    }
+
+    /**
+     * @return number of values in the window (num * dim)
+     */
+    public int size()
+    {
+        return len0 + len1;
+    }
+
+    public float getF(int index)
+    {
+        return (index < len0) ? ((float[]) ptr0)[pos0 + index] : ((float[]) ptr1)[index - len0];
+    }
+
+    public double getD(int index)
+    {
+        return (index < len0) ? ((double[]) ptr0)[pos0 + index] : ((double[]) ptr1)[index - len0];
+    }
+
+    public short getS(int index)
+    {
+        return (index < len0) ? ((short[]) ptr0)[pos0 + index] : ((short[]) ptr1)[index - len0];
+    }
+
+    public int getI(int index)
+    {
+        return (index < len0) ? ((int[]) ptr0)[pos0 + index] : ((int[]) ptr1)[index - len0];
+    }
+
+    public long getL(int index)
+    {
+        return (index < len0) ? ((long[]) ptr0)[pos0 + index] : ((long[]) ptr1)[index - len0];
+    }
+
+    /**
+     * Copies the window into a contiguous array of the stream type
+     */
+    public void copyTo(Object dst)
+    {
+        System.arraycopy(ptr0, pos0, dst, 0, len0);
+        if (len1 > 0)
+            System.arraycopy(ptr1, 0, dst, len0, len1);
+    }
+}
@@ -72,7 +72,7 @@ public class FloatsEventSender extends Consumer
     {
         float ptr[] = stream_in[0].ptrF();
 
-        Event ev = Event.create(Cons.Type.FLOAT);
+        Event ev = _evchannel_out.obtainEvent(Cons.Type.FLOAT);
         ev.name = options.event.get();
         ev.sender = options.sender.get();
         ev.time = (int)(1000 * stream_in[0].time + 0.5);
@@ -80,7 +80,8 @@ public class FloatsEventSender extends Consumer
         ev.state = Event.State.COMPLETED;
 
         if (options.mean.get()) {
-            float[] avg = new float[stream_in[0].dim];
+            ev.adjust(stream_in[0].dim);
+            float[] avg = ev.ptrF();
             Arrays.fill(avg, 0);
             for (int j = 0; j < stream_in[0].dim; j++) {
                 for (int i = 0; i < stream_in[0].num; i++) {
@@ -88,11 +89,10 @@ public class FloatsEventSender extends Consumer
                 }
                 avg[j] /= stream_in[0].num;
             }
-
-            ev.setData(avg);
         }
         else {
-            ev.setData(ptr);
+            ev.adjust(stream_in[0].num * stream_in[0].dim);
+            System.arraycopy(ptr, 0, ev.ptrF(), 0, stream_in[0].num * stream_in[0].dim);
         }
 
         _evchannel_out.pushEvent(ev);
@@ -0,0 +1,392 @@
+/*
+ * AsciiEncoder.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.file;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Formats stream samples as text directly into byte arrays, without creating strings.
+ * Floating point values are written with the fewest digits which parse back to the same value,
+ * using the same notation as Float.toString and Double.toString.
+ */
+public final class AsciiEncoder
+{
+    /** maximum number of bytes a single value can occupy */
+    public static final int MAX_VALUE_BYTES = 32;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_FLOAT_DIGITS = 9;
+    private static final int MAX_DOUBLE_DIGITS = 15; //largest digit count which is exact in a double
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private final byte[] _separator;
+    private final byte[] _line;
+    private final byte[] _digits = new byte[20];
+    private final StringBuilder _fallback = new StringBuilder(MAX_VALUE_BYTES);
+
+    /**
+     * @param separator written after each value
+     * @param line      written after each sample
+     */
+    public AsciiEncoder(String separator, String line)
+    {
+        Charset utf8 = Charset.forName("UTF-8");
+        _separator = separator.getBytes(utf8);
+        _line = line.getBytes(utf8);
+    }
+
+    /**
+     * @return maximum number of bytes of one value including the separators
+     */
+    int getMaxValueBytes()
+    {
+        return MAX_VALUE_BYTES + _separator.length + _line.length;
+    }
+
+    /**
+     * Writes all samples of the stream, one line per sample
+     */
+    void encode(Stream stream, AsyncFileWriter out) throws IOException
+    {
+        int reserve = getMaxValueBytes();
+
+        for (int i = 0, j = 0; i < stream.num; i++)
+        {
+            for (int k = 0; k < stream.dim; k++, j++)
+            {
+                out.reserve(reserve);
+                byte[] b = out.buf;
+                int pos = out.pos;
+
+                switch (stream.type)
+                {
+                    case BOOL:
+                        pos = putBool(b, pos, stream.ptrBool()[j]);
+                        break;
+                    case BYTE:
+                        pos = putLong(b, pos, stream.ptrB()[j]);
+                        break;
+                    case CHAR:
+                        pos = putChar(b, pos, stream.ptrC()[j]);
+                        break;
+                    case SHORT:
+                        pos = putLong(b, pos, stream.ptrS()[j]);
+                        break;
+                    case INT:
+                        pos = putLong(b, pos, stream.ptrI()[j]);
+                        break;
+                    case LONG:
+                        pos = putLong(b, pos, stream.ptrL()[j]);
+                        break;
+                    case FLOAT:
+                        pos = putFloat(b, pos, stream.ptrF()[j]);
+                        break;
+                    case DOUBLE:
+                        pos = putDouble(b, pos, stream.ptrD()[j]);
+                        break;
+                }
+
+                pos = put(b, pos, _separator);
+                if (k == stream.dim - 1)
+                    pos = put(b, pos, _line);
+
+                out.pos = pos;
+            }
+        }
+    }
+
+    public int putBool(byte[] b, int pos, boolean value)
+    {
+        return put(b, pos, value ? TRUE : FALSE);
+    }
+
+    public int putChar(byte[] b, int pos, char value)
+    {
+        if (value < 0x80)
+        {
+            b[pos++] = (byte) value;
+        }
+        else if (value < 0x800)
+        {
+            b[pos++] = (byte) (0xC0 | (value >> 6));
+            b[pos++] = (byte) (0x80 | (value & 0x3F));
+        }
+        else
+        {
+            b[pos++] = (byte) (0xE0 | (value >> 12));
+            b[pos++] = (byte) (0x80 | ((value >> 6) & 0x3F));
+            b[pos++] = (byte) (0x80 | (value & 0x3F));
+        }
+        return pos;
+    }
+
+    public int putLong(byte[] b, int pos, long value)
+    {
+        //work on the negative value, so that Long.MIN_VALUE needs no special case
+        if (value < 0)
+            b[pos++] = '-';
+        else
+            value = -value;
+
+        int n = 0;
+        do
+        {
+            _digits[n++] = (byte) ('0' - (value % 10));
+            value /= 10;
+        }
+        while (value != 0);
+
+        while (n > 0)
+            b[pos++] = _digits[--n];
+
+        return pos;
+    }
+
+    public int putFloat(byte[] b, int pos, float value)
+    {
+        if (Float.isNaN(value) || Float.isInfinite(value))
+            return putFallback(b, pos, value);
+
+        if (value < 0 || (value == 0 && 1 / value < 0))
+        {
+            b[pos++] = '-';
+            value = -value;
+        }
+        if (value == 0)
+            return putDecimal(b, pos, 0, 0);
+
+        int exp = exponent(value);
+        int lo = 1, hi = MAX_FLOAT_DIGITS;
+        long found = -1;
+        int foundScale = 0;
+
+        //rounding to more digits never breaks the round trip, so the shortest length can be searched
+        while (lo <= hi)
+        {
+            int digits = (lo + hi) >>> 1;
+            int scale = exp - digits + 1;
+            if (scale < -22 || scale > 22)
+                return putFallback(b, pos, value);
+
+            long m = Math.round(scale < 0 ? value * POW10[-scale] : value / POW10[scale]);
+            double v = scale < 0 ? m / POW10[-scale] : m * POW10[scale];
+
+            if ((float) v == value)
+            {
+                found = m;
+                foundScale = scale;
+                hi = digits - 1;
+            }
+            else
+            {
+                lo = digits + 1;
+            }
+        }
+
+        if (found < 0)
+            return putFallback(b, pos, value);
+
+        return putDecimal(b, pos, found, foundScale);
+    }
+
+    public int putDouble(byte[] b, int pos, double value)
+    {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return putFallback(b, pos, value);
+
+        if (value < 0 || (value == 0 && 1 / value < 0))
+        {
+            b[pos++] = '-';
+            value = -value;
+        }
+        if (value == 0)
+            return putDecimal(b, pos, 0, 0);
+
+        int exp = exponent(value);
+        int lo = 1, hi = MAX_DOUBLE_DIGITS;
+        long found = -1;
+        int foundScale = 0;
+
+        while (lo <= hi)
+        {
+            int digits = (lo + hi) >>> 1;
+            int scale = exp - digits + 1;
+            if (scale < -22 || scale > 22)
+                return putFallback(b, pos, value);
+
+            long m = Math.round(scale < 0 ? value * POW10[-scale] : value / POW10[scale]);
+            double v = scale < 0 ? m / POW10[-scale] : m * POW10[scale];
+
+            if (v == value)
+            {
+                found = m;
+                foundScale = scale;
+                hi = digits - 1;
+            }
+            else
+            {
+                lo = digits + 1;
+            }
+        }
+
+        //values which need 16 or 17 digits
+        if (found < 0)
+            return putFallback(b, pos, value);
+
+        return putDecimal(b, pos, found, foundScale);
+    }
+
+    /**
+     * @return decimal exponent of a positive finite value
+     */
+    private static int exponent(double value)
+    {
+        int exp = (int) Math.floor(Math.log10(value));
+        if (exp >= -22 && exp <= 22)
+        {
+            //log10 can be off by one near powers of ten
+            if (pow10(exp) > value)
+                exp--;
+            else if (exp < 22 && pow10(exp + 1) <= value)
+                exp++;
+        }
+        return exp;
+    }
+
+    private static double pow10(int exp)
+    {
+        return exp < 0 ? 1 / POW10[-exp] : POW10[exp];
+    }
+
+    /**
+     * Writes mantissa * 10^scale in the notation of Double.toString
+     */
+    private int putDecimal(byte[] b, int pos, long mantissa, int scale)
+    {
+        while (mantissa != 0 && mantissa % 10 == 0)
+        {
+            mantissa /= 10;
+            scale++;
+        }
+
+        int n = 0;
+        do
+        {
+            _digits[n++] = (byte) ('0' + (mantissa % 10));
+            mantissa /= 10;
+        }
+        while (mantissa != 0);
+
+        //digits are stored in reverse order
+        int exp = n + scale - 1;
+
+        if (exp >= -3 && exp < 7)
+        {
+            if (exp >= 0)
+            {
+                for (int i = 0; i <= exp; i++)
+                    b[pos++] = (i < n) ? _digits[n - 1 - i] : (byte) '0';
+
+                b[pos++] = '.';
+
+                if (n > exp + 1)
+                {
+                    for (int i = exp + 1; i < n; i++)
+                        b[pos++] = _digits[n - 1 - i];
+                }
+                else
+                {
+                    b[pos++] = '0';
+                }
+            }
+            else
+            {
+                b[pos++] = '0';
+                b[pos++] = '.';
+                for (int i = -1; i > exp; i--)
+                    b[pos++] = '0';
+                for (int i = n - 1; i >= 0; i--)
+                    b[pos++] = _digits[i];
+            }
+        }
+        else
+        {
+            b[pos++] = _digits[n - 1];
+            b[pos++] = '.';
+
+            if (n > 1)
+            {
+                for (int i = n - 2; i >= 0; i--)
+                    b[pos++] = _digits[i];
+            }
+            else
+            {
+                b[pos++] = '0';
+            }
+
+            b[pos++] = 'E';
+            pos = putLong(b, pos, exp);
+        }
+
+        return pos;
+    }
+
+    private int putFallback(byte[] b, int pos, float value)
+    {
+        _fallback.setLength(0);
+        _fallback.append(value);
+        return putFallback(b, pos);
+    }
+
+    private int putFallback(byte[] b, int pos, double value)
+    {
+        _fallback.setLength(0);
+        _fallback.append(value);
+        return putFallback(b, pos);
+    }
+
+    private int putFallback(byte[] b, int pos)
+    {
+        for (int i = 0; i < _fallback.length(); i++)
+            b[pos++] = (byte) _fallback.charAt(i);
+        return pos;
+    }
+
+    private static int put(byte[] b, int pos, byte[] src)
+    {
+        System.arraycopy(src, 0, b, pos, src.length);
+        return pos + src.length;
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * AsciiParser.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.file;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Parses ASCII stream files directly from the chunks of a ReadAheadReader into stream arrays.
+ * Values are split on the bytes of the separator and converted in place, no strings are created
+ * except for the rare floating point values which cannot be converted exactly with double arithmetic.
+ */
+final class AsciiParser
+{
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_TOKEN = 64;
+
+    private final boolean[] _separator = new boolean[256];
+    private final char[] _token = new char[MAX_TOKEN];
+    private int _tokenLength;
+
+    /**
+     * @param separator every byte of the separator splits values
+     */
+    AsciiParser(String separator)
+    {
+        for (byte b : separator.getBytes(Charset.forName("UTF-8")))
+            _separator[b & 0xFF] = true;
+
+        //lines are never split by the separator
+        _separator['\r'] = false;
+        _separator['\n'] = false;
+    }
+
+    /**
+     * Parses one line into the given sample of the stream.
+     * Missing values are set to zero, surplus values are ignored.
+     *
+     * @return false if the end of the file has been reached
+     */
+    boolean parseLine(ReadAheadReader in, Stream stream, int sample)
+    {
+        int j = sample * stream.dim;
+
+        if (in == null || peek(in) < 0)
+        {
+            clear(stream, j, stream.dim);
+            return false;
+        }
+
+        for (int k = 0; k < stream.dim; k++, j++)
+        {
+            int c = skipSeparators(in);
+            if (c < 0 || c == '\r' || c == '\n')
+            {
+                clear(stream, j, stream.dim - k);
+                break;
+            }
+
+            switch (stream.type)
+            {
+                case BOOL:
+                    stream.ptrBool()[j] = (c == 't' || c == 'T' || c == '1');
+                    break;
+                case BYTE:
+                    stream.ptrB()[j] = (byte) parseLong(in);
+                    break;
+                case CHAR:
+                    stream.ptrC()[j] = parseChar(in);
+                    break;
+                case SHORT:
+                    stream.ptrS()[j] = (short) parseLong(in);
+                    break;
+                case INT:
+                    stream.ptrI()[j] = (int) parseLong(in);
+                    break;
+                case LONG:
+                    stream.ptrL()[j] = parseLong(in);
+                    break;
+                case FLOAT:
+                    stream.ptrF()[j] = (float) parseDouble(in, true);
+                    break;
+                case DOUBLE:
+                    stream.ptrD()[j] = parseDouble(in, false);
+                    break;
+            }
+
+            skipToken(in);
+        }
+
+        skipLine(in);
+        return true;
+    }
+
+    /**
+     * @return false if the end of the file has been reached
+     */
+    boolean skipLine(ReadAheadReader in)
+    {
+        int c;
+        while ((c = peek(in)) >= 0)
+        {
+            in.pos++;
+            if (c == '\n')
+                return true;
+        }
+        return false;
+    }
+
+    private static int peek(ReadAheadReader in)
+    {
+        if (in.pos == in.end && !in.fill())
+            return -1;
+
+        return in.buf[in.pos] & 0xFF;
+    }
+
+    private int skipSeparators(ReadAheadReader in)
+    {
+        int c;
+        while ((c = peek(in)) >= 0 && _separator[c])
+            in.pos++;
+        return c;
+    }
+
+    private void skipToken(ReadAheadReader in)
+    {
+        int c;
+        while ((c = peek(in)) >= 0 && !_separator[c] && c != '\r' && c != '\n')
+            in.pos++;
+    }
+
+    /**
+     * Consumes the current byte and remembers it for the string fallback
+     */
+    private void next(ReadAheadReader in, int c)
+    {
+        in.pos++;
+        if (_tokenLength < MAX_TOKEN)
+            _token[_tokenLength++] = (char) c;
+    }
+
+    private long parseLong(ReadAheadReader in)
+    {
+        int c = peek(in);
+        boolean negative = (c == '-');
+        if (c == '-' || c == '+')
+        {
+            in.pos++;
+            c = peek(in);
+        }
+
+        long value = 0;
+        while (c >= '0' && c <= '9')
+        {
+            value = value * 10 + (c - '0');
+            in.pos++;
+            c = peek(in);
+        }
+
+        return negative ? -value : value;
+    }
+
+    private char parseChar(ReadAheadReader in)
+    {
+        int c = peek(in);
+        in.pos++;
+
+        if (c < 0x80)
+            return (char) c;
+
+        int num = (c >= 0xE0) ? 2 : 1;
+        int value = c & ((c >= 0xE0) ? 0x0F : 0x1F);
+        for (int i = 0; i < num && (c = peek(in)) >= 0 && (c & 0xC0) == 0x80; i++)
+        {
+            value = (value << 6) | (c & 0x3F);
+            in.pos++;
+        }
+        return (char) value;
+    }
+
+    private double parseDouble(ReadAheadReader in, boolean single)
+    {
+        _tokenLength = 0;
+
+        int c = peek(in);
+        boolean negative = (c == '-');
+        if (c == '-' || c == '+')
+        {
+            next(in, c);
+            c = peek(in);
+        }
+
+        if (c == 'N' || c == 'I')
+        {
+            while ((c = peek(in)) >= 'A' && c <= 'z')
+                next(in, c);
+            return fallback(single);
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exp = 0;
+        boolean exact = true;
+
+        while (c >= '0' && c <= '9')
+        {
+            if (digits < 18)
+            {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa > 0)
+                    digits++;
+            }
+            else
+            {
+                exp++;
+                exact &= (c == '0');
+            }
+            next(in, c);
+            c = peek(in);
+        }
+
+        if (c == '.')
+        {
+            next(in, c);
+            c = peek(in);
+
+            while (c >= '0' && c <= '9')
+            {
+                if (digits < 18)
+                {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa > 0)
+                        digits++;
+                    exp--;
+                }
+                else
+                {
+                    exact &= (c == '0');
+                }
+                next(in, c);
+                c = peek(in);
+            }
+        }
+
+        if (c == 'E' || c == 'e')
+        {
+            next(in, c);
+            c = peek(in);
+
+            boolean negativeExp = (c == '-');
+            if (c == '-' || c == '+')
+            {
+                next(in, c);
+                c = peek(in);
+            }
+
+            int e = 0;
+            while (c >= '0' && c <= '9')
+            {
+                if (e < 10000)
+                    e = e * 10 + (c - '0');
+                next(in, c);
+                c = peek(in);
+            }
+
+            exp += negativeExp ? -e : e;
+        }
+
+        if (!exact || mantissa >= MAX_EXACT_MANTISSA || exp < -22 || exp > 22)
+            return fallback(single);
+
+        //both operands are exact, so the result is correctly rounded
+        double value = (exp < 0) ? mantissa / POW10[-exp] : mantissa * POW10[exp];
+
+        if (single && isFloatMidpoint(value))
+            return fallback(true);
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Rounding a double to float is only ambiguous if the double lies exactly between two floats
+     */
+    private static boolean isFloatMidpoint(double value)
+    {
+        long bits = Double.doubleToRawLongBits(value);
+        return (bits & 0x1FFFFFFFL) == 0x10000000L;
+    }
+
+    private double fallback(boolean single)
+    {
+        String token = new String(_token, 0, _tokenLength);
+        try
+        {
+            return single ? Float.parseFloat(token) : Double.parseDouble(token);
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    private static void clear(Stream stream, int from, int num)
+    {
+        switch (stream.type)
+        {
+            case BOOL:
+                Arrays.fill(stream.ptrBool(), from, from + num, false);
+                break;
+            case BYTE:
+                Arrays.fill(stream.ptrB(), from, from + num, (byte) 0);
+                break;
+            case CHAR:
+                Arrays.fill(stream.ptrC(), from, from + num, (char) 0);
+                break;
+            case SHORT:
+                Arrays.fill(stream.ptrS(), from, from + num, (short) 0);
+                break;
+            case INT:
+                Arrays.fill(stream.ptrI(), from, from + num, 0);
+                break;
+            case LONG:
+                Arrays.fill(stream.ptrL(), from, from + num, 0);
+                break;
+            case FLOAT:
+                Arrays.fill(stream.ptrF(), from, from + num, 0);
+                break;
+            case DOUBLE:
+                Arrays.fill(stream.ptrD(), from, from + num, 0);
+                break;
+        }
+    }
+}
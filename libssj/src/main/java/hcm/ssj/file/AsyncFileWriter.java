@@ -0,0 +1,228 @@
+/*
+ * AsyncFileWriter.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.file;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Log;
+
+/**
+ * Writes byte buffers to a file on a background thread.
+ * The producer fills buf up to pos and commits it, the buffer is then queued and a free one takes its place.
+ * The writer thread collects all queued buffers and writes them with a single gathering write (group commit).
+ * The producer only blocks if all buffers are waiting to be written.
+ */
+class AsyncFileWriter implements Runnable
+{
+    private static final int NUM_BUFFERS = 4;
+
+    private final FileChannel _channel;
+    private final int _bufferSize;
+    private final ArrayBlockingQueue<ByteBuffer> _free = new ArrayBlockingQueue<>(NUM_BUFFERS);
+    private final ArrayBlockingQueue<ByteBuffer> _full = new ArrayBlockingQueue<>(NUM_BUFFERS);
+    private final ByteBuffer[] _batch = new ByteBuffer[NUM_BUFFERS];
+
+    private ByteBuffer _current;
+    private long _lastCommit;
+    private volatile boolean _closed = false;
+    private volatile boolean _done = false;
+
+    /** buffer being filled by the producer */
+    byte[] buf;
+    /** number of valid bytes in buf */
+    int pos;
+
+    AsyncFileWriter(FileOutputStream stream, int bufferSize)
+    {
+        _channel = stream.getChannel();
+        _bufferSize = bufferSize;
+
+        for (int i = 0; i < NUM_BUFFERS; i++)
+            _free.add(ByteBuffer.allocate(bufferSize));
+
+        next();
+        _lastCommit = System.currentTimeMillis();
+    }
+
+    /**
+     * Makes sure at least numBytes can be written to buf, commits the current buffer if necessary
+     */
+    void reserve(int numBytes) throws IOException
+    {
+        if (pos + numBytes > buf.length)
+            commit();
+    }
+
+    /**
+     * Commits the current buffer if it has been filled for longer than the given time
+     */
+    void commit(long maxAgeMs) throws IOException
+    {
+        if (pos > 0 && System.currentTimeMillis() - _lastCommit >= maxAgeMs)
+            commit();
+    }
+
+    /**
+     * Hands the current buffer to the writer thread
+     */
+    void commit() throws IOException
+    {
+        _lastCommit = System.currentTimeMillis();
+        if (pos == 0)
+            return;
+
+        _current.limit(pos);
+
+        try
+        {
+            _full.put(_current);
+        }
+        catch (InterruptedException e)
+        {
+            throw new IOException("interrupted while committing buffer", e);
+        }
+
+        next();
+    }
+
+    private void next()
+    {
+        try
+        {
+            _current = _free.take();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            _current = ByteBuffer.allocate(_bufferSize);
+        }
+
+        _current.clear();
+        buf = _current.array();
+        pos = 0;
+    }
+
+    @Override
+    public void run()
+    {
+        Thread.currentThread().setName("SSJ_AsyncFileWriter");
+
+        while (true)
+        {
+            ByteBuffer first;
+            try
+            {
+                first = _full.poll(Cons.SLEEP_IN_LOOP, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                first = _full.poll();
+            }
+
+            if (first == null)
+            {
+                //closed is set after the last commit, so an empty queue means everything is written
+                if (_closed && _full.isEmpty())
+                    break;
+                continue;
+            }
+
+            _batch[0] = first;
+            int num = 1;
+            ByteBuffer next;
+            while (num < _batch.length && (next = _full.poll()) != null)
+                _batch[num++] = next;
+
+            write(num);
+
+            for (int i = 0; i < num; i++)
+            {
+                _batch[i].clear();
+                _free.offer(_batch[i]);
+                _batch[i] = null;
+            }
+        }
+
+        synchronized (this)
+        {
+            _done = true;
+            notifyAll();
+        }
+    }
+
+    private void write(int num)
+    {
+        try
+        {
+            long remaining = 0;
+            for (int i = 0; i < num; i++)
+                remaining += _batch[i].remaining();
+
+            while (remaining > 0)
+                remaining -= _channel.write(_batch, 0, num);
+        }
+        catch (IOException e)
+        {
+            Log.e("could not write data", e);
+        }
+    }
+
+    /**
+     * Commits the remaining data and waits until the writer thread has written it.
+     * The underlying stream is not closed.
+     */
+    void close() throws IOException
+    {
+        commit();
+        _closed = true;
+
+        synchronized (this)
+        {
+            long end = System.currentTimeMillis() + Cons.WAIT_THREAD_TERMINATION;
+            while (!_done && System.currentTimeMillis() < end)
+            {
+                try
+                {
+                    wait(Cons.SLEEP_IN_LOOP);
+                }
+                catch (InterruptedException e)
+                {
+                    break;
+                }
+            }
+        }
+
+        if (!_done)
+            Log.w("background writer did not finish in time");
+    }
+}
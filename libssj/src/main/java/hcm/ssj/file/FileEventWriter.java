@@ -38,13 +38,16 @@ import java.util.TimeZone;
 
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.EventHandler;
+import hcm.ssj.core.EventQueue;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.Util;
 import hcm.ssj.core.event.Event;
+import hcm.ssj.core.event.EventEncoder;
 import hcm.ssj.core.option.Option;
 
 import static hcm.ssj.file.LoggingConstants.FILE_EXTENSION_ANNO_PLAIN;
 import static hcm.ssj.file.LoggingConstants.FILE_EXTENSION_EVENT;
+import static hcm.ssj.file.LoggingConstants.FILE_EXTENSION_EVENT_BINARY;
 
 /**
  * writes events to file
@@ -55,17 +58,21 @@ public class FileEventWriter extends EventHandler implements IFileWriter
     public enum Format
     {
         EVENT,
-        ANNO_PLAIN
+        ANNO_PLAIN,
+        BINARY //sequence of messages in SSJ's binary event format
     }
 
     public class Options extends IFileWriter.Options
     {
         public final Option<Format> format = new Option<>("format", Format.EVENT, Format.class, "format of event file");
+        public final Option<Integer> linger = new Option<>("linger", 0, Integer.class, "max time (in ms) to wait for further events before writing (event and binary format)");
+        public final Option<Integer> batchSize = new Option<>("batchSize", 65536, Integer.class, "max size of a single write (in bytes), events are combined until it is reached (event and binary format)");
     }
     public Options options = new Options();
 
     StringBuilder _builder = new StringBuilder();
-    byte[] _buffer;
+    private EventEncoder _encoder;
+    private EventQueue _queue = new EventQueue();
 
     ArrayList<Event> unprocessedEvents = new ArrayList<>();
 
@@ -85,7 +92,6 @@ public class FileEventWriter extends EventHandler implements IFileWriter
         if(_evchannel_in == null || _evchannel_in.size() == 0)
             throw new RuntimeException("no incoming event channels defined");
 
-        _buffer = new byte[Cons.MAX_EVENT_SIZE];
         _builder.delete(0, _builder.length());
 
         //create file
@@ -107,6 +113,9 @@ public class FileEventWriter extends EventHandler implements IFileWriter
                 case ANNO_PLAIN:
                     defaultName += "." + FILE_EXTENSION_ANNO_PLAIN;
                     break;
+                case BINARY:
+                    defaultName += "." + FILE_EXTENSION_EVENT_BINARY;
+                    break;
             }
 
             Log.w("file name not set, setting to " + defaultName);
@@ -115,49 +124,26 @@ public class FileEventWriter extends EventHandler implements IFileWriter
         file = new File(fileDirectory, options.fileName.get());
         fileOutputStream = getFileConnection(file, fileOutputStream);
 
+        _encoder = EventEncoder.create(options.format.get() == Format.BINARY ? Cons.EventFormat.BINARY : Cons.EventFormat.XML);
         headerWritten = false;
-        unprocessedEvents.clear();
+        releaseUnprocessed();
+        _queue.clear();
     }
 
     @Override
     public synchronized void notify(Event event)
     {
-        //write header
-        if(!headerWritten && options.format.get() == Format.EVENT)
+        if(options.format.get() == Format.EVENT || options.format.get() == Format.BINARY)
         {
-            _builder.delete(0, _builder.length());
-            _builder.append("<events ssi-v=\"2\" ssj-v=\"");
-            _builder.append(_frame.getVersion());
-            _builder.append("\">");
-            _builder.append(LoggingConstants.DELIMITER_LINE);
-
-            SimpleDateFormat sdf = new SimpleDateFormat(SimpleHeader.DATE_FORMAT, Locale.getDefault());
-
-            Date date = new Date(_frame.getStartTimeMs());
-            String local = sdf.format(date);
-
-            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-            String system = sdf.format(date);
-
-            _builder.append("<time ms=\"").append(_frame.getStartTimeMs()).append("\" local=\"").append(local).append("\" system=\"").append(system).append("\"/>");
-            _builder.append(LoggingConstants.DELIMITER_LINE);
-
-            write(_builder.toString(), fileOutputStream);
-            headerWritten = true;
-        }
-
-        _builder.delete(0, _builder.length());
-
-        if(options.format.get() == Format.EVENT)
-        {
-            Util.eventToXML(_builder, event);
-            _builder.append(LoggingConstants.DELIMITER_LINE);
-
-            write(_builder.toString(), fileOutputStream);
+            //written in batches by process()
+            _queue.add(event);
         }
         else if(options.format.get() == Format.ANNO_PLAIN)
         {
+            _builder.delete(0, _builder.length());
+
             if(event.state == Event.State.CONTINUED) {
+                event.retain(); //kept until the event is completed
                 unprocessedEvents.add(event);
             }
             else
@@ -178,21 +164,115 @@ public class FileEventWriter extends EventHandler implements IFileWriter
                 double from = (start != null) ? start.time / 1000.0 : event.time / 1000.0;
                 _builder.append(from).append(" ").append(to).append(" ").append(event.name);
 
+                if (start != null)
+                    start.release();
+
                 writeLine(_builder.toString(), fileOutputStream);
             }
         }
     }
 
+    @Override
+    protected void process()
+    {
+        if(options.format.get() == Format.ANNO_PLAIN)
+        {
+            super.process();
+            return;
+        }
+
+        writeEvents(Cons.SLEEP_IN_LOOP);
+    }
+
+    /**
+     * Waits for events and writes all of them which arrive within the linger time at once
+     *
+     * @return number of written events
+     */
+    private int writeEvents(long timeout)
+    {
+        boolean binary = (options.format.get() == Format.BINARY);
+
+        //binary files consist of self-contained messages, xml events are embedded in a single <events> element
+        _encoder.clear();
+        if(binary)
+            _encoder.begin(_frame.getVersion());
+
+        int count = _queue.drainTo(_encoder, timeout, options.linger.get(), options.batchSize.get());
+
+        if(count > 0)
+        {
+            if(binary)
+                _encoder.end();
+            else
+                writeHeader();
+
+            int size = _encoder.encode();
+            if (fileOutputStream != null)
+            {
+                try
+                {
+                    fileOutputStream.write(_encoder.bytes(), 0, size);
+                } catch (IOException e)
+                {
+                    Log.e("could not write data");
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private void writeHeader()
+    {
+        if(headerWritten)
+            return;
+
+        _builder.delete(0, _builder.length());
+        _builder.append("<events ssi-v=\"2\" ssj-v=\"");
+        _builder.append(_frame.getVersion());
+        _builder.append("\">");
+        _builder.append(LoggingConstants.DELIMITER_LINE);
+
+        SimpleDateFormat sdf = new SimpleDateFormat(SimpleHeader.DATE_FORMAT, Locale.getDefault());
+
+        Date date = new Date(_frame.getStartTimeMs());
+        String local = sdf.format(date);
+
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String system = sdf.format(date);
+
+        _builder.append("<time ms=\"").append(_frame.getStartTimeMs()).append("\" local=\"").append(local).append("\" system=\"").append(system).append("\"/>");
+        _builder.append(LoggingConstants.DELIMITER_LINE);
+
+        write(_builder.toString(), fileOutputStream);
+        headerWritten = true;
+    }
+
+    private void releaseUnprocessed()
+    {
+        for (Event ev : unprocessedEvents)
+            ev.release();
+        unprocessedEvents.clear();
+    }
+
     public void flush()
     {
         //write footer
         if(options.format.get() == Format.EVENT) {
+            //write remaining events
+            while (writeEvents(0) > 0);
+
             _builder.delete(0, _builder.length());
             _builder.append("</events>");
             writeLine(_builder.toString(), fileOutputStream);
         }
+        else if(options.format.get() == Format.BINARY) {
+            while (writeEvents(0) > 0);
+        }
 
         fileOutputStream = closeStream(fileOutputStream);
+        releaseUnprocessed();
     }
 
 
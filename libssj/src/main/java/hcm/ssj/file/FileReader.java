@@ -28,18 +28,17 @@ package hcm.ssj.file;
 
 
 import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 
 import hcm.ssj.core.Log;
 import hcm.ssj.core.Sensor;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
 
 /**
  * File reader for SSJ.<br>
@@ -47,6 +46,8 @@ import hcm.ssj.core.option.OptionList;
  */
 public class FileReader extends Sensor
 {
+    private static final int CHUNK_SIZE = 65536;
+
     /**
      *
      */
@@ -55,6 +56,7 @@ public class FileReader extends Sensor
         public final Option<String> filePath = new Option<>("filePath", LoggingConstants.SSJ_EXTERNAL_STORAGE, String.class, "file path");
         public final Option<String> fileName = new Option<>("fileName", null, String.class, "file name");
         public final Option<Boolean> loop = new Option<>("loop", true, Boolean.class, "");
+        public final Option<Boolean> memoryMapped = new Option<>("memoryMapped", false, Boolean.class, "map data file into memory instead of streaming it");
 
         /**
          *
@@ -69,7 +71,8 @@ public class FileReader extends Sensor
     private File fileHeader;
     private File fileReal;
     private BufferedInputStream inputBinary = null;
-    private BufferedReader inputASCII = null;
+    private ReadAheadReader inputASCII = null;
+    private MappedStreamFile mappedFile = null;
     private int pos;
     private SimpleHeader simpleHeader = null;
     private boolean initialized = false;
@@ -120,10 +123,12 @@ public class FileReader extends Sensor
         readerInit();
         simpleHeader = getSimpleHeader();
 
-        if(simpleHeader._ftype.equals("BINARY"))
+        if(simpleHeader._ftype.equals("BINARY") && options.memoryMapped.get())
+            mappedFile = getMappedFile(fileReal, mappedFile);
+        else if(simpleHeader._ftype.equals("BINARY"))
             inputBinary = getFileConnection(fileReal, inputBinary);
         else if(simpleHeader._ftype.equals("ASCII"))
-            inputASCII = getFileConnection(fileReal, inputASCII);
+            inputASCII = getReadAhead(fileReal, inputASCII);
 
         pos = 0;
         return true;
@@ -207,23 +212,23 @@ public class FileReader extends Sensor
     }
 
     /**
-     * @param reader BufferedReader
-     * @return BufferedReader
+     * @param map MappedStreamFile
+     * @return MappedStreamFile
      */
-    private BufferedReader closeStream(BufferedReader reader)
+    private MappedStreamFile closeStream(MappedStreamFile map)
     {
-        if (reader != null)
+        if (map != null)
         {
             try
             {
-                reader.close();
-                reader = null;
+                map.close();
+                map = null;
             } catch (IOException e)
             {
-                Log.e("could not close reader", e);
+                Log.e("could not close mapped file", e);
             }
         }
-        return reader;
+        return map;
     }
 
     /**
@@ -234,6 +239,7 @@ public class FileReader extends Sensor
     {
         inputBinary = closeStream(inputBinary);
         inputASCII = closeStream(inputASCII);
+        mappedFile = closeStream(mappedFile);
         initialized = false;
     }
 
@@ -260,22 +266,36 @@ public class FileReader extends Sensor
     }
 
     /**
-     * @param file   File
-     * @param reader BufferedReader
-     * @return BufferedReader
+     * @param file File
+     * @param map  MappedStreamFile
+     * @return MappedStreamFile
      */
-    private BufferedReader getFileConnection(File file, BufferedReader reader)
+    private MappedStreamFile getMappedFile(File file, MappedStreamFile map)
     {
-        if (reader != null)
+        map = closeStream(map);
+        try
         {
-            reader = closeStream(reader);
+            map = MappedStreamFile.openRead(file);
+        } catch (IOException e)
+        {
+            Log.e("could not map file", e);
         }
+        return map;
+    }
+
+    /**
+     * @param file   File
+     * @param reader ReadAheadReader
+     * @return ReadAheadReader
+     */
+    private ReadAheadReader getReadAhead(File file, ReadAheadReader reader)
+    {
+        reader = closeStream(reader);
         try
         {
-            InputStream inputStream = new FileInputStream(file);
-            reader = new BufferedReader(new InputStreamReader(inputStream));
-
-        } catch (FileNotFoundException e)
+            reader = new ReadAheadReader(file, options.memoryMapped.get(), options.loop.get(), CHUNK_SIZE);
+            _frame.executeRunnable(reader);
+        } catch (IOException e)
         {
             Log.e("file not found", e);
         }
@@ -283,23 +303,16 @@ public class FileReader extends Sensor
     }
 
     /**
-     * @param reader BufferedReader
-     * @return String
+     * @param reader ReadAheadReader
+     * @return ReadAheadReader
      */
-    private String readLine(BufferedReader reader)
+    private ReadAheadReader closeStream(ReadAheadReader reader)
     {
-        String line = null;
         if (reader != null)
         {
-            try
-            {
-                line = reader.readLine();
-            } catch (IOException e)
-            {
-                Log.e("could not read line", e);
-            }
+            reader.close();
         }
-        return line;
+        return null;
     }
 
     /**
@@ -323,19 +336,24 @@ public class FileReader extends Sensor
     }
 
     /**
-        * @return String
-    */
-    protected String getDataASCII()
+     * Parses the next line of an ASCII file into the stream
+     *
+     * @param parser AsciiParser
+     * @param stream Stream
+     * @param sample sample of the stream to fill
+     * @return false if there is no more data
+     */
+    protected boolean getDataASCII(AsciiParser parser, Stream stream, int sample)
     {
+        return parser.parseLine(inputASCII, stream, sample);
+    }
 
-        String data = readLine(inputASCII);
-        if (data == null && options.loop.get())
-        {
-            Log.d("end of file reached, looping");
-            inputASCII = getFileConnection(fileReal, inputASCII);
-            data = readLine(inputASCII);
-        }
-        return data;
+    /**
+     * @return false if there is no more data
+     */
+    protected boolean skipDataASCII(AsciiParser parser)
+    {
+        return inputASCII != null && parser.skipLine(inputASCII);
     }
 
 
@@ -358,8 +376,72 @@ public class FileReader extends Sensor
         return ret;
     }
 
-    protected void skip(int bytes)
+    /**
+     * Reads binary data straight from the mapped file into an array of the stream type
+     *
+     * @param array    destination, e.g. Stream.ptr()
+     * @param numBytes number of bytes to read
+     * @return number of bytes read
+     */
+    protected int getDataMapped(Object array, int numBytes)
+    {
+        int ret = 0;
+        try
+        {
+            ret = mappedFile.read(array, 0, numBytes);
+            if (ret < numBytes && options.loop.get())
+            {
+                Log.d("end of file reached, looping");
+                mappedFile.seek(0);
+                ret += mappedFile.read(array, ret, numBytes - ret);
+            }
+        } catch (IOException e)
+        {
+            Log.e("could not read data", e);
+        }
+
+        if(numBytes != ret)
+            Log.e("unexpected amount of bytes read from file");
+
+        return ret;
+    }
+
+    /**
+     * @return true if binary data is read from a mapped file
+     */
+    protected boolean isMapped()
+    {
+        return mappedFile != null;
+    }
+
+    /**
+     * Moves the binary reader to the sample at the given time.
+     * Constant time for mapped files, streamed files can only move forward from the current position.
+     *
+     * @param time stream time in seconds
+     */
+    public void seek(double time)
+    {
+        SimpleHeader header = getSimpleHeader();
+        double sr = Double.parseDouble(header._sr);
+        double from = (header._from != null) ? Double.parseDouble(header._from) : 0;
+        long sample = Math.max(0, (long) ((time - from) * sr + 0.5));
+        long bytes = sample * Integer.parseInt(header._dim) * Integer.parseInt(header._byte);
+
+        if (mappedFile != null)
+            mappedFile.seek(bytes);
+        else
+            skip(bytes);
+    }
+
+    protected void skip(long bytes)
     {
+        if (mappedFile != null)
+        {
+            mappedFile.seek(mappedFile.position() + bytes);
+            return;
+        }
+
         try {
             inputBinary.skip(bytes);
         } catch (IOException e) {
@@ -26,8 +26,6 @@
 
 package hcm.ssj.file;
 
-import java.util.Arrays;
-
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.Monitor;
@@ -65,6 +63,7 @@ public class FileReaderChannel extends SensorChannel
     public final Options options = new Options();
     private FileReader fileReader;
     private byte[] buffer;
+    private AsciiParser parser;
     private double sampleRate;
     private int dimension;
     private int num;
@@ -105,6 +104,7 @@ public class FileReaderChannel extends SensorChannel
         ftype = Cons.FileType.valueOf(simpleHeader._ftype);
 
         buffer = new byte[num*dimension*bytes];
+        parser = new AsciiParser(options.separator.get());
     }
 
 
@@ -112,8 +112,19 @@ public class FileReaderChannel extends SensorChannel
     @Override
     public void enter(Stream stream_out)
     {
-        if(options.offset.get() > 0)
-            fileReader.skip((int)(stream_out.sr * options.offset.get()));
+        if(options.offset.get() <= 0)
+            return;
+
+        if(ftype == Cons.FileType.BINARY)
+            fileReader.seek(options.offset.get());
+        else
+        {
+            int lines = (int)(sampleRate * options.offset.get() + 0.5);
+            while (lines-- > 0 && fileReader.skipDataASCII(parser))
+            {
+                //skip one sample per line
+            }
+        }
     }
 
     /**
@@ -124,116 +135,54 @@ public class FileReaderChannel extends SensorChannel
     {
         if(ftype == Cons.FileType.ASCII)
         {
-            for(int i = 0; i < num; ++i) {
-                switch (type) {
-                    case BOOL: {
-                        boolean[] out = stream_out.ptrBool();
-
-                            String[] separated = getData();
-                            for (int k = 0; k < dimension; k++) {
-                                out[i * dimension + k] = Boolean.valueOf(separated[k]);
-                            }
-                        break;
-                    }
-                    case BYTE: {
-                        byte[] out = stream_out.ptrB();
-
-                            String[] separated = getData();
-                            for (int k = 0; k < dimension; k++) {
-                                out[i * dimension + k] = Byte.valueOf(separated[k]);
-                            }
-                        break;
-                    }
-                    case CHAR: {
-                        char[] out = stream_out.ptrC();
-
-                            String[] separated = getData();
-                            for (int k = 0; k < dimension; k++) {
-                                out[i * dimension + k] = separated[k].charAt(0);
-                            }
-                        break;
-                    }
-                    case SHORT: {
-                        short[] out = stream_out.ptrS();
-
-                            String[] separated = getData();
-                            for (int k = 0; k < dimension; k++) {
-                                out[i * dimension + k] = Short.valueOf(separated[k]);
-                            }
-                        break;
-                    }
-                    case INT: {
-                        int[] out = stream_out.ptrI();
-
-                            String[] separated = getData();
-                            for (int k = 0; k < dimension; k++) {
-                                out[i * dimension + k] = Integer.valueOf(separated[k]);
-                            }
-                        break;
-                    }
-                    case LONG: {
-                        long[] out = stream_out.ptrL();
+            if (type == Cons.Type.UNDEF || type == Cons.Type.EMPTY || type == Cons.Type.STRING)
+            {
+                Log.w("unsupported data type");
+                return false;
+            }
 
-                            String[] separated = getData();
-                            for (int k = 0; k < dimension; k++) {
-                                out[i * dimension + k] = Long.valueOf(separated[k]);
-                            }
-                        break;
-                    }
-                    case FLOAT: {
-                        float[] out = stream_out.ptrF();
+            boolean eof = false;
+            for(int i = 0; i < num; ++i) {
+                if (!fileReader.getDataASCII(parser, stream_out, i))
+                    eof = true;
+            }
 
-                            String[] separated = getData();
-                            for (int k = 0; k < dimension; k++) {
-                                out[i * dimension + k] = Float.parseFloat(separated[k]);
-                            }
-                        break;
-                    }
-                    case DOUBLE: {
-                        double[] out = stream_out.ptrD();
-                        String[] separated = getData();
-                        for (int k = 0; k < dimension; k++) {
-                            out[i * dimension + k] = Double.valueOf(separated[k]);
-                        }
-                        break;
-                    }
-                    default:
-                        Log.w("unsupported data type");
-                        return false;
+            if (eof)
+            {
+                //a partial chunk is not replayed, the pipeline notifies listeners once all data is processed
+                if (_frame.isReplay())
+                {
+                    endOfData();
+                    return false;
                 }
+
+                //notify listeners
+                Monitor.notifyMonitor();
             }
         }
         else if(ftype == Cons.FileType.BINARY)
         {
             int numBytes = num * dimension * bytes;
-            fileReader.getDataBinary(buffer, numBytes);
-            Util.arraycopy(buffer, 0, stream_out.ptr(), 0, numBytes);
-        }
 
-        return true;
-    }
-
-    /**
-     * @return String[]
-     */
-    private String[] getData()
-    {
-        String data = fileReader.getDataASCII();
-        String[] result;
+            int read;
+            if (fileReader.isMapped())
+            {
+                read = fileReader.getDataMapped(stream_out.ptr(), numBytes);
+            }
+            else
+            {
+                read = fileReader.getDataBinary(buffer, numBytes);
+                Util.arraycopy(buffer, 0, stream_out.ptr(), 0, numBytes);
+            }
 
-        if (data != null)
-        {
-            result = data.split(options.separator.get());
-        }
-        else
-        {
-            //notify listeners
-            Monitor.notifyMonitor();
-            result = new String[dimension];
-            Arrays.fill(result, "0");
+            if (read < numBytes && _frame.isReplay())
+            {
+                endOfData();
+                return false;
+            }
         }
 
-        return result;
+        return true;
     }
 
     /**
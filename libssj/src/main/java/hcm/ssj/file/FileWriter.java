@@ -26,8 +26,6 @@
 
 package hcm.ssj.file;
 
-import android.text.TextUtils;
-
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -45,6 +43,7 @@ import hcm.ssj.core.Log;
 import hcm.ssj.core.Util;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.stream.Stream;
+import hcm.ssj.core.stream.StreamView;
 
 import static hcm.ssj.file.LoggingConstants.FILE_EXTENSION_STREAM;
 
@@ -61,6 +60,9 @@ public class FileWriter extends Consumer implements IFileWriter
     {
         public final Option<String> separator = new Option<>("separator", LoggingConstants.DELIMITER_ATTRIBUTE, String.class, "");
         public final Option<Cons.FileType> type = new Option<>("type", Cons.FileType.ASCII, Cons.FileType.class, "file type (ASCII or BINARY)");
+        public final Option<Boolean> memoryMapped = new Option<>("memoryMapped", false, Boolean.class, "map binary data file into memory instead of streaming it");
+        public final Option<Integer> bufferSize = new Option<>("bufferSize", 65536, Integer.class, "size of the buffers handed to the background writer in ASCII mode (bytes)");
+        public final Option<Double> commitInterval = new Option<>("commitInterval", 1.0, Double.class, "max time ASCII data is kept in memory before it is written (seconds)");
 
         /**
          *
@@ -78,10 +80,13 @@ public class FileWriter extends Consumer implements IFileWriter
     private FileOutputStream fileOutputStreamHeader = null;
     private BufferedOutputStream byteStream;
     private byte[] buffer;
+    private MappedStreamFile mappedFile = null;
 
     private int sampleCount = 0;
     private SimpleHeader simpleHeader;
-    private StringBuilder stringBuilder;
+    private AsciiEncoder asciiEncoder;
+    private AsyncFileWriter asciiWriter;
+    private long commitIntervalMs;
     private File file;
 
     public FileWriter()
@@ -115,13 +120,17 @@ public class FileWriter extends Consumer implements IFileWriter
 
         if (options.fileName.get() == null)
         {
-            String defaultName = TextUtils.join("_", stream_in[0].dataclass) + "." + FILE_EXTENSION_STREAM;
+            String defaultName = Util.join("_", stream_in[0].dataclass) + "." + FILE_EXTENSION_STREAM;
             Log.w("file name not set, setting to " + defaultName);
             options.fileName.set(defaultName);
         }
         file = new File(fileDirectory, options.fileName.get());
 
         fileType = options.type.get();
+
+        //binary data can be written straight from the input buffer
+        _useViews = (fileType == Cons.FileType.BINARY);
+
         start(stream_in[0]);
     }
 
@@ -148,14 +157,31 @@ public class FileWriter extends Consumer implements IFileWriter
         fileOutputStreamHeader = getFileConnection(fileHeader, fileOutputStreamHeader);
 
         sampleCount = 0;
+
+        if (fileType == Cons.FileType.BINARY && options.memoryMapped.get())
+        {
+            try
+            {
+                mappedFile = MappedStreamFile.openWrite(fileReal);
+                return;
+            }
+            catch (IOException e)
+            {
+                Log.w("could not map file, falling back to stream", e);
+            }
+        }
+
         fileOutputStream = getFileConnection(fileReal, fileOutputStream);
 
         if(fileType == Cons.FileType.BINARY) {
             byteStream = new BufferedOutputStream(fileOutputStream);
             buffer = new byte[stream.tot];
         }
-        else if(fileType == Cons.FileType.ASCII) {
-            stringBuilder = new StringBuilder();
+        else if(fileType == Cons.FileType.ASCII && fileOutputStream != null) {
+            asciiEncoder = new AsciiEncoder(options.separator.get(), LoggingConstants.DELIMITER_LINE);
+            asciiWriter = new AsyncFileWriter(fileOutputStream, Math.max(options.bufferSize.get(), asciiEncoder.getMaxValueBytes()));
+            commitIntervalMs = (long) (options.commitInterval.get() * 1000);
+            _frame.executeRunnable(asciiWriter);
         }
     }
 
@@ -165,152 +191,74 @@ public class FileWriter extends Consumer implements IFileWriter
     @Override
     protected final void consume(Stream[] stream_in)
     {
-        if(fileType == Cons.FileType.ASCII)
-            stringBuilder.delete(0, stringBuilder.length());
-
         if(fileType == Cons.FileType.ASCII)
         {
-            switch (stream_in[0].type)
+            sampleCount += stream_in[0].num;
+
+            if (asciiWriter == null)
+                return;
+
+            try
             {
-                case BOOL:
-                {
-                    boolean[] in = stream_in[0].ptrBool();
-                    for (int i = 0, j = 0; i < stream_in[0].num; i++) {
-                        for (int k = 0; k < stream_in[0].dim; k++, j++) {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
-                        }
-                        stringBuilder.append(LoggingConstants.DELIMITER_LINE);
-                    }
-                    sampleCount += stream_in[0].num;
-                    write(stringBuilder.toString(), fileOutputStream);
-                    break;
-                }
-                case BYTE:
-                {
-                    byte[] in = stream_in[0].ptrB();
-                    for (int i = 0, j = 0; i < stream_in[0].num; i++)
-                    {
-                        for (int k = 0; k < stream_in[0].dim; k++, j++)
-                        {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
-                        }
-                        stringBuilder.append(LoggingConstants.DELIMITER_LINE);
-                    }
-                    sampleCount += stream_in[0].num;
-                    write(stringBuilder.toString(), fileOutputStream);
-                    break;
-                }
-                case CHAR:
-                {
-                    char[] in = stream_in[0].ptrC();
-                    for (int i = 0, j = 0; i < stream_in[0].num; i++)
-                    {
-                        for (int k = 0; k < stream_in[0].dim; k++, j++)
-                        {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
-                        }
-                        stringBuilder.append(LoggingConstants.DELIMITER_LINE);
-                    }
-                    sampleCount += stream_in[0].num;
-                    write(stringBuilder.toString(), fileOutputStream);
-                    break;
-                }
-                case SHORT:
-                {
-                    short[] in = stream_in[0].ptrS();
-                    for (int i = 0, j = 0; i < stream_in[0].num; i++)
-                    {
-                        for (int k = 0; k < stream_in[0].dim; k++, j++)
-                        {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
-                        }
-                        stringBuilder.append(LoggingConstants.DELIMITER_LINE);
-                    }
-                    sampleCount += stream_in[0].num;
-                    write(stringBuilder.toString(), fileOutputStream);
-                    break;
-                }
-                case INT:
-                {
-                    int[] in = stream_in[0].ptrI();
-                    for (int i = 0, j = 0; i < stream_in[0].num; i++)
-                    {
-                        for (int k = 0; k < stream_in[0].dim; k++, j++)
-                        {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
-                        }
-                        stringBuilder.append(LoggingConstants.DELIMITER_LINE);
-                    }
-                    sampleCount += stream_in[0].num;
-                    write(stringBuilder.toString(), fileOutputStream);
-                    break;
-                }
-                case LONG:
-                {
-                    long[] in = stream_in[0].ptrL();
-                    for (int i = 0, j = 0; i < stream_in[0].num; i++)
-                    {
-                        for (int k = 0; k < stream_in[0].dim; k++, j++)
-                        {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
-                        }
-                        stringBuilder.append(LoggingConstants.DELIMITER_LINE);
-                    }
-                    sampleCount += stream_in[0].num;
-                    write(stringBuilder.toString(), fileOutputStream);
-                    break;
-                }
-                case FLOAT:
-                {
-                    float[] in = stream_in[0].ptrF();
-                    for (int i = 0, j = 0; i < stream_in[0].num; i++)
-                    {
-                        for (int k = 0; k < stream_in[0].dim; k++, j++)
-                        {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
-                        }
-                        stringBuilder.append(LoggingConstants.DELIMITER_LINE);
-                    }
-                    sampleCount += stream_in[0].num;
-                    write(stringBuilder.toString(), fileOutputStream);
-                    break;
-                }
-                case DOUBLE:
-                {
-                    double[] in = stream_in[0].ptrD();
-                    for (int i = 0, j = 0; i < stream_in[0].num; i++)
-                    {
-                        for (int k = 0; k < stream_in[0].dim; k++, j++)
-                        {
-                            stringBuilder.append(in[j]);
-                            stringBuilder.append(options.separator.get());
-                        }
-                        stringBuilder.append(LoggingConstants.DELIMITER_LINE);
-                    }
-                    sampleCount += stream_in[0].num;
-                    write(stringBuilder.toString(), fileOutputStream);
-                    break;
-                }
-                default:
-                    Log.w("unsupported data type");
-                    break;
+                asciiEncoder.encode(stream_in[0], asciiWriter);
+                asciiWriter.commit(commitIntervalMs);
+            } catch (IOException e)
+            {
+                Log.e("could not write data", e);
             }
         }
         else if(fileType == Cons.FileType.BINARY)
         {
             sampleCount += stream_in[0].num;
+
+            if (mappedFile != null)
+            {
+                write(stream_in[0].ptr(), 0, stream_in[0].tot);
+                return;
+            }
+
             Util.arraycopy(stream_in[0].ptr(), 0, buffer, 0, stream_in[0].tot);
             write(buffer, byteStream);
         }
     }
 
+    /**
+     * @param view_in StreamView[]
+     */
+    @Override
+    protected final void consume(StreamView[] view_in)
+    {
+        StreamView view = view_in[0];
+
+        //the data is only kept if the window has not been overwritten while copying it
+        if (mappedFile != null)
+        {
+            long start = mappedFile.position();
+            write(view.ptr0, view.pos0 * view.bytes, view.len0 * view.bytes);
+            if (view.len1 > 0)
+                write(view.ptr1, 0, view.len1 * view.bytes);
+
+            if (!isValid(view_in))
+            {
+                mappedFile.discard(start);
+                return;
+            }
+
+            sampleCount += view.num;
+            return;
+        }
+
+        Util.arraycopy(view.ptr0, view.pos0 * view.bytes, buffer, 0, view.len0 * view.bytes);
+        if (view.len1 > 0)
+            Util.arraycopy(view.ptr1, 0, buffer, view.len0 * view.bytes, view.len1 * view.bytes);
+
+        if (!isValid(view_in))
+            return;
+
+        sampleCount += view.num;
+        write(buffer, byteStream);
+    }
+
     /**
      * @param stream_in Stream[]
      */
@@ -325,6 +273,32 @@ public class FileWriter extends Consumer implements IFileWriter
      */
     private void end(Stream stream)
     {
+        if (mappedFile != null)
+        {
+            try
+            {
+                mappedFile.close();
+            }
+            catch (IOException e)
+            {
+                Log.e("could not close mapped file", e);
+            }
+            mappedFile = null;
+        }
+
+        if (asciiWriter != null)
+        {
+            try
+            {
+                asciiWriter.close();
+            }
+            catch (IOException e)
+            {
+                Log.e("could not write data", e);
+            }
+            asciiWriter = null;
+        }
+
         if(fileType == Cons.FileType.BINARY)
             byteStream = (BufferedOutputStream)closeStream(byteStream);
 
@@ -421,20 +395,18 @@ public class FileWriter extends Consumer implements IFileWriter
     }
 
     /**
-     * @param line   String
-     * @param stream FileOutputStream
+     * @param data        array of the stream type
+     * @param srcPosBytes first byte to write
+     * @param numBytes    number of bytes to write
      */
-    private void write(String line, FileOutputStream stream)
+    private void write(Object data, int srcPosBytes, int numBytes)
     {
-        if (stream != null)
+        try
         {
-            try
-            {
-                stream.write(line.getBytes());
-            } catch (IOException e)
-            {
-                Log.e("could not write data", e);
-            }
+            mappedFile.write(data, srcPosBytes, numBytes);
+        } catch (IOException e)
+        {
+            Log.e("could not write data", e);
         }
     }
 
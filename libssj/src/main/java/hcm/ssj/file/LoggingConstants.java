@@ -26,10 +26,10 @@
 
 package hcm.ssj.file;
 
-import android.os.Environment;
-
 import java.io.File;
 
+import hcm.ssj.core.platform.Platform;
+
 /**
  * Constants used for the logging mechanisms.<br>
  * Created by Frank Gaibler on 31.08.2015.
@@ -41,6 +41,7 @@ public class LoggingConstants
     public static final String TAG_DATA_FILE = "~";
     public static final String FILE_EXTENSION_STREAM = "stream";
     public static final String FILE_EXTENSION_EVENT = "events";
+    public static final String FILE_EXTENSION_EVENT_BINARY = "evbin";
     public static final String FILE_EXTENSION_ANNO_PLAIN = "anno";
-    public static final String SSJ_EXTERNAL_STORAGE = new File(Environment.getExternalStorageDirectory(), "SSJ").getPath();
+    public static final String SSJ_EXTERNAL_STORAGE = new File(Platform.get().getStorageDirectory(), "SSJ").getPath();
 }
\ No newline at end of file
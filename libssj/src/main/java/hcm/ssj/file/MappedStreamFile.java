@@ -0,0 +1,287 @@
+/*
+ * MappedStreamFile.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped access to the data file (~) of a binary stream file.
+ * The file is mapped in segments, values are copied between the mapping and the arrays of streams
+ * without intermediate buffers (little-endian, like Util.arraycopy).
+ * When writing, the file grows by a whole segment at a time and is truncated to the written size on close.
+ */
+class MappedStreamFile
+{
+    /** multiple of the largest sample value size, so that no value spans two segments */
+    static final int SEGMENT_SIZE = 1 << 24;
+
+    private final boolean _write;
+    private RandomAccessFile _file;
+    private FileChannel _channel;
+    private long _size; //bytes of data in file
+
+    private MappedByteBuffer _segment = null;
+    private long _segmentStart = -1;
+    private long _pos = 0;
+
+    //typed views of the current segment, created on demand
+    private CharBuffer _chars;
+    private ShortBuffer _shorts;
+    private IntBuffer _ints;
+    private LongBuffer _longs;
+    private FloatBuffer _floats;
+    private DoubleBuffer _doubles;
+
+    private MappedStreamFile(File file, boolean write) throws IOException
+    {
+        _write = write;
+        _file = new RandomAccessFile(file, write ? "rw" : "r");
+        _channel = _file.getChannel();
+
+        if (write)
+            _file.setLength(0);
+
+        _size = _channel.size();
+    }
+
+    static MappedStreamFile openRead(File file) throws IOException
+    {
+        return new MappedStreamFile(file, false);
+    }
+
+    static MappedStreamFile openWrite(File file) throws IOException
+    {
+        return new MappedStreamFile(file, true);
+    }
+
+    /**
+     * @return number of data bytes in the file
+     */
+    long size()
+    {
+        return _size;
+    }
+
+    long position()
+    {
+        return _pos;
+    }
+
+    /**
+     * Moves to a byte position in O(1), the affected segment is mapped on the next access
+     */
+    void seek(long pos)
+    {
+        _pos = Math.max(0, Math.min(pos, _size));
+    }
+
+    /**
+     * Copies numBytes from array (starting at byte srcPosBytes) to the current position
+     */
+    void write(Object array, int srcPosBytes, int numBytes) throws IOException
+    {
+        transfer(array, srcPosBytes, numBytes);
+        _size = Math.max(_size, _pos);
+    }
+
+    /**
+     * Drops everything written from pos on, the bytes are overwritten by the next write or cut off on close
+     */
+    void discard(long pos)
+    {
+        _pos = Math.max(0, Math.min(pos, _size));
+        _size = _pos;
+    }
+
+    /**
+     * Copies up to numBytes from the current position to array (starting at byte dstPosBytes)
+     *
+     * @return number of bytes read, less than numBytes if the end of the file was reached
+     */
+    int read(Object array, int dstPosBytes, int numBytes) throws IOException
+    {
+        numBytes = (int) Math.min(numBytes, _size - _pos);
+        transfer(array, dstPosBytes, numBytes);
+        return numBytes;
+    }
+
+    void close() throws IOException
+    {
+        unmap();
+
+        if (_write)
+        {
+            _channel.force(false);
+            _channel.truncate(_size);
+        }
+
+        _channel.close();
+        _file.close();
+    }
+
+    private void transfer(Object array, int arrayPosBytes, int numBytes) throws IOException
+    {
+        while (numBytes > 0)
+        {
+            long start = _pos - (_pos % SEGMENT_SIZE);
+            if (start != _segmentStart)
+                map(start);
+
+            int offset = (int) (_pos - start);
+            int num = Math.min(numBytes, _segment.capacity() - offset);
+
+            copy(array, arrayPosBytes, offset, num);
+
+            _pos += num;
+            arrayPosBytes += num;
+            numBytes -= num;
+        }
+    }
+
+    private void map(long start) throws IOException
+    {
+        unmap();
+
+        if (_write)
+            _segment = _channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE);
+        else
+            _segment = _channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, _size - start));
+
+        _segment.order(ByteOrder.LITTLE_ENDIAN);
+        _segmentStart = start;
+        clearViews();
+    }
+
+    private void unmap()
+    {
+        //FileChannel.force() does not cover mapped memory
+        if (_segment != null && _write)
+            _segment.force();
+
+        _segment = null;
+        _segmentStart = -1;
+        clearViews();
+    }
+
+    /**
+     * @return buffer to create typed views from, independent of the position of the segment
+     */
+    private ByteBuffer base()
+    {
+        ByteBuffer base = _segment.duplicate();
+        base.clear();
+        base.order(ByteOrder.LITTLE_ENDIAN); //not inherited by duplicates
+        return base;
+    }
+
+    private void clearViews()
+    {
+        _chars = null;
+        _shorts = null;
+        _ints = null;
+        _longs = null;
+        _floats = null;
+        _doubles = null;
+    }
+
+    private void copy(Object array, int arrayPosBytes, int offset, int numBytes)
+    {
+        if (array instanceof byte[])
+        {
+            _segment.position(offset);
+            if (_write) _segment.put((byte[]) array, arrayPosBytes, numBytes);
+            else _segment.get((byte[]) array, arrayPosBytes, numBytes);
+        }
+        else if (array instanceof float[])
+        {
+            if (_floats == null) _floats = base().asFloatBuffer();
+            _floats.position(offset / 4);
+            if (_write) _floats.put((float[]) array, arrayPosBytes / 4, numBytes / 4);
+            else _floats.get((float[]) array, arrayPosBytes / 4, numBytes / 4);
+        }
+        else if (array instanceof short[])
+        {
+            if (_shorts == null) _shorts = base().asShortBuffer();
+            _shorts.position(offset / 2);
+            if (_write) _shorts.put((short[]) array, arrayPosBytes / 2, numBytes / 2);
+            else _shorts.get((short[]) array, arrayPosBytes / 2, numBytes / 2);
+        }
+        else if (array instanceof int[])
+        {
+            if (_ints == null) _ints = base().asIntBuffer();
+            _ints.position(offset / 4);
+            if (_write) _ints.put((int[]) array, arrayPosBytes / 4, numBytes / 4);
+            else _ints.get((int[]) array, arrayPosBytes / 4, numBytes / 4);
+        }
+        else if (array instanceof double[])
+        {
+            if (_doubles == null) _doubles = base().asDoubleBuffer();
+            _doubles.position(offset / 8);
+            if (_write) _doubles.put((double[]) array, arrayPosBytes / 8, numBytes / 8);
+            else _doubles.get((double[]) array, arrayPosBytes / 8, numBytes / 8);
+        }
+        else if (array instanceof long[])
+        {
+            if (_longs == null) _longs = base().asLongBuffer();
+            _longs.position(offset / 8);
+            if (_write) _longs.put((long[]) array, arrayPosBytes / 8, numBytes / 8);
+            else _longs.get((long[]) array, arrayPosBytes / 8, numBytes / 8);
+        }
+        else if (array instanceof char[])
+        {
+            if (_chars == null) _chars = base().asCharBuffer();
+            _chars.position(offset / 2);
+            if (_write) _chars.put((char[]) array, arrayPosBytes / 2, numBytes / 2);
+            else _chars.get((char[]) array, arrayPosBytes / 2, numBytes / 2);
+        }
+        else if (array instanceof boolean[])
+        {
+            boolean[] values = (boolean[]) array;
+            for (int i = 0; i < numBytes; i++)
+            {
+                if (_write) _segment.put(offset + i, values[arrayPosBytes + i] ? (byte) 1 : 0);
+                else values[arrayPosBytes + i] = _segment.get(offset + i) != 0;
+            }
+        }
+        else
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
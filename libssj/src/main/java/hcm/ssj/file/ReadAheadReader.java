@@ -0,0 +1,273 @@
+/*
+ * ReadAheadReader.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Log;
+
+/**
+ * Reads a file in chunks ahead of the consumer on a background thread.
+ * The consumer works on buf between pos and end and calls fill() to move on to the next chunk,
+ * the previous chunk is then handed back to the reader thread.
+ */
+class ReadAheadReader implements Runnable
+{
+    private static final int NUM_BUFFERS = 4;
+
+    private final File _file;
+    private final boolean _loop;
+    private FileInputStream _stream = null;
+    private MappedStreamFile _mapped = null;
+
+    private final ArrayBlockingQueue<ByteBuffer> _free = new ArrayBlockingQueue<>(NUM_BUFFERS);
+    private final ArrayBlockingQueue<ByteBuffer> _full = new ArrayBlockingQueue<>(NUM_BUFFERS);
+
+    private ByteBuffer _current = null;
+    private boolean _eof = false;
+    private volatile boolean _closed = false;
+    private volatile boolean _started = false;
+
+    /** chunk being read by the consumer */
+    byte[] buf = new byte[0];
+    /** next byte to read */
+    int pos = 0;
+    /** end of valid data in buf */
+    int end = 0;
+
+    /**
+     * @param file      file to read
+     * @param mapped    read through a memory mapping instead of a stream
+     * @param loop      start over at the end of the file
+     * @param chunkSize size of a chunk in bytes
+     */
+    ReadAheadReader(File file, boolean mapped, boolean loop, int chunkSize) throws IOException
+    {
+        _file = file;
+        _loop = loop;
+
+        if (mapped)
+            _mapped = MappedStreamFile.openRead(file);
+        else
+            _stream = new FileInputStream(file);
+
+        for (int i = 0; i < NUM_BUFFERS; i++)
+            _free.add(ByteBuffer.allocate(chunkSize));
+    }
+
+    /**
+     * Moves to the next chunk, blocks until it has been read
+     *
+     * @return false if the end of the file has been reached
+     */
+    boolean fill()
+    {
+        if (_current != null)
+        {
+            _free.offer(_current);
+            _current = null;
+        }
+
+        while (!_eof && !_closed)
+        {
+            try
+            {
+                _current = _full.poll(Cons.SLEEP_IN_LOOP, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                return false;
+            }
+
+            if (_current == null)
+                continue;
+
+            if (_current.limit() == 0)
+            {
+                _eof = true;
+                break;
+            }
+
+            buf = _current.array();
+            pos = 0;
+            end = _current.limit();
+            return true;
+        }
+
+        pos = end = 0;
+        return false;
+    }
+
+    @Override
+    public void run()
+    {
+        Thread.currentThread().setName("SSJ_ReadAheadReader");
+        _started = true;
+
+        try
+        {
+            readChunks();
+        }
+        finally
+        {
+            closeFile();
+        }
+    }
+
+    private void readChunks()
+    {
+        byte last = '\n';
+        boolean looped = false;
+
+        while (!_closed)
+        {
+            ByteBuffer chunk;
+            try
+            {
+                chunk = _free.poll(Cons.SLEEP_IN_LOOP, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                break;
+            }
+
+            if (chunk == null)
+                continue;
+
+            int num = read(chunk.array());
+
+            if (num <= 0 && _loop && !looped)
+            {
+                Log.d("end of file reached, looping");
+                rewind();
+                looped = true;
+
+                //make sure the last line of the file is not joined with the first one
+                if (last != '\n')
+                {
+                    chunk.array()[0] = '\n';
+                    num = 1;
+                }
+                else
+                {
+                    num = read(chunk.array());
+                }
+            }
+
+            if (num > 0)
+            {
+                last = chunk.array()[num - 1];
+                looped = false;
+            }
+
+            chunk.clear();
+            chunk.limit(Math.max(num, 0));
+
+            while (!_closed && !_full.offer(chunk))
+            {
+                try
+                {
+                    Thread.sleep(Cons.SLEEP_IN_LOOP);
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+            }
+
+            //an empty chunk marks the end of the file
+            if (num <= 0)
+                break;
+        }
+    }
+
+    private int read(byte[] data)
+    {
+        try
+        {
+            if (_mapped != null)
+                return _mapped.read(data, 0, data.length);
+            else
+                return _stream.read(data, 0, data.length);
+        }
+        catch (IOException e)
+        {
+            Log.e("could not read from file", e);
+            return -1;
+        }
+    }
+
+    private void rewind()
+    {
+        try
+        {
+            if (_mapped != null)
+                _mapped.seek(0);
+            else
+                _stream.getChannel().position(0);
+        }
+        catch (IOException e)
+        {
+            Log.e("could not rewind " + _file.getName(), e);
+        }
+    }
+
+    /**
+     * Stops reading, the file is closed by the reader thread
+     */
+    void close()
+    {
+        _closed = true;
+
+        if (!_started)
+            closeFile();
+    }
+
+    private synchronized void closeFile()
+    {
+        try
+        {
+            if (_mapped != null)
+                _mapped.close();
+            if (_stream != null)
+                _stream.close();
+        }
+        catch (IOException e)
+        {
+            Log.e("could not close " + _file.getName(), e);
+        }
+
+        _mapped = null;
+        _stream = null;
+    }
+}
@@ -26,8 +26,6 @@
 
 package hcm.ssj.file;
 
-import android.util.Xml;
-
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
@@ -35,6 +33,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 
+import hcm.ssj.core.platform.Platform;
+
 /**
  * A generic XML-Parser for one tag and its attributes.<br>
  * Created by Frank Gaibler on 23.09.2015.
@@ -61,7 +61,7 @@ public class SimpleXmlParser
         xmlValues = new XmlValues();
         try
         {
-            XmlPullParser parser = Xml.newPullParser();
+            XmlPullParser parser = Platform.get().newPullParser();
             parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
             parser.setInput(in, null);
             parser.nextTag();
@@ -43,6 +43,8 @@ import hcm.ssj.core.EventHandler;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.SSJApplication;
 import hcm.ssj.core.Util;
+import hcm.ssj.core.event.BinaryEventDecoder;
+import hcm.ssj.core.event.BinaryEventEncoder;
 import hcm.ssj.core.event.Event;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
@@ -60,6 +62,7 @@ public class BluetoothEventReader extends EventHandler
         public final Option<String> serverAddr = new Option<>("serverAddr", null, String.class, "if this is a client");
         public final Option<BluetoothConnection.Type> connectionType = new Option<>("connectionType", BluetoothConnection.Type.SERVER, BluetoothConnection.Type.class, "");
         public final Option<Boolean> parseXmlToEvent = new Option<>("parseXmlToEvent", true, Boolean.class, "attempt to convert the message to an SSJ event format");
+        public final Option<Cons.EventFormat> format = new Option<>("format", Cons.EventFormat.XML, Cons.EventFormat.class, "wire format of the incoming messages, must match that of the sender");
 
         /**
          *
@@ -77,6 +80,7 @@ public class BluetoothEventReader extends EventHandler
     byte[] _buffer;
 
     XmlPullParser _parser;
+    BinaryEventDecoder _decoder = new BinaryEventDecoder();
     PowerManager _mgr;
     PowerManager.WakeLock _wakeLock;
 
@@ -118,7 +122,7 @@ public class BluetoothEventReader extends EventHandler
 
         Log.i("connected to " + dev.getName() + " @ " + dev.getAddress());
 
-        if(!options.parseXmlToEvent.get())
+        if(options.format.get() == Cons.EventFormat.BINARY || !options.parseXmlToEvent.get())
         {
             _buffer = new byte[Cons.MAX_EVENT_SIZE];
         }
@@ -147,7 +151,32 @@ public class BluetoothEventReader extends EventHandler
 
         try
         {
-            if (!options.parseXmlToEvent.get())
+            if (options.format.get() == Cons.EventFormat.BINARY)
+            {
+                //messages are length-prefixed, read header first
+                readFully(_buffer, 0, BinaryEventEncoder.HEADER_SIZE);
+                _wakeLock.acquire();
+
+                int size = BinaryEventDecoder.getMessageSize(_buffer, 0);
+                if (size < 0)
+                {
+                    Log.w("unknown or malformed bluetooth message");
+                    return;
+                }
+
+                if (size > _buffer.length)
+                {
+                    byte[] tmp = new byte[size];
+                    System.arraycopy(_buffer, 0, tmp, 0, BinaryEventEncoder.HEADER_SIZE);
+                    _buffer = tmp;
+                }
+
+                readFully(_buffer, BinaryEventEncoder.HEADER_SIZE, size - BinaryEventEncoder.HEADER_SIZE);
+
+                if (_decoder.decode(_buffer, 0, size, _evchannel_out) < 0)
+                    Log.w("unknown or malformed bluetooth message");
+            }
+            else if (!options.parseXmlToEvent.get())
             {
                 int len = _conn.input().read(_buffer);
                 _wakeLock.acquire();
@@ -210,6 +239,19 @@ public class BluetoothEventReader extends EventHandler
         }
     }
 
+    private void readFully(byte[] buffer, int offset, int len) throws IOException
+    {
+        while (len > 0)
+        {
+            int num = _conn.input().read(buffer, offset, len);
+            if (num < 0)
+                throw new IOException("end of stream");
+
+            offset += num;
+            len -= num;
+        }
+    }
+
     @Override
     public void flush()
     {
@@ -29,18 +29,16 @@ package hcm.ssj.ioput;
 import android.bluetooth.BluetoothDevice;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.UUID;
 
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.EventHandler;
+import hcm.ssj.core.EventQueue;
 import hcm.ssj.core.Log;
-import hcm.ssj.core.Util;
 import hcm.ssj.core.event.Event;
+import hcm.ssj.core.event.EventEncoder;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
-import hcm.ssj.file.LoggingConstants;
 
 /**
  * Created by Johnny on 05.03.2015.
@@ -53,6 +51,10 @@ public class BluetoothEventWriter extends EventHandler
         public final Option<String> serverAddr = new Option<>("serverAddr", null, String.class, "we need an address if this is the first time these two devices connect");
         public final Option<String> connectionName = new Option<>("connectionName", "SSJ", String.class, "must match that of the peer");
         public final Option<BluetoothConnection.Type> connectionType = new Option<>("connectionType", BluetoothConnection.Type.CLIENT, BluetoothConnection.Type.class, "");
+        public final Option<Integer> linger = new Option<>("linger", 0, Integer.class, "max time (in ms) to wait for further events before a message is sent");
+        public final Option<Integer> mtu = new Option<>("mtu", Cons.MAX_EVENT_SIZE, Integer.class, "max size of a message (in bytes), events are combined until it is reached");
+        public final Option<Cons.EventFormat> format = new Option<>("format", Cons.EventFormat.XML, Cons.EventFormat.class, "wire format, the binary format requires an SSJ receiver");
+        public final Option<Integer> queueSize = new Option<>("queueSize", Cons.MAX_NUM_EVENTS_PER_CHANNEL, Integer.class, "max number of events waiting to be sent, the oldest ones are dropped");
 
         /**
          *
@@ -67,9 +69,8 @@ public class BluetoothEventWriter extends EventHandler
     private BluetoothConnection _conn;
 
     private boolean _connected = false;
-    byte[] _buffer;
-    int _evID[];
-    StringBuilder _builder = new StringBuilder();
+    private EventEncoder _encoder;
+    private EventQueue _queue;
 
     public BluetoothEventWriter() {
         _name = "BluetoothEventWriter";
@@ -108,66 +109,56 @@ public class BluetoothEventWriter extends EventHandler
 
         Log.i("connected to " + dev.getName() + " @ " + dev.getAddress());
 
-        _buffer = new byte[Cons.MAX_EVENT_SIZE];
-        _evID = new int[_evchannel_in.size()];
-
+        _encoder = EventEncoder.create(options.format.get());
+        _queue = new EventQueue(options.queueSize.get());
         _connected = true;
     }
 
+    @Override
+    public void notify(Event event)
+    {
+        //events occurring while the connection is down are not sent
+        if (_connected && _conn.isConnected())
+            _queue.add(event);
+    }
+
     @Override
     protected void process()
     {
         if (!_connected || !_conn.isConnected())
+        {
+            super.process();
             return;
+        }
 
-        _builder.delete(0, _builder.length());
-
-        _builder.append("<events ssi-v=\"2\" ssj-v=\"");
-        _builder.append(_frame.getVersion());
-        _builder.append("\">");
+        //block until events arrive and combine them into one message
+        _encoder.clear();
+        _encoder.begin(_frame.getVersion());
 
-        int count = 0;
-        for(int i = 0; i < _evchannel_in.size(); ++i)
-        {
-            Event ev = _evchannel_in.get(i).getEvent(_evID[i], false);
-            if (ev == null)
-                continue;
+        if (_queue.drainTo(_encoder, Cons.SLEEP_IN_LOOP, options.linger.get(), options.mtu.get()) == 0)
+            return;
 
-            _evID[i] = ev.id + 1;
-            count++;
+        _encoder.end();
+        int size = _encoder.encode();
 
-            //build event
-            Util.eventToXML(_builder, ev);
-            _builder.append(LoggingConstants.DELIMITER_LINE);
+        try
+        {
+            _conn.output().write(_encoder.bytes(), 0, size);
+            _conn.output().flush();
+            _conn.notifyDataTranferResult(true);
         }
-
-        if(count > 0)
+        catch (IOException e)
         {
-            _builder.append( "</events>");
-
-            ByteBuffer buf = ByteBuffer.wrap(_buffer);
-            buf.order(ByteOrder.BIG_ENDIAN);
-
-            //store event
-            buf.put(_builder.toString().getBytes());
-
-            try
-            {
-                _conn.output().write(_buffer, 0, buf.position());
-                _conn.output().flush();
-                _conn.notifyDataTranferResult(true);
-            }
-            catch (IOException e)
-            {
-                Log.w("failed sending data", e);
-                _conn.notifyDataTranferResult(false);
-            }
+            Log.w("failed sending data", e);
+            _conn.notifyDataTranferResult(false);
         }
     }
 
     @Override
     public void flush() {
         _connected = false;
+        if (_queue != null)
+            _queue.clear();
 
         try {
             _conn.disconnect();
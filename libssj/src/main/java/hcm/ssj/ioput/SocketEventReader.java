@@ -43,6 +43,7 @@ import hcm.ssj.core.Cons;
 import hcm.ssj.core.EventHandler;
 import hcm.ssj.core.Log;
 import hcm.ssj.core.Util;
+import hcm.ssj.core.event.BinaryEventDecoder;
 import hcm.ssj.core.event.Event;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
@@ -60,6 +61,7 @@ public class SocketEventReader extends EventHandler
         public Option<String> ip = new Option<>("ip", null, String.class, "");
         public Option<Integer> port = new Option<>("port", 0, Integer.class, "");
         public Option<Boolean> parseXmlToEvent = new Option<>("parseXmlToEvent", true, Boolean.class, "attempt to convert the message to an SSJ event format");
+        public Option<Cons.EventFormat> format = new Option<>("format", Cons.EventFormat.XML, Cons.EventFormat.class, "wire format of the incoming messages, must match that of the sender");
 
         /**
          *
@@ -75,6 +77,7 @@ public class SocketEventReader extends EventHandler
     boolean _connected = false;
     byte[] _buffer;
     XmlPullParser _parser;
+    BinaryEventDecoder _decoder = new BinaryEventDecoder();
 
     public SocketEventReader()
     {
@@ -150,9 +153,14 @@ public class SocketEventReader extends EventHandler
             return;
         }
 
-        if(!options.parseXmlToEvent.get())
+        if(options.format.get() == Cons.EventFormat.BINARY)
         {
-            Event ev = Event.create(Cons.Type.STRING);
+            if (_decoder.decode(_buffer, 0, packet.getLength(), _evchannel_out) < 0)
+                Log.w("unknown or malformed socket message");
+        }
+        else if(!options.parseXmlToEvent.get())
+        {
+            Event ev = _evchannel_out.obtainEvent(Cons.Type.STRING);
             ev.setData(new String(_buffer, 0, packet.getLength()));
             _evchannel_out.pushEvent(ev);
         }
@@ -174,7 +182,7 @@ public class SocketEventReader extends EventHandler
                 {
                     if (_parser.getEventType() == XmlPullParser.START_TAG && _parser.getName().equalsIgnoreCase("event"))
                     {
-                        Event ev = Event.create(Cons.Type.STRING);
+                        Event ev = _evchannel_out.obtainEvent(Cons.Type.STRING);
 
                         ev.name = _parser.getAttributeValue(null, "event");
                         ev.sender = _parser.getAttributeValue(null, "sender");
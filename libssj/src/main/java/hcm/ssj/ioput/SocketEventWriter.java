@@ -32,14 +32,13 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.Socket;
-import java.util.Arrays;
 
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.EventHandler;
+import hcm.ssj.core.EventQueue;
 import hcm.ssj.core.Log;
-import hcm.ssj.core.Util;
 import hcm.ssj.core.event.Event;
-import hcm.ssj.file.LoggingConstants;
+import hcm.ssj.core.event.EventEncoder;
 
 /**
  * Created by Johnny on 05.03.2015.
@@ -54,6 +53,12 @@ public class SocketEventWriter extends EventHandler
         public int port = 34300;
         public String ip = "127.0.0.1";
         public int type = SOCKET_TYPE_UDP;
+        /** max time (in ms) to wait for further events before a packet is sent */
+        public int linger = 0;
+        /** max size of a packet (in bytes), events are combined until it is reached */
+        public int mtu = 1400;
+        /** wire format, the binary format requires an SSJ receiver */
+        public Cons.EventFormat format = Cons.EventFormat.XML;
     }
     public Options options = new Options();
 
@@ -62,9 +67,9 @@ public class SocketEventWriter extends EventHandler
     private InetAddress _addr;
     private DataOutputStream _out;
 
-    StringBuilder _builder = new StringBuilder();
-    byte[] _buffer;
-    int _evID[];
+    private EventEncoder _encoder;
+    private EventQueue _queue = new EventQueue();
+    private DatagramPacket _packet;
 
     private boolean _connected = false;
 
@@ -102,71 +107,66 @@ public class SocketEventWriter extends EventHandler
             return;
         }
 
-        _buffer = new byte[Cons.MAX_EVENT_SIZE];
-        _evID = new int[_evchannel_in.size()];
-        Arrays.fill(_evID, 0);
+        _encoder = EventEncoder.create(options.format);
+        _queue.clear();
 
         Log.i("Streaming data to " + _addr.getHostName() +"@"+ options.port +"("+ protocol +")");
         _connected = true;
     }
 
+    @Override
+    public void notify(Event event)
+    {
+        if (_connected)
+            _queue.add(event);
+    }
+
     @Override
     protected void process()
     {
         if (!_connected)
+        {
+            super.process();
             return;
+        }
 
-        _builder.delete(0, _builder.length());
-
-        _builder.append("<events ssi-v=\"2\" ssj-v=\"");
-        _builder.append(_frame.getVersion());
-        _builder.append("\">");
-
-        int count = 0;
-        for(int i = 0; i < _evchannel_in.size(); ++i)
-        {
-            Event ev = _evchannel_in.get(i).getEvent(_evID[i], false);
-            if (ev == null)
-                continue;
+        //block until events arrive and combine them into one packet
+        _encoder.clear();
+        _encoder.begin(_frame.getVersion());
 
-            count++;
-            _evID[i] = ev.id + 1;
+        if (_queue.drainTo(_encoder, Cons.SLEEP_IN_LOOP, options.linger, options.mtu) == 0)
+            return;
 
-            //build event
-            Util.eventToXML(_builder, ev);
-            _builder.append(LoggingConstants.DELIMITER_LINE);
-        }
+        _encoder.end();
+        int size = _encoder.encode();
 
-        if(count > 0)
+        try
         {
-            _builder.append( "</events>");
-            byte[] data;
-            try
-            {
-                switch(options.type) {
-                    case SOCKET_TYPE_UDP:
-                        data = _builder.toString().getBytes();
-                        DatagramPacket pack = new DatagramPacket(data, data.length, _addr, options.port);
-                        _socket_udp.send(pack);
-                        break;
-                    case SOCKET_TYPE_TCP:
-                        data = _builder.toString().getBytes();
-                        _out.write(data);
-                        _out.flush();
-                        break;
-                }
-
-            }
-            catch (IOException e)
-            {
-                Log.w("failed sending data", e);
+            switch(options.type) {
+                case SOCKET_TYPE_UDP:
+                    if (_packet == null)
+                        _packet = new DatagramPacket(_encoder.bytes(), size, _addr, options.port);
+                    else
+                        _packet.setData(_encoder.bytes(), 0, size);
+                    _socket_udp.send(_packet);
+                    break;
+                case SOCKET_TYPE_TCP:
+                    _out.write(_encoder.bytes(), 0, size);
+                    _out.flush();
+                    break;
             }
         }
+        catch (IOException e)
+        {
+            Log.w("failed sending data", e);
+        }
     }
 
     public void flush()
     {
         _connected = false;
+        _queue.clear();
+        _packet = null;
 
         try {
             switch(options.type) {
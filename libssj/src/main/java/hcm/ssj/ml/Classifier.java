@@ -26,8 +26,6 @@
 
 package hcm.ssj.ml;
 
-import android.util.Xml;
-
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
@@ -42,6 +40,7 @@ import hcm.ssj.core.SSJException;
 import hcm.ssj.core.event.Event;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.platform.Platform;
 import hcm.ssj.core.stream.Stream;
 import hcm.ssj.file.LoggingConstants;
 import hcm.ssj.signal.Merge;
@@ -110,7 +109,7 @@ public class Classifier extends Consumer
      */
     public void load(File file) throws XmlPullParserException, IOException
     {
-        XmlPullParser parser = Xml.newPullParser();
+        XmlPullParser parser = Platform.get().newPullParser();
         parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
         parser.setInput(new FileReader(file));
 
@@ -260,14 +259,15 @@ public class Classifier extends Consumer
             Log.i(stringBuilder.toString());
         }
 
-        Event ev = Event.create(Cons.Type.FLOAT);
+        Event ev = _evchannel_out.obtainEvent(Cons.Type.FLOAT);
         ev.sender = options.sender.get();
         ev.name = options.event.get();
         ev.time = (int)(1000 * stream_in[0].time + 0.5);
         double duration = stream_in[0].num / stream_in[0].sr;
         ev.dur = (int)(1000 * duration + 0.5);
         ev.state = Event.State.COMPLETED;
-        ev.setData(probs);
+        ev.adjust(probs.length);
+        System.arraycopy(probs, 0, ev.ptrF(), 0, probs.length);
 
         _evchannel_out.pushEvent(ev);
     }
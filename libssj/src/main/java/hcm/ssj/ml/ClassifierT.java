@@ -26,8 +26,6 @@
 
 package hcm.ssj.ml;
 
-import android.util.Xml;
-
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
@@ -43,6 +41,7 @@ import hcm.ssj.core.Transformer;
 import hcm.ssj.core.Util;
 import hcm.ssj.core.option.Option;
 import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.platform.Platform;
 import hcm.ssj.core.stream.Stream;
 import hcm.ssj.file.LoggingConstants;
 import hcm.ssj.signal.Merge;
@@ -115,7 +114,7 @@ public class ClassifierT extends Transformer
      */
     public void load(File file) throws XmlPullParserException, IOException
     {
-        XmlPullParser parser = Xml.newPullParser();
+        XmlPullParser parser = Platform.get().newPullParser();
         parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
         parser.setInput(new FileReader(file));
 
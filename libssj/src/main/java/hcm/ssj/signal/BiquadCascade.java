@@ -0,0 +1,250 @@
+/*
+ * BiquadCascade.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.signal;
+
+import java.util.Arrays;
+
+import hcm.ssj.core.Pipeline;
+
+/**
+ * Cascade of second-order sections (biquads) applied to all channels of an interleaved signal.
+ * <p>
+ * The coefficients are shared by all channels, so a frame is filtered one section at a time
+ * and within a section one sample at a time for all channels. The filter state is stored
+ * channel-interleaved per section, which turns the innermost loop into a simple pass over
+ * adjacent channels. The arithmetic per sample is the same as in the direct form used by
+ * SSI, so the output does not change.
+ * <p>
+ * Very wide signals can optionally be split into groups of channels which are filtered
+ * in parallel using the pipeline's thread pool.
+ */
+public class BiquadCascade
+{
+	private final int _sections;
+	private final int _dim;
+
+	// per section: a_x2, a_x3, b_x1, b_x2, b_x3
+	private final float[] _a2;
+	private final float[] _a3;
+	private final float[] _b1;
+	private final float[] _b2;
+	private final float[] _b3;
+
+	// per section and channel: last two values of the intermediate signal
+	private final float[] _hist1;
+	private final float[] _hist2;
+
+	private Group[] _groups;
+	private final Object _lock = new Object();
+	private int _pending = 0;
+
+	private float[] _src;
+	private float[] _dst;
+	private int _num;
+
+	/**
+	 * @param sos second-order sections, one row per section in the form [b_1, b_2, b_3, 1, a_2, a_3]
+	 * @param dim number of channels
+	 */
+	public BiquadCascade(FloatMatrix sos, int dim)
+	{
+		_sections = sos.getRows();
+		_dim = dim;
+
+		_a2 = new float[_sections];
+		_a3 = new float[_sections];
+		_b1 = new float[_sections];
+		_b2 = new float[_sections];
+		_b3 = new float[_sections];
+
+		for (int k = 0; k < _sections; k++)
+		{
+			_b1[k] = sos.getData(k, 0);
+			_b2[k] = sos.getData(k, 1);
+			_b3[k] = sos.getData(k, 2);
+			_a2[k] = sos.getData(k, 4);
+			_a3[k] = sos.getData(k, 5);
+		}
+
+		_hist1 = new float[_sections * dim];
+		_hist2 = new float[_sections * dim];
+
+		setGroups(1);
+	}
+
+	/**
+	 * Splits the channels into groups which are filtered in parallel.
+	 * Only worthwhile for very wide signals, as every frame has to be handed over to other threads.
+	 */
+	public void setGroups(int groups)
+	{
+		groups = Math.max(1, Math.min(groups, _dim));
+
+		_groups = new Group[groups];
+		for (int g = 0; g < groups; g++)
+		{
+			_groups[g] = new Group(g * _dim / groups, (g + 1) * _dim / groups);
+		}
+	}
+
+	public int getGroups()
+	{
+		return _groups.length;
+	}
+
+	/**
+	 * Clears the filter state
+	 */
+	public void reset()
+	{
+		Arrays.fill(_hist1, 0);
+		Arrays.fill(_hist2, 0);
+	}
+
+	/**
+	 * Filters num interleaved samples of src into dst, src and dst may be the same array
+	 */
+	public void process(float[] src, float[] dst, int num)
+	{
+		if (_groups.length == 1)
+		{
+			process(src, dst, num, 0, _dim);
+			return;
+		}
+
+		_src = src;
+		_dst = dst;
+		_num = num;
+
+		synchronized (_lock)
+		{
+			_pending = _groups.length - 1;
+		}
+
+		Pipeline frame = Pipeline.getInstance();
+		for (int g = 1; g < _groups.length; g++)
+		{
+			frame.executeRunnable(_groups[g]);
+		}
+
+		process(src, dst, num, _groups[0].from, _groups[0].to);
+
+		synchronized (_lock)
+		{
+			while (_pending > 0)
+			{
+				try
+				{
+					_lock.wait();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+	}
+
+	private void process(float[] src, float[] dst, int num, int from, int to)
+	{
+		final int dim = _dim;
+		final int width = to - from;
+
+		if (src != dst)
+		{
+			for (int i = 0, off = from; i < num; i++, off += dim)
+			{
+				System.arraycopy(src, off, dst, off, width);
+			}
+		}
+
+		final float[] hist1 = _hist1;
+		final float[] hist2 = _hist2;
+
+		for (int k = 0; k < _sections; k++)
+		{
+			final float a2 = _a2[k];
+			final float a3 = _a3[k];
+			final float b1 = _b1[k];
+			final float b2 = _b2[k];
+			final float b3 = _b3[k];
+
+			final int histOff = k * dim;
+
+			for (int i = 0, off = 0; i < num; i++, off += dim)
+			{
+				for (int j = from; j < to; j++)
+				{
+					float h1 = hist1[histOff + j];
+					float h2 = hist2[histOff + j];
+
+					float value = dst[off + j] - h1 * a2;
+					float newHist = value - h2 * a3;
+					value = newHist * b1;
+					value += h1 * b2;
+					value += h2 * b3;
+
+					hist2[histOff + j] = h1;
+					hist1[histOff + j] = newHist;
+					dst[off + j] = value;
+				}
+			}
+		}
+	}
+
+	private class Group implements Runnable
+	{
+		final int from;
+		final int to;
+
+		Group(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				process(_src, _dst, _num, from, to);
+			}
+			finally
+			{
+				synchronized (_lock)
+				{
+					if (--_pending == 0)
+					{
+						_lock.notifyAll();
+					}
+				}
+			}
+		}
+	}
+}
@@ -54,6 +54,7 @@ public class Butfilt extends Transformer
 		public final Option<Double> low = new Option<>("low", 0., Double.class, "Low cutoff frequency given either as normalized value in interval [0..1] or as an absolute value in Hz (see -norm)");
 		public final Option<Double> high = new Option<>("high", 1., Double.class, "High cutoff frequency given either as normalized value in interval [0..1] or as an absolute value in Hz (see -norm)");
 		public final Option<Boolean> zero = new Option<>("zero", true, Boolean.class, "Subtract first sample from signal to avoid artifacts at the beginning of the signal");
+		public final Option<Integer> groups = new Option<>("groups", 1, Integer.class, "Number of channel groups which are filtered in parallel, only worthwhile for very wide streams");
 
 		/**
 		 *
@@ -66,7 +67,7 @@ public class Butfilt extends Transformer
 	public final Options options = new Options();
 
 	IIR _iir;
-	Matrix<Float> _coefficients;
+	FloatMatrix _coefficients;
 	float[] _firstSample;
 
 	boolean _firstCall;
@@ -76,7 +77,7 @@ public class Butfilt extends Transformer
 		_name = "Butfilt";
 	}
 
-	protected Matrix<Float> getCoefficients(double sr)
+	protected FloatMatrix getCoefficients(double sr)
 	{
 		double low = options.norm.get() ? options.low.get() : 2 * options.low.get() / sr;
 		double high = options.norm.get() ? options.high.get() : 2 * options.high.get() / sr;
@@ -84,9 +85,9 @@ public class Butfilt extends Transformer
 		return initCoefficients(options.type.get(), options.order.get(), low, high);
 	}
 
-	protected Matrix<Float> initCoefficients(Type type, int order, double low, double high)
+	protected FloatMatrix initCoefficients(Type type, int order, double low, double high)
 	{
-		Matrix<Float> coefficients = null;
+		FloatMatrix coefficients = null;
 
 		switch (type)
 		{
@@ -111,6 +112,7 @@ public class Butfilt extends Transformer
 
 		_iir = new IIR();
 		_iir.setCoefficients(_coefficients);
+		_iir.options.groups.set(options.groups.get());
 		_iir.enter(stream_in, stream_out);
 
 		_firstCall = true;
@@ -0,0 +1,89 @@
+/*
+ * FFTCache.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.signal;
+
+import org.jtransforms.fft.FloatFFT_1D;
+
+import java.util.HashMap;
+
+/**
+ * Caches FFT plans by size so that transformers working on the same frame size share the
+ * precomputed twiddle tables instead of building their own.
+ * The plans only hold read-only tables and can be used by several threads at once.
+ */
+public class FFTCache
+{
+	private static FFTCache _instance = null;
+
+	private final HashMap<Integer, FloatFFT_1D> _plans = new HashMap<>();
+
+	/**
+	 * Private constructor for singleton pattern.
+	 */
+	private FFTCache()
+	{
+	}
+
+	/**
+	 * Method for accessing the singleton instance.
+	 *
+	 * @return singleton instance
+	 */
+	public static synchronized FFTCache getInstance()
+	{
+		if (_instance == null)
+		{
+			_instance = new FFTCache();
+		}
+
+		return _instance;
+	}
+
+	/**
+	 * @param size number of samples the fft is computed on
+	 * @return fft plan for the given size, created on first request
+	 */
+	public synchronized FloatFFT_1D get(int size)
+	{
+		FloatFFT_1D fft = _plans.get(size);
+		if (fft == null)
+		{
+			fft = new FloatFFT_1D(size);
+			_plans.put(size, fft);
+		}
+
+		return fft;
+	}
+
+	/**
+	 * Drops all cached plans
+	 */
+	public synchronized void clear()
+	{
+		_plans.clear();
+	}
+}
@@ -54,7 +54,7 @@ public class FFTfeat extends Transformer
 		fft_dim = stream_in[0].dim;
 		fft_size = stream_in[0].num;
 
-		fft = new FloatFFT_1D(fft_size);
+		fft = FFTCache.getInstance().get(fft_size);
 		fft_out = new float[fft_dim][];
 		fft_in = new float[fft_dim][];
 
@@ -75,11 +75,11 @@ public class FilterTools
 		return _instance;
 	}
 
-	public Matrix<Float> getLPButter(int order, double cutoff)
+	public FloatMatrix getLPButter(int order, double cutoff)
 	{
 		int sections = (order + 1) / 2;
 
-		Matrix<Float> sos = new Matrix<>(sections, 6);
+		FloatMatrix sos = new FloatMatrix(sections, 6);
 		sos.fillValue(1.0f);
 
 		double freq = cutoff / 2.0;
@@ -105,11 +105,11 @@ public class FilterTools
 		return sos;
 	}
 
-	public Matrix<Float> getHPButter(int order, double cutoff)
+	public FloatMatrix getHPButter(int order, double cutoff)
 	{
 		int sections = (order + 1) / 2;
 
-		Matrix<Float> sos = new Matrix<>(sections, 6);
+		FloatMatrix sos = new FloatMatrix(sections, 6);
 		sos.fillValue(1.0f);
 
 		double freq = cutoff / 2.0;
@@ -146,11 +146,11 @@ public class FilterTools
 		return sos;
 	}
 
-	public Matrix<Float> getBPButter(int order, double lowCutoff, double highCutoff)
+	public FloatMatrix getBPButter(int order, double lowCutoff, double highCutoff)
 	{
 		int sections = (order + 1) / 2;
 
-		Matrix<Float> sos = new Matrix<>(sections, 6);
+		FloatMatrix sos = new FloatMatrix(sections, 6);
 		sos.fillValue(1.0f);
 
 		double lFreq = lowCutoff / 2.0;
@@ -237,10 +237,10 @@ public class FilterTools
 		return poles;
 	}
 
-	Matrix<Float> Filterbank(int size, double sample_rate, Matrix<Float> intervals, WINDOW_TYPE type)
+	FloatMatrix Filterbank(int size, double sample_rate, FloatMatrix intervals, WINDOW_TYPE type)
 	{
 
-		Matrix<Float> filterbank = new Matrix<>(intervals.getRows(), size);
+		FloatMatrix filterbank = new FloatMatrix(intervals.getRows(), size);
 		filterbank.fillValue(0f);
 
 		sample_rate /= 2; // convert sampling to nyquist rate
@@ -256,7 +256,7 @@ public class FilterTools
 			intervalsptr++;
 
 			maxind = Math.min(maxind, size - 1);
-			Matrix<Float> winmat = Window(1 + (maxind - minind), type, MATRIX_DIMENSION.ROW);
+			FloatMatrix winmat = Window(1 + (maxind - minind), type, MATRIX_DIMENSION.ROW);
 			MatrixOps.getInstance().div(winmat, MatrixOps.getInstance().sum(winmat));
 			filterbank.setSubMatrix(i, minind, winmat);
 		}
@@ -264,17 +264,17 @@ public class FilterTools
 		return filterbank;
 	}
 
-	public Matrix<Float> Window(int size, WINDOW_TYPE type, MATRIX_DIMENSION dimension)
+	public FloatMatrix Window(int size, WINDOW_TYPE type, MATRIX_DIMENSION dimension)
 	{
-		Matrix<Float> window;
+		FloatMatrix window;
 
 		if (size < 1)
 		{
-			window = new Matrix<>(0, 0);
+			window = new FloatMatrix(0, 0);
 		}
 		else if (size == 1)
 		{
-			window = new Matrix<>(1, 1);
+			window = new FloatMatrix(1, 1);
 			window.setData(0, 1f);
 		}
 		else
@@ -283,7 +283,7 @@ public class FilterTools
 			{
 				default:
 				case RECTANGLE:
-					window = new Matrix<>(1, size);
+					window = new FloatMatrix(1, size);
 					window.fillValue(1f);
 					break;
 
@@ -0,0 +1,183 @@
+/*
+ * FloatMatrix.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.signal;
+
+import java.util.Arrays;
+
+/**
+ * Row-major matrix of primitive floats.
+ * Unlike Matrix&lt;Float&gt;, reading or writing an element does not box the value and
+ * the backing array can be accessed directly by bulk operations (see MatrixOps).
+ */
+public class FloatMatrix
+{
+	private int rows;
+	private int cols;
+
+	float[] data;
+
+	public FloatMatrix(int rows, int cols)
+	{
+		reset(rows, cols);
+	}
+
+	/**
+	 * Resizes the matrix, the backing array is only reallocated if it is too small.
+	 * The content of the matrix is undefined afterwards.
+	 */
+	public void reset(int rows, int cols)
+	{
+		if (rows < 0 || cols < 0)
+		{
+			rows = 0;
+			cols = 0;
+		}
+
+		this.rows = rows;
+		this.cols = cols;
+
+		if (data == null || data.length < rows * cols)
+		{
+			data = new float[rows * cols];
+		}
+	}
+
+	public FloatMatrix clone()
+	{
+		FloatMatrix ret = new FloatMatrix(rows, cols);
+		System.arraycopy(data, 0, ret.data, 0, getSize());
+
+		return ret;
+	}
+
+	/**
+	 * @return backing array in row-major order, may be larger than getSize()
+	 */
+	public float[] getData()
+	{
+		return data;
+	}
+
+	public float getData(int index)
+	{
+		return data[index];
+	}
+
+	public float getData(int row, int col)
+	{
+		return data[row * cols + col];
+	}
+
+	public void setData(int index, float value)
+	{
+		data[index] = value;
+	}
+
+	public void setData(int row, int col, float value)
+	{
+		data[row * cols + col] = value;
+	}
+
+	public void fillValue(float value)
+	{
+		Arrays.fill(data, 0, getSize(), value);
+	}
+
+	public int getRows()
+	{
+		return rows;
+	}
+
+	public int getCols()
+	{
+		return cols;
+	}
+
+	public int getSize()
+	{
+		return cols * rows;
+	}
+
+	public boolean isEmpty()
+	{
+		return getSize() == 0;
+	}
+
+	public void transpose()
+	{
+		if (isEmpty())
+		{
+			return;
+		}
+
+		if (rows > 1 && cols > 1)
+		{
+			float[] src = Arrays.copyOf(data, getSize());
+
+			int dstptr = 0;
+			for (int i = 0; i < cols; i++)
+			{
+				int srcptr = i;
+				for (int j = 0; j < rows; j++)
+				{
+					data[dstptr++] = src[srcptr];
+					srcptr += cols;
+				}
+			}
+		}
+
+		int tmp = cols;
+		cols = rows;
+		rows = tmp;
+	}
+
+	public void setSubMatrix(int row, int col, FloatMatrix submatrix)
+	{
+		setSubMatrix(row, col, 0, 0, submatrix.getRows(), submatrix.getCols(), submatrix);
+	}
+
+	public void setSubMatrix(int row_dst, int col_dst, int row_src, int col_src, int row_number, int col_number, FloatMatrix src)
+	{
+		if (row_dst + row_number > rows
+				|| col_dst + col_number > cols
+				|| row_src + row_number > src.getRows()
+				|| col_src + col_number > src.getCols())
+			return;
+
+		int srccols = src.getCols();
+		int srcptr = row_src * srccols + col_src;
+		int dstptr = row_dst * cols + col_dst;
+
+		for (int i = 0; i < row_number; i++)
+		{
+			System.arraycopy(src.data, srcptr, data, dstptr, col_number);
+
+			srcptr += srccols;
+			dstptr += cols;
+		}
+	}
+}
@@ -57,33 +57,32 @@ public class MatrixOps
 		return _instance;
 	}
 
-	public Matrix<Float> array (float start, float delta, float end, Matrix.MATRIX_DIMENSION dimension)
+	public FloatMatrix array (float start, float delta, float end, Matrix.MATRIX_DIMENSION dimension)
 	{
 		int steps = (int) (((end - start) / (double)(delta)) + 1.001);
-		Matrix<Float> matrix;
+		FloatMatrix matrix;
 
 		if (steps <= 0) {
-			matrix = new Matrix<> (0,0);
+			matrix = new FloatMatrix (0,0);
 			return matrix;
 		}
 
 		switch (dimension) {
 			case ROW:
-				matrix = new Matrix<> (1, steps);
+				matrix = new FloatMatrix (1, steps);
 				break;
 			case COL:
 			default:
-				matrix = new Matrix<> (steps, 1);
+				matrix = new FloatMatrix (steps, 1);
 				break;
 		}
 
-		int dataptr = 0;
-		matrix.setData(dataptr, start);
+		float[] data = matrix.data;
+		data[0] = start;
 
 		for (int i = 0; i < steps-1; i++)
 		{
-			matrix.setData(dataptr+1, matrix.getData(dataptr) + delta);
-			dataptr++;
+			data[i+1] = data[i] + delta;
 		}
 
 		return matrix;
@@ -104,29 +103,51 @@ public class MatrixOps
 		return result;
 	}
 
-	public void plus (Matrix<Float> matrix, float scalar)
+	public void plus (FloatMatrix matrix, float scalar)
 	{
-		if (matrix.getData().isEmpty()) {
-			return;
+		float[] data = matrix.data;
+		int elems = matrix.getSize();
+
+		for (int i = 0; i < elems; i++) {
+			data[i] += scalar;
 		}
+	}
+
+	public void mult (FloatMatrix matrix, float scalar)
+	{
+		float[] data = matrix.data;
+		int elems = matrix.getSize();
 
-		for (int i = 0; i < matrix.getSize(); i++) {
-			matrix.setData(i, matrix.getData(i) + scalar);
+		for (int i = 0; i < elems; i++) {
+			data[i] *= scalar;
 		}
 	}
 
-	public void mult (Matrix<Float> matrix, float scalar)
+	/**
+	 * Elementwise multiplication, the result is stored in a
+	 */
+	public void mult(FloatMatrix a, FloatMatrix b)
 	{
-		if (matrix.getData().isEmpty()) {
+		if(a.getRows() != b.getRows() || a.getCols() != b.getCols())
+		{
+			Log.w("matrices not matching");
 			return;
 		}
 
-		for (int i = 0; i < matrix.getSize(); i++) {
-			matrix.setData(i, matrix.getData(i) * scalar);
+		float[] adata = a.data;
+		float[] bdata = b.data;
+		int elems = a.getSize();
+
+		for(int i = 0; i < elems; i++)
+		{
+			adata[i] *= bdata[i];
 		}
 	}
 
-	public void mult(Matrix<Float> a, Matrix<Float> b)
+	/**
+	 * Elementwise multiplication, the result is stored in a
+	 */
+	public void mult(DoubleMatrix a, DoubleMatrix b)
 	{
 		if(a.getRows() != b.getRows() || a.getCols() != b.getCols())
 		{
@@ -134,16 +155,20 @@ public class MatrixOps
 			return;
 		}
 
-		if(a.getData().isEmpty())
-			return;
+		double[] adata = a.data;
+		double[] bdata = b.data;
+		int elems = a.getSize();
 
-		for(int i = 0; i < a.getSize(); i++)
+		for(int i = 0; i < elems; i++)
 		{
-			a.setData(i, a.getData(i) * b.getData(i));
+			adata[i] *= bdata[i];
 		}
 	}
 
-	public void multM(Matrix<Float> a, Matrix<Float> b, Matrix<Float> dst)
+	/**
+	 * Matrix multiplication dst = a * b, dst must not be a or b
+	 */
+	public void multM(FloatMatrix a, FloatMatrix b, FloatMatrix dst)
 	{
 		if(a.getCols() != b.getRows() || dst.getRows() != a.getRows() || dst.getCols() != b.getCols())
 		{
@@ -153,89 +178,180 @@ public class MatrixOps
 
 		dst.fillValue(0f);
 
+		float[] adata = a.data;
+		float[] bdata = b.data;
+		float[] dstdata = dst.data;
+
+		int brows = b.getRows();
+		int bcols = b.getCols();
+
 		int aptr = 0;
-		int bptr = 0;
 		int dstptr = 0;
-		int dstptr2 = 0;
 
 		for (int i = 0; i < a.getRows(); i++) {
-			bptr = 0;
-			for (int j = 0; j < b.getRows(); j++) {
-				dstptr2 = dstptr;
-				for (int k = 0; k < b.getCols(); k++) {
-					dst.setData(dstptr2, dst.getData(dstptr2) + b.getData(bptr) * a.getData(aptr));
-					bptr++;
-					dstptr2++;
+			int bptr = 0;
+			for (int j = 0; j < brows; j++) {
+				float aval = adata[aptr++];
+				for (int k = 0; k < bcols; k++) {
+					dstdata[dstptr + k] += bdata[bptr++] * aval;
 				}
-				aptr++;
 			}
-			dstptr = dstptr2;
+			dstptr += bcols;
 		}
 	}
 
-	public void div(Matrix<Float> a, Matrix<Float> b)
+	/**
+	 * Matrix multiplication dst = a * b, dst must not be a or b
+	 */
+	public void multM(DoubleMatrix a, DoubleMatrix b, DoubleMatrix dst)
 	{
-		if(a.getRows() != b.getRows() || a.getCols() != b.getCols())
+		if(a.getCols() != b.getRows() || dst.getRows() != a.getRows() || dst.getCols() != b.getCols())
 		{
 			Log.w("matrices not matching");
 			return;
 		}
 
-		if(a.getData().isEmpty())
+		dst.fillValue(0);
+
+		double[] adata = a.data;
+		double[] bdata = b.data;
+		double[] dstdata = dst.data;
+
+		int brows = b.getRows();
+		int bcols = b.getCols();
+
+		int aptr = 0;
+		int dstptr = 0;
+
+		for (int i = 0; i < a.getRows(); i++) {
+			int bptr = 0;
+			for (int j = 0; j < brows; j++) {
+				double aval = adata[aptr++];
+				for (int k = 0; k < bcols; k++) {
+					dstdata[dstptr + k] += bdata[bptr++] * aval;
+				}
+			}
+			dstptr += bcols;
+		}
+	}
+
+	/**
+	 * Matrix-vector multiplication dst = a * vec, vec and dst are treated as vectors
+	 * regardless of their orientation, dst must not be vec
+	 */
+	public void multV(FloatMatrix a, FloatMatrix vec, FloatMatrix dst)
+	{
+		if(a.getCols() != vec.getSize() || a.getRows() != dst.getSize())
+		{
+			Log.w("matrices not matching");
 			return;
+		}
 
-		int elements = a.getRows() * a.getCols();
-		for(int i = 0; i < elements; i++)
+		float[] adata = a.data;
+		float[] vdata = vec.data;
+		float[] dstdata = dst.data;
+
+		int rows = a.getRows();
+		int cols = a.getCols();
+		int aptr = 0;
+
+		for (int i = 0; i < rows; i++) {
+			float sum = 0;
+			for (int j = 0; j < cols; j++) {
+				sum += adata[aptr++] * vdata[j];
+			}
+			dstdata[i] = sum;
+		}
+	}
+
+	/**
+	 * Matrix-vector multiplication dst = a * vec, vec and dst are treated as vectors
+	 * regardless of their orientation, dst must not be vec
+	 */
+	public void multV(DoubleMatrix a, DoubleMatrix vec, DoubleMatrix dst)
+	{
+		if(a.getCols() != vec.getSize() || a.getRows() != dst.getSize())
 		{
-			a.setData(i, a.getData(i) / b.getData(i));
+			Log.w("matrices not matching");
+			return;
+		}
+
+		double[] adata = a.data;
+		double[] vdata = vec.data;
+		double[] dstdata = dst.data;
+
+		int rows = a.getRows();
+		int cols = a.getCols();
+		int aptr = 0;
+
+		for (int i = 0; i < rows; i++) {
+			double sum = 0;
+			for (int j = 0; j < cols; j++) {
+				sum += adata[aptr++] * vdata[j];
+			}
+			dstdata[i] = sum;
 		}
 	}
 
-	public void div (Matrix<Float> matrix, float scalar)
+	public void div(FloatMatrix a, FloatMatrix b)
 	{
-		if (matrix.getData().isEmpty()) {
+		if(a.getRows() != b.getRows() || a.getCols() != b.getCols())
+		{
+			Log.w("matrices not matching");
 			return;
 		}
 
-		int elems  = matrix.getRows() * matrix.getCols();
+		float[] adata = a.data;
+		float[] bdata = b.data;
+		int elems = a.getSize();
+
+		for(int i = 0; i < elems; i++)
+		{
+			adata[i] /= bdata[i];
+		}
+	}
+
+	public void div (FloatMatrix matrix, float scalar)
+	{
+		float[] data = matrix.data;
+		int elems = matrix.getSize();
 
 		for (int i = 0; i < elems; i++) {
-			matrix.setData(i, matrix.getData(i) / scalar);
+			data[i] /= scalar;
 		}
 	}
 
-	public float sum(Matrix<Float> matrix)
+	public float sum(FloatMatrix matrix)
 	{
 		float sum = 0;
-		int elems = matrix.getRows() * matrix.getCols();
+		float[] data = matrix.data;
+		int elems = matrix.getSize();
 
 		for (int i = 0; i < elems; i++) {
-			sum += matrix.getData(i);
+			sum += data[i];
 		}
 
 		return sum;
 	}
 
-	public void cos (Matrix<Float> matrix)
+	public void cos (FloatMatrix matrix)
 	{
-		if (matrix.getData().isEmpty()) {
-			return;
-		}
+		float[] data = matrix.data;
+		int elems = matrix.getSize();
 
-		for (int i = 0; i < matrix.getSize(); i++) {
-			matrix.setData(i, (float)Math.cos(matrix.getData(i)));
+		for (int i = 0; i < elems; i++) {
+			data[i] = (float)Math.cos(data[i]);
 		}
 	}
 
-	public void log10 (Matrix<Float> matrix)
+	public void log10 (FloatMatrix matrix)
 	{
-		if (matrix.getData().isEmpty()) {
-			return;
-		}
+		float[] data = matrix.data;
+		int elems = matrix.getSize();
 
-		for (int i = 0; i < matrix.getSize(); i++) {
-			float val = matrix.getData(i);
-			matrix.setData(i, (val <= 0) ? 0 : (float)Math.log10(val));
+		for (int i = 0; i < elems; i++) {
+			float val = data[i];
+			data[i] = (val <= 0) ? 0 : (float)Math.log10(val);
 		}
 	}
 }
@@ -50,6 +50,7 @@ public class PSD extends Transformer
         public final Option<String[]> outputClass = new Option<>("outputClass", null, String[].class, "Describes the output names for every dimension in e.g. a graph");
         public final Option<Boolean> entropy = new Option<>("entropy", false, Boolean.class, "Calculate entropy instead of PSD");
         public final Option<Boolean> normalize = new Option<>("normalize", false, Boolean.class, "Normalize PSD");
+        public final Option<Boolean> spectrum = new Option<>("spectrum", false, Boolean.class, "Input is the output of a Spectrum transformer instead of a signal, the FFT is not recomputed");
 
         /**
          *
@@ -64,6 +65,8 @@ public class PSD extends Transformer
     //helper variables
     private FloatFFT_1D fft;
     private float[] copy, psd;
+    private boolean spectrumPower = false;
+    private int bins = 0;
 
     /**
      *
@@ -80,11 +83,22 @@ public class PSD extends Transformer
     @Override
     public void enter(Stream[] stream_in, Stream stream_out)
     {
+        if (options.spectrum.get())
+        {
+            if (stream_in.length != 1 || stream_in[0].num != 1)
+            {
+                Log.e("invalid input stream");
+            }
+            Spectrum spectrum = Spectrum.check(stream_in[0], stream_in[0].dim, 1);
+            spectrumPower = spectrum != null && spectrum.options.power.get();
+            psd = new float[stream_in[0].dim];
+            return;
+        }
         if (stream_in.length != 1 || stream_in[0].dim != 1 || stream_in[0].type != Cons.Type.FLOAT)
         {
             Log.e("invalid input stream");
         }
-        fft = new FloatFFT_1D(stream_in[0].num);
+        fft = FFTCache.getInstance().get(stream_in[0].num);
         copy = new float[stream_in[0].num];
         psd = new float[stream_in[0].num / 2 + 1];
     }
@@ -112,18 +126,29 @@ public class PSD extends Transformer
         int rfft = psd.length;
         float[] ptr_in = stream_in[0].ptrF(), ptr_out = stream_out.ptrF();
         float fde = 0;
-        // Copy data for FFT
-        System.arraycopy(ptr_in, 0, copy, 0, stream_in[0].num);
-        // 1. Calculate FFT
-        fft.realForward(copy);
-        // Format values like in SSI
-        joinFFT(copy);
+        if (options.spectrum.get())
+        {
+            // 1. Take FFT magnitudes from spectrum, ordered as joinFFT does
+            sortSpectrum(ptr_in);
+        }
+        else
+        {
+            // Copy data for FFT
+            System.arraycopy(ptr_in, 0, copy, 0, stream_in[0].num);
+            // 1. Calculate FFT
+            fft.realForward(copy);
+            // Format values like in SSI
+            joinFFT(copy);
+        }
         if (rfft > 0)
         {
             // 2. Calculate Power Spectral Density
-            for (int i = 0; i < rfft; i++)
+            if (!spectrumPower)
             {
-                psd[i] = (float) Math.pow(psd[i], 2) / (float) (rfft);
+                for (int i = 0; i < rfft; i++)
+                {
+                    psd[i] = (float) Math.pow(psd[i], 2) / (float) (rfft);
+                }
             }
             if (options.entropy.get() || options.normalize.get())
             {
@@ -201,6 +226,23 @@ public class PSD extends Transformer
         }
     }
 
+    /**
+     * Helper function to order the bins of a Spectrum like joinFFT does
+     * (dc, nyquist, then the remaining bins)
+     *
+     * @param spectrum float[]
+     */
+    private void sortSpectrum(float[] spectrum)
+    {
+        int rfft = psd.length;
+        psd[0] = spectrum[0];
+        if (rfft > 1)
+        {
+            psd[1] = spectrum[rfft - 1];
+            System.arraycopy(spectrum, 1, psd, 2, rfft - 2);
+        }
+    }
+
     /**
      * @param stream_in Stream[]
      * @return int
@@ -208,6 +250,7 @@ public class PSD extends Transformer
     @Override
     public int getSampleDimension(Stream[] stream_in)
     {
+        bins = stream_in[0].dim;
         return 1;
     }
 
@@ -241,6 +284,9 @@ public class PSD extends Transformer
         if (options.entropy.get())
         {
             return 1;
+        } else if (options.spectrum.get())
+        {
+            return bins;
         } else
         {
             return sampleNumber_in / 2 + 1;
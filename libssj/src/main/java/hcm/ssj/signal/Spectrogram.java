@@ -62,6 +62,7 @@ public class Spectrogram extends Transformer
 		public final Option<Boolean> dolog = new Option<> ("dolog", true, Boolean.class, "apply logarithm");
 		public final Option<Boolean> dopower = new Option<>("dopower", false, Boolean.class, "compute the PSD for every bank");
 		public final Option<String> banks = new Option<>("banks", "0.040 0.150, 0.150 0.400", String.class, "string with filter banks that gets applied if no file was set (example: \"0.003 0.040\n0.040 0.150\n0.150 0.400\").");
+		public final Option<Boolean> spectrum = new Option<>("spectrum", false, Boolean.class, "input is the output of a Spectrum transformer with nfft = 2 * (nfft - 1) instead of a signal, the fft is not recomputed");
 		/**
 		 *
 		 */
@@ -77,33 +78,52 @@ public class Spectrogram extends Transformer
 	private int _rfft;
 	private FilterTools.WINDOW_TYPE _win_type = FilterTools.WINDOW_TYPE.HAMMING;
 	private int _win_size = 0;
-	private Matrix<Float> _filterbank = null;
+	private FloatMatrix _filterbank = null;
 	private FloatFFT_1D _fft = null;
-	private Matrix<Float> _fftmag = null;
-	private Matrix<Float> _window = null;
+	private FloatMatrix _fftmag = null;
+	private FloatMatrix _window = null;
 	private boolean _apply_log = false;
+	private boolean _spectrum_power = false;
 
-	Matrix<Float> _matrix_in;
-	Matrix<Float> _matrix_out;
+	FloatMatrix _matrix_in;
+	FloatMatrix _matrix_out;
 	float _data_in[];
 	float _data_out[];
 
 	@Override
 	public void enter(Stream[] stream_in, Stream stream_out)
 	{
+		//the filter banks refer to the sample rate of the signal, not of the spectrum
+		double sr = stream_in[0].sr;
+		if (options.spectrum.get() && stream_in[0].source instanceof Spectrum)
+			sr = ((Spectrum) stream_in[0].source).getInputSampleRate();
+
 		if (_filterbank == null) {
 			if(options.banks.get() != null){
-				readFilterbank(options.banks.get(), stream_in[0].sr);
+				readFilterbank(options.banks.get(), sr);
 			}
 			else
 				Log.e("frequency banks not set");
 		}
 
-		if(stream_in[0].num > options.nfft.get())
+		_spectrum_power = false;
+		if (options.spectrum.get())
+		{
+			Spectrum spectrum = Spectrum.check(stream_in[0], _rfft, 1);
+			if (spectrum != null)
+			{
+				_spectrum_power = spectrum.options.power.get();
+				if (_spectrum_power && !options.dopower.get())
+					Log.e("spectrum provides power, magnitudes required");
+				if (spectrum.options.wintype.get() != _win_type)
+					Log.w("spectrum uses window " + spectrum.options.wintype.get() + " instead of " + _win_type);
+			}
+		}
+		else if(stream_in[0].num > options.nfft.get())
 			Log.w("nfft too small ("+options.nfft.get()+") for input stream (num="+stream_in[0].num+"), extra samples will get ignored");
 
-		_matrix_in = new Matrix<>(stream_in[0].num, 1);
-		_matrix_out = new Matrix<>(1, _filterbank.getCols());
+		_matrix_in = new FloatMatrix(stream_in[0].num, 1);
+		_matrix_out = new FloatMatrix(1, _filterbank.getRows());
 		_data_in = new float[_fft_size];
 		Arrays.fill(_data_in, 0);
 		_data_out = new float[_rfft];
@@ -112,17 +132,45 @@ public class Spectrogram extends Transformer
 	@Override
 	public void transform(Stream[] stream_in, Stream stream_out)
 	{
-		for(int i = 0; i < stream_in[0].num; i++)
+		float[] spectrum = options.spectrum.get() ? stream_in[0].ptrF() : computeSpectrum(stream_in[0]);
+
+		float[] fftmag = _fftmag.getData();
+		if (options.dopower.get() && !_spectrum_power)
 		{
-			switch (stream_in[0].type)
-			{
-				case FLOAT:
-					_matrix_in.setData(i, stream_in[0].ptrF()[i]);
-					break;
-				case DOUBLE:
-					_matrix_in.setData(i, (float)stream_in[0].ptrD()[i]);
-					break;
-			}
+			for (int i = 0; i < _rfft; ++i)
+				fftmag[i] = (float) Math.pow(spectrum[i], 2) / _rfft;
+		}
+		else
+		{
+			System.arraycopy(spectrum, 0, fftmag, 0, _rfft);
+		}
+
+		MatrixOps.getInstance().multV (_filterbank, _fftmag, _matrix_out);
+
+		//compute log
+		if (_apply_log) {
+			MatrixOps.getInstance().log10 (_matrix_out);
+		}
+
+		System.arraycopy(_matrix_out.getData(), 0, stream_out.ptrF(), 0, _matrix_out.getSize());
+	}
+
+	/**
+	 * @return fft magnitudes of the windowed input signal
+	 */
+	private float[] computeSpectrum(Stream stream_in)
+	{
+		float[] data_in = _matrix_in.getData();
+		switch (stream_in.type)
+		{
+			case FLOAT:
+				System.arraycopy(stream_in.ptrF(), 0, data_in, 0, stream_in.num);
+				break;
+			case DOUBLE:
+				double[] ptr = stream_in.ptrD();
+				for(int i = 0; i < stream_in.num; i++)
+					data_in[i] = (float)ptr[i];
+				break;
 		}
 
 		//apply window
@@ -138,10 +186,9 @@ public class Spectrogram extends Transformer
 
 		//copy data from matrix for fft
 		//if nfft to large, fill with zeroes
-		for(int i = 0; i < _data_in.length && i < _matrix_in.getSize(); i++)
-			_data_in[i] = _matrix_in.getData(i);
-		for(int i = _matrix_in.getSize(); i < _data_in.length; i++)
-			_data_in[i] = 0;
+		int len = Math.min(_data_in.length, _matrix_in.getSize());
+		System.arraycopy(data_in, 0, _data_in, 0, len);
+		Arrays.fill(_data_in, len, _data_in.length, 0);
 
 		// Calculate FFT
 		_fft.realForward(_data_in);
@@ -149,24 +196,7 @@ public class Spectrogram extends Transformer
 		// Format values like in SSI
 		Util.joinFFT(_data_in, _data_out);
 
-		for (int i = 0; i < _data_out.length; ++i)
-		{
-			if (options.dopower.get())
-				_data_out[i] = (float) Math.pow(_data_out[i], 2) / _data_out.length;
-
-			_fftmag.setData(i, _data_out[i]);
-		}
-
-		MatrixOps.getInstance().multM (_fftmag, _filterbank, _matrix_out);
-
-		//compute log
-		if (_apply_log) {
-			MatrixOps.getInstance().log10 (_matrix_out);
-		}
-
-		float output[] = stream_out.ptrF();
-		for(int i = 0; i < _matrix_out.getSize(); i++)
-			output[i] = _matrix_out.getData(i);
+		return _data_out;
 	}
 
 	@Override
@@ -178,7 +208,7 @@ public class Spectrogram extends Transformer
 	private void readFilterbank (String string, double sr)
 	{
 		int n_banks = 0;
-		Matrix<Float> intervals;
+		FloatMatrix intervals;
 
 		String[] banks = string.split("\\s*,\\s*");
 		n_banks = banks.length;
@@ -187,7 +217,7 @@ public class Spectrogram extends Transformer
 			Log.e("#banks ("+n_banks+") in string '"+string+"' differs from #banks ("+options.nbanks+") in options");
 		}
 
-		intervals = new Matrix<>(n_banks, 2);
+		intervals = new FloatMatrix(n_banks, 2);
 		int current_bank = 0;
 
 		for (String bank : banks){
@@ -197,11 +227,11 @@ public class Spectrogram extends Transformer
 			current_bank++;
 		}
 
-		Matrix<Float> filterbank = FilterTools.getInstance().Filterbank(options.nfft.get(), sr, intervals, options.wintype.get());
+		FloatMatrix filterbank = FilterTools.getInstance().Filterbank(options.nfft.get(), sr, intervals, options.wintype.get());
 		setFilterbank(filterbank, options.wintype.get(), options.dolog.get());
 	}
 
-	private void setFilterbank (Matrix<Float> filterbank,	FilterTools.WINDOW_TYPE win_type, boolean apply_log)
+	private void setFilterbank (FloatMatrix filterbank,	FilterTools.WINDOW_TYPE win_type, boolean apply_log)
 	{
 		_fft = null;
 		_fftmag = null;
@@ -212,21 +242,21 @@ public class Spectrogram extends Transformer
 		_win_type = win_type;
 		_apply_log = apply_log;
 
+		// kept as nbanks x rfft, every bank is a contiguous row for the matrix-vector product
 		_filterbank = filterbank;
-		_filterbank.transpose();
 
-		_fft = new FloatFFT_1D (_fft_size);
-		_fftmag = new Matrix<> (1, _rfft);
+		_fft = FFTCache.getInstance().get(_fft_size);
+		_fftmag = new FloatMatrix (1, _rfft);
 	}
 
 	@Override
 	public int getSampleDimension(Stream[] stream_in)
 	{
-		if(stream_in[0].dim > 1)
+		if(!options.spectrum.get() && stream_in[0].dim > 1)
 			Log.e("dimension > 1 not supported");
 
 		if (_filterbank != null) {
-			return _filterbank.getCols();
+			return _filterbank.getRows();
 		} else {
 			return options.nbanks.get();
 		}
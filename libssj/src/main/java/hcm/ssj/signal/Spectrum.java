@@ -0,0 +1,250 @@
+/*
+ * Spectrum.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.signal;
+
+import org.jtransforms.fft.FloatFFT_1D;
+
+import java.util.Arrays;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.Transformer;
+import hcm.ssj.core.Util;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+import static hcm.ssj.signal.FilterTools.WINDOW_TYPE;
+import static hcm.ssj.signal.Matrix.MATRIX_DIMENSION;
+
+/**
+ * Shared spectral front-end: computes the (windowed) real fft of every input dimension once
+ * per frame and outputs the magnitude or power of the nfft / 2 + 1 bins.
+ * The output has a single sample with the bins of all dimensions interleaved (bin-major),
+ * the same layout FFTfeat produces.
+ * <p>
+ * Spectral transformers (Spectrogram, PSD, AccelerationFeatures) can consume this stream instead
+ * of computing their own fft (see their "spectrum" option), several of them can then be connected
+ * to the same Spectrum with the same frame and delta.
+ */
+public class Spectrum extends Transformer
+{
+	public class Options extends OptionList
+	{
+		public final Option<Integer> nfft = new Option<>("nfft", 0, Integer.class, "#fft coefficients, input is zero-padded or cut to this size (0 = frame size)");
+		public final Option<WINDOW_TYPE> wintype = new Option<>("wintype", WINDOW_TYPE.RECTANGLE, WINDOW_TYPE.class, "window type");
+		public final Option<Boolean> power = new Option<>("power", false, Boolean.class, "output power (magnitude^2 / #bins) instead of magnitude");
+
+		/**
+		 *
+		 */
+		private Options()
+		{
+			addOptions();
+		}
+	}
+
+	public final Options options = new Options();
+
+	private int _fft_size = 0;
+	private int _bins = 0;
+	private double _sr_in = 0;
+	private FloatFFT_1D _fft = null;
+	private FloatMatrix _frame_in = null;
+	private FloatMatrix _window = null;
+	private float[] _data_in = null;
+	private float[] _data_out = null;
+
+	public Spectrum()
+	{
+		_name = "Spectrum";
+	}
+
+	@Override
+	public void enter(Stream[] stream_in, Stream stream_out)
+	{
+		_fft_size = getFFTSize(stream_in[0].num);
+		if (_fft_size % 2 != 0)
+			Log.w("odd nfft (" + _fft_size + ") not supported");
+
+		if (stream_in[0].num > _fft_size)
+			Log.w("nfft too small (" + _fft_size + ") for input stream (num=" + stream_in[0].num + "), extra samples will get ignored");
+
+		_fft = FFTCache.getInstance().get(_fft_size);
+		_frame_in = new FloatMatrix(stream_in[0].num, 1);
+		_data_in = new float[_fft_size];
+		_data_out = new float[_bins];
+
+		_window = null;
+		if (options.wintype.get() != WINDOW_TYPE.RECTANGLE)
+			_window = FilterTools.getInstance().Window(stream_in[0].num, options.wintype.get(), MATRIX_DIMENSION.COL);
+	}
+
+	@Override
+	public void transform(Stream[] stream_in, Stream stream_out)
+	{
+		int dim = stream_in[0].dim;
+		int num = stream_in[0].num;
+		int len = Math.min(num, _fft_size);
+		boolean power = options.power.get();
+
+		float[] frame = _frame_in.getData();
+		float[] out = stream_out.ptrF();
+
+		for (int d = 0; d < dim; d++)
+		{
+			switch (stream_in[0].type)
+			{
+				case FLOAT:
+				{
+					float[] ptr = stream_in[0].ptrF();
+					for (int i = 0, j = d; i < num; i++, j += dim)
+						frame[i] = ptr[j];
+					break;
+				}
+				case DOUBLE:
+				{
+					double[] ptr = stream_in[0].ptrD();
+					for (int i = 0, j = d; i < num; i++, j += dim)
+						frame[i] = (float) ptr[j];
+					break;
+				}
+			}
+
+			if (_window != null)
+				MatrixOps.getInstance().mult(_frame_in, _window);
+
+			System.arraycopy(frame, 0, _data_in, 0, len);
+			Arrays.fill(_data_in, len, _fft_size, 0);
+
+			_fft.realForward(_data_in);
+
+			// Format values like in SSI
+			Util.joinFFT(_data_in, _data_out);
+
+			for (int i = 0, j = d; i < _bins; i++, j += dim)
+			{
+				out[j] = power ? (float) Math.pow(_data_out[i], 2) / _bins : _data_out[i];
+			}
+		}
+	}
+
+	/**
+	 * @return number of samples the fft is computed on for the given frame size
+	 */
+	private int getFFTSize(int num)
+	{
+		return (options.nfft.get() > 0) ? options.nfft.get() : num;
+	}
+
+	/**
+	 * @return number of bins per input dimension (nfft / 2 + 1)
+	 */
+	public int getBins()
+	{
+		return _bins;
+	}
+
+	/**
+	 * @return sample rate of the signal the spectrum is computed on
+	 */
+	public double getInputSampleRate()
+	{
+		return _sr_in;
+	}
+
+	@Override
+	public int getSampleDimension(Stream[] stream_in)
+	{
+		_sr_in = stream_in[0].sr;
+		_bins = (getFFTSize(stream_in[0].num) >> 1) + 1;
+		return stream_in[0].dim * _bins;
+	}
+
+	@Override
+	public int getSampleBytes(Stream[] stream_in)
+	{
+		return Util.sizeOf(Cons.Type.FLOAT);
+	}
+
+	@Override
+	public Cons.Type getSampleType(Stream[] stream_in)
+	{
+		if (stream_in[0].type != Cons.Type.FLOAT && stream_in[0].type != Cons.Type.DOUBLE)
+			Log.e("input stream type not supported");
+
+		return Cons.Type.FLOAT;
+	}
+
+	@Override
+	public int getSampleNumber(int sampleNumber_in)
+	{
+		return 1;
+	}
+
+	@Override
+	protected void defineOutputClasses(Stream[] stream_in, Stream stream_out)
+	{
+		int dim = stream_in[0].dim;
+
+		stream_out.dataclass = new String[stream_out.dim];
+		for (int i = 0; i < _bins; i++)
+		{
+			for (int d = 0; d < dim; d++)
+			{
+				String name = (stream_in[0].dataclass != null && d < stream_in[0].dataclass.length) ? stream_in[0].dataclass[d] : "dim" + d;
+				stream_out.dataclass[i * dim + d] = name + "_bin" + i;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a stream was produced by a Spectrum with the expected layout
+	 *
+	 * @param stream input stream of a spectral transformer
+	 * @param bins expected number of bins per dimension
+	 * @param dim expected number of dimensions
+	 * @return the producing Spectrum or null if the stream does not match
+	 */
+	public static Spectrum check(Stream stream, int bins, int dim)
+	{
+		if (!(stream.source instanceof Spectrum))
+		{
+			Log.e("input is not a spectrum");
+			return null;
+		}
+
+		Spectrum spectrum = (Spectrum) stream.source;
+		if (spectrum.getBins() != bins || stream.dim != bins * dim)
+		{
+			Log.e("spectrum has " + spectrum.getBins() + " bins, expected " + bins + " with " + dim + " dimension(s)");
+			return null;
+		}
+
+		return spectrum;
+	}
+}
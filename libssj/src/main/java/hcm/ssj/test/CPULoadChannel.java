@@ -26,9 +26,8 @@
 
 package hcm.ssj.test;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.File;
+import java.io.RandomAccessFile;
 
 import hcm.ssj.core.Cons;
 import hcm.ssj.core.Log;
@@ -40,7 +39,8 @@ import hcm.ssj.core.option.OptionList;
 import hcm.ssj.core.stream.Stream;
 
 /**
- * Audio Sensor - get data from audio interface and forwards it
+ * Provides the cpu load (in % of one core) of a process, read from its stat file in the proc file system.
+ * See TelemetryChannel for a more detailed profile of the own process.
  * Created by Johnny on 05.03.2015.
  */
 public class CPULoadChannel extends SensorChannel
@@ -60,7 +60,10 @@ public class CPULoadChannel extends SensorChannel
     }
     public final Options options = new Options();
 
-    private String cmd;
+    private final ProcReader reader = new ProcReader();
+    private RandomAccessFile stat;
+    private long lastTicks;
+    private long lastTime;
 
     public CPULoadChannel()
     {
@@ -71,58 +74,70 @@ public class CPULoadChannel extends SensorChannel
     @Override
     public void enter(Stream stream_out)
     {
-        //set delay to be < frame window since top is blocking
-        cmd = "top -n 1 -m 10 -d " + (1.0 / options.sampleRate.get()) * 0.9;
+        String pid = findProcess(options.packagename.get());
+        stat = (pid != null) ? ProcReader.open("/proc/" + pid + "/stat") : null;
+        if (stat == null)
+            Log.w("cannot access process " + options.packagename.get());
+
+        lastTicks = reader.read(stat) ? reader.parseStatTicks() : 0;
+        lastTime = System.nanoTime();
     }
 
     @Override
     protected boolean process(Stream stream_out)
     {
-        stream_out.ptrF()[0] = getCPULoad(cmd, options.packagename.get());
+        stream_out.ptrF()[0] = getCPULoad();
         return true;
     }
 
-    private float getCPULoad(String cmd, String packagename)
+    private float getCPULoad()
     {
-        try {
-            Process proc = Runtime.getRuntime().exec(cmd);
-
-            BufferedReader read = new BufferedReader(new InputStreamReader(proc.getInputStream()));
-            int cpuid = 0;
-            String line;
-            while ((line = read.readLine()) != null) {
-                if (line.length() == 0 || line.startsWith("User"))
-                    continue;
-
-                line = line.trim();
-                if(line.startsWith("PID"))
-                {
-                    //compute index of CPU load
-                    String elems[] = line.split("\\s+");
-                    for(int i = 0; i< elems.length; i++)
-                    {
-                        if(elems[i].contains("CPU")) {
-                            cpuid = i;
-                            break;
-                        }
-                    }
-                }
-                else if (line.contains(packagename)) {
-                    String elems[] = line.split("\\s+");
-                    return Float.parseFloat(elems[cpuid].replace("%", ""));
-                }
-            }
-        }
-        catch(IOException e)
+        long time = System.nanoTime();
+        long ticks = reader.read(stat) ? reader.parseStatTicks() : -1;
+        if (ticks < 0)
+            return 0;
+
+        float load = (float) ((ticks - lastTicks) * (1e9 / ProcReader.CLOCK_TICKS) / Math.max(1, time - lastTime) * 100);
+        lastTicks = ticks;
+        lastTime = time;
+
+        return load;
+    }
+
+    /**
+     * @return the pid of the process (as directory name in /proc), null if it cannot be found
+     */
+    private String findProcess(String packagename)
+    {
+        if (SSJApplication.getAppContext() != null && packagename.equals(SSJApplication.getAppContext().getPackageName()))
+            return "self";
+
+        String[] pids = new File("/proc").list();
+        if (pids == null)
+            return null;
+
+        for (String pid : pids)
         {
-            Log.w("error executing top cmd", e);
+            if (pid.isEmpty() || !Character.isDigit(pid.charAt(0)))
+                continue;
+
+            //the command line of android apps is their package name, arguments are separated by zeroes
+            RandomAccessFile file = ProcReader.open("/proc/" + pid + "/cmdline");
+            boolean match = reader.read(file) && reader.isCommand(packagename);
+            ProcReader.close(file);
+
+            if (match)
+                return pid;
         }
-        return 0;
+
+        return null;
     }
 
     @Override
     public void flush(Stream stream_out)
     {
+        ProcReader.close(stat);
+        stat = null;
     }
 
     @Override
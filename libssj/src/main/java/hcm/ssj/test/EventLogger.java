@@ -107,6 +107,7 @@ public class EventLogger extends EventHandler
             }
 
             Log.i(ev.sender + "_" + ev.name + "_" + ev.id + " (" + ev.state.toString() + ", " + ev.time + ", " + ev.dur + ") : " + msg);
+            ev.release();
         }
     }
 
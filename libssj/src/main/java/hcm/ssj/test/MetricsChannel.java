@@ -0,0 +1,185 @@
+/*
+ * MetricsChannel.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Component;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.Metrics;
+import hcm.ssj.core.SensorChannel;
+import hcm.ssj.core.Util;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Provides the pipeline metrics (see hcm.ssj.core.Metrics) as a stream, one value per component and field.
+ * Only components which have been added to the pipeline before the channel can be monitored.
+ * Use with the Profiler sensor.
+ */
+public class MetricsChannel extends SensorChannel
+{
+    public class Options extends OptionList
+    {
+        public final Option<Integer> sampleRate = new Option<>("sampleRate", 1, Integer.class, "");
+        public final Option<String> components = new Option<>("components", null, String.class, "comma separated names of the components to monitor (empty = all)");
+        public final Option<String> fields = new Option<>("fields", null, String.class, "comma separated metrics to provide for each component, see Metrics.FIELDS (empty = all)");
+
+        /**
+         *
+         */
+        private Options()
+        {
+            addOptions();
+        }
+    }
+    public final Options options = new Options();
+
+    private Component[] _components;
+    private int[] _fields;
+    private double[] _values = new double[Metrics.FIELDS.length];
+
+    public MetricsChannel()
+    {
+        _name = "Profiler_Metrics";
+    }
+
+    @Override
+    protected void init()
+    {
+        Metrics metrics = _frame.getMetrics();
+
+        //components
+        List<Component> components = new ArrayList<>();
+        if (options.components.get() == null || options.components.get().trim().isEmpty())
+        {
+            for (Component c : metrics.getComponents())
+            {
+                if (c != this)
+                    components.add(c);
+            }
+        }
+        else
+        {
+            for (String name : options.components.get().split(","))
+            {
+                Component c = metrics.getComponent(name.trim());
+                if (c == null)
+                    Log.w("unknown component " + name.trim() + ", it has to be added before the channel");
+                else
+                    components.add(c);
+            }
+        }
+        _components = components.toArray(new Component[components.size()]);
+
+        //fields
+        List<String> all = Arrays.asList(Metrics.FIELDS);
+        if (options.fields.get() == null || options.fields.get().trim().isEmpty())
+        {
+            _fields = new int[all.size()];
+            for (int i = 0; i < _fields.length; i++)
+                _fields[i] = i;
+        }
+        else
+        {
+            String[] names = options.fields.get().split(",");
+            _fields = new int[names.length];
+            for (int i = 0; i < names.length; i++)
+            {
+                _fields[i] = all.indexOf(names[i].trim());
+                if (_fields[i] < 0)
+                {
+                    Log.e("unknown metric " + names[i].trim());
+                    _fields[i] = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    protected boolean process(Stream stream_out)
+    {
+        Metrics metrics = _frame.getMetrics();
+        float[] out = stream_out.ptrF();
+
+        int k = 0;
+        for (Component c : _components)
+        {
+            metrics.sample(c, _values, 0);
+            for (int f : _fields)
+                out[k++] = (float) _values[f];
+        }
+
+        return true;
+    }
+
+    @Override
+    public int getSampleDimension()
+    {
+        return Math.max(1, _components.length * _fields.length);
+    }
+
+    @Override
+    public double getSampleRate()
+    {
+        return options.sampleRate.get();
+    }
+
+    @Override
+    public int getSampleBytes()
+    {
+        return Util.sizeOf(Cons.Type.FLOAT);
+    }
+
+    @Override
+    public Cons.Type getSampleType()
+    {
+        return Cons.Type.FLOAT;
+    }
+
+    @Override
+    public void defineOutputClasses(Stream stream_out)
+    {
+        stream_out.dataclass = new String[stream_out.dim];
+        if (_components.length == 0)
+        {
+            stream_out.dataclass[0] = "none";
+            return;
+        }
+
+        int k = 0;
+        for (Component c : _components)
+        {
+            for (int f : _fields)
+                stream_out.dataclass[k++] = c.getComponentName() + "." + Metrics.FIELDS[f];
+        }
+    }
+}
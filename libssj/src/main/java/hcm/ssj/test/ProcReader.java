@@ -0,0 +1,202 @@
+/*
+ * ProcReader.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Reads small files of the linux proc file system into a reusable buffer and parses them without allocating.
+ * Files are kept open and re-read from the start for every sample.
+ */
+class ProcReader
+{
+    /** kernel clock ticks per second used in stat files (USER_HZ, 100 on all android and linux abis) */
+    static final long CLOCK_TICKS = 100;
+
+    private final byte[] _buf = new byte[4096];
+    private int _len = 0;
+
+    /**
+     * @return the opened file, null if it does not exist or cannot be read
+     */
+    static RandomAccessFile open(String path)
+    {
+        try
+        {
+            return new RandomAccessFile(path, "r");
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    static void close(RandomAccessFile file)
+    {
+        try
+        {
+            if (file != null)
+                file.close();
+        }
+        catch (IOException e)
+        {
+            //nothing to do
+        }
+    }
+
+    /**
+     * Reads the file from the start into the buffer
+     *
+     * @return false if the file could not be read (e.g. the thread has terminated)
+     */
+    boolean read(RandomAccessFile file)
+    {
+        _len = 0;
+        if (file == null)
+            return false;
+
+        try
+        {
+            file.seek(0);
+            int n;
+            while (_len < _buf.length && (n = file.read(_buf, _len, _buf.length - _len)) > 0)
+                _len += n;
+        }
+        catch (IOException e)
+        {
+            _len = 0;
+            return false;
+        }
+
+        return _len > 0;
+    }
+
+    /**
+     * @return user + system time in clock ticks from the content of a stat file, -1 if it cannot be parsed
+     */
+    long parseStatTicks()
+    {
+        //the second field (comm) is enclosed in parentheses and may contain spaces
+        int pos = _len - 1;
+        while (pos >= 0 && _buf[pos] != ')')
+            pos--;
+        if (pos < 0)
+            return -1;
+
+        //utime and stime are the 14th and 15th field, the field following ')' is the 3rd
+        pos = skipFields(pos + 1, 14 - 3);
+        long utime = parseLong(pos);
+        pos = skipFields(pos, 1);
+        long stime = parseLong(pos);
+
+        return (utime < 0 || stime < 0) ? -1 : utime + stime;
+    }
+
+    /**
+     * @return the first number of the buffer (e.g. the run time in ns of a schedstat file), -1 if there is none
+     */
+    long parseFirst()
+    {
+        return parseLong(skipSpaces(0));
+    }
+
+    /**
+     * @return the numeric value of the given key of a status file (e.g. "VmRSS:" in kB), -1 if it cannot be found
+     */
+    long parseStatus(String key)
+    {
+        int num = key.length();
+        for (int line = 0; line < _len; )
+        {
+            boolean match = line + num <= _len;
+            for (int i = 0; i < num && match; i++)
+                match = _buf[line + i] == key.charAt(i);
+
+            if (match)
+                return parseLong(skipSpaces(line + num));
+
+            while (line < _len && _buf[line] != '\n')
+                line++;
+            line++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return true if the first zero-terminated string of the buffer (e.g. the command of a cmdline file) equals the given name
+     */
+    boolean isCommand(String name)
+    {
+        int num = name.length();
+        if (num > _len || (num < _len && _buf[num] != 0))
+            return false;
+
+        for (int i = 0; i < num; i++)
+        {
+            if (_buf[i] != name.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    private int skipSpaces(int pos)
+    {
+        while (pos < _len && (_buf[pos] == ' ' || _buf[pos] == '\t'))
+            pos++;
+        return pos;
+    }
+
+    /**
+     * @return position of the field which follows the given number of fields
+     */
+    private int skipFields(int pos, int num)
+    {
+        for (int i = 0; i < num; i++)
+        {
+            pos = skipSpaces(pos);
+            while (pos < _len && _buf[pos] != ' ')
+                pos++;
+        }
+
+        return skipSpaces(pos);
+    }
+
+    private long parseLong(int pos)
+    {
+        if (pos >= _len || _buf[pos] < '0' || _buf[pos] > '9')
+            return -1;
+
+        long value = 0;
+        while (pos < _len && _buf[pos] >= '0' && _buf[pos] <= '9')
+            value = value * 10 + (_buf[pos++] - '0');
+
+        return value;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * TelemetryChannel.java
+ * Copyright (c) 2017
+ * Authors: Ionut Damian, Michael Dietz, Frank Gaibler, Daniel Langerenken, Simon Flutura
+ * *****************************************************
+ * This file is part of the Social Signal Interpretation for Java (SSJ) framework
+ * developed at the Lab for Human Centered Multimedia of the University of Augsburg.
+ *
+ * SSJ has been inspired by the SSI (http://openssi.net) framework. SSJ is not a
+ * one-to-one port of SSI to Java, it is an approximation. Nor does SSJ pretend
+ * to offer SSI's comprehensive functionality and performance (this is java after all).
+ * Nevertheless, SSJ borrows a lot of programming patterns from SSI.
+ *
+ * This library is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, see <http://www.gnu.org/licenses/>.
+ */
+
+package hcm.ssj.test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import hcm.ssj.core.Cons;
+import hcm.ssj.core.Component;
+import hcm.ssj.core.Log;
+import hcm.ssj.core.SensorChannel;
+import hcm.ssj.core.Util;
+import hcm.ssj.core.option.Option;
+import hcm.ssj.core.option.OptionList;
+import hcm.ssj.core.platform.Platform;
+import hcm.ssj.core.stream.Stream;
+
+/**
+ * Provides cpu and memory usage of the own process by reading the proc file system (no external commands are executed).
+ * The first dimensions contain the cpu load of the process (in % of one core), its resident memory (in MB)
+ * and the number of garbage collections since the start of the pipeline. If enabled, the cpu load of every
+ * component added before the channel follows (based on the threads executing them), as well as the load of the
+ * remaining pipeline threads (shared workers, sensors, event dispatching) and of all other threads of the process.
+ * Use with the Profiler sensor.
+ */
+public class TelemetryChannel extends SensorChannel
+{
+    public class Options extends OptionList
+    {
+        public final Option<Integer> sampleRate = new Option<>("sampleRate", 10, Integer.class, "");
+        public final Option<Boolean> threads = new Option<>("threads", true, Boolean.class, "provide the cpu load of each component");
+
+        /**
+         *
+         */
+        private Options()
+        {
+            addOptions();
+        }
+    }
+    public final Options options = new Options();
+
+    private static final String TASK_DIR = "/proc/self/task";
+    private static final int DIM_PROCESS = 3;
+
+    private final ProcReader _reader = new ProcReader();
+
+    private RandomAccessFile _stat;
+    private RandomAccessFile _status;
+    private long _lastTicks;
+    private long _lastTime;
+    private long _gcStart;
+
+    //names of the components with a cpu dimension, followed by the pipeline and other threads
+    private String[] _owners = new String[0];
+    private HashMap<String, Integer> _ownerDim = new HashMap<>();
+    private long[] _load;
+
+    //monitored threads, cached to avoid reopening their files for every sample
+    private boolean _schedstat;
+    private int _numThreads = 0;
+    private int[] _tid = new int[0];
+    private int[] _dim = new int[0];
+    private RandomAccessFile[] _file = new RandomAccessFile[0];
+    private long[] _last = new long[0];
+    private boolean[] _seen = new boolean[0];
+    private int _rescan = 0;
+
+    public TelemetryChannel()
+    {
+        _name = "Profiler_Telemetry";
+    }
+
+    @Override
+    protected void init()
+    {
+        List<String> owners = new ArrayList<>();
+        if (options.threads.get())
+        {
+            for (Component c : _frame.getMetrics().getComponents())
+            {
+                //threads are identified by component name, components with the same name share a dimension
+                if (c != this && !owners.contains(c.getComponentName()))
+                    owners.add(c.getComponentName());
+            }
+            owners.add(_name);
+            owners.add("pipeline");
+            owners.add("other");
+        }
+
+        _owners = owners.toArray(new String[owners.size()]);
+        _ownerDim.clear();
+        for (int i = 0; i < _owners.length; i++)
+            _ownerDim.put(_owners[i], DIM_PROCESS + i);
+        _load = new long[DIM_PROCESS + _owners.length];
+    }
+
+    @Override
+    public void enter(Stream stream_out)
+    {
+        _stat = ProcReader.open("/proc/self/stat");
+        _status = ProcReader.open("/proc/self/status");
+        if (_stat == null || _status == null)
+            Log.w("proc file system not available, cpu and memory usage cannot be monitored");
+
+        _lastTicks = _reader.read(_stat) ? _reader.parseStatTicks() : 0;
+        _lastTime = System.nanoTime();
+
+        _gcStart = Platform.get().getGcCount();
+        if (_gcStart < 0)
+            Log.w("number of garbage collections not available on this platform");
+
+        //the scheduler statistics provide the cpu time in ns instead of clock ticks, but may not be compiled into the kernel
+        RandomAccessFile file = ProcReader.open(TASK_DIR + "/" + Platform.get().myTid() + "/schedstat");
+        _schedstat = _reader.read(file) && _reader.parseFirst() >= 0;
+        ProcReader.close(file);
+
+        _rescan = 0;
+        if (_owners.length > 0)
+            scanThreads(true);
+    }
+
+    @Override
+    protected boolean process(Stream stream_out)
+    {
+        float[] out = stream_out.ptrF();
+
+        long time = System.nanoTime();
+        double elapsed = Math.max(1, time - _lastTime);
+        _lastTime = time;
+
+        //process
+        long ticks = _reader.read(_stat) ? _reader.parseStatTicks() : -1;
+        out[0] = (ticks >= 0) ? (float) ((ticks - _lastTicks) * (1e9 / ProcReader.CLOCK_TICKS) / elapsed * 100) : 0;
+        if (ticks >= 0)
+            _lastTicks = ticks;
+
+        long rss = _reader.read(_status) ? _reader.parseStatus("VmRSS:") : -1;
+        out[1] = (rss >= 0) ? rss / 1024f : 0;
+
+        long gc = (_gcStart >= 0) ? Platform.get().getGcCount() : -1;
+        out[2] = (gc >= 0) ? gc - _gcStart : 0;
+
+        //threads, new threads and owners are picked up once per second
+        if (_owners.length > 0)
+        {
+            if (++_rescan >= options.sampleRate.get())
+            {
+                _rescan = 0;
+                scanThreads(false);
+            }
+
+            Arrays.fill(_load, 0);
+            for (int i = 0; i < _numThreads; i++)
+            {
+                long value = readThread(_file[i]);
+                if (value < 0)
+                    continue; //thread has terminated, it is removed during the next scan
+
+                _load[_dim[i]] += value - _last[i];
+                _last[i] = value;
+            }
+
+            for (int d = DIM_PROCESS; d < _load.length; d++)
+                out[d] = (float) (_load[d] / elapsed * 100);
+        }
+
+        return true;
+    }
+
+    /**
+     * @return cpu time of the thread in ns, -1 if it cannot be read
+     */
+    private long readThread(RandomAccessFile file)
+    {
+        if (!_reader.read(file))
+            return -1;
+
+        if (_schedstat)
+            return _reader.parseFirst();
+
+        long ticks = _reader.parseStatTicks();
+        return (ticks < 0) ? -1 : ticks * (1000000000L / ProcReader.CLOCK_TICKS);
+    }
+
+    /**
+     * Updates the list of threads and their owners
+     *
+     * @param initial if true, the cpu time the threads used so far is not attributed to the next sample
+     */
+    private void scanThreads(boolean initial)
+    {
+        String[] tasks = new File(TASK_DIR).list();
+        if (tasks == null)
+            return;
+
+        Arrays.fill(_seen, 0, _numThreads, false);
+
+        for (String task : tasks)
+        {
+            int tid;
+            try
+            {
+                tid = Integer.parseInt(task);
+            }
+            catch (NumberFormatException e)
+            {
+                continue;
+            }
+
+            int i = 0;
+            while (i < _numThreads && _tid[i] != tid)
+                i++;
+
+            if (i == _numThreads)
+            {
+                RandomAccessFile file = ProcReader.open(TASK_DIR + "/" + task + (_schedstat ? "/schedstat" : "/stat"));
+                if (file == null)
+                    continue;
+
+                grow(_numThreads + 1);
+                _tid[i] = tid;
+                _file[i] = file;
+
+                //threads which started since the last scan are accounted from their beginning
+                _last[i] = initial ? Math.max(0, readThread(file)) : 0;
+                _numThreads++;
+            }
+
+            _seen[i] = true;
+            _dim[i] = getOwnerDim(_frame.getThreadOwner(tid));
+        }
+
+        //remove terminated threads
+        int n = 0;
+        for (int i = 0; i < _numThreads; i++)
+        {
+            if (!_seen[i])
+            {
+                ProcReader.close(_file[i]);
+                continue;
+            }
+
+            _tid[n] = _tid[i];
+            _dim[n] = _dim[i];
+            _file[n] = _file[i];
+            _last[n] = _last[i];
+            n++;
+        }
+
+        Arrays.fill(_file, n, _numThreads, null);
+        _numThreads = n;
+    }
+
+    private int getOwnerDim(String owner)
+    {
+        if (owner == null)
+            return _ownerDim.get("other");
+
+        Integer dim = _ownerDim.get(owner);
+        return (dim != null) ? dim : _ownerDim.get("pipeline");
+    }
+
+    private void grow(int size)
+    {
+        if (size <= _tid.length)
+            return;
+
+        size = Math.max(size, _tid.length * 2);
+        _tid = Arrays.copyOf(_tid, size);
+        _dim = Arrays.copyOf(_dim, size);
+        _file = Arrays.copyOf(_file, size);
+        _last = Arrays.copyOf(_last, size);
+        _seen = Arrays.copyOf(_seen, size);
+    }
+
+    @Override
+    public void flush(Stream stream_out)
+    {
+        for (int i = 0; i < _numThreads; i++)
+            ProcReader.close(_file[i]);
+        Arrays.fill(_file, 0, _numThreads, null);
+        _numThreads = 0;
+
+        ProcReader.close(_stat);
+        ProcReader.close(_status);
+        _stat = null;
+        _status = null;
+    }
+
+    @Override
+    public int getSampleDimension()
+    {
+        return DIM_PROCESS + _owners.length;
+    }
+
+    @Override
+    public double getSampleRate()
+    {
+        return options.sampleRate.get();
+    }
+
+    @Override
+    public int getSampleBytes()
+    {
+        return Util.sizeOf(Cons.Type.FLOAT);
+    }
+
+    @Override
+    public Cons.Type getSampleType()
+    {
+        return Cons.Type.FLOAT;
+    }
+
+    @Override
+    public void defineOutputClasses(Stream stream_out)
+    {
+        stream_out.dataclass = new String[stream_out.dim];
+        stream_out.dataclass[0] = "process.cpu";
+        stream_out.dataclass[1] = "process.rss";
+        stream_out.dataclass[2] = "process.gc";
+
+        for (int i = 0; i < _owners.length; i++)
+            stream_out.dataclass[DIM_PROCESS + i] = _owners[i] + ".cpu";
+    }
+}